@@ -0,0 +1,89 @@
+package com.adp.interview.discountapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountRequest;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.Item;
+import com.adp.interview.discountapi.entity.ItemType;
+
+/**
+ * Deterministic discount catalogs and carts for the benchmarks.
+ */
+public final class BenchmarkData {
+
+    /**
+     * Relative weights of ITEM_TYPE, ITEM_COUNT and ITEM_COST rules in a generated catalog.
+     */
+    public enum RuleMix {
+        BALANCED(1, 1, 1), ITEM_TYPE(1, 0, 0), ITEM_COUNT(0, 1, 0), ITEM_COST(0, 0, 1);
+
+        private final int itemType;
+        private final int itemCount;
+        private final int itemCost;
+
+        RuleMix(int itemType, int itemCount, int itemCost) {
+            this.itemType = itemType;
+            this.itemCount = itemCount;
+            this.itemCost = itemCost;
+        }
+
+        DiscountType pick(Random random) {
+            int value = random.nextInt(itemType + itemCount + itemCost);
+            if (value < itemType) {
+                return DiscountType.ITEM_TYPE;
+            }
+            return value < itemType + itemCount ? DiscountType.ITEM_COUNT : DiscountType.ITEM_COST;
+        }
+    }
+
+    /** Number of distinct item ids shared by carts and ITEM_COUNT rules. */
+    public static final int ITEM_ID_SPACE = 5000;
+
+    private BenchmarkData() {
+    }
+
+    public static List<Discount> discounts(int count, RuleMix mix, long seed) {
+        Random random = new Random(seed);
+        ItemType[] itemTypes = ItemType.values();
+        List<Discount> discounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Discount discount = new Discount();
+            discount.setDiscountCode("CODE" + i);
+            discount.setDescription("benchmark discount " + i);
+            discount.setDiscountPercentage(1 + random.nextInt(9900) / 100.0);
+            DiscountType discountType = mix.pick(random);
+            discount.setDiscountType(discountType);
+            switch (discountType) {
+                case ITEM_TYPE:
+                    discount.setApplicableItemType(itemTypes[random.nextInt(itemTypes.length)]);
+                    break;
+                case ITEM_COUNT:
+                    discount.setApplicableItemId("item" + random.nextInt(ITEM_ID_SPACE));
+                    discount.setItemQuantityThreshold(1 + random.nextInt(5));
+                    break;
+                default:
+                    discount.setMinimumCost(random.nextInt(100000) / 100.0);
+                    break;
+            }
+            discounts.add(discount);
+        }
+        return discounts;
+    }
+
+    public static DiscountRequest cart(int lines, long seed) {
+        Random random = new Random(seed);
+        ItemType[] itemTypes = ItemType.values();
+        List<Item> items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            items.add(new Item("item" + random.nextInt(ITEM_ID_SPACE), 1 + random.nextInt(100000) / 100.0,
+                    itemTypes[random.nextInt(itemTypes.length)], 1 + random.nextInt(10)));
+        }
+        DiscountRequest request = new DiscountRequest();
+        request.setItems(items);
+        return request;
+    }
+}
@@ -0,0 +1,92 @@
+package com.adp.interview.discountapi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountRequest;
+import com.adp.interview.discountapi.repository.DiscountRepository;
+import com.adp.interview.discountapi.service.impl.CartAggregate;
+import com.adp.interview.discountapi.service.impl.DiscountEvaluator;
+import com.adp.interview.discountapi.service.impl.DiscountRuleCache;
+import com.adp.interview.discountapi.service.impl.DiscountRuleIndex;
+import com.adp.interview.discountapi.service.impl.DiscountServiceImpl;
+import com.adp.interview.discountapi.service.impl.PricingResultCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Throughput and latency of best-discount calculation for a range of catalog sizes, cart sizes
+ * and rule mixes. The {@code repository} path loads the catalog through
+ * {@link DiscountRepository#findAll()} on every call, as the original implementation did; the
+ * {@code index} path calls {@link DiscountServiceImpl#calculateBestDiscount}, which prices
+ * against the in-memory {@link DiscountRuleCache}, with the result cache turned off; the
+ * {@code cached} path is the same call answered from the {@link PricingResultCache}.
+ *
+ * <p>Run with {@code mvn -Pbenchmark test-compile exec:exec}; pass JMH options such as
+ * {@code -Djmh.args="CalculateBestDiscount -p discounts=1000 -prof gc"} to narrow the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CalculateBestDiscountBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int discounts;
+
+    @Param({"1", "100", "1000"})
+    public int cartSize;
+
+    @Param({"BALANCED", "ITEM_TYPE", "ITEM_COUNT", "ITEM_COST"})
+    public BenchmarkData.RuleMix mix;
+
+    @Param({"repository", "index", "cached"})
+    public String path;
+
+    private ConfigurableApplicationContext context;
+    private DiscountRepository discountRepository;
+    private DiscountRuleCache discountRuleCache;
+    private DiscountEvaluator discountEvaluator;
+    private DiscountServiceImpl discountService;
+    private DiscountRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = DiscountApplicationState.start("discount.result-cache.enabled=" + "cached".equals(path));
+        DiscountApplicationState.load(context, BenchmarkData.discounts(discounts, mix, 1L));
+        discountRepository = context.getBean(DiscountRepository.class);
+        discountRuleCache = context.getBean(DiscountRuleCache.class);
+        discountEvaluator = context.getBean(DiscountEvaluator.class);
+        discountService = context.getBean(DiscountServiceImpl.class);
+        discountRuleCache.reload(Discount.DEFAULT_TENANT);
+        request = BenchmarkData.cart(cartSize, 2L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object calculateBestDiscount() {
+        if ("repository".equals(path)) {
+            DiscountRuleIndex index = DiscountRuleIndex.build(discountRepository.findAll());
+            return discountEvaluator.evaluate(CartAggregate.of(request.getItems()), index);
+        }
+        return discountService.calculateBestDiscount(Discount.DEFAULT_TENANT, request);
+    }
+}
@@ -0,0 +1,58 @@
+package com.adp.interview.discountapi.benchmark;
+
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import com.adp.interview.discountapi.DiscountServiceApplication;
+import com.adp.interview.discountapi.entity.Discount;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Boots the application without a web server against an in-memory H2 database and loads a
+ * discount catalog with batched JDBC inserts.
+ */
+final class DiscountApplicationState {
+
+    private static final String INSERT_DISCOUNT = "insert into discount (discount_code, description, "
+            + "discount_percentage, discount_type, applicable_item_type, applicable_item_id, "
+            + "item_quantity_threshold, minimum_cost, stackable, exclusive_group, priority, valid_from, valid_until, "
+            + "max_redemptions, tenant_id) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private DiscountApplicationState() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(DiscountServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off", "logging.level.root=WARN")
+                .properties(properties)
+                .run();
+    }
+
+    static void load(ConfigurableApplicationContext context, List<Discount> discounts) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("delete from discount");
+        jdbcTemplate.batchUpdate(INSERT_DISCOUNT, discounts, 1000, (ps, discount) -> {
+            ps.setString(1, discount.getDiscountCode());
+            ps.setString(2, discount.getDescription());
+            ps.setDouble(3, discount.getDiscountPercentage());
+            ps.setString(4, discount.getDiscountType().name());
+            ps.setString(5, discount.getApplicableItemType() != null ? discount.getApplicableItemType().name() : null);
+            ps.setString(6, discount.getApplicableItemId());
+            ps.setInt(7, discount.getItemQuantityThreshold());
+            ps.setDouble(8, discount.getMinimumCost());
+            ps.setBoolean(9, discount.isStackable());
+            ps.setString(10, discount.getExclusiveGroup());
+            ps.setInt(11, discount.getPriority());
+            ps.setObject(12, discount.getValidFrom() != null ? OffsetDateTime.ofInstant(discount.getValidFrom(), ZoneOffset.UTC) : null);
+            ps.setObject(13, discount.getValidUntil() != null ? OffsetDateTime.ofInstant(discount.getValidUntil(), ZoneOffset.UTC) : null);
+            ps.setObject(14, discount.getMaxRedemptions(), Types.INTEGER);
+            ps.setString(15, discount.getTenantId());
+        });
+    }
+}
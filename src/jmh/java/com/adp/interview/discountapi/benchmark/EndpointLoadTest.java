@@ -0,0 +1,255 @@
+package com.adp.interview.discountapi.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.adp.interview.discountapi.DiscountServiceApplication;
+import com.adp.interview.discountapi.benchmark.BenchmarkData.RuleMix;
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.service.impl.DiscountServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Closed-loop HTTP load test for comparing platform and virtual request threads. Starts the
+ * application on a random port, loads a discount catalog with a bulk import, then runs {@code concurrency} clients that each send one request at a time for the given
+ * duration and reports throughput and latency percentiles. Options are {@code --name=value}:
+ *
+ * <ul>
+ *   <li>{@code threads}: {@code platform} (default) or {@code virtual}; virtual needs Java 21</li>
+ *   <li>{@code scenario}: {@code calculate} (default) or {@code crud}, which cycles through
+ *       add, get, list and delete</li>
+ *   <li>{@code concurrency} (1000), {@code duration} seconds (20), {@code warmup} seconds (5),
+ *       {@code discounts} (1000), {@code cartSize} (10)</li>
+ *   <li>{@code clients} (100): number of distinct {@code X-Client-Id} values the requests are
+ *       spread over, for the per-client rate limit; the header is trusted for the test since
+ *       every request comes from the same address</li>
+ * </ul>
+ *
+ * Responses refused by admission control (429 and 503) are reported as {@code shed}, not as
+ * errors, and are included in the latency percentiles.
+ *
+ * Any other option is passed to the application as a property, for example
+ * {@code --server.tomcat.threads.max=50}, or {@code --spring.profiles.active=reactive} to load
+ * the WebFlux variant of the API.
+ */
+public final class EndpointLoadTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules();
+
+    private EndpointLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of("threads", "platform", "scenario", "calculate",
+                "concurrency", "1000", "duration", "20", "warmup", "5", "discounts", "1000", "cartSize", "10", "clients", "100"));
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            if (options.containsKey(option[0])) {
+                options.put(option[0], option[1]);
+            } else {
+                properties.put(option[0], option[1]);
+            }
+        }
+        boolean virtual = options.get("threads").equals("virtual");
+        int concurrency = Integer.parseInt(options.get("concurrency"));
+        properties.putIfAbsent("server.port", "0");
+        properties.putIfAbsent("spring.main.banner-mode", "off");
+        properties.putIfAbsent("logging.level.root", "WARN");
+        properties.putIfAbsent("spring.threads.virtual.enabled", String.valueOf(virtual));
+        properties.putIfAbsent("discount.admission.trust-client-header", "true");
+
+        // as command line arguments, so they override application.properties
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DiscountServiceApplication.class)
+                .run(properties.entrySet().stream().map(property -> "--" + property.getKey() + "=" + property.getValue())
+                        .toArray(String[]::new));
+        if (virtual && !Threading.VIRTUAL.isActive(context.getEnvironment())) {
+            System.out.println("Virtual threads need Java 21 or later; running on platform threads.");
+        }
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(concurrency);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+        try {
+            List<Discount> discounts = BenchmarkData.discounts(Integer.parseInt(options.get("discounts")), RuleMix.BALANCED, 42);
+            context.getBean(DiscountServiceImpl.class).importDiscounts(Discount.DEFAULT_TENANT, discounts, Map.of());
+
+            long warmupNanos = Duration.ofSeconds(Long.parseLong(options.get("warmup"))).toNanos();
+            long durationNanos = Duration.ofSeconds(Long.parseLong(options.get("duration"))).toNanos();
+            Client[] clients = new Client[concurrency];
+            for (int i = 0; i < concurrency; i++) {
+                clients[i] = new Client(client, baseUrl, options.get("scenario"), i,
+                        Integer.parseInt(options.get("cartSize")), discounts.size(),
+                        "load-" + i % Integer.parseInt(options.get("clients")));
+            }
+            long start = System.nanoTime();
+            CountDownLatch done = new CountDownLatch(concurrency);
+            for (Client worker : clients) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        worker.run(start + warmupNanos, start + warmupNanos + durationNanos);
+                    } finally {
+                        done.countDown();
+                    }
+                });
+                thread.setDaemon(true);
+                thread.start();
+            }
+            done.await();
+            options.put("stack", context instanceof ReactiveWebServerApplicationContext ? "reactive" : "servlet");
+            report(options, clients, durationNanos);
+        } finally {
+            clientExecutor.shutdownNow();
+            context.close();
+        }
+    }
+
+    private static void report(Map<String, String> options, Client[] clients, long durationNanos) {
+        int count = 0;
+        long errors = 0;
+        long shed = 0;
+        for (Client worker : clients) {
+            count += worker.count;
+            errors += worker.errors;
+            shed += worker.shed;
+        }
+        long[] latencies = new long[count];
+        int offset = 0;
+        for (Client worker : clients) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            offset += worker.count;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("stack=%s threads=%s scenario=%s concurrency=%s requests=%d errors=%d shed=%d throughput=%.0f req/s "
+                        + "p50=%.2f ms p99=%.2f ms p99.9=%.2f ms max=%.2f ms%n",
+                options.get("stack"), options.get("threads"), options.get("scenario"), options.get("concurrency"), count, errors, shed,
+                count / (durationNanos / 1e9), millis(latencies, 0.50), millis(latencies, 0.99),
+                millis(latencies, 0.999), millis(latencies, 1.0));
+    }
+
+    private static double millis(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static HttpRequest post(String url, byte[] body, String clientId) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .header("X-Client-Id", clientId)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private static int send(HttpClient client, HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * One closed-loop client. Latencies are recorded only inside the measurement window.
+     */
+    private static final class Client {
+
+        private final HttpClient client;
+        private final String baseUrl;
+        private final String scenario;
+        private final int id;
+        private final byte[] cart;
+        private final int discountCount;
+        private final String clientId;
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+        private long shed;
+
+        Client(HttpClient client, String baseUrl, String scenario, int id, int cartSize, int discountCount, String clientId)
+                throws Exception {
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.scenario = scenario;
+            this.id = id;
+            this.cart = OBJECT_MAPPER.writeValueAsBytes(BenchmarkData.cart(cartSize, id));
+            this.discountCount = discountCount;
+            this.clientId = clientId;
+        }
+
+        void run(long measureFrom, long measureUntil) {
+            long sequence = 0;
+            long now;
+            while ((now = System.nanoTime()) < measureUntil) {
+                HttpRequest request = next(sequence++);
+                int status;
+                try {
+                    status = send(client, request);
+                } catch (Exception e) {
+                    status = 0;
+                }
+                long end = System.nanoTime();
+                if (now >= measureFrom) {
+                    record(end - now, status);
+                }
+            }
+        }
+
+        private HttpRequest next(long sequence) {
+            if (scenario.equals("calculate")) {
+                return post(baseUrl + "/discounts/calculate", cart, clientId);
+            }
+            String code = "LOAD-" + id + "-" + (sequence / 4);
+            switch ((int) (sequence % 4)) {
+                case 0:
+                    Discount discount = new Discount();
+                    discount.setDiscountCode(code);
+                    discount.setDescription("load test");
+                    discount.setDiscountPercentage(5);
+                    discount.setDiscountType(DiscountType.ITEM_COST);
+                    discount.setMinimumCost(100);
+                    try {
+                        return post(baseUrl + "/discounts", OBJECT_MAPPER.writeValueAsBytes(discount), clientId);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                case 1:
+                    return HttpRequest.newBuilder(URI.create(baseUrl + "/discounts/" + code)).GET().build();
+                case 2:
+                    return HttpRequest.newBuilder(URI.create(baseUrl + "/discounts?view=summary&limit=20&after=CODE"
+                            + (sequence % discountCount))).GET().build();
+                default:
+                    return HttpRequest.newBuilder(URI.create(baseUrl + "/discounts/" + code)).DELETE().build();
+            }
+        }
+
+        private void record(long latencyNanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (status == 429 || status == 503) {
+                shed++;
+            } else if (status < 200 || status >= 300) {
+                errors++;
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.adp.interview.discountapi.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.adp.interview.discountapi.service.impl.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the fixed-point discount arithmetic in {@link Money} with the double arithmetic it
+ * replaced ({@code spend * percentage / 100}), scoring the same rules and keeping the maximum
+ * the way {@code DiscountEvaluator} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rules;
+
+    private double[] spend;
+    private double[] percentages;
+    private long[] spendMinorUnits;
+    private int[] basisPoints;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(3);
+        spend = new double[rules];
+        percentages = new double[rules];
+        spendMinorUnits = new long[rules];
+        basisPoints = new int[rules];
+        for (int i = 0; i < rules; i++) {
+            spendMinorUnits[i] = random.nextInt(10_000_000);
+            basisPoints[i] = random.nextInt(10001);
+            spend[i] = spendMinorUnits[i] / 100.0;
+            percentages[i] = basisPoints[i] / 100.0;
+        }
+    }
+
+    @Benchmark
+    public double bestDiscountDouble() {
+        double best = 0.0;
+        for (int i = 0; i < rules; i++) {
+            double amount = spend[i] * percentages[i] / 100;
+            if (amount > best) {
+                best = amount;
+            }
+        }
+        return best;
+    }
+
+    @Benchmark
+    public long bestDiscountFixedPoint() {
+        long best = 0L;
+        for (int i = 0; i < rules; i++) {
+            long amount = Money.scaledPercentOf(spendMinorUnits[i], basisPoints[i]);
+            if (amount > best) {
+                best = amount;
+            }
+        }
+        return Money.roundScaled(best);
+    }
+}
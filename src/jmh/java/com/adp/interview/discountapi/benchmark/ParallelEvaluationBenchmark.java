@@ -0,0 +1,76 @@
+package com.adp.interview.discountapi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.adp.interview.discountapi.service.impl.CartAggregate;
+import com.adp.interview.discountapi.service.impl.DiscountEvaluator;
+import com.adp.interview.discountapi.service.impl.DiscountRuleIndex;
+import com.adp.interview.discountapi.service.impl.PricingResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of {@link DiscountEvaluator} scoring every candidate rule on the request thread versus
+ * splitting them across its fork/join pool, to find the catalog size at which the parallel
+ * path starts to pay off. ITEM_TYPE and ITEM_COST catalogs make nearly every rule a candidate
+ * for a cart of mixed items. The crossover depends on the number of cores, so run it on the
+ * hardware that serves traffic, for example
+ * {@code -Djmh.args="ParallelEvaluation -p parallelism=8"}, and set
+ * {@code discount.evaluation.parallel-threshold} from the result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelEvaluationBenchmark {
+
+    @Param({"1000", "5000", "20000", "100000", "500000"})
+    public int discounts;
+
+    @Param({"ITEM_TYPE", "ITEM_COST"})
+    public BenchmarkData.RuleMix mix;
+
+    @Param({"sequential", "parallel"})
+    public String path;
+
+    @Param({"0"})
+    public int parallelism; // 0 for the number of processors
+
+    @Param({"4096"})
+    public int chunkSize;
+
+    private DiscountEvaluator evaluator;
+    private DiscountRuleIndex index;
+    private CartAggregate cart;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // a threshold of one sends every cart down the parallel path
+        evaluator = "parallel".equals(path) ? new DiscountEvaluator(1, parallelism, chunkSize) : new DiscountEvaluator();
+        index = DiscountRuleIndex.build(BenchmarkData.discounts(discounts, mix, 1L));
+        cart = CartAggregate.of(BenchmarkData.cart(100, 2L).getItems());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        evaluator.shutdown();
+    }
+
+    @Benchmark
+    public PricingResult evaluate() {
+        return evaluator.evaluate(cart, index);
+    }
+}
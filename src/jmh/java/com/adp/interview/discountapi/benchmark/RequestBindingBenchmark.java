@@ -0,0 +1,61 @@
+package com.adp.interview.discountapi.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.adp.interview.discountapi.config.DiscountRequestDeserializer;
+import com.adp.interview.discountapi.entity.DiscountRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares binding a {@code /calculate} body with {@link DiscountRequestDeserializer} against
+ * Jackson's default bean binding into the same classes, which the endpoint used before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBindingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int lines;
+
+    private byte[] body;
+    private ObjectReader beanReader;
+    private ObjectReader streamingReader;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper beanMapper = new ObjectMapper().findAndRegisterModules();
+        ObjectMapper streamingMapper = new ObjectMapper().registerModule(new SimpleModule()
+                .addDeserializer(DiscountRequest.class, new DiscountRequestDeserializer(10000, 1000000, 1000000, 100000000)));
+        body = beanMapper.writeValueAsBytes(BenchmarkData.cart(lines, 11));
+        beanReader = beanMapper.readerFor(DiscountRequest.class);
+        streamingReader = streamingMapper.readerFor(DiscountRequest.class);
+    }
+
+    @Benchmark
+    public DiscountRequest beanBinding() throws IOException {
+        return beanReader.readValue(body);
+    }
+
+    @Benchmark
+    public DiscountRequest streamingBinding() throws IOException {
+        return streamingReader.readValue(body);
+    }
+}
@@ -0,0 +1,104 @@
+package com.adp.interview.discountapi.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits requests in flight to a limit that adapts to their latency, additive increase and
+ * multiplicative decrease: each request that finishes within the latency target while the limit
+ * is at least half used raises the limit by {@code 1 / limit}, about one per limit's worth of
+ * requests, and a slower one multiplies it by {@code backoff}. Requests that started before the
+ * last decrease do not decrease it again, so a burst of slow responses backs off once rather than
+ * once per response. All state is in atomics updated with compare-and-set.
+ */
+final class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoff;
+    private final LongSupplier clock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limitBits; // double
+    private final AtomicLong lastDecrease;
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyTargetNanos, double backoff) {
+        this(initialLimit, minLimit, maxLimit, latencyTargetNanos, backoff, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyTargetNanos, double backoff,
+                               LongSupplier clock) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.backoff = backoff;
+        this.clock = clock;
+        limitBits = new AtomicLong(Double.doubleToRawLongBits(Math.max(minLimit, Math.min(maxLimit, initialLimit))));
+        lastDecrease = new AtomicLong(clock.getAsLong() - 1);
+    }
+
+    /**
+     * Admits a request if fewer than the limit are in flight. Every admitted request must be
+     * {@link #release(long) released}.
+     */
+    boolean tryAcquire() {
+        for (;;) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Ends a request admitted at {@code startNanos} (from {@link #now()}) and adjusts the limit
+     * by its latency.
+     */
+    void release(long startNanos) {
+        int current = inFlight.getAndDecrement();
+        long end = clock.getAsLong();
+        if (end - startNanos > latencyTargetNanos) {
+            long last = lastDecrease.get();
+            if (startNanos - last > 0 && lastDecrease.compareAndSet(last, end)) {
+                update(-1.0, current);
+            }
+        } else {
+            update(1.0, current);
+        }
+    }
+
+    long now() {
+        return clock.getAsLong();
+    }
+
+    int getLimit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void update(double direction, int inFlightAtEnd) {
+        for (;;) {
+            long bits = limitBits.get();
+            double limit = Double.longBitsToDouble(bits);
+            double next;
+            if (direction < 0) {
+                next = Math.max(minLimit, limit * backoff);
+            } else if (inFlightAtEnd * 2 >= limit) {
+                next = Math.min(maxLimit, limit + 1.0 / limit);
+            } else {
+                return; // not limited by the current limit, so nothing says a higher one would be safe
+            }
+            if (next == limit || limitBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+}
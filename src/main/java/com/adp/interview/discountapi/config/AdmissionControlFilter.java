@@ -0,0 +1,173 @@
+package com.adp.interview.discountapi.config;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Admission control for the calculate endpoints ({@code /discounts/calculate} and the paths
+ * under it), applied before the request body is read so that a refused request costs a header
+ * lookup and a few atomic operations. {@code /calculate/batch} and {@code /calculate/stream}
+ * are left out: one of their requests carries many carts, so it would cost one token for the
+ * work of many, and its response time grows with its size, which would make the concurrency
+ * limit back off for every other request. They are bounded by {@code discount.batch.max-size}
+ * and by reading the stream only as fast as it is answered.
+ *
+ * <ul>
+ *   <li>Each client, named by its remote address, gets a {@link TokenBucketLimiter token bucket} of
+ *       {@code discount.admission.burst} requests refilled at {@code discount.admission.rate-per-second}.
+ *       An empty bucket gets 429 with {@code Retry-After} set to when a token is due. Only with
+ *       {@code discount.admission.trust-client-header} is the client named by the
+ *       {@code discount.admission.client-header} header instead, falling back to the remote
+ *       address, for deployments where a trusted proxy sets that header; otherwise any caller
+ *       could pick a fresh bucket per request.</li>
+ *   <li>Requests in flight are limited by an {@link AdaptiveConcurrencyLimiter} that backs off
+ *       when responses take longer than {@code discount.admission.latency-target-ms}. A request
+ *       over the limit gets 503 with {@code Retry-After: 1}. Stacked, ranked and explained
+ *       calculations do much more work per cart, so they have a limiter of their own, configured
+ *       under {@code discount.admission.slow}; otherwise their latency would shrink the limit for
+ *       plain pricing and shed it.</li>
+ * </ul>
+ *
+ * Refusals are counted by the {@value #REJECTED_COUNTER} counter, tagged with the reason, and the
+ * current limit and requests in flight of each limiter are published as gauges tagged
+ * {@code requests=pricing} or {@code slow}. Servlet variant only.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    static final String REJECTED_COUNTER = "discount.admission.rejected";
+    static final String PATH = "/discounts/calculate";
+    static final List<String> UNLIMITED_PATHS = List.of(PATH + "/batch", PATH + "/stream");
+    static final List<String> SLOW_PATHS = List.of(PATH + "/stacked", PATH + "/top");
+
+    private final boolean enabled;
+    private final String clientHeader; // null unless the header is trusted
+    private final TokenBucketLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final AdaptiveConcurrencyLimiter slowConcurrencyLimiter;
+    private final Counter rateRejections;
+    private final Counter concurrencyRejections;
+
+    @Autowired
+    public AdmissionControlFilter(MeterRegistry meterRegistry,
+                                  @Value("${discount.admission.enabled:true}") boolean enabled,
+                                  @Value("${discount.admission.trust-client-header:false}") boolean trustClientHeader,
+                                  @Value("${discount.admission.client-header:X-Client-Id}") String clientHeader,
+                                  @Value("${discount.admission.rate-per-second:200}") double ratePerSecond,
+                                  @Value("${discount.admission.burst:400}") int burst,
+                                  @Value("${discount.admission.max-clients:100000}") long maxClients,
+                                  @Value("${discount.admission.initial-limit:100}") int initialLimit,
+                                  @Value("${discount.admission.min-limit:10}") int minLimit,
+                                  @Value("${discount.admission.max-limit:1000}") int maxLimit,
+                                  @Value("${discount.admission.latency-target-ms:250}") long latencyTargetMillis,
+                                  @Value("${discount.admission.slow.initial-limit:20}") int slowInitialLimit,
+                                  @Value("${discount.admission.slow.min-limit:2}") int slowMinLimit,
+                                  @Value("${discount.admission.slow.max-limit:200}") int slowMaxLimit,
+                                  @Value("${discount.admission.slow.latency-target-ms:1000}") long slowLatencyTargetMillis) {
+        this(meterRegistry, enabled, trustClientHeader ? clientHeader : null, new TokenBucketLimiter(ratePerSecond, burst, maxClients),
+                new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                        TimeUnit.MILLISECONDS.toNanos(latencyTargetMillis), 0.9),
+                new AdaptiveConcurrencyLimiter(slowInitialLimit, slowMinLimit, slowMaxLimit,
+                        TimeUnit.MILLISECONDS.toNanos(slowLatencyTargetMillis), 0.9));
+    }
+
+    AdmissionControlFilter(MeterRegistry meterRegistry, boolean enabled, String clientHeader, TokenBucketLimiter rateLimiter,
+                           AdaptiveConcurrencyLimiter concurrencyLimiter, AdaptiveConcurrencyLimiter slowConcurrencyLimiter) {
+        this.enabled = enabled;
+        this.clientHeader = clientHeader;
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.slowConcurrencyLimiter = slowConcurrencyLimiter;
+        rateRejections = Counter.builder(REJECTED_COUNTER)
+                .description("Calculate requests refused by admission control")
+                .tag("reason", "rate")
+                .register(meterRegistry);
+        concurrencyRejections = Counter.builder(REJECTED_COUNTER)
+                .description("Calculate requests refused by admission control")
+                .tag("reason", "concurrency")
+                .register(meterRegistry);
+        registerGauges(meterRegistry, concurrencyLimiter, "pricing");
+        registerGauges(meterRegistry, slowConcurrencyLimiter, "slow");
+    }
+
+    private static void registerGauges(MeterRegistry meterRegistry, AdaptiveConcurrencyLimiter limiter, String requests) {
+        Gauge.builder("discount.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Calculate requests allowed in flight")
+                .tag("requests", requests)
+                .register(meterRegistry);
+        Gauge.builder("discount.admission.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Calculate requests in flight")
+                .tag("requests", requests)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !(path.startsWith(PATH) && (path.length() == PATH.length() || path.charAt(PATH.length()) == '/'))
+                || UNLIMITED_PATHS.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String client = clientHeader != null ? request.getHeader(clientHeader) : null;
+        long wait = rateLimiter.tryAcquire(client != null ? client : request.getRemoteAddr());
+        if (wait > 0) {
+            rateRejections.increment();
+            refuse(response, HttpStatus.TOO_MANY_REQUESTS, wait);
+            return;
+        }
+        AdaptiveConcurrencyLimiter limiter = isSlow(request) ? slowConcurrencyLimiter : concurrencyLimiter;
+        if (!limiter.tryAcquire()) {
+            concurrencyRejections.increment();
+            refuse(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1));
+            return;
+        }
+        long start = limiter.now();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.release(start);
+        }
+    }
+
+    /**
+     * Stacked and ranked calculations, and explained ones, whose {@code explain} flag is read
+     * from the query string.
+     */
+    private static boolean isSlow(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return SLOW_PATHS.contains(path) || path.equals(PATH) && Boolean.parseBoolean(request.getParameter("explain"));
+    }
+
+    /**
+     * Answers with only a status and {@code Retry-After}, in whole seconds rounded up, without
+     * going through Spring's error handling.
+     */
+    private static void refuse(HttpServletResponse response, HttpStatus status, long retryAfterNanos) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1L, (retryAfterNanos + 999_999_999L) / 1_000_000_000L)));
+        response.setContentLength(0);
+    }
+}
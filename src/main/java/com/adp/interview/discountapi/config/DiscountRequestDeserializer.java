@@ -0,0 +1,138 @@
+package com.adp.interview.discountapi.config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.adp.interview.discountapi.entity.DiscountRequest;
+import com.adp.interview.discountapi.entity.Item;
+import com.adp.interview.discountapi.entity.ItemType;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jackson.JsonComponent;
+
+/**
+ * Reads carts token by token instead of through bean introspection, and checks each item as it
+ * is read so a bad cart is rejected before the rest of it is parsed or any pricing is done.
+ * Every item needs an id, a cost between 0 and {@code discount.calculate.max-cost}, a type and a
+ * quantity between 0 and {@code discount.calculate.max-quantity}, its cost times quantity must not
+ * exceed {@code discount.calculate.max-line-total}, and a cart may have at most
+ * {@code discount.calculate.max-lines} items. With the default limits the discount arithmetic for
+ * a full cart stays within a {@code long}. Failures are reported as input mismatches, which
+ * Spring turns into a 400 response. A missing or null {@code items} is left null, so that
+ * {@code /calculate/batch} can still answer for that cart on its own. Unknown fields are ignored.
+ */
+@JsonComponent
+public class DiscountRequestDeserializer extends JsonDeserializer<DiscountRequest> {
+
+    private static final ItemType[] ITEM_TYPES = ItemType.values();
+
+    private final int maxLines;
+    private final int maxQuantity;
+    private final double maxCost;
+    private final double maxLineTotal;
+
+    public DiscountRequestDeserializer(@Value("${discount.calculate.max-lines:10000}") int maxLines,
+                                       @Value("${discount.calculate.max-quantity:1000000}") int maxQuantity,
+                                       @Value("${discount.calculate.max-cost:1000000}") double maxCost,
+                                       @Value("${discount.calculate.max-line-total:100000000}") double maxLineTotal) {
+        this.maxLines = maxLines;
+        this.maxQuantity = maxQuantity;
+        this.maxCost = maxCost;
+        this.maxLineTotal = maxLineTotal;
+    }
+
+    @Override
+    public DiscountRequest deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (!p.isExpectedStartObjectToken()) {
+            return (DiscountRequest) ctxt.handleUnexpectedToken(DiscountRequest.class, p);
+        }
+        DiscountRequest request = new DiscountRequest();
+        for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+            JsonToken token = p.nextToken();
+            if (!field.equals("items")) {
+                p.skipChildren();
+            } else if (token == JsonToken.START_ARRAY) {
+                request.setItems(readItems(p, ctxt));
+            } else if (token != JsonToken.VALUE_NULL) {
+                ctxt.reportInputMismatch(DiscountRequest.class, "Items must be an array.");
+            }
+        }
+        return request;
+    }
+
+    private List<Item> readItems(JsonParser p, DeserializationContext ctxt) throws IOException {
+        List<Item> items = new ArrayList<>();
+        for (JsonToken token = p.nextToken(); token != JsonToken.END_ARRAY; token = p.nextToken()) {
+            if (items.size() == maxLines) {
+                ctxt.reportInputMismatch(DiscountRequest.class, "A cart must not have more than " + maxLines + " items.");
+            }
+            if (token != JsonToken.START_OBJECT) {
+                ctxt.reportInputMismatch(Item.class, "Item " + items.size() + " must be an object.");
+            }
+            items.add(readItem(p, ctxt, items.size()));
+        }
+        return items;
+    }
+
+    private Item readItem(JsonParser p, DeserializationContext ctxt, int line) throws IOException {
+        String id = null;
+        double cost = Double.NaN;
+        ItemType type = null;
+        long quantity = -1L;
+        for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+            JsonToken token = p.nextToken();
+            switch (field) {
+                case "id" -> {
+                    if (token == JsonToken.VALUE_STRING) {
+                        id = p.getText();
+                    }
+                }
+                case "cost" -> {
+                    if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                        cost = p.getDoubleValue();
+                    }
+                }
+                case "type" -> {
+                    if (token == JsonToken.VALUE_STRING) {
+                        type = itemType(p.getText());
+                    }
+                }
+                case "quantity" -> {
+                    if (token == JsonToken.VALUE_NUMBER_INT && p.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+                        quantity = p.getLongValue();
+                    }
+                }
+                default -> p.skipChildren();
+            }
+        }
+        if (id == null) {
+            ctxt.reportInputMismatch(Item.class, "Item " + line + " needs an id.");
+        }
+        if (!(cost >= 0.0 && cost <= maxCost)) {
+            ctxt.reportInputMismatch(Item.class, "Item " + id + " needs a cost between 0 and " + maxCost + ".");
+        }
+        if (type == null) {
+            ctxt.reportInputMismatch(Item.class, "Item " + id + " needs a type, one of " + List.of(ITEM_TYPES) + ".");
+        }
+        if (quantity < 0 || quantity > maxQuantity) {
+            ctxt.reportInputMismatch(Item.class, "Item " + id + " needs a quantity between 0 and " + maxQuantity + ".");
+        }
+        if (cost * quantity > maxLineTotal) {
+            ctxt.reportInputMismatch(Item.class, "Item " + id + " must not cost more than " + maxLineTotal + " in total.");
+        }
+        return new Item(id, cost, type, (int) quantity);
+    }
+
+    private static ItemType itemType(String name) {
+        for (ItemType type : ITEM_TYPES) {
+            if (type.name().equals(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,61 @@
+package com.adp.interview.discountapi.config;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * A token bucket per client, refilled at {@code ratePerSecond} up to {@code burst} tokens. Each
+ * bucket is kept as a single {@code long}, the time at which it will be full again (the generic
+ * cell rate algorithm), and updated with compare-and-set, so taking a token never locks and
+ * costs one read and one CAS. Buckets of the least recent clients beyond {@code maxClients},
+ * or idle long enough to have refilled, are dropped, which leaves them full.
+ */
+final class TokenBucketLimiter {
+
+    private final long intervalNanos; // time to earn one token
+    private final long capacityNanos; // time to earn a full bucket
+    private final Cache<String, AtomicLong> buckets;
+    private final LongSupplier clock;
+
+    TokenBucketLimiter(double ratePerSecond, int burst, long maxClients) {
+        this(ratePerSecond, burst, maxClients, System::nanoTime);
+    }
+
+    TokenBucketLimiter(double ratePerSecond, int burst, long maxClients, LongSupplier clock) {
+        this.intervalNanos = Math.max(1L, (long) (1e9 / ratePerSecond));
+        this.capacityNanos = intervalNanos * Math.max(1, burst);
+        this.clock = clock;
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofNanos(capacityNanos))
+                .build();
+    }
+
+    /**
+     * Takes a token from the client's bucket. Returns 0 if one was taken, otherwise the time in
+     * nanoseconds until one will be available.
+     */
+    long tryAcquire(String client) {
+        // a plain read for known clients; only a new one goes through the cache's compute, which locks
+        AtomicLong full = buckets.getIfPresent(client);
+        if (full == null) {
+            full = buckets.get(client, c -> new AtomicLong(clock.getAsLong()));
+        }
+        for (;;) {
+            long now = clock.getAsLong();
+            long fullAt = full.get();
+            long next = (fullAt - now > 0 ? fullAt : now) + intervalNanos;
+            long wait = next - now - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (full.compareAndSet(fullAt, next)) {
+                return 0L;
+            }
+        }
+    }
+}
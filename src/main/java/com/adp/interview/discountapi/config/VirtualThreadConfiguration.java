@@ -0,0 +1,38 @@
+package com.adp.interview.discountapi.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Settings for the opt-in virtual thread mode, enabled with {@code spring.threads.virtual.enabled=true}
+ * on Java 21 or later. Spring Boot then serves requests and runs scheduled work on virtual
+ * threads; this configuration puts a {@link ConnectionLimitingDataSource} in front of the
+ * connection pool, sized to the pool unless {@code discount.datasource.max-concurrent-connections}
+ * says otherwise.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfiguration {
+
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionLimitingDataSource) {
+                    return bean;
+                }
+                int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                int maxConnections = environment.getProperty("discount.datasource.max-concurrent-connections", Integer.class, poolSize);
+                long acquireTimeoutMillis = environment.getProperty("discount.datasource.acquire-timeout-ms", Long.class, 1000L);
+                return new ConnectionLimitingDataSource(dataSource, maxConnections, acquireTimeoutMillis);
+            }
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package com.adp.interview.discountapi.controller;
+
+import com.adp.interview.discountapi.entity.CartDelta;
+import com.adp.interview.discountapi.entity.CartResponse;
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.service.CartService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import jakarta.validation.constraints.Pattern;
+import java.util.List;
+
+/**
+ * Carts kept on the server and repriced as items are added or removed, so clients can send
+ * only what changed instead of the whole cart. Each change adds {@code quantity} (negative to
+ * remove) of an item; {@code cost} and {@code type} are needed the first time an item is added.
+ * Carts are priced against the catalog of the tenant that created them, named in the
+ * {@code X-Tenant-Id} header.
+ */
+@RestController
+@RequestMapping("/carts")
+public class CartController {
+
+    private final CartService cartService;
+
+    public CartController(CartService cartService) {
+        this.cartService = cartService;
+    }
+
+    @PostMapping
+    public ResponseEntity<CartResponse> createCart(@RequestHeader(value = DiscountController.TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                                   @RequestBody(required = false) List<CartDelta> deltas) {
+        CartResponse cartResponse = cartService.createCart(tenantId, deltas != null ? deltas : List.of());
+        return ResponseEntity.status(HttpStatus.CREATED).body(cartResponse);
+    }
+
+    @GetMapping("/{cartId}")
+    public ResponseEntity<CartResponse> getCart(@RequestHeader(value = DiscountController.TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                                @PathVariable String cartId) {
+        return ResponseEntity.ok(cartService.getCart(tenantId, cartId));
+    }
+
+    @PatchMapping("/{cartId}")
+    public ResponseEntity<CartResponse> applyDeltas(@RequestHeader(value = DiscountController.TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                                    @PathVariable String cartId, @RequestBody List<CartDelta> deltas) {
+        return ResponseEntity.ok(cartService.applyDeltas(tenantId, cartId, deltas));
+    }
+
+    @DeleteMapping("/{cartId}")
+    public ResponseEntity<Void> deleteCart(@RequestHeader(value = DiscountController.TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                           @PathVariable String cartId) {
+        cartService.deleteCart(tenantId, cartId);
+        return ResponseEntity.noContent().build();
+    }
+}
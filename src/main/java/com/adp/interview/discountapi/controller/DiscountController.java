@@ -1,51 +1,365 @@
 package com.adp.interview.discountapi.controller;
 
 import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountImportResponse;
 import com.adp.interview.discountapi.entity.DiscountRequest;
 import com.adp.interview.discountapi.entity.DiscountResponse;
+import com.adp.interview.discountapi.entity.DiscountSummary;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.DiscountVersionResponse;
+import com.adp.interview.discountapi.entity.ItemType;
+import com.adp.interview.discountapi.entity.RankedDiscountResponse;
+import com.adp.interview.discountapi.entity.StackedDiscountResponse;
+import com.adp.interview.discountapi.service.impl.DiscountCsv;
 import com.adp.interview.discountapi.service.impl.DiscountServiceImpl;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Pattern;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+/**
+ * Discount catalog and pricing endpoints. Every request works on the catalog of the tenant named
+ * in the {@code X-Tenant-Id} header, or of the default tenant when there is none.
+ */
 @RestController
 @RequestMapping("/discounts")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class DiscountController {
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final DiscountServiceImpl discountService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${discount.batch.max-size:10000}")
+    private int maxBatchSize = 10000;
+
+    @Value("${discount.stream.chunk-size:256}")
+    private int streamChunkSize = 256;
+
+    @Value("${discount.stream.max-line-length:1048576}")
+    private int streamMaxLineLength = 1048576;
+
+    @Value("${discount.list.default-limit:100}")
+    private int defaultPageSize = 100;
+
+    @Value("${discount.list.max-limit:1000}")
+    private int maxPageSize = 1000;
 
-    public DiscountController(DiscountServiceImpl discountService) {
+    @Value("${discount.bulk.max-size:100000}")
+    private int maxImportSize = 100000;
+
+    @Value("${discount.calculate.top.max-limit:20}")
+    private int maxTopDiscounts = 20;
+
+    public DiscountController(DiscountServiceImpl discountService, ObjectMapper objectMapper) {
         this.discountService = discountService;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * Lists one page of discounts in code order. The next page is requested by passing the
+     * {@code X-Next-Cursor} response header as {@code after}; the header is absent on the last
+     * page. {@code view=summary} returns only the code, description, percentage and type.
+     */
     @GetMapping
-    public List<Discount> getAllDiscounts() {
-        return discountService.getAllDiscounts();
+    public ResponseEntity<List<?>> getDiscounts(@RequestHeader(value = TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                                @RequestParam(required = false) String after,
+                                                @RequestParam(required = false) Integer limit,
+                                                @RequestParam(required = false) DiscountType discountType,
+                                                @RequestParam(required = false) ItemType applicableItemType,
+                                                @RequestParam(defaultValue = "full") String view) {
+        int pageSize = limit != null ? limit : defaultPageSize;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + maxPageSize + ".");
+        }
+        switch (view) {
+            case "full":
+                return toPage(discountService.getDiscounts(tenantId, after, pageSize, discountType, applicableItemType, Discount.class),
+                        Discount::getDiscountCode, pageSize);
+            case "summary":
+                return toPage(discountService.getDiscounts(tenantId, after, pageSize, discountType, applicableItemType, DiscountSummary.class),
+                        DiscountSummary::getDiscountCode, pageSize);
+            default:
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "View must be full or summary.");
+        }
+    }
+
+    @GetMapping("/sync/version")
+    public DiscountVersionResponse getVersion(@RequestHeader(value = TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId) {
+        return discountService.getVersion(tenantId);
     }
 
     @GetMapping("/{discountCode}")
-    public ResponseEntity<Discount> getDiscountByCode(@PathVariable String discountCode) {
-        Optional<Discount> discount = discountService.getDiscountByCode(discountCode);
+    public ResponseEntity<Discount> getDiscountByCode(@RequestHeader(value = TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                                      @PathVariable String discountCode) {
+        Optional<Discount> discount = discountService.getDiscountByCode(tenantId, discountCode);
         return discount.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
-    public ResponseEntity<Discount> addDiscount(@Valid @RequestBody Discount discount) {
+    public ResponseEntity<Discount> addDiscount(@RequestHeader(value = TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                                @Valid @RequestBody Discount discount) {
+        discount.setTenantId(tenantId);
         Discount newDiscount = discountService.addDiscount(discount);
         return ResponseEntity.status(HttpStatus.CREATED).body(newDiscount);
     }
 
     @DeleteMapping("/{discountCode}")
-    public ResponseEntity<Void> deleteDiscount(@PathVariable String discountCode) {
-        discountService.deleteDiscount(discountCode);
+    public ResponseEntity<Void> deleteDiscount(@RequestHeader(value = TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                               @PathVariable String discountCode) {
+        discountService.deleteDiscount(tenantId, discountCode);
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/{discountCode}/redemptions")
+    public ResponseEntity<Void> redeemDiscount(@RequestHeader(value = TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                               @PathVariable String discountCode) {
+        discountService.redeemDiscount(tenantId, discountCode);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<DiscountImportResponse> importDiscounts(@RequestHeader(value = TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                                                  @RequestBody List<Discount> discounts) {
+        if (discounts.size() > maxImportSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Import size must not exceed " + maxImportSize + ".");
+        }
+        return toImportResponse(discountService.importDiscounts(tenantId, discounts, Map.of()));
+    }
+
+    @PostMapping(value = "/bulk", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<DiscountImportResponse> importDiscountsCsv(@RequestHeader(value = TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                                                     InputStream requestBody) throws IOException {
+        Reader reader = new BufferedReader(new InputStreamReader(requestBody, StandardCharsets.UTF_8));
+        List<Discount> discounts = new ArrayList<>();
+        Map<Integer, String> rowErrors = new HashMap<>();
+        try {
+            if (!DiscountCsv.read(reader, maxImportSize, discounts, rowErrors)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Import size must not exceed " + maxImportSize + ".");
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return toImportResponse(discountService.importDiscounts(tenantId, discounts, rowErrors));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void exportDiscounts(@RequestHeader(value = TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (Stream<Discount> discounts = discountService.exportDiscounts(tenantId);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            for (Iterator<Discount> it = discounts.iterator(); it.hasNext(); ) {
+                generator.writeObject(it.next());
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    @GetMapping(value = "/export", produces = TEXT_CSV_VALUE)
+    public void exportDiscountsCsv(@RequestHeader(value = TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                   HttpServletResponse response) throws IOException {
+        response.setContentType(TEXT_CSV_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (Stream<Discount> discounts = discountService.exportDiscounts(tenantId);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8))) {
+            DiscountCsv.writeHeader(writer);
+            for (Iterator<Discount> it = discounts.iterator(); it.hasNext(); ) {
+                DiscountCsv.write(writer, it.next());
+            }
+        }
+    }
+
+    private static <T> ResponseEntity<List<?>> toPage(List<T> page, Function<T, String> discountCode, int pageSize) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, discountCode.apply(page.get(page.size() - 1)));
+        }
+        return response.body(page);
+    }
+
+    private static ResponseEntity<DiscountImportResponse> toImportResponse(DiscountImportResponse importResponse) {
+        HttpStatus status = importResponse.getRejected() > 0 ? HttpStatus.BAD_REQUEST : HttpStatus.OK;
+        return ResponseEntity.status(status).body(importResponse);
+    }
+
+    /**
+     * Prices a cart with the best single discount. {@code explain=true} adds how every discount
+     * fared and how long it took, see {@link DiscountServiceImpl#explainBestDiscount}.
+     */
     @PostMapping("/calculate")
-    public ResponseEntity<DiscountResponse> calculateBestDiscount(@Valid @RequestBody DiscountRequest request) {
-        DiscountResponse discountResponse = discountService.calculateBestDiscount(request);
+    public ResponseEntity<DiscountResponse> calculateBestDiscount(@RequestHeader(value = TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                                                  @RequestParam(defaultValue = "false") boolean explain,
+                                                                  @Valid @RequestBody DiscountRequest request) {
+        DiscountResponse discountResponse = explain ? discountService.explainBestDiscount(tenantId, request)
+                : discountService.calculateBestDiscount(tenantId, request);
+        return ResponseEntity.ok(discountResponse);
+    }
+
+    /**
+     * Ranks the {@code limit} discounts that save the most on the cart, each applied on its own,
+     * for showing alternatives to the best one.
+     */
+    @PostMapping("/calculate/top")
+    public ResponseEntity<RankedDiscountResponse> calculateTopDiscounts(@RequestHeader(value = TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                                                        @RequestParam(defaultValue = "3") int limit,
+                                                                        @Valid @RequestBody DiscountRequest request) {
+        if (limit < 1 || limit > maxTopDiscounts) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + maxTopDiscounts + ".");
+        }
+        return ResponseEntity.ok(discountService.calculateTopDiscounts(tenantId, request, limit));
+    }
+
+    @PostMapping("/calculate/stacked")
+    public ResponseEntity<StackedDiscountResponse> calculateStackedDiscount(@RequestHeader(value = TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                                                            @Valid @RequestBody DiscountRequest request) {
+        StackedDiscountResponse discountResponse = discountService.calculateStackedDiscount(tenantId, request);
         return ResponseEntity.ok(discountResponse);
     }
-}
+
+    /**
+     * Prices many carts in one request. Each cart is read and checked on its own, so a cart that
+     * is invalid gets a response with an error message, as on {@code /calculate/stream}, instead
+     * of failing the whole batch.
+     */
+    @PostMapping("/calculate/batch")
+    public ResponseEntity<List<DiscountResponse>> calculateBestDiscounts(@RequestHeader(value = TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                                                         @RequestBody List<JsonNode> carts) {
+        if (carts.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch size must not exceed " + maxBatchSize + ".");
+        }
+        List<DiscountRequest> requests = new ArrayList<>(carts.size());
+        String[] errors = new String[carts.size()];
+        for (int i = 0; i < carts.size(); i++) {
+            try {
+                requests.add(objectMapper.treeToValue(carts.get(i), DiscountRequest.class));
+            } catch (JsonProcessingException e) {
+                errors[i] = "Invalid cart " + i + ": " + e.getOriginalMessage();
+            }
+        }
+        return ResponseEntity.ok(calculateBestDiscounts(tenantId, requests, errors, carts.size()));
+    }
+
+    /**
+     * Prices newline-delimited JSON carts as they arrive and writes one response line per input
+     * line, in order. Lines are read and priced in small chunks, so memory use does not depend on
+     * the size of the input, and the request body is only read as fast as responses are written,
+     * which pushes back on clients that send faster than we can price.
+     */
+    @PostMapping(value = "/calculate/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void calculateBestDiscountStream(@RequestHeader(value = TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                            InputStream requestBody, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        Reader reader = new BufferedReader(new InputStreamReader(requestBody, StandardCharsets.UTF_8));
+        OutputStream out = response.getOutputStream();
+
+        List<DiscountRequest> requests = new ArrayList<>(streamChunkSize);
+        String[] errors = new String[streamChunkSize];
+        StringBuilder line = new StringBuilder();
+        int lineNumber = 0;
+        boolean more = true;
+        while (more) {
+            int lines = 0;
+            while (lines < streamChunkSize && (more = readLine(reader, line))) {
+                lineNumber++;
+                if (line.length() > streamMaxLineLength) {
+                    errors[lines++] = "Line " + lineNumber + " exceeds " + streamMaxLineLength + " characters.";
+                } else if (!line.toString().isBlank()) {
+                    try {
+                        requests.add(objectMapper.readValue(line.toString(), DiscountRequest.class));
+                        errors[lines++] = null;
+                    } catch (JsonProcessingException e) {
+                        errors[lines++] = "Invalid JSON on line " + lineNumber + ": " + e.getOriginalMessage();
+                    }
+                }
+            }
+            writeChunk(tenantId, out, requests, errors, lines);
+            requests.clear();
+        }
+    }
+
+    private void writeChunk(String tenantId, OutputStream out, List<DiscountRequest> requests, String[] errors, int lines)
+            throws IOException {
+        if (lines == 0) {
+            return;
+        }
+        for (DiscountResponse discountResponse : calculateBestDiscounts(tenantId, requests, errors, lines)) {
+            out.write(objectMapper.writeValueAsBytes(discountResponse));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    /**
+     * Prices the carts that could be read and returns one response per input, in order, with
+     * {@code errors[i]} reported for each input that could not. {@code requests} holds the
+     * inputs without an error, in order.
+     */
+    private List<DiscountResponse> calculateBestDiscounts(String tenantId, List<DiscountRequest> requests, String[] errors, int inputs) {
+        List<DiscountResponse> discountResponses = requests.isEmpty()
+                ? List.of() : discountService.calculateBestDiscounts(tenantId, requests);
+        List<DiscountResponse> responses = new ArrayList<>(inputs);
+        int next = 0;
+        for (int i = 0; i < inputs; i++) {
+            if (errors[i] != null) {
+                DiscountResponse discountResponse = new DiscountResponse();
+                discountResponse.setError(errors[i]);
+                responses.add(discountResponse);
+            } else {
+                responses.add(discountResponses.get(next++));
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * Reads the next line into {@code line}, keeping at most one character past the length limit
+     * so an oversized line is detected without buffering it. Returns false at end of input.
+     */
+    private boolean readLine(Reader reader, StringBuilder line) throws IOException {
+        line.setLength(0);
+        int c = reader.read();
+        if (c == -1) {
+            return false;
+        }
+        while (c != -1 && c != '\n') {
+            if (c != '\r' && line.length() <= streamMaxLineLength) {
+                line.append((char) c);
+            }
+            c = reader.read();
+        }
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.adp.interview.discountapi.controller;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountRequest;
+import com.adp.interview.discountapi.entity.DiscountResponse;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.DiscountVersionResponse;
+import com.adp.interview.discountapi.entity.ItemType;
+import com.adp.interview.discountapi.service.ReactiveDiscountService;
+import com.adp.interview.discountapi.service.impl.DiscountServiceImpl;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Pattern;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking variant of {@link DiscountController}, served when the application runs as a
+ * reactive web application (the {@code reactive} profile). Requests work on the catalog of the
+ * tenant named in the {@code X-Tenant-Id} header, as there.
+ */
+@RestController
+@RequestMapping("/discounts")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDiscountController {
+    private final ReactiveDiscountService discountService;
+    private final DiscountServiceImpl blockingDiscountService;
+
+    public ReactiveDiscountController(ReactiveDiscountService discountService, DiscountServiceImpl blockingDiscountService) {
+        this.discountService = discountService;
+        this.blockingDiscountService = blockingDiscountService;
+    }
+
+    /**
+     * Streams discounts in code order, as a JSON array or as newline-delimited JSON. All
+     * discounts are returned unless {@code limit} is given.
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Discount> getDiscounts(@RequestHeader(value = DiscountController.TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                       @RequestParam(required = false) String after,
+                                       @RequestParam(required = false) Integer limit,
+                                       @RequestParam(required = false) DiscountType discountType,
+                                       @RequestParam(required = false) ItemType applicableItemType) {
+        return discountService.getDiscounts(tenantId, after, limit, discountType, applicableItemType);
+    }
+
+    @GetMapping("/sync/version")
+    public Mono<DiscountVersionResponse> getVersion(@RequestHeader(value = DiscountController.TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId) {
+        // reads the change log through JPA
+        return Mono.fromCallable(() -> blockingDiscountService.getVersion(tenantId)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @GetMapping("/{discountCode}")
+    public Mono<ResponseEntity<Discount>> getDiscountByCode(@RequestHeader(value = DiscountController.TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                                            @PathVariable String discountCode) {
+        return discountService.getDiscountByCode(tenantId, discountCode)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Discount>> addDiscount(@RequestHeader(value = DiscountController.TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                                      @Valid @RequestBody Discount discount) {
+        discount.setTenantId(tenantId);
+        return discountService.addDiscount(discount)
+                .map(newDiscount -> ResponseEntity.status(HttpStatus.CREATED).body(newDiscount));
+    }
+
+    @DeleteMapping("/{discountCode}")
+    public Mono<ResponseEntity<Void>> deleteDiscount(@RequestHeader(value = DiscountController.TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                                     @PathVariable String discountCode) {
+        return discountService.deleteDiscount(tenantId, discountCode)
+                .thenReturn(ResponseEntity.noContent().build());
+    }
+
+    @PostMapping("/calculate")
+    public Mono<DiscountResponse> calculateBestDiscount(@RequestHeader(value = DiscountController.TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                                        @RequestParam(defaultValue = "false") boolean explain,
+                                                        @Valid @RequestBody DiscountRequest request) {
+        return explain ? discountService.explainBestDiscount(tenantId, request)
+                : discountService.calculateBestDiscount(tenantId, request);
+    }
+
+    @PostMapping(value = "/calculate/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DiscountResponse> calculateBestDiscountStream(@RequestHeader(value = DiscountController.TENANT_HEADER, defaultValue = Discount.DEFAULT_TENANT) @Pattern(regexp = Discount.TENANT_ID_PATTERN) String tenantId,
+                                                              @RequestBody Flux<DiscountRequest> requests) {
+        return discountService.calculateBestDiscounts(tenantId, requests);
+    }
+}
@@ -0,0 +1,16 @@
+package com.adp.interview.discountapi.entity;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class CandidateDiscount {
+    private String discountCode;
+    private DiscountType discountType;
+    private CandidateOutcome outcome;
+    private double amount; // what the discount would save, 0 if it was not scored
+    private List<String> matchedItemIds = new ArrayList<>(); // distinct ids of the lines it looked at
+    private long nanos; // time spent deciding the outcome
+}
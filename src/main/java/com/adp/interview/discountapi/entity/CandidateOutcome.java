@@ -0,0 +1,8 @@
+package com.adp.interview.discountapi.entity;
+
+public enum CandidateOutcome {
+    // ruled out by the rule index without scoring
+    ITEM_TYPE_NOT_IN_CART, ITEM_NOT_IN_CART, NO_ITEM_ABOVE_MINIMUM_COST,
+    // scored
+    BELOW_QUANTITY_THRESHOLD, NO_SAVING, LOWER_AMOUNT, SAME_AMOUNT_LOST_TIE, APPLIED
+}
@@ -0,0 +1,11 @@
+package com.adp.interview.discountapi.entity;
+
+import lombok.Data;
+
+@Data
+public class CartDelta {
+    private String id;
+    private Double cost; // unit cost; required for an item not yet in the cart, replaces the cost otherwise
+    private ItemType type; // required for an item not yet in the cart, replaces the type otherwise
+    private int quantity; // change in quantity; the line is removed when it reaches zero
+}
@@ -0,0 +1,10 @@
+package com.adp.interview.discountapi.entity;
+
+import lombok.Data;
+
+@Data
+public class CartResponse {
+    private String cartId;
+    private int lines; // number of distinct items in the cart
+    private DiscountResponse discount; // best discount for the cart as it is now
+}
@@ -1,22 +1,52 @@
 package com.adp.interview.discountapi.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Pattern;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
 
 @Entity
 @Data
+@IdClass(DiscountId.class)
+@Table(indexes = {
+        // lead with the tenant and filter columns and end with the code so a tenant's keyset pages are index range scans
+        @Index(name = "idx_discount_tenant_code", columnList = "tenantId, discountCode"),
+        @Index(name = "idx_discount_type_code", columnList = "tenantId, discountType, discountCode"),
+        @Index(name = "idx_discount_item_type_code", columnList = "tenantId, applicableItemType, discountCode"),
+        // redemption flushes read back the counts of limited discounts, usually a small share of the table
+        @Index(name = "idx_discount_max_redemptions", columnList = "maxRedemptions")
+})
 public class Discount {
 
+    public static final String DEFAULT_TENANT = "default";
+
+    public static final String TENANT_ID_PATTERN = "[A-Za-z0-9_-]{1,64}";
+
     @Id
     @NotBlank(message = "Discount code is required")
-    private String discountCode; // unique identifier for a discount code
+    private String discountCode; // identifies the discount within its tenant's catalog
+
+    @NotNull(message = "Tenant id is required")
+    @Pattern(regexp = TENANT_ID_PATTERN, message = "Tenant id must be 1 to 64 letters, digits, '-' or '_'")
+    @Id
+    @ColumnDefault("'" + DEFAULT_TENANT + "'")
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String tenantId = DEFAULT_TENANT; // storefront whose catalog this discount belongs to, set from the request
 
     @NotBlank(message = "Description is required")
     private String description; // description of the discount
@@ -38,4 +68,23 @@ public class Discount {
 
     private double minimumCost; // minimum cost of items needed to apply this discount
 
+    private boolean stackable; // whether this discount can be combined with others on different cart lines
+
+    private String exclusiveGroup; // at most one discount from the same group is applied to a cart
+
+    private int priority; // higher priority wins between discounts saving the same amount
+
+    private Instant validFrom; // first instant the discount applies, or null if it already applies
+
+    private Instant validUntil; // instant the discount stops applying, or null if it does not expire
+
+    @Min(value = 1, message = "Maximum redemptions must be at least 1")
+    private Integer maxRedemptions; // redemptions allowed across all nodes, or null for no limit
+
+    // counted by RedemptionCounter and only ever incremented in place, so saves never overwrite it
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long redemptionCount; // redemptions written to the database so far
+
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.adp.interview.discountapi.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Data
+@NoArgsConstructor
+public class DiscountChangeEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long version; // monotonic position in the change log
+
+    @Column(nullable = false)
+    private String tenantId; // tenant whose catalog changed
+
+    @Column(nullable = false)
+    private String discountCode; // code of the discount that changed
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private DiscountChangeType changeType; // whether the discount was saved or deleted
+
+    @Column(nullable = false)
+    private Instant createdAt; // when the change was written
+
+    public DiscountChangeEvent(String tenantId, String discountCode, DiscountChangeType changeType) {
+        this.tenantId = tenantId;
+        this.discountCode = discountCode;
+        this.changeType = changeType;
+        this.createdAt = Instant.now();
+    }
+}
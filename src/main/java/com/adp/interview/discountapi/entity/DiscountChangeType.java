@@ -0,0 +1,5 @@
+package com.adp.interview.discountapi.entity;
+
+public enum DiscountChangeType {
+    UPSERT, DELETE
+}
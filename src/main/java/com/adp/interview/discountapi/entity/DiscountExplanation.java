@@ -0,0 +1,18 @@
+package com.adp.interview.discountapi.entity;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class DiscountExplanation {
+    private long ruleVersion; // version of the tenant's rules the cart was priced against
+    private int rulesInCatalog;
+    private int rulesEvaluated; // rules the index offered for the cart, all of them scored
+    private int rulesSkippedByIndex; // rules the index ruled out without scoring them
+    private boolean cachedResult; // the totals came from the pricing result cache
+    private long evaluationNanos; // time spent deciding every outcome, including the explanation's own overhead
+    private boolean truncated; // candidates holds only the first rules in catalog order, and the applied one
+    private List<CandidateDiscount> candidates = new ArrayList<>(); // in catalog order
+}
@@ -0,0 +1,21 @@
+package com.adp.interview.discountapi.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Primary key of a {@link Discount}. A code is unique within its tenant's catalog, and
+ * different tenants can use the same code.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiscountId implements Serializable {
+
+    private String tenantId; // storefront whose catalog the discount belongs to
+
+    private String discountCode; // code of the discount within that catalog
+}
@@ -0,0 +1,13 @@
+package com.adp.interview.discountapi.entity;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class DiscountImportResponse {
+    private int imported; // number of discounts written; zero when any row was rejected
+    private int rejected; // number of rows that failed validation
+    private List<String> errors = new ArrayList<>(); // one message per rejected row, capped
+}
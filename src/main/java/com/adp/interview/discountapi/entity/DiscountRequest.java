@@ -4,8 +4,11 @@ package com.adp.interview.discountapi.entity;
 
 import java.util.List;
 
+import jakarta.validation.constraints.NotNull;
+
 public class DiscountRequest {
 
+    @NotNull(message = "Items are required.")
     private List<Item> items;
 
     public List<Item> getItems() {
@@ -15,4 +18,4 @@ public class DiscountRequest {
     public void setItems(List<Item> items) {
         this.items = items;
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.adp.interview.discountapi.entity;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 @Data
@@ -8,4 +9,10 @@ public class DiscountResponse {
     private double totalCost;
     private double totalDiscount;
     private double totalCostAfterDiscount;
-}
\ No newline at end of file
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String error; // set instead of the totals when a cart in a batch could not be priced
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private DiscountExplanation explanation; // only with explain=true
+}
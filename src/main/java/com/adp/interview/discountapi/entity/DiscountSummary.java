@@ -0,0 +1,12 @@
+package com.adp.interview.discountapi.entity;
+
+/**
+ * The fields of a {@link Discount} shown in listings. Queries returning this projection select
+ * only these columns.
+ */
+public interface DiscountSummary {
+    String getDiscountCode();
+    String getDescription();
+    double getDiscountPercentage();
+    DiscountType getDiscountType();
+}
@@ -0,0 +1,26 @@
+package com.adp.interview.discountapi.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiscountSyncNode {
+
+    @Id
+    private String nodeId; // random id chosen by each running instance
+
+    @Column(nullable = false)
+    private long appliedVersion; // every change log version up to this one has been applied on the node
+
+    @Column(nullable = false)
+    private Instant reportedAt; // when the node last reported, to tell running nodes from stopped ones
+}
@@ -0,0 +1,11 @@
+package com.adp.interview.discountapi.entity;
+
+import lombok.Data;
+
+@Data
+public class DiscountVersionResponse {
+    private long appliedVersion; // last change-log version applied to this node's rules
+    private long latestVersion; // latest version in the change log
+    private int skippedVersions; // versions skipped in a gap and still watched for a late commit
+    private int ruleCount; // number of discounts in this node's rules
+}
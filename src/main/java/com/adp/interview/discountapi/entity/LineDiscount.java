@@ -0,0 +1,10 @@
+package com.adp.interview.discountapi.entity;
+
+import lombok.Data;
+
+@Data
+public class LineDiscount {
+    private String itemId;
+    private String discountCode; // null if no discount applies to the line
+    private double discount; // rounded to cents on its own, so lines may not add up to the total exactly
+}
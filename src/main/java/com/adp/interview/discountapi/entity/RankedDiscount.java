@@ -0,0 +1,10 @@
+package com.adp.interview.discountapi.entity;
+
+import lombok.Data;
+
+@Data
+public class RankedDiscount {
+    private String discountCode;
+    private double totalDiscount;
+    private double totalCostAfterDiscount;
+}
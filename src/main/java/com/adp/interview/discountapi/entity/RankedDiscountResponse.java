@@ -0,0 +1,12 @@
+package com.adp.interview.discountapi.entity;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class RankedDiscountResponse {
+    private double totalCost;
+    private List<RankedDiscount> discounts = new ArrayList<>(); // largest saving first, ties by priority and then catalog order
+}
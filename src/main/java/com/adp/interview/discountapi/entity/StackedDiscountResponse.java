@@ -0,0 +1,16 @@
+package com.adp.interview.discountapi.entity;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class StackedDiscountResponse {
+    private List<String> discountCodes = new ArrayList<>(); // distinct codes applied, in line order
+    private double totalCost;
+    private double totalDiscount;
+    private double totalCostAfterDiscount;
+    private List<LineDiscount> lines = new ArrayList<>(); // one entry per cart line
+    private boolean optimal; // false if the time budget ran out before the best assignment was proven
+}
@@ -0,0 +1,29 @@
+package com.adp.interview.discountapi.repository;
+
+import com.adp.interview.discountapi.entity.DiscountChangeEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DiscountChangeEventRepository extends JpaRepository<DiscountChangeEvent, Long> {
+
+    List<DiscountChangeEvent> findByVersionGreaterThanOrderByVersionAsc(long version, Pageable pageable);
+
+    List<DiscountChangeEvent> findByVersionInOrderByVersionAsc(Collection<Long> versions);
+
+    @Query("select coalesce(max(e.version), 0) from DiscountChangeEvent e")
+    long findLatestVersion();
+
+    @Modifying
+    @Transactional
+    @Query("delete from DiscountChangeEvent e where e.version <= :version and e.createdAt < :before")
+    int deleteAppliedBefore(long version, Instant before);
+}
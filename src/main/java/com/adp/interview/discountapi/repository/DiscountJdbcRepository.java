@@ -0,0 +1,160 @@
+package com.adp.interview.discountapi.repository;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountChangeType;
+import com.adp.interview.discountapi.entity.DiscountId;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk reads and writes of the discount table that bypass JPA. {@code JpaRepository.save} on an
+ * entity with an assigned id selects before every insert, and {@code findAll} keeps every row in
+ * the persistence context, neither of which works for tens of thousands of rows.
+ */
+@Repository
+public class DiscountJdbcRepository {
+
+    private static final String UPSERT_DISCOUNT = "merge into discount (discount_code, description, discount_percentage, "
+            + "discount_type, applicable_item_type, applicable_item_id, item_quantity_threshold, minimum_cost, "
+            + "stackable, exclusive_group, priority, valid_from, valid_until, max_redemptions, tenant_id) "
+            + "key (tenant_id, discount_code) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_CHANGE_EVENT =
+            "insert into discount_change_event (tenant_id, discount_code, change_type, created_at) values (?, ?, ?, ?)";
+
+    private static final String SELECT_DISCOUNTS = "select discount_code, description, discount_percentage, discount_type, "
+            + "applicable_item_type, applicable_item_id, item_quantity_threshold, minimum_cost, stackable, exclusive_group, "
+            + "priority, valid_from, valid_until, max_redemptions, redemption_count, tenant_id from discount ";
+
+    private static final String ADD_REDEMPTIONS =
+            "update discount set redemption_count = redemption_count + ? where tenant_id = ? and discount_code = ?";
+
+    private static final String SELECT_CAPPED_REDEMPTIONS =
+            "select tenant_id, discount_code, redemption_count from discount where max_redemptions is not null";
+
+    private static final RowMapper<Discount> DISCOUNT_ROW_MAPPER = (rs, rowNum) -> {
+        Discount discount = new Discount();
+        discount.setDiscountCode(rs.getString(1));
+        discount.setDescription(rs.getString(2));
+        discount.setDiscountPercentage(rs.getDouble(3));
+        discount.setDiscountType(DiscountType.valueOf(rs.getString(4)));
+        String applicableItemType = rs.getString(5);
+        discount.setApplicableItemType(applicableItemType != null ? ItemType.valueOf(applicableItemType) : null);
+        discount.setApplicableItemId(rs.getString(6));
+        discount.setItemQuantityThreshold(rs.getInt(7));
+        discount.setMinimumCost(rs.getDouble(8));
+        discount.setStackable(rs.getBoolean(9));
+        discount.setExclusiveGroup(rs.getString(10));
+        discount.setPriority(rs.getInt(11));
+        discount.setValidFrom(toInstant(rs.getObject(12, OffsetDateTime.class)));
+        discount.setValidUntil(toInstant(rs.getObject(13, OffsetDateTime.class)));
+        discount.setMaxRedemptions(rs.getObject(14, Integer.class));
+        discount.setRedemptionCount(rs.getLong(15));
+        discount.setTenantId(rs.getString(16));
+        return discount;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${discount.bulk.jdbc-batch-size:1000}")
+    private int batchSize = 1000;
+
+    public DiscountJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts or replaces the discounts by tenant and code in JDBC batches.
+     */
+    public void upsertAll(Collection<Discount> discounts) {
+        jdbcTemplate.batchUpdate(UPSERT_DISCOUNT, discounts, batchSize, (ps, discount) -> {
+            ps.setString(1, discount.getDiscountCode());
+            ps.setString(2, discount.getDescription());
+            ps.setDouble(3, discount.getDiscountPercentage());
+            ps.setString(4, discount.getDiscountType().name());
+            if (discount.getApplicableItemType() != null) {
+                ps.setString(5, discount.getApplicableItemType().name());
+            } else {
+                ps.setNull(5, Types.VARCHAR);
+            }
+            ps.setString(6, discount.getApplicableItemId());
+            ps.setInt(7, discount.getItemQuantityThreshold());
+            ps.setDouble(8, discount.getMinimumCost());
+            ps.setBoolean(9, discount.isStackable());
+            ps.setString(10, discount.getExclusiveGroup());
+            ps.setInt(11, discount.getPriority());
+            ps.setObject(12, toOffsetDateTime(discount.getValidFrom()));
+            ps.setObject(13, toOffsetDateTime(discount.getValidUntil()));
+            ps.setObject(14, discount.getMaxRedemptions(), Types.INTEGER);
+            ps.setString(15, discount.getTenantId());
+        });
+    }
+
+    /**
+     * Adds each count to the stored redemption count of its discount, in place, so concurrent
+     * writers from other nodes are not overwritten.
+     */
+    public void addRedemptions(Map<DiscountId, Long> redemptions) {
+        jdbcTemplate.batchUpdate(ADD_REDEMPTIONS, redemptions.entrySet(), batchSize, (ps, redemption) -> {
+            ps.setLong(1, redemption.getValue());
+            ps.setString(2, redemption.getKey().getTenantId());
+            ps.setString(3, redemption.getKey().getDiscountCode());
+        });
+    }
+
+    /**
+     * Returns the stored redemption count of every discount with a redemption limit, by tenant
+     * and code.
+     */
+    public Map<DiscountId, Long> findCappedRedemptionCounts() {
+        Map<DiscountId, Long> counts = new HashMap<>();
+        jdbcTemplate.query(SELECT_CAPPED_REDEMPTIONS, rs -> {
+            counts.put(new DiscountId(rs.getString(1), rs.getString(2)), rs.getLong(3));
+        });
+        return counts;
+    }
+
+    /**
+     * Appends one change event per code of the tenant to the discount change log in JDBC batches.
+     */
+    public void insertChangeEvents(String tenantId, Collection<String> discountCodes, DiscountChangeType changeType) {
+        OffsetDateTime createdAt = OffsetDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+        jdbcTemplate.batchUpdate(INSERT_CHANGE_EVENT, discountCodes, batchSize, (ps, discountCode) -> {
+            ps.setString(1, tenantId);
+            ps.setString(2, discountCode);
+            ps.setString(3, changeType.name());
+            ps.setObject(4, createdAt);
+        });
+    }
+
+    /**
+     * Returns up to {@code limit} of the tenant's discounts ordered by code, starting after
+     * {@code afterCode} (or from the first code when it is null). Seeking on the tenant and code
+     * index keeps every page as cheap as the first, unlike an offset.
+     */
+    public List<Discount> findPageAfter(String tenantId, String afterCode, int limit) {
+        return jdbcTemplate.query(SELECT_DISCOUNTS + "where tenant_id = ? and discount_code > ? order by discount_code limit ?",
+                DISCOUNT_ROW_MAPPER, tenantId, afterCode != null ? afterCode : "", limit);
+    }
+
+    private static Instant toInstant(OffsetDateTime value) {
+        return value != null ? value.toInstant() : null;
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Instant value) {
+        return value != null ? OffsetDateTime.ofInstant(value, ZoneOffset.UTC) : null;
+    }
+}
@@ -1,10 +1,39 @@
 package com.adp.interview.discountapi.repository;
 
 import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountId;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface DiscountRepository extends JpaRepository<Discount, String> {
-    // You can define additional custom methods here if needed
-}
\ No newline at end of file
+public interface DiscountRepository extends JpaRepository<Discount, DiscountId> {
+
+    List<Discount> findByTenantId(String tenantId);
+
+    Optional<Discount> findByTenantIdAndDiscountCode(String tenantId, String discountCode);
+
+    @Query("select new com.adp.interview.discountapi.entity.DiscountId(d.tenantId, d.discountCode) from Discount d")
+    List<DiscountId> findAllDiscountIds();
+
+    // keyset pages of one tenant's catalog ordered by code; type is Discount or a projection such as DiscountSummary
+
+    <T> List<T> findByTenantIdAndDiscountCodeGreaterThanOrderByDiscountCodeAsc(
+            String tenantId, String after, Pageable pageable, Class<T> type);
+
+    <T> List<T> findByTenantIdAndDiscountTypeAndDiscountCodeGreaterThanOrderByDiscountCodeAsc(
+            String tenantId, DiscountType discountType, String after, Pageable pageable, Class<T> type);
+
+    <T> List<T> findByTenantIdAndApplicableItemTypeAndDiscountCodeGreaterThanOrderByDiscountCodeAsc(
+            String tenantId, ItemType applicableItemType, String after, Pageable pageable, Class<T> type);
+
+    <T> List<T> findByTenantIdAndDiscountTypeAndApplicableItemTypeAndDiscountCodeGreaterThanOrderByDiscountCodeAsc(
+            String tenantId, DiscountType discountType, ItemType applicableItemType, String after, Pageable pageable,
+            Class<T> type);
+}
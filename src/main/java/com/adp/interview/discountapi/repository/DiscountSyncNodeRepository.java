@@ -0,0 +1,23 @@
+package com.adp.interview.discountapi.repository;
+
+import com.adp.interview.discountapi.entity.DiscountSyncNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface DiscountSyncNodeRepository extends JpaRepository<DiscountSyncNode, String> {
+
+    @Query("select min(n.appliedVersion) from DiscountSyncNode n")
+    Optional<Long> findLowestAppliedVersion();
+
+    @Modifying
+    @Transactional
+    @Query("delete from DiscountSyncNode n where n.reportedAt < :before")
+    int deleteReportedBefore(Instant before);
+}
@@ -0,0 +1,160 @@
+package com.adp.interview.discountapi.repository;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountChangeType;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Non-blocking access to the discount table and change log over R2DBC, for the reactive
+ * variant of the API.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDiscountRepository {
+
+    private static final String SELECT_DISCOUNTS = "select discount_code, description, discount_percentage, discount_type, "
+            + "applicable_item_type, applicable_item_id, item_quantity_threshold, minimum_cost, stackable, exclusive_group, "
+            + "priority, valid_from, valid_until, max_redemptions, redemption_count, tenant_id from discount";
+
+    private static final String UPSERT_DISCOUNT = "merge into discount (discount_code, description, discount_percentage, "
+            + "discount_type, applicable_item_type, applicable_item_id, item_quantity_threshold, minimum_cost, stackable, "
+            + "exclusive_group, priority, valid_from, valid_until, max_redemptions, tenant_id) key (tenant_id, discount_code) values "
+            + "(:discountCode, :description, :discountPercentage, :discountType, :applicableItemType, :applicableItemId, "
+            + ":itemQuantityThreshold, :minimumCost, :stackable, :exclusiveGroup, :priority, :validFrom, :validUntil, "
+            + ":maxRedemptions, :tenantId)";
+
+    private static final String INSERT_CHANGE_EVENT = "insert into discount_change_event (tenant_id, discount_code, change_type, "
+            + "created_at) values (:tenantId, :discountCode, :changeType, :createdAt)";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveDiscountRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Streams a tenant's discounts in code order, optionally after a code, filtered by type and
+     * limited in number. Rows are read as the subscriber requests them.
+     */
+    public Flux<Discount> findAll(String tenantId, String after, Integer limit, DiscountType discountType,
+                                  ItemType applicableItemType) {
+        StringBuilder sql = new StringBuilder(SELECT_DISCOUNTS).append(" where tenant_id = :tenantId and discount_code > :after");
+        if (discountType != null) {
+            sql.append(" and discount_type = :discountType");
+        }
+        if (applicableItemType != null) {
+            sql.append(" and applicable_item_type = :applicableItemType");
+        }
+        sql.append(" order by discount_code");
+        if (limit != null) {
+            sql.append(" limit :limit");
+        }
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString())
+                .bind("tenantId", tenantId)
+                .bind("after", after != null ? after : "");
+        if (discountType != null) {
+            spec = spec.bind("discountType", discountType.name());
+        }
+        if (applicableItemType != null) {
+            spec = spec.bind("applicableItemType", applicableItemType.name());
+        }
+        if (limit != null) {
+            spec = spec.bind("limit", limit);
+        }
+        return spec.map(ReactiveDiscountRepository::toDiscount).all();
+    }
+
+    public Mono<Discount> findById(String tenantId, String discountCode) {
+        return databaseClient.sql(SELECT_DISCOUNTS + " where tenant_id = :tenantId and discount_code = :discountCode")
+                .bind("tenantId", tenantId)
+                .bind("discountCode", discountCode)
+                .map(ReactiveDiscountRepository::toDiscount)
+                .one();
+    }
+
+    /**
+     * Inserts the discount, or replaces the tenant's one with the same code.
+     */
+    public Mono<Void> upsert(Discount discount) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(UPSERT_DISCOUNT)
+                .bind("discountCode", discount.getDiscountCode())
+                .bind("tenantId", discount.getTenantId())
+                .bind("discountPercentage", discount.getDiscountPercentage())
+                .bind("discountType", discount.getDiscountType().name())
+                .bind("itemQuantityThreshold", discount.getItemQuantityThreshold())
+                .bind("minimumCost", discount.getMinimumCost())
+                .bind("stackable", discount.isStackable())
+                .bind("priority", discount.getPriority());
+        spec = bindNullable(spec, "description", discount.getDescription());
+        spec = bindNullable(spec, "applicableItemType",
+                discount.getApplicableItemType() != null ? discount.getApplicableItemType().name() : null);
+        spec = bindNullable(spec, "applicableItemId", discount.getApplicableItemId());
+        spec = bindNullable(spec, "exclusiveGroup", discount.getExclusiveGroup());
+        spec = bindNullable(spec, "validFrom", discount.getValidFrom());
+        spec = bindNullable(spec, "validUntil", discount.getValidUntil());
+        spec = discount.getMaxRedemptions() != null
+                ? spec.bind("maxRedemptions", discount.getMaxRedemptions()) : spec.bindNull("maxRedemptions", Integer.class);
+        return spec.then();
+    }
+
+    public Mono<Long> deleteById(String tenantId, String discountCode) {
+        return databaseClient.sql("delete from discount where tenant_id = :tenantId and discount_code = :discountCode")
+                .bind("tenantId", tenantId)
+                .bind("discountCode", discountCode)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Void> insertChangeEvent(String tenantId, String discountCode, DiscountChangeType changeType) {
+        return databaseClient.sql(INSERT_CHANGE_EVENT)
+                .bind("tenantId", tenantId)
+                .bind("discountCode", discountCode)
+                .bind("changeType", changeType.name())
+                .bind("createdAt", OffsetDateTime.now(ZoneOffset.UTC))
+                .then();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name, String value) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, String.class);
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name, Instant value) {
+        return value != null
+                ? spec.bind(name, OffsetDateTime.ofInstant(value, ZoneOffset.UTC)) : spec.bindNull(name, OffsetDateTime.class);
+    }
+
+    private static Discount toDiscount(Readable row) {
+        Discount discount = new Discount();
+        discount.setDiscountCode(row.get("discount_code", String.class));
+        discount.setDescription(row.get("description", String.class));
+        discount.setDiscountPercentage(row.get("discount_percentage", Double.class));
+        discount.setDiscountType(DiscountType.valueOf(row.get("discount_type", String.class)));
+        String applicableItemType = row.get("applicable_item_type", String.class);
+        discount.setApplicableItemType(applicableItemType != null ? ItemType.valueOf(applicableItemType) : null);
+        discount.setApplicableItemId(row.get("applicable_item_id", String.class));
+        discount.setItemQuantityThreshold(row.get("item_quantity_threshold", Integer.class));
+        discount.setMinimumCost(row.get("minimum_cost", Double.class));
+        discount.setStackable(row.get("stackable", Boolean.class));
+        discount.setExclusiveGroup(row.get("exclusive_group", String.class));
+        discount.setPriority(row.get("priority", Integer.class));
+        OffsetDateTime validFrom = row.get("valid_from", OffsetDateTime.class);
+        discount.setValidFrom(validFrom != null ? validFrom.toInstant() : null);
+        OffsetDateTime validUntil = row.get("valid_until", OffsetDateTime.class);
+        discount.setValidUntil(validUntil != null ? validUntil.toInstant() : null);
+        discount.setMaxRedemptions(row.get("max_redemptions", Integer.class));
+        discount.setRedemptionCount(row.get("redemption_count", Long.class));
+        discount.setTenantId(row.get("tenant_id", String.class));
+        return discount;
+    }
+}
@@ -0,0 +1,13 @@
+package com.adp.interview.discountapi.service;
+
+import com.adp.interview.discountapi.entity.CartDelta;
+import com.adp.interview.discountapi.entity.CartResponse;
+
+import java.util.List;
+
+public interface CartService {
+    CartResponse createCart(String tenantId, List<CartDelta> deltas);
+    CartResponse applyDeltas(String tenantId, String cartId, List<CartDelta> deltas);
+    CartResponse getCart(String tenantId, String cartId);
+    void deleteCart(String tenantId, String cartId);
+}
\ No newline at end of file
@@ -3,14 +3,20 @@ package com.adp.interview.discountapi.service;
 import com.adp.interview.discountapi.entity.Discount;
 import com.adp.interview.discountapi.entity.DiscountRequest;
 import com.adp.interview.discountapi.entity.DiscountResponse;
+import com.adp.interview.discountapi.entity.RankedDiscountResponse;
+import com.adp.interview.discountapi.entity.StackedDiscountResponse;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface DiscountService {
-    List<Discount> getAllDiscounts();
-    Optional<Discount> getDiscountByCode(String discountCode);
+    Optional<Discount> getDiscountByCode(String tenantId, String discountCode);
     Discount addDiscount(Discount discount);
-    void deleteDiscount(String discountCode);
-    DiscountResponse calculateBestDiscount(DiscountRequest request);
-}
+    void deleteDiscount(String tenantId, String discountCode);
+    DiscountResponse calculateBestDiscount(String tenantId, DiscountRequest request);
+    DiscountResponse explainBestDiscount(String tenantId, DiscountRequest request);
+    List<DiscountResponse> calculateBestDiscounts(String tenantId, List<DiscountRequest> requests);
+    RankedDiscountResponse calculateTopDiscounts(String tenantId, DiscountRequest request, int limit);
+    StackedDiscountResponse calculateStackedDiscount(String tenantId, DiscountRequest request);
+    void redeemDiscount(String tenantId, String discountCode);
+}
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.adp.interview.discountapi.service;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountRequest;
+import com.adp.interview.discountapi.entity.DiscountResponse;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveDiscountService {
+    Flux<Discount> getDiscounts(String tenantId, String after, Integer limit, DiscountType discountType, ItemType applicableItemType);
+    Mono<Discount> getDiscountByCode(String tenantId, String discountCode);
+    Mono<Discount> addDiscount(Discount discount);
+    Mono<Void> deleteDiscount(String tenantId, String discountCode);
+    Mono<DiscountResponse> calculateBestDiscount(String tenantId, DiscountRequest request);
+    Mono<DiscountResponse> explainBestDiscount(String tenantId, DiscountRequest request);
+    Flux<DiscountResponse> calculateBestDiscounts(String tenantId, Flux<DiscountRequest> requests);
+}
\ No newline at end of file
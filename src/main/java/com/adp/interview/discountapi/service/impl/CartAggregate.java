@@ -0,0 +1,250 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.util.List;
+
+import com.adp.interview.discountapi.entity.Item;
+import com.adp.interview.discountapi.entity.ItemType;
+
+/**
+ * Per-cart totals computed once per request so that each discount rule can be scored
+ * without iterating over the cart again: spend per {@link ItemType}, quantity and spend
+ * per item id, and the unit costs sorted ascending with suffix sums of line spend for
+ * ITEM_COST thresholds. All amounts are in cents, all state is held in primitive arrays,
+ * and none of the accessors allocate.
+ */
+public final class CartAggregate {
+
+    private static final int ITEM_TYPE_COUNT = ItemType.values().length;
+
+    private final PricingCart cart;
+    private final long totalCost;
+    private final long maxItemCost;
+    private final boolean[] typePresent = new boolean[ITEM_TYPE_COUNT];
+    private final long[] spendByType = new long[ITEM_TYPE_COUNT];
+
+    // open-addressing table from item id to the first line carrying it
+    private final String[] idSlots;
+    private final int[] idSlotLines;
+    private final int[] distinctIdLines;
+    private int distinctIdCount;
+
+    private final long[] sortedCosts;
+    private final long[] spendFrom;
+
+    private CartAggregate(PricingCart cart) {
+        this.cart = cart;
+        int size = cart.size();
+        int capacity = Integer.highestOneBit(Math.max(4, size * 2 - 1)) << 1;
+        idSlots = new String[capacity];
+        idSlotLines = new int[capacity];
+        distinctIdLines = new int[size];
+        sortedCosts = new long[size];
+        long[] sortedSpend = new long[size];
+
+        long total = 0L;
+        long maxCost = Long.MIN_VALUE;
+        for (int line = 0; line < size; line++) {
+            long cost = cart.getCost(line);
+            long spend = Math.multiplyExact(cost, cart.getQuantity(line));
+            int type = cart.getTypeOrdinal(line);
+            typePresent[type] = true;
+            spendByType[type] += spend;
+            // ITEM_COUNT discounts only look at the first line carrying a given item id
+            int slot = findSlot(cart.getItemId(line));
+            if (idSlots[slot] == null) {
+                idSlots[slot] = cart.getItemId(line);
+                idSlotLines[slot] = line;
+                distinctIdLines[distinctIdCount++] = line;
+            }
+            sortedCosts[line] = cost;
+            sortedSpend[line] = spend;
+            total = Math.addExact(total, spend);
+            maxCost = Math.max(maxCost, cost);
+        }
+        sortByCost(sortedCosts, sortedSpend, 0, size - 1);
+        spendFrom = new long[size + 1];
+        for (int i = size - 1; i >= 0; i--) {
+            spendFrom[i] = spendFrom[i + 1] + sortedSpend[i];
+        }
+        totalCost = total;
+        maxItemCost = maxCost;
+    }
+
+    public static CartAggregate of(PricingCart cart) {
+        return new CartAggregate(cart);
+    }
+
+    public static CartAggregate of(List<Item> items) {
+        return new CartAggregate(PricingCart.of(items));
+    }
+
+    public PricingCart getCart() {
+        return cart;
+    }
+
+    public long getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Highest unit cost in the cart, or {@link Long#MIN_VALUE} for an empty cart.
+     */
+    public long getMaxItemCost() {
+        return maxItemCost;
+    }
+
+    public boolean containsType(int typeOrdinal) {
+        return typePresent[typeOrdinal];
+    }
+
+    public boolean containsType(ItemType itemType) {
+        return typePresent[itemType.ordinal()];
+    }
+
+    public long getSpend(int typeOrdinal) {
+        return spendByType[typeOrdinal];
+    }
+
+    public long getSpend(ItemType itemType) {
+        return spendByType[itemType.ordinal()];
+    }
+
+    /**
+     * Number of distinct item ids in the cart. Ids are numbered in order of first appearance.
+     */
+    public int getDistinctItemCount() {
+        return distinctIdCount;
+    }
+
+    public String getDistinctItemId(int index) {
+        return cart.getItemId(distinctIdLines[index]);
+    }
+
+    /**
+     * Quantity of the first line carrying the distinct item id at {@code index}.
+     */
+    public int getDistinctItemQuantity(int index) {
+        return cart.getQuantity(distinctIdLines[index]);
+    }
+
+    /**
+     * Spend (cost times quantity) of the first line carrying the distinct item id at {@code index}.
+     */
+    public long getDistinctItemSpend(int index) {
+        int line = distinctIdLines[index];
+        return cart.getCost(line) * cart.getQuantity(line);
+    }
+
+    public boolean containsItem(String itemId) {
+        return idSlots[findSlot(itemId)] != null;
+    }
+
+    /**
+     * Quantity of the first line with this item id, or zero if the item is not in the cart.
+     */
+    public int getQuantity(String itemId) {
+        int slot = findSlot(itemId);
+        return idSlots[slot] != null ? cart.getQuantity(idSlotLines[slot]) : 0;
+    }
+
+    /**
+     * Spend (cost times quantity) of the first line with this item id.
+     */
+    public long getSpend(String itemId) {
+        int slot = findSlot(itemId);
+        if (idSlots[slot] == null) {
+            return 0L;
+        }
+        int line = idSlotLines[slot];
+        return cart.getCost(line) * cart.getQuantity(line);
+    }
+
+    /**
+     * Total spend of all lines whose unit cost is strictly greater than {@code minimumCost}.
+     * Runs in O(log I) using a binary search over the sorted unit costs.
+     */
+    public long getSpendAbove(long minimumCost) {
+        int low = 0;
+        int high = sortedCosts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedCosts[mid] <= minimumCost) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return spendFrom[low];
+    }
+
+    private int findSlot(String itemId) {
+        int mask = idSlots.length - 1;
+        int slot = mix(itemId.hashCode()) & mask;
+        while (idSlots[slot] != null && !idSlots[slot].equals(itemId)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Sorts both arrays by ascending cost. Quicksort on the parallel arrays avoids boxing or
+     * index arrays; small ranges fall back to insertion sort.
+     */
+    private static void sortByCost(long[] costs, long[] spend, int low, int high) {
+        while (high - low > 16) {
+            int mid = (low + high) >>> 1;
+            long pivot = medianOfThree(costs[low], costs[mid], costs[high]);
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (costs[i] < pivot) {
+                    i++;
+                }
+                while (costs[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(costs, spend, i++, j--);
+                }
+            }
+            // recurse into the smaller half to bound stack depth
+            if (j - low < high - i) {
+                sortByCost(costs, spend, low, j);
+                low = i;
+            } else {
+                sortByCost(costs, spend, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            long cost = costs[i];
+            long lineSpend = spend[i];
+            int j = i - 1;
+            while (j >= low && costs[j] > cost) {
+                costs[j + 1] = costs[j];
+                spend[j + 1] = spend[j];
+                j--;
+            }
+            costs[j + 1] = cost;
+            spend[j + 1] = lineSpend;
+        }
+    }
+
+    private static long medianOfThree(long a, long b, long c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static void swap(long[] costs, long[] spend, int i, int j) {
+        long cost = costs[i];
+        costs[i] = costs[j];
+        costs[j] = cost;
+        long lineSpend = spend[i];
+        spend[i] = spend[j];
+        spend[j] = lineSpend;
+    }
+}
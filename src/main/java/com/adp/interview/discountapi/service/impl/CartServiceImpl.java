@@ -0,0 +1,189 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.adp.interview.discountapi.entity.CartDelta;
+import com.adp.interview.discountapi.entity.CartResponse;
+import com.adp.interview.discountapi.service.CartService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Carts held in memory and repriced incrementally as items change, see {@link CartSession}.
+ * Sessions not used for {@code discount.cart.idle-timeout-ms} are dropped, as are the least
+ * used ones once the sessions' total weight passes {@code discount.cart.max-weight}. A session
+ * weighs one plus its lines plus its tenant's ITEM_COST rules, the sizes of what it holds, and
+ * is weighed again after every use, so memory stays bounded however large carts grow. Sessions are local to this node. A cart
+ * belongs to the tenant that created it and is not found for any other. A line's unit cost is
+ * limited to {@code discount.cart.max-cost} and its cost times quantity to
+ * {@code discount.cart.max-line-total}; with the default limits the discount arithmetic for a
+ * full cart stays within a {@code long}.
+ */
+@Service
+public class CartServiceImpl implements CartService {
+
+    private final DiscountRuleCache discountRuleCache;
+    private final PricingMetrics pricingMetrics;
+    private final Cache<String, CartSession> sessions;
+    private final int maxLines;
+    private final long maxCost;
+    private final long maxLineTotal;
+
+    public CartServiceImpl(DiscountRuleCache discountRuleCache, PricingMetrics pricingMetrics, MeterRegistry meterRegistry,
+                           @Value("${discount.cart.max-weight:10000000}") long maxWeight,
+                           @Value("${discount.cart.idle-timeout-ms:1800000}") long idleTimeoutMillis,
+                           @Value("${discount.cart.max-lines:10000}") int maxLines,
+                           @Value("${discount.cart.max-cost:1000000}") double maxCost,
+                           @Value("${discount.cart.max-line-total:100000000}") double maxLineTotal) {
+        this.discountRuleCache = discountRuleCache;
+        this.pricingMetrics = pricingMetrics;
+        this.maxLines = maxLines;
+        this.maxCost = Money.toMinorUnits(maxCost);
+        this.maxLineTotal = Money.toMinorUnits(maxLineTotal);
+        sessions = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String cartId, CartSession session) -> session.weight())
+                .expireAfterAccess(Duration.ofMillis(idleTimeoutMillis))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, sessions, "discount.carts");
+    }
+
+    @Override
+    public CartResponse createCart(String tenantId, List<CartDelta> deltas) {
+        CartSession session = new CartSession(UUID.randomUUID().toString(), tenantId);
+        session.getLock().lock();
+        try {
+            apply(session, deltas);
+            CartResponse cartResponse = price(session);
+            sessions.put(session.getCartId(), session);
+            return cartResponse;
+        } finally {
+            session.getLock().unlock();
+        }
+    }
+
+    /**
+     * Applies the changes in order, all or none: if any change is invalid the cart is left as
+     * it was.
+     */
+    @Override
+    public CartResponse applyDeltas(String tenantId, String cartId, List<CartDelta> deltas) {
+        CartSession session = find(tenantId, cartId);
+        session.getLock().lock();
+        try {
+            apply(session, deltas);
+            return reweigh(session, price(session));
+        } finally {
+            session.getLock().unlock();
+        }
+    }
+
+    @Override
+    public CartResponse getCart(String tenantId, String cartId) {
+        CartSession session = find(tenantId, cartId);
+        session.getLock().lock();
+        try {
+            return reweigh(session, price(session));
+        } finally {
+            session.getLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteCart(String tenantId, String cartId) {
+        if (!sessions.asMap().remove(cartId, find(tenantId, cartId))) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart " + cartId + " not found.");
+        }
+    }
+
+    private CartSession find(String tenantId, String cartId) {
+        CartSession session = sessions.getIfPresent(cartId);
+        if (session == null || !session.getTenantId().equals(tenantId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Cart " + cartId + " not found.");
+        }
+        return session;
+    }
+
+    private void apply(CartSession session, List<CartDelta> deltas) {
+        // work out every resulting line first, so nothing is changed if a delta is invalid
+        Map<String, CartSession.Line> updated = new LinkedHashMap<>();
+        int size = session.size();
+        for (CartDelta delta : deltas) {
+            if (delta == null || delta.getId() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Item id is required.");
+            }
+            CartSession.Line line = updated.containsKey(delta.getId())
+                    ? updated.get(delta.getId()) : session.getLine(delta.getId());
+            if (line == null && (delta.getCost() == null || delta.getType() == null)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Cost and type must be supplied for item " + delta.getId() + ", which is not in the cart.");
+            }
+            if (delta.getCost() != null && !(delta.getCost() >= 0.0 && delta.getCost() <= Money.toDecimal(maxCost))) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Cost of item " + delta.getId() + " must be between 0 and " + Money.toDecimal(maxCost) + ".");
+            }
+            long quantity = (line != null ? line.quantity() : 0L) + delta.getQuantity();
+            if (quantity < 0 || quantity > Integer.MAX_VALUE) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Quantity of item " + delta.getId() + " must be between 0 and " + Integer.MAX_VALUE + ".");
+            }
+            CartSession.Line next = quantity == 0 ? null : new CartSession.Line(
+                    delta.getCost() != null ? Money.toMinorUnits(delta.getCost()) : line.cost(),
+                    delta.getType() != null ? delta.getType() : line.type(),
+                    (int) quantity);
+            // both factors are bounded, so this cannot overflow
+            if (next != null && next.cost() * next.quantity() > maxLineTotal) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Cost times quantity of item " + delta.getId() + " must not exceed " + Money.toDecimal(maxLineTotal) + ".");
+            }
+            size += (next != null ? 1 : 0) - (line != null ? 1 : 0);
+            updated.put(delta.getId(), next);
+        }
+        if (size > maxLines) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A cart must not have more than " + maxLines + " items.");
+        }
+        DiscountRuleIndex index = discountRuleCache.current(session.getTenantId());
+        updated.forEach((itemId, line) -> {
+            if (line == null) {
+                session.setLine(itemId, 0L, null, 0, index);
+            } else {
+                session.setLine(itemId, line.cost(), line.type(), line.quantity(), index);
+            }
+        });
+    }
+
+    /**
+     * Puts the session back so the cache weighs it again, unless it was dropped meanwhile.
+     */
+    private CartResponse reweigh(CartSession session, CartResponse cartResponse) {
+        sessions.asMap().replace(session.getCartId(), session, session);
+        return cartResponse;
+    }
+
+    long weightedSize() {
+        sessions.cleanUp();
+        return sessions.policy().eviction().orElseThrow().weightedSize().orElseThrow();
+    }
+
+    private CartResponse price(CartSession session) {
+        long start = System.nanoTime();
+        PricingResult result = session.price(discountRuleCache.current(session.getTenantId()));
+        pricingMetrics.recordCalculation(session.getTenantId(), result, session.size(), start);
+        CartResponse cartResponse = new CartResponse();
+        cartResponse.setCartId(session.getCartId());
+        cartResponse.setLines(session.size());
+        cartResponse.setDiscount(result.toResponse());
+        return cartResponse;
+    }
+}
@@ -0,0 +1,321 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.adp.interview.discountapi.entity.ItemType;
+
+/**
+ * A cart kept on the server with the totals needed to price it, updated line by line so that
+ * repricing after a change costs time in proportion to the rules the change touches rather than
+ * the size of the cart. The cart holds one line per item id. Prices match
+ * {@link DiscountEvaluator} for the same lines.
+ *
+ * <ul>
+ *   <li>ITEM_TYPE: the best rule for a type is the one with the most basis points whatever the
+ *       spend, so it is found once per rule index and a change only updates the type's spend.</li>
+ *   <li>ITEM_COUNT: a change rescores the rules for its item id only; the best score for each
+ *       item is kept in a sorted set.</li>
+ *   <li>ITEM_COST: the spend above each rule's minimum cost is kept per rule, in the index's
+ *       ascending minimum cost order, with the best rule in each suffix. A line of unit cost
+ *       {@code c} only counts for rules with a minimum below {@code c}, a prefix, so only
+ *       that prefix is rescored.</li>
+ * </ul>
+ *
+ * A cart is priced against its tenant's rules. When the rule index changes, the next access
+ * rescores only the rules that differ from the ones the totals were computed for.
+ * Callers hold {@link #getLock()} around every use.
+ */
+final class CartSession {
+
+    private static final int ITEM_TYPE_COUNT = ItemType.values().length;
+
+    private static final Comparator<ItemScore> BEST_FIRST = Comparator
+            .comparingLong((ItemScore score) -> score.amount).reversed()
+            .thenComparing(score -> score.rule, StackedDiscountOptimizer::compareRules);
+
+    private final String cartId;
+    private final String tenantId;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Line> lines = new LinkedHashMap<>();
+
+    private DiscountRuleIndex index; // rules the totals below were computed for
+    private long totalCost;
+    private final long[] spendByType = new long[ITEM_TYPE_COUNT];
+    private final DiscountRule[] bestTypeRules = new DiscountRule[ITEM_TYPE_COUNT];
+    private final Map<String, ItemScore> itemScores = new HashMap<>();
+    private final TreeSet<ItemScore> rankedItemScores = new TreeSet<>(BEST_FIRST);
+    private long[] costRuleSpend = new long[0];
+    private int[] bestCostRuleFrom = new int[0]; // best rule among costRules[i..], or -1
+    private int rulesEvaluated;
+
+    CartSession(String cartId, String tenantId) {
+        this.cartId = cartId;
+        this.tenantId = tenantId;
+    }
+
+    String getCartId() {
+        return cartId;
+    }
+
+    String getTenantId() {
+        return tenantId;
+    }
+
+    ReentrantLock getLock() {
+        return lock;
+    }
+
+    int size() {
+        return lines.size();
+    }
+
+    /**
+     * Size of what the session holds, in lines and ITEM_COST rule slots, for the session cache.
+     * Read under {@link #getLock()}.
+     */
+    int weight() {
+        return 1 + lines.size() + costRuleSpend.length;
+    }
+
+    Line getLine(String itemId) {
+        return lines.get(itemId);
+    }
+
+    /**
+     * Sets the line for {@code itemId}, removing it if {@code quantity} is zero.
+     */
+    void setLine(String itemId, long cost, ItemType type, int quantity, DiscountRuleIndex current) {
+        prepare(current);
+        Line previous = quantity > 0 ? lines.put(itemId, new Line(cost, type, quantity)) : lines.remove(itemId);
+        if (previous != null) {
+            addSpend(previous, -1);
+        }
+        if (quantity > 0) {
+            addSpend(lines.get(itemId), 1);
+        }
+        scoreItem(itemId);
+    }
+
+    /**
+     * Returns the best discount for the cart against {@code current}. The rules evaluated are
+     * those rescored since the previous call.
+     */
+    PricingResult price(DiscountRuleIndex current) {
+        prepare(current);
+        DiscountRule best = null;
+        long bestAmount = 0L;
+        for (int type = 0; type < ITEM_TYPE_COUNT; type++) {
+            DiscountRule rule = bestTypeRules[type];
+            if (rule != null) {
+                long amount = Money.scaledPercentOf(spendByType[type], rule.getBasisPoints());
+                if (DiscountEvaluator.isBetter(amount, rule, bestAmount, best)) {
+                    bestAmount = amount;
+                    best = rule;
+                }
+            }
+        }
+        if (!rankedItemScores.isEmpty()) {
+            ItemScore top = rankedItemScores.first();
+            if (DiscountEvaluator.isBetter(top.amount, top.rule, bestAmount, best)) {
+                bestAmount = top.amount;
+                best = top.rule;
+            }
+        }
+        if (bestCostRuleFrom.length > 0 && bestCostRuleFrom[0] >= 0) {
+            int r = bestCostRuleFrom[0];
+            DiscountRule rule = index.getItemCostRules()[r];
+            long amount = Money.scaledPercentOf(costRuleSpend[r], rule.getBasisPoints());
+            if (DiscountEvaluator.isBetter(amount, rule, bestAmount, best)) {
+                bestAmount = amount;
+                best = rule;
+            }
+        }
+        int evaluated = rulesEvaluated;
+        rulesEvaluated = 0;
+        return new PricingResult(best, totalCost, Money.roundScaled(bestAmount), evaluated);
+    }
+
+    /**
+     * Brings the totals up to date with {@code current} if the rules changed since they were
+     * computed. Only rules that differ between the two indexes are rescored; the spends do not
+     * depend on the rules, and an ITEM_COST rule's spend depends only on its minimum cost, so
+     * the lines are read again only for minimum costs that no previous rule had.
+     */
+    private void prepare(DiscountRuleIndex current) {
+        if (index != null && index.getVersion() == current.getVersion()) {
+            return;
+        }
+        DiscountRuleIndex previous = index != null ? index : DiscountRuleIndex.EMPTY;
+        index = current;
+        for (int type = 0; type < ITEM_TYPE_COUNT; type++) {
+            DiscountRule[] rules = current.getItemTypeRules(type);
+            if (Arrays.equals(previous.getItemTypeRules(type), rules)) {
+                continue;
+            }
+            bestTypeRules[type] = null;
+            for (DiscountRule rule : rules) {
+                if (bestTypeRules[type] == null || rule.getBasisPoints() > bestTypeRules[type].getBasisPoints()
+                        || rule.getBasisPoints() == bestTypeRules[type].getBasisPoints() && rule.precedes(bestTypeRules[type])) {
+                    bestTypeRules[type] = rule;
+                }
+            }
+            rulesEvaluated += rules.length;
+        }
+        rescoreChangedItems(previous);
+        if (!Arrays.equals(previous.getItemCostRules(), current.getItemCostRules())) {
+            recomputeCostRuleSpend(previous);
+        }
+    }
+
+    /**
+     * Rescores the items in the cart whose ITEM_COUNT rules differ in {@code previous}, looking
+     * through the cart or through the rules' item ids, whichever is smaller.
+     */
+    private void rescoreChangedItems(DiscountRuleIndex previous) {
+        Collection<String> itemIds = lines.keySet();
+        if (previous.getItemCountItemIds().size() + index.getItemCountItemIds().size() < lines.size()) {
+            itemIds = new HashSet<>(previous.getItemCountItemIds());
+            itemIds.addAll(index.getItemCountItemIds());
+        }
+        for (String itemId : itemIds) {
+            if (lines.containsKey(itemId) && !Arrays.equals(previous.getItemCountRules(itemId), index.getItemCountRules(itemId))) {
+                scoreItem(itemId);
+            }
+        }
+    }
+
+    /**
+     * Lays out the ITEM_COST spends for the current rules, taking each from a previous rule with
+     * the same minimum cost where there is one, and rescores every rule.
+     */
+    private void recomputeCostRuleSpend(DiscountRuleIndex previous) {
+        DiscountRule[] before = previous.getItemCostRules();
+        DiscountRule[] after = index.getItemCostRules();
+        long[] spend = new long[after.length];
+        int[] unseen = new int[after.length]; // rules whose minimum cost no previous rule had
+        int unseenCount = 0;
+        int b = 0;
+        for (int r = 0; r < after.length; r++) {
+            long minimum = after[r].getMinimumCostMinorUnits();
+            while (b < before.length && before[b].getMinimumCostMinorUnits() < minimum) {
+                b++;
+            }
+            if (b < before.length && before[b].getMinimumCostMinorUnits() == minimum) {
+                spend[r] = costRuleSpend[b];
+            } else {
+                unseen[unseenCount++] = r;
+            }
+        }
+        if (unseenCount > 0) {
+            long[] minimums = new long[unseenCount];
+            for (int i = 0; i < unseenCount; i++) {
+                minimums[i] = after[unseen[i]].getMinimumCostMinorUnits();
+            }
+            // as in addSpend, a line counts for the unseen minimums below its cost, a prefix
+            long[] unseenSpend = new long[unseenCount];
+            for (Line line : lines.values()) {
+                int applicable = countBelow(minimums, line.cost);
+                if (applicable > 0) {
+                    unseenSpend[applicable - 1] += line.spend();
+                }
+            }
+            for (int i = unseenCount - 1; i >= 0; i--) {
+                spend[unseen[i]] = unseenSpend[i] + (i + 1 < unseenCount ? spend[unseen[i + 1]] : 0L);
+            }
+        }
+        costRuleSpend = spend;
+        bestCostRuleFrom = new int[after.length];
+        rescoreCostRules(after.length);
+    }
+
+    private static int countBelow(long[] ascending, long value) {
+        int low = 0;
+        int high = ascending.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ascending[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void addSpend(Line line, int sign) {
+        long spend = sign * line.spend();
+        totalCost = Math.addExact(totalCost, spend);
+        spendByType[line.type.ordinal()] += spend;
+        int applicable = index.countItemCostRulesBelow(line.cost);
+        for (int r = 0; r < applicable; r++) {
+            costRuleSpend[r] += spend;
+        }
+        rescoreCostRules(applicable);
+    }
+
+    /**
+     * Recomputes the best rule for every suffix starting below {@code changed}; suffixes from
+     * {@code changed} on did not change.
+     */
+    private void rescoreCostRules(int changed) {
+        DiscountRule[] rules = index.getItemCostRules();
+        for (int r = changed - 1; r >= 0; r--) {
+            int next = r + 1 < rules.length ? bestCostRuleFrom[r + 1] : -1;
+            long amount = Money.scaledPercentOf(costRuleSpend[r], rules[r].getBasisPoints());
+            if (next < 0) {
+                bestCostRuleFrom[r] = amount > 0 ? r : -1;
+            } else {
+                long nextAmount = Money.scaledPercentOf(costRuleSpend[next], rules[next].getBasisPoints());
+                bestCostRuleFrom[r] = amount > nextAmount || amount == nextAmount && rules[r].precedes(rules[next]) ? r : next;
+            }
+        }
+        rulesEvaluated += changed;
+    }
+
+    private void scoreItem(String itemId) {
+        ItemScore previous = itemScores.remove(itemId);
+        if (previous != null) {
+            rankedItemScores.remove(previous);
+        }
+        Line line = lines.get(itemId);
+        DiscountRule[] rules = index.getItemCountRules(itemId);
+        if (line == null || rules.length == 0) {
+            return;
+        }
+        DiscountRule best = null;
+        for (DiscountRule rule : rules) {
+            if (line.quantity >= rule.getItemQuantityThreshold() && (best == null
+                    || rule.getBasisPoints() > best.getBasisPoints()
+                    || rule.getBasisPoints() == best.getBasisPoints() && rule.precedes(best))) {
+                best = rule;
+            }
+        }
+        rulesEvaluated += rules.length;
+        if (best != null) {
+            ItemScore score = new ItemScore(best, Money.scaledPercentOf(line.spend(), best.getBasisPoints()));
+            itemScores.put(itemId, score);
+            rankedItemScores.add(score);
+        }
+    }
+
+    /**
+     * One cart line; {@code cost} is the unit cost in cents.
+     */
+    record Line(long cost, ItemType type, int quantity) {
+
+        long spend() {
+            return Math.multiplyExact(cost, quantity);
+        }
+    }
+
+    private record ItemScore(DiscountRule rule, long amount) {
+    }
+}
@@ -0,0 +1,313 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountChangeEvent;
+import com.adp.interview.discountapi.entity.DiscountId;
+import com.adp.interview.discountapi.entity.DiscountSyncNode;
+import com.adp.interview.discountapi.repository.DiscountChangeEventRepository;
+import com.adp.interview.discountapi.repository.DiscountRepository;
+import com.adp.interview.discountapi.repository.DiscountSyncNodeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps this node's {@link DiscountRuleCache} in step with changes written by any node. Every
+ * add or delete appends a {@link DiscountChangeEvent} in the same transaction; this component
+ * reads the log incrementally by version and applies the changed codes to the cache and to
+ * the {@link DiscountLookupCache}.
+ *
+ * <p>Versions are assigned when a row is inserted, so a transaction that commits late can
+ * leave a temporary gap. Events after a gap are held back until the gap fills or
+ * {@code discount.sync.gap-timeout-ms} passes, usually because the version was rolled back.
+ * Skipped versions are looked up again for {@code discount.sync.late-commit-window-ms}, so a
+ * transaction that commits later than the gap timeout is still applied. Each poll looks up at most
+ * {@code discount.sync.batch-size} of them, continuing where the previous poll stopped. Applying an event
+ * re-reads the discount row, so applying one twice, or out of order, is harmless.
+ *
+ * <p>Every {@code discount.sync.retention-interval-ms} each node records the version below which
+ * it has applied everything in the {@link DiscountSyncNode} table. It then deletes log rows that are
+ * at or below the lowest recorded version and older than the late-commit window. Nodes that have not
+ * reported for {@code discount.sync.node-timeout-ms} are taken to be stopped and no longer hold
+ * rows back. A node that starts loads the whole catalog, so it needs none of the deleted rows.
+ */
+@Slf4j
+@Component
+public class DiscountChangeLogTailer {
+
+    private final DiscountChangeEventRepository changeEventRepository;
+    private final DiscountSyncNodeRepository syncNodeRepository;
+    private final DiscountRepository discountRepository;
+    private final DiscountRuleCache discountRuleCache;
+    private final DiscountLookupCache discountLookupCache;
+
+    @Value("${discount.sync.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${discount.sync.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${discount.sync.gap-timeout-ms:5000}")
+    private long gapTimeoutMillis = 5000;
+
+    @Value("${discount.sync.startup-overlap:100}")
+    private long startupOverlap = 100;
+
+    @Value("${discount.sync.late-commit-window-ms:600000}")
+    private long lateCommitWindowMillis = 600000;
+
+    @Value("${discount.sync.max-skipped-versions:10000}")
+    private int maxSkippedVersions = 10000;
+
+    @Value("${discount.sync.node-timeout-ms:300000}")
+    private long nodeTimeoutMillis = 300000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // not a monitor: polls query the database and must not pin a virtual thread's carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile long appliedVersion;
+    private long gapSince;
+    private final TreeMap<Long, Long> skippedVersions = new TreeMap<>(); // version to when it was skipped
+    private volatile int skippedVersionCount;
+    private long lateCommitCursor; // first skipped version the next poll looks up
+
+    public DiscountChangeLogTailer(DiscountChangeEventRepository changeEventRepository,
+                                   DiscountSyncNodeRepository syncNodeRepository,
+                                   DiscountRepository discountRepository, DiscountRuleCache discountRuleCache,
+                                   DiscountLookupCache discountLookupCache) {
+        this.changeEventRepository = changeEventRepository;
+        this.syncNodeRepository = syncNodeRepository;
+        this.discountRepository = discountRepository;
+        this.discountRuleCache = discountRuleCache;
+        this.discountLookupCache = discountLookupCache;
+    }
+
+    /**
+     * Loads the default tenant's rules, other tenants loading on first use, and starts tailing a
+     * little before the log version read before the load, so changes that commit while loading,
+     * or that hold an earlier version but commit late, are applied rather than missed. Tenants
+     * already seeded from a {@link DiscountRuleSnapshot} are reloaded too; they keep serving
+     * their snapshot rules until their load completes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        lock.lock();
+        try {
+            long version = changeEventRepository.findLatestVersion();
+            Set<String> tenantIds = new LinkedHashSet<>();
+            tenantIds.add(Discount.DEFAULT_TENANT);
+            tenantIds.addAll(discountRuleCache.getLoadedIndexes().keySet());
+            for (String tenantId : tenantIds) {
+                discountRuleCache.reload(tenantId);
+            }
+            appliedVersion = Math.max(0, version - startupOverlap);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${discount.sync.poll-interval-ms:1000}")
+    public void scheduledPoll() {
+        if (enabled) {
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                log.warn("Failed to apply discount changes after version {}", appliedVersion, e);
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${discount.sync.retention-interval-ms:60000}",
+            fixedDelayString = "${discount.sync.retention-interval-ms:60000}")
+    public void scheduledPurge() {
+        if (enabled) {
+            try {
+                purge();
+            } catch (RuntimeException e) {
+                log.warn("Failed to purge the discount change log", e);
+            }
+        }
+    }
+
+    /**
+     * Records the version this node has applied everything up to, then deletes log rows that every
+     * running node has applied and that are older than the late-commit window. Returns the number
+     * of rows deleted.
+     */
+    public int purge() {
+        long now = System.currentTimeMillis();
+        syncNodeRepository.save(new DiscountSyncNode(nodeId, getAppliedThroughVersion(), Instant.ofEpochMilli(now)));
+        syncNodeRepository.deleteReportedBefore(Instant.ofEpochMilli(now - nodeTimeoutMillis));
+        long lowest = syncNodeRepository.findLowestAppliedVersion().orElse(0L);
+        int deleted = changeEventRepository.deleteAppliedBefore(lowest, Instant.ofEpochMilli(now - lateCommitWindowMillis));
+        if (deleted > 0) {
+            log.info("Deleted {} discount change log rows up to version {}", deleted, lowest);
+        }
+        return deleted;
+    }
+
+    /**
+     * Version up to which every change has been applied on this node: the applied version, or
+     * just below the lowest skipped version still watched for a late commit.
+     */
+    long getAppliedThroughVersion() {
+        lock.lock();
+        try {
+            return skippedVersions.isEmpty() ? appliedVersion : Math.min(appliedVersion, skippedVersions.firstKey() - 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies the next batch of changes from the log. Returns the number of events applied.
+     */
+    public int poll() {
+        lock.lock();
+        try {
+            return pollLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int pollLocked() {
+        int applied = applyLateCommits();
+        List<DiscountChangeEvent> events = changeEventRepository.findByVersionGreaterThanOrderByVersionAsc(
+                appliedVersion, PageRequest.of(0, batchSize));
+        long expected = appliedVersion + 1;
+        List<DiscountChangeEvent> contiguous = new ArrayList<>();
+        for (DiscountChangeEvent event : events) {
+            if (event.getVersion() != expected) {
+                long now = System.currentTimeMillis();
+                if (gapSince == 0) {
+                    gapSince = now;
+                }
+                if (now - gapSince < gapTimeoutMillis) {
+                    break;
+                }
+                log.warn("Skipping missing discount change versions {} to {}", expected, event.getVersion() - 1);
+                skip(expected, event.getVersion() - 1, now);
+            }
+            gapSince = 0;
+            contiguous.add(event);
+            expected = event.getVersion() + 1;
+        }
+        skippedVersionCount = skippedVersions.size();
+        if (contiguous.isEmpty()) {
+            return applied;
+        }
+        apply(contiguous);
+        appliedVersion = contiguous.get(contiguous.size() - 1).getVersion();
+        return applied + contiguous.size();
+    }
+
+    /**
+     * Remembers skipped versions, up to {@code discount.sync.max-skipped-versions} in all.
+     */
+    private void skip(long from, long to, long now) {
+        for (long version = from; version <= to; version++) {
+            if (skippedVersions.size() >= maxSkippedVersions) {
+                log.warn("Not watching discount change versions {} to {} for late commits, too many skipped versions", version, to);
+                return;
+            }
+            skippedVersions.put(version, now);
+        }
+    }
+
+    /**
+     * Applies skipped versions that have committed since, and stops watching those skipped longer
+     * than {@code discount.sync.late-commit-window-ms} ago. Looks up one batch of skipped versions,
+     * from where the previous poll stopped, wrapping around at the end. Returns the number of
+     * events applied.
+     */
+    private int applyLateCommits() {
+        if (skippedVersions.isEmpty()) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        int watched = skippedVersions.size();
+        skippedVersions.values().removeIf(skippedAt -> now - skippedAt >= lateCommitWindowMillis);
+        if (skippedVersions.size() < watched) {
+            log.info("Stopped watching {} skipped discount change versions that never committed", watched - skippedVersions.size());
+        }
+        if (skippedVersions.isEmpty()) {
+            skippedVersionCount = 0;
+            return 0;
+        }
+        Long from = skippedVersions.ceilingKey(lateCommitCursor);
+        List<Long> versions = new ArrayList<>();
+        for (Long version : skippedVersions.tailMap(from != null ? from : skippedVersions.firstKey()).keySet()) {
+            if (versions.size() == batchSize) {
+                break;
+            }
+            versions.add(version);
+        }
+        lateCommitCursor = versions.get(versions.size() - 1) + 1;
+        List<DiscountChangeEvent> late = changeEventRepository.findByVersionInOrderByVersionAsc(versions);
+        if (!late.isEmpty()) {
+            log.info("Applying {} discount changes that committed after their version was skipped", late.size());
+            apply(late);
+            late.forEach(event -> skippedVersions.remove(event.getVersion()));
+        }
+        skippedVersionCount = skippedVersions.size();
+        return late.size();
+    }
+
+    public long getAppliedVersion() {
+        return appliedVersion;
+    }
+
+    /**
+     * Number of skipped versions still watched for a late commit. Nodes have only converged once
+     * this is zero too.
+     */
+    public int getSkippedVersionCount() {
+        return skippedVersionCount;
+    }
+
+    public long getLatestVersion() {
+        return changeEventRepository.findLatestVersion();
+    }
+
+    private void apply(List<DiscountChangeEvent> events) {
+        // only the current row matters, whatever sequence of changes led to it
+        Set<DiscountId> discountIds = new LinkedHashSet<>();
+        for (DiscountChangeEvent event : events) {
+            discountIds.add(new DiscountId(event.getTenantId(), event.getDiscountCode()));
+        }
+        Map<DiscountId, Discount> current = discountRepository.findAllById(discountIds).stream()
+                .collect(Collectors.toMap(discount -> new DiscountId(discount.getTenantId(), discount.getDiscountCode()),
+                        Function.identity()));
+        List<Discount> upserts = new ArrayList<>();
+        List<DiscountId> deletes = new ArrayList<>();
+        for (DiscountId discountId : discountIds) {
+            Discount discount = current.get(discountId);
+            if (discount != null) {
+                upserts.add(discount);
+            } else {
+                deletes.add(discountId);
+            }
+        }
+        discountRuleCache.onChanged(upserts, deletes);
+        discountLookupCache.onChanged(upserts, deletes);
+    }
+}
@@ -0,0 +1,279 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+
+/**
+ * Reads and writes discounts as CSV with a header row naming the {@link Discount} fields. Fields
+ * may be quoted, with {@code ""} for a literal quote; empty fields leave the field at its default.
+ */
+public final class DiscountCsv {
+
+    public static final List<String> COLUMNS = List.of("discountCode", "description", "discountPercentage",
+            "discountType", "applicableItemType", "applicableItemId", "itemQuantityThreshold", "minimumCost",
+            "stackable", "exclusiveGroup", "priority", "validFrom", "validUntil", "maxRedemptions");
+
+    private DiscountCsv() {
+    }
+
+    /**
+     * Reads at most {@code maxRows} data rows. Each row is added to {@code discounts}; a row that
+     * cannot be parsed is added as null and its message is put in {@code rowErrors} under its
+     * index in {@code discounts}. Returns false if the input had more than {@code maxRows} rows.
+     */
+    public static boolean read(Reader reader, int maxRows, List<Discount> discounts, Map<Integer, String> rowErrors)
+            throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        if (!readRecord(reader, fields, field)) {
+            return true;
+        }
+        int[] columns = new int[COLUMNS.size()];
+        Map<String, Integer> names = new HashMap<>();
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            names.put(COLUMNS.get(i).toLowerCase(Locale.ROOT), i);
+        }
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < fields.size(); i++) {
+            Integer column = names.get(fields.get(i).trim().toLowerCase(Locale.ROOT));
+            if (column == null) {
+                throw new IllegalArgumentException("Unknown CSV column: " + fields.get(i).trim());
+            }
+            columns[column] = i;
+        }
+        if (columns[0] < 0 || columns[3] < 0) {
+            throw new IllegalArgumentException("CSV header must include discountCode and discountType.");
+        }
+        int width = fields.size();
+        while (readRecord(reader, fields, field)) {
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            if (discounts.size() == maxRows) {
+                return false;
+            }
+            try {
+                if (fields.size() != width) {
+                    throw new IllegalArgumentException("expected " + width + " fields but found " + fields.size());
+                }
+                discounts.add(toDiscount(fields, columns));
+            } catch (IllegalArgumentException e) {
+                rowErrors.put(discounts.size(), "Row " + (discounts.size() + 1) + ": " + e.getMessage());
+                discounts.add(null);
+            }
+        }
+        return true;
+    }
+
+    public static void writeHeader(Writer writer) throws IOException {
+        writer.write(String.join(",", COLUMNS));
+        writer.write('\n');
+    }
+
+    public static void write(Writer writer, Discount discount) throws IOException {
+        writeField(writer, discount.getDiscountCode());
+        writer.write(',');
+        writeField(writer, discount.getDescription());
+        writer.write(',');
+        writer.write(Double.toString(discount.getDiscountPercentage()));
+        writer.write(',');
+        writeField(writer, discount.getDiscountType() != null ? discount.getDiscountType().name() : null);
+        writer.write(',');
+        writeField(writer, discount.getApplicableItemType() != null ? discount.getApplicableItemType().name() : null);
+        writer.write(',');
+        writeField(writer, discount.getApplicableItemId());
+        writer.write(',');
+        writer.write(Integer.toString(discount.getItemQuantityThreshold()));
+        writer.write(',');
+        writer.write(Double.toString(discount.getMinimumCost()));
+        writer.write(',');
+        writer.write(Boolean.toString(discount.isStackable()));
+        writer.write(',');
+        writeField(writer, discount.getExclusiveGroup());
+        writer.write(',');
+        writer.write(Integer.toString(discount.getPriority()));
+        writer.write(',');
+        writeField(writer, discount.getValidFrom() != null ? discount.getValidFrom().toString() : null);
+        writer.write(',');
+        writeField(writer, discount.getValidUntil() != null ? discount.getValidUntil().toString() : null);
+        writer.write(',');
+        writeField(writer, discount.getMaxRedemptions() != null ? discount.getMaxRedemptions().toString() : null);
+        writer.write('\n');
+    }
+
+    private static Discount toDiscount(List<String> fields, int[] columns) {
+        Discount discount = new Discount();
+        discount.setDiscountCode(text(fields, columns[0]));
+        discount.setDescription(text(fields, columns[1]));
+        String value = text(fields, columns[2]);
+        if (value != null) {
+            discount.setDiscountPercentage(parseDouble("discountPercentage", value));
+        }
+        value = text(fields, columns[3]);
+        if (value != null) {
+            discount.setDiscountType(parseEnum(DiscountType.class, "discountType", value));
+        }
+        value = text(fields, columns[4]);
+        if (value != null) {
+            discount.setApplicableItemType(parseEnum(ItemType.class, "applicableItemType", value));
+        }
+        discount.setApplicableItemId(text(fields, columns[5]));
+        value = text(fields, columns[6]);
+        if (value != null) {
+            discount.setItemQuantityThreshold(parseInt("itemQuantityThreshold", value));
+        }
+        value = text(fields, columns[7]);
+        if (value != null) {
+            discount.setMinimumCost(parseDouble("minimumCost", value));
+        }
+        value = text(fields, columns[8]);
+        if (value != null) {
+            discount.setStackable(parseBoolean("stackable", value));
+        }
+        discount.setExclusiveGroup(text(fields, columns[9]));
+        value = text(fields, columns[10]);
+        if (value != null) {
+            discount.setPriority(parseInt("priority", value));
+        }
+        value = text(fields, columns[11]);
+        if (value != null) {
+            discount.setValidFrom(parseInstant("validFrom", value));
+        }
+        value = text(fields, columns[12]);
+        if (value != null) {
+            discount.setValidUntil(parseInstant("validUntil", value));
+        }
+        value = text(fields, columns[13]);
+        if (value != null) {
+            discount.setMaxRedemptions(parseInt("maxRedemptions", value));
+        }
+        return discount;
+    }
+
+    private static String text(List<String> fields, int column) {
+        if (column < 0) {
+            return null;
+        }
+        String value = fields.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static int parseInt(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + name + " '" + value + "'");
+        }
+    }
+
+    private static Instant parseInstant(String name, String value) {
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid " + name + " '" + value + "'");
+        }
+    }
+
+    private static boolean parseBoolean(String name, String value) {
+        if (value.equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("invalid " + name + " '" + value + "'");
+    }
+
+    private static double parseDouble(String name, String value) {
+        try {
+            double parsed = Double.parseDouble(value);
+            if (Double.isFinite(parsed)) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("invalid " + name + " '" + value + "'");
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String name, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid " + name + " '" + value + "'");
+        }
+    }
+
+    /**
+     * Reads the next record into {@code fields}, handling quoted fields that contain commas,
+     * quotes or line breaks. Returns false at end of input.
+     */
+    private static boolean readRecord(Reader reader, List<String> fields, StringBuilder field) throws IOException {
+        fields.clear();
+        field.setLength(0);
+        int c = reader.read();
+        if (c == -1) {
+            return false;
+        }
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                    field.append('"');
+                } else if (c == -1) {
+                    quoted = false;
+                    continue;
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == -1 || c == '\n') {
+                fields.add(field.toString());
+                return true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
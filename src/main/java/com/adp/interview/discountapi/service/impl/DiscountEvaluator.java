@@ -0,0 +1,431 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+
+import com.adp.interview.discountapi.entity.ItemType;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Finds the best discount for a cart. The cart is aggregated once, so every candidate rule
+ * is scored in O(1) (ITEM_TYPE, ITEM_COUNT) or O(log I) (ITEM_COST), and the index is used
+ * to skip rules that cannot match anything in the cart. Candidates are compared on their
+ * exact amounts and only the winner is rounded to cents, see {@link Money}.
+ *
+ * <p>A cart with at least {@code discount.evaluation.parallel-threshold} candidate rules is
+ * scored in chunks of {@code discount.evaluation.chunk-size} on a dedicated fork/join pool of
+ * {@code discount.evaluation.parallelism} threads (the number of processors by default), so
+ * very large catalogs neither hold one request thread for long nor compete with other users
+ * of the common pool. The chunk winners are reduced with the same order as the sequential
+ * scan, the larger amount, then priority and catalog order, so both pick the same discount.
+ */
+@Component
+public class DiscountEvaluator {
+
+    private static final int ITEM_TYPE_COUNT = ItemType.values().length;
+
+    private final ForkJoinPool pool; // null when evaluation is always sequential
+    private final int parallelThreshold;
+    private final int chunkSize;
+
+    /**
+     * Creates an evaluator that always scores sequentially.
+     */
+    public DiscountEvaluator() {
+        pool = null;
+        parallelThreshold = Integer.MAX_VALUE;
+        chunkSize = Integer.MAX_VALUE;
+    }
+
+    @Autowired
+    public DiscountEvaluator(@Value("${discount.evaluation.parallel-threshold:20000}") int parallelThreshold,
+                             @Value("${discount.evaluation.parallelism:0}") int parallelism,
+                             @Value("${discount.evaluation.chunk-size:4096}") int chunkSize) {
+        this.parallelThreshold = parallelThreshold > 0 ? parallelThreshold : Integer.MAX_VALUE;
+        this.chunkSize = Math.max(1, chunkSize);
+        pool = parallelThreshold > 0 ? new ForkJoinPool(
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                forkJoinPool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                    thread.setName("discount-evaluator-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false) : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Scores every candidate rule and returns the best one. Apart from the returned result,
+     * nothing is allocated on the sequential path, however many rules are evaluated.
+     */
+    public PricingResult evaluate(CartAggregate cart, DiscountRuleIndex index) {
+        if (pool != null) {
+            int candidates = countCandidates(cart, index);
+            if (candidates >= parallelThreshold) {
+                return evaluateParallel(cart, index, candidates);
+            }
+        }
+        return evaluateSequential(cart, index);
+    }
+
+    /**
+     * Returns true if {@link #evaluate} may score some cart against this index on the fork/join
+     * pool, waiting for it on the calling thread.
+     */
+    public boolean mayFork(DiscountRuleIndex index) {
+        return pool != null && index.size() >= parallelThreshold;
+    }
+
+    PricingResult evaluateSequential(CartAggregate cart, DiscountRuleIndex index) {
+        long bestAmount = 0L;
+        DiscountRule best = null;
+        int evaluated = 0;
+
+        for (int type = 0; type < ITEM_TYPE_COUNT; type++) {
+            if (!cart.containsType(type)) {
+                continue;
+            }
+            long spend = cart.getSpend(type);
+            DiscountRule[] rules = index.getItemTypeRules(type);
+            evaluated += rules.length;
+            for (int r = 0; r < rules.length; r++) {
+                DiscountRule rule = rules[r];
+                long amount = Money.scaledPercentOf(spend, rule.getBasisPoints());
+                if (isBetter(amount, rule, bestAmount, best)) {
+                    bestAmount = amount;
+                    best = rule;
+                }
+            }
+        }
+
+        for (int item = 0; item < cart.getDistinctItemCount(); item++) {
+            DiscountRule[] rules = index.getItemCountRules(cart.getDistinctItemId(item));
+            if (rules.length == 0) {
+                continue;
+            }
+            evaluated += rules.length;
+            int quantity = cart.getDistinctItemQuantity(item);
+            long spend = cart.getDistinctItemSpend(item);
+            for (int r = 0; r < rules.length; r++) {
+                DiscountRule rule = rules[r];
+                if (quantity < rule.getItemQuantityThreshold()) {
+                    continue;
+                }
+                long amount = Money.scaledPercentOf(spend, rule.getBasisPoints());
+                if (isBetter(amount, rule, bestAmount, best)) {
+                    bestAmount = amount;
+                    best = rule;
+                }
+            }
+        }
+
+        // rules with a minimum cost at or above the most expensive item cannot apply
+        DiscountRule[] costRules = index.getItemCostRules();
+        int applicable = index.countItemCostRulesBelow(cart.getMaxItemCost());
+        evaluated += applicable;
+        for (int r = 0; r < applicable; r++) {
+            DiscountRule rule = costRules[r];
+            long amount = Money.scaledPercentOf(cart.getSpendAbove(rule.getMinimumCostMinorUnits()), rule.getBasisPoints());
+            if (isBetter(amount, rule, bestAmount, best)) {
+                bestAmount = amount;
+                best = rule;
+            }
+        }
+
+        return new PricingResult(best, cart.getTotalCost(), Money.roundScaled(bestAmount), evaluated);
+    }
+
+    /**
+     * Scores every candidate rule, as {@link #evaluate} does, and returns the {@code limit} that
+     * save the most, ranked in the order {@link #isBetter} gives, so the first is the discount
+     * {@link #evaluate} picks. The leaders are kept in a bounded heap, so the scan costs
+     * O(D log K) for D candidates, and discounts that save nothing are left out.
+     */
+    public RankedPricingResult evaluateTop(CartAggregate cart, DiscountRuleIndex index, int limit) {
+        TopDiscounts top = new TopDiscounts(limit);
+        int evaluated = 0;
+
+        for (int type = 0; type < ITEM_TYPE_COUNT; type++) {
+            if (!cart.containsType(type)) {
+                continue;
+            }
+            long spend = cart.getSpend(type);
+            DiscountRule[] rules = index.getItemTypeRules(type);
+            evaluated += rules.length;
+            for (int r = 0; r < rules.length; r++) {
+                top.offer(Money.scaledPercentOf(spend, rules[r].getBasisPoints()), rules[r]);
+            }
+        }
+
+        for (int item = 0; item < cart.getDistinctItemCount(); item++) {
+            DiscountRule[] rules = index.getItemCountRules(cart.getDistinctItemId(item));
+            evaluated += rules.length;
+            int quantity = cart.getDistinctItemQuantity(item);
+            long spend = cart.getDistinctItemSpend(item);
+            for (int r = 0; r < rules.length; r++) {
+                if (quantity >= rules[r].getItemQuantityThreshold()) {
+                    top.offer(Money.scaledPercentOf(spend, rules[r].getBasisPoints()), rules[r]);
+                }
+            }
+        }
+
+        DiscountRule[] costRules = index.getItemCostRules();
+        int applicable = index.countItemCostRulesBelow(cart.getMaxItemCost());
+        evaluated += applicable;
+        for (int r = 0; r < applicable; r++) {
+            DiscountRule rule = costRules[r];
+            top.offer(Money.scaledPercentOf(cart.getSpendAbove(rule.getMinimumCostMinorUnits()), rule.getBasisPoints()), rule);
+        }
+
+        return top.toResult(cart.getTotalCost(), evaluated);
+    }
+
+    /**
+     * Number of rules {@link #evaluate} scores for the cart, without scoring them.
+     */
+    static int countCandidates(CartAggregate cart, DiscountRuleIndex index) {
+        int candidates = 0;
+        for (int type = 0; type < ITEM_TYPE_COUNT; type++) {
+            if (cart.containsType(type)) {
+                candidates += index.getItemTypeRules(type).length;
+            }
+        }
+        for (int item = 0; item < cart.getDistinctItemCount(); item++) {
+            candidates += index.getItemCountRules(cart.getDistinctItemId(item)).length;
+        }
+        return candidates + index.countItemCostRulesBelow(cart.getMaxItemCost());
+    }
+
+    private PricingResult evaluateParallel(CartAggregate cart, DiscountRuleIndex index, int candidates) {
+        // lay the candidate rules out as consecutive segments of one range that the tasks split
+        List<Segment> segments = new ArrayList<>();
+        int offset = 0;
+        for (int type = 0; type < ITEM_TYPE_COUNT; type++) {
+            DiscountRule[] rules = index.getItemTypeRules(type);
+            if (cart.containsType(type) && rules.length > 0) {
+                segments.add(new Segment(offset, rules, rules.length, cart.getSpend(type), -1, false));
+                offset += rules.length;
+            }
+        }
+        for (int item = 0; item < cart.getDistinctItemCount(); item++) {
+            DiscountRule[] rules = index.getItemCountRules(cart.getDistinctItemId(item));
+            if (rules.length > 0) {
+                segments.add(new Segment(offset, rules, rules.length, cart.getDistinctItemSpend(item),
+                        cart.getDistinctItemQuantity(item), false));
+                offset += rules.length;
+            }
+        }
+        int applicable = index.countItemCostRulesBelow(cart.getMaxItemCost());
+        if (applicable > 0) {
+            segments.add(new Segment(offset, index.getItemCostRules(), applicable, 0L, -1, true));
+        }
+        Best best = pool.invoke(new ScoreTask(cart, segments.toArray(new Segment[0]), 0, candidates, chunkSize));
+        return new PricingResult(best.rule, cart.getTotalCost(), Money.roundScaled(best.amount), candidates);
+    }
+
+    /**
+     * A run of candidate rules scored against the same spend: the rules of one item type or
+     * item id, or the applicable ITEM_COST rules, whose spend depends on each rule's minimum.
+     */
+    private static final class Segment {
+
+        final int offset; // position of the first rule in the combined range
+        final DiscountRule[] rules;
+        final int length;
+        final long spend;
+        final int quantity; // ITEM_COUNT quantity, or -1 for segments without a threshold
+        final boolean spendAboveMinimum; // ITEM_COST rules, scored on the spend above their minimum
+
+        Segment(int offset, DiscountRule[] rules, int length, long spend, int quantity, boolean spendAboveMinimum) {
+            this.offset = offset;
+            this.rules = rules;
+            this.length = length;
+            this.spend = spend;
+            this.quantity = quantity;
+            this.spendAboveMinimum = spendAboveMinimum;
+        }
+    }
+
+    private static final class Best {
+
+        static final Best NONE = new Best(null, 0L);
+
+        final DiscountRule rule;
+        final long amount;
+
+        Best(DiscountRule rule, long amount) {
+            this.rule = rule;
+            this.amount = amount;
+        }
+    }
+
+    /**
+     * Scores rules {@code [from, to)} of the combined range, splitting it in half until it is
+     * at most {@code chunkSize} long.
+     */
+    private static final class ScoreTask extends RecursiveTask<Best> {
+
+        private final CartAggregate cart;
+        private final Segment[] segments;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        ScoreTask(CartAggregate cart, Segment[] segments, int from, int to, int chunkSize) {
+            this.cart = cart;
+            this.segments = segments;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected Best compute() {
+            if (to - from > chunkSize) {
+                int mid = (from + to) >>> 1;
+                ScoreTask right = new ScoreTask(cart, segments, mid, to, chunkSize);
+                right.fork();
+                Best left = new ScoreTask(cart, segments, from, mid, chunkSize).compute();
+                Best other = right.join();
+                return isBetter(other.amount, other.rule, left.amount, left.rule) ? other : left;
+            }
+            long bestAmount = 0L;
+            DiscountRule best = null;
+            for (int s = findSegment(from); s < segments.length && segments[s].offset < to; s++) {
+                Segment segment = segments[s];
+                int start = Math.max(from - segment.offset, 0);
+                int end = Math.min(to - segment.offset, segment.length);
+                for (int r = start; r < end; r++) {
+                    DiscountRule rule = segment.rules[r];
+                    if (segment.quantity >= 0 && segment.quantity < rule.getItemQuantityThreshold()) {
+                        continue;
+                    }
+                    long spend = segment.spendAboveMinimum
+                            ? cart.getSpendAbove(rule.getMinimumCostMinorUnits()) : segment.spend;
+                    long amount = Money.scaledPercentOf(spend, rule.getBasisPoints());
+                    if (isBetter(amount, rule, bestAmount, best)) {
+                        bestAmount = amount;
+                        best = rule;
+                    }
+                }
+            }
+            return best != null ? new Best(best, bestAmount) : Best.NONE;
+        }
+
+        private int findSegment(int position) {
+            int low = 0;
+            int high = segments.length - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (segments[mid].offset <= position) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * The best {@code limit} discounts seen so far, in a binary heap whose root is the worst of
+     * them by {@link #isBetter}, so a new discount only has to beat the root to get in.
+     */
+    private static final class TopDiscounts {
+
+        private final DiscountRule[] rules;
+        private final long[] amounts;
+        private int size;
+
+        TopDiscounts(int limit) {
+            rules = new DiscountRule[limit];
+            amounts = new long[limit];
+        }
+
+        void offer(long amount, DiscountRule rule) {
+            if (amount <= 0L) {
+                return; // never the best discount either
+            }
+            if (size < rules.length) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (!isBetter(amounts[parent], rules[parent], amount, rule)) {
+                        break;
+                    }
+                    rules[i] = rules[parent];
+                    amounts[i] = amounts[parent];
+                    i = parent;
+                }
+                rules[i] = rule;
+                amounts[i] = amount;
+            } else if (size > 0 && isBetter(amount, rule, amounts[0], rules[0])) {
+                siftDown(amount, rule);
+            }
+        }
+
+        /**
+         * Puts the discount at the root and moves it down below every worse child.
+         */
+        private void siftDown(long amount, DiscountRule rule) {
+            int i = 0;
+            for (;;) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && isBetter(amounts[child], rules[child], amounts[child + 1], rules[child + 1])) {
+                    child++;
+                }
+                if (!isBetter(amount, rule, amounts[child], rules[child])) {
+                    break;
+                }
+                rules[i] = rules[child];
+                amounts[i] = amounts[child];
+                i = child;
+            }
+            rules[i] = rule;
+            amounts[i] = amount;
+        }
+
+        /**
+         * Empties the heap worst first into the back of the result, which leaves it ranked best first.
+         */
+        RankedPricingResult toResult(long totalCost, int evaluated) {
+            DiscountRule[] ranked = new DiscountRule[size];
+            long[] totalDiscounts = new long[size];
+            while (size > 0) {
+                ranked[size - 1] = rules[0];
+                totalDiscounts[size - 1] = Money.roundScaled(amounts[0]);
+                size--;
+                siftDown(amounts[size], rules[size]);
+            }
+            return new RankedPricingResult(ranked, totalDiscounts, totalCost, evaluated);
+        }
+    }
+
+    /**
+     * A discount wins if it saves more (comparing exact amounts from
+     * {@link Money#scaledPercentOf(long, int)}), or saves the same amount and
+     * {@link DiscountRule#precedes precedes} the other, by priority and then catalog order.
+     * With equal priorities this matches a sequential scan that only replaces the winner on a
+     * strictly larger amount.
+     */
+    static boolean isBetter(long amount, DiscountRule discount, long bestAmount, DiscountRule best) {
+        if (amount > bestAmount) {
+            return true;
+        }
+        return amount == bestAmount && best != null && discount.precedes(best);
+    }
+}
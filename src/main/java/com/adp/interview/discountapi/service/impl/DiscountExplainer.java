@@ -0,0 +1,149 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.adp.interview.discountapi.entity.CandidateDiscount;
+import com.adp.interview.discountapi.entity.CandidateOutcome;
+import com.adp.interview.discountapi.entity.DiscountExplanation;
+import com.adp.interview.discountapi.entity.DiscountType;
+
+/**
+ * Explains how {@link DiscountEvaluator} priced a cart: for every rule in the index, whether the
+ * index ruled it out and why, or what it would save and why it did not win. Rules are scored
+ * the way the evaluator scores them and compared with {@link DiscountEvaluator#isBetter}, so the
+ * applied discount is the one the evaluator picks. This walks the whole catalog and allocates
+ * per rule, which is why it is a separate path that pricing never takes.
+ */
+public final class DiscountExplainer {
+
+    private DiscountExplainer() {
+    }
+
+    /**
+     * Explains the pricing of {@code cart}, listing the first {@code maxCandidates} rules in
+     * catalog order and the applied one. Counts cover every rule.
+     */
+    public static DiscountExplanation explain(CartAggregate cart, DiscountRuleIndex index, int maxCandidates) {
+        DiscountRule[] rules = index.getRules().toArray(new DiscountRule[0]);
+        CandidateOutcome[] outcomes = new CandidateOutcome[rules.length];
+        long[] amounts = new long[rules.length];
+        long[] nanos = new long[rules.length];
+        long bestAmount = 0L;
+        DiscountRule best = null;
+        int bestPosition = -1;
+        int evaluated = 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rules.length; i++) {
+            long ruleStart = System.nanoTime();
+            DiscountRule rule = rules[i];
+            CandidateOutcome outcome = skippedByIndex(cart, rule);
+            if (outcome == null) {
+                evaluated++;
+                if (rule.getDiscountType() == DiscountType.ITEM_COUNT
+                        && cart.getQuantity(rule.getApplicableItemId()) < rule.getItemQuantityThreshold()) {
+                    outcome = CandidateOutcome.BELOW_QUANTITY_THRESHOLD;
+                } else {
+                    long amount = Money.scaledPercentOf(spend(cart, rule), rule.getBasisPoints());
+                    amounts[i] = amount;
+                    if (DiscountEvaluator.isBetter(amount, rule, bestAmount, best)) {
+                        bestAmount = amount;
+                        best = rule;
+                        bestPosition = i;
+                    }
+                }
+            }
+            outcomes[i] = outcome;
+            nanos[i] = System.nanoTime() - ruleStart;
+        }
+        // the winner is only known once every rule is scored
+        for (int i = 0; i < rules.length; i++) {
+            if (outcomes[i] == null) {
+                outcomes[i] = i == bestPosition ? CandidateOutcome.APPLIED
+                        : amounts[i] == 0L ? CandidateOutcome.NO_SAVING
+                        : amounts[i] < bestAmount ? CandidateOutcome.LOWER_AMOUNT
+                        : CandidateOutcome.SAME_AMOUNT_LOST_TIE;
+            }
+        }
+
+        DiscountExplanation explanation = new DiscountExplanation();
+        explanation.setRuleVersion(index.getVersion());
+        explanation.setRulesInCatalog(rules.length);
+        explanation.setRulesEvaluated(evaluated);
+        explanation.setRulesSkippedByIndex(rules.length - evaluated);
+        explanation.setEvaluationNanos(System.nanoTime() - start);
+        explanation.setTruncated(rules.length > maxCandidates);
+        int listed = Math.min(rules.length, maxCandidates);
+        List<CandidateDiscount> candidates = new ArrayList<>(listed + 1);
+        for (int i = 0; i < listed; i++) {
+            candidates.add(toCandidate(cart, rules[i], outcomes[i], amounts[i], nanos[i]));
+        }
+        if (bestPosition >= listed) {
+            candidates.add(toCandidate(cart, best, CandidateOutcome.APPLIED, bestAmount, nanos[bestPosition]));
+        }
+        explanation.setCandidates(candidates);
+        return explanation;
+    }
+
+    /**
+     * Why the index leaves this rule out for the cart, or null if it offers it for scoring.
+     */
+    private static CandidateOutcome skippedByIndex(CartAggregate cart, DiscountRule rule) {
+        switch (rule.getDiscountType()) {
+            case ITEM_TYPE:
+                return cart.containsType(rule.getApplicableItemType()) ? null : CandidateOutcome.ITEM_TYPE_NOT_IN_CART;
+            case ITEM_COUNT:
+                return cart.containsItem(rule.getApplicableItemId()) ? null : CandidateOutcome.ITEM_NOT_IN_CART;
+            default:
+                // an empty cart's maximum cost is below every minimum
+                return rule.getMinimumCostMinorUnits() < cart.getMaxItemCost() ? null : CandidateOutcome.NO_ITEM_ABOVE_MINIMUM_COST;
+        }
+    }
+
+    private static long spend(CartAggregate cart, DiscountRule rule) {
+        switch (rule.getDiscountType()) {
+            case ITEM_TYPE:
+                return cart.getSpend(rule.getApplicableItemType());
+            case ITEM_COUNT:
+                return cart.getSpend(rule.getApplicableItemId());
+            default:
+                return cart.getSpendAbove(rule.getMinimumCostMinorUnits());
+        }
+    }
+
+    private static CandidateDiscount toCandidate(CartAggregate cart, DiscountRule rule, CandidateOutcome outcome,
+                                                 long amount, long nanos) {
+        CandidateDiscount candidate = new CandidateDiscount();
+        candidate.setDiscountCode(rule.getDiscountCode());
+        candidate.setDiscountType(rule.getDiscountType());
+        candidate.setOutcome(outcome);
+        candidate.setAmount(Money.toDecimal(Money.roundScaled(amount)));
+        candidate.setNanos(nanos);
+        switch (outcome) {
+            case ITEM_TYPE_NOT_IN_CART, ITEM_NOT_IN_CART, NO_ITEM_ABOVE_MINIMUM_COST:
+                break; // nothing in the cart matches
+            default:
+                candidate.setMatchedItemIds(matchedItemIds(cart.getCart(), rule));
+        }
+        return candidate;
+    }
+
+    private static List<String> matchedItemIds(PricingCart cart, DiscountRule rule) {
+        if (rule.getDiscountType() == DiscountType.ITEM_COUNT) {
+            return List.of(rule.getApplicableItemId());
+        }
+        Set<String> itemIds = new LinkedHashSet<>();
+        for (int line = 0; line < cart.size(); line++) {
+            boolean matches = rule.getDiscountType() == DiscountType.ITEM_TYPE
+                    ? cart.getTypeOrdinal(line) == rule.getApplicableItemType().ordinal()
+                    : cart.getCost(line) > rule.getMinimumCostMinorUnits();
+            if (matches) {
+                itemIds.add(cart.getItemId(line));
+            }
+        }
+        return new ArrayList<>(itemIds);
+    }
+}
@@ -0,0 +1,222 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountId;
+import com.adp.interview.discountapi.repository.DiscountRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Looks up discounts by code for {@code GET /discounts/{code}}, where many requests are for
+ * codes that do not exist. A {@link CodeBloomFilter} over every code answers most unknown codes
+ * without a query; the rest go through a Caffeine cache of {@code discount.lookup.max-size}
+ * entries that keeps found discounts for {@code discount.lookup.ttl-ms} and codes not found for
+ * {@code discount.lookup.negative-ttl-ms}. Codes are keyed by tenant, in the filter as
+ * {@code tenantId/code} since tenant ids cannot contain a slash, so a lookup never finds or
+ * hints at another tenant's discount. Saved and deleted codes, from this node or from the
+ * change log, are added to the filter and dropped from the cache. Hits, misses and evictions are
+ * published as the {@code cache.*} meters of the {@value #CACHE_NAME} cache, and codes answered
+ * by the filter as the {@value #FILTERED_COUNTER} counter.
+ *
+ * <p>Codes cannot be taken out of a Bloom filter, so the filter is rebuilt from the table every
+ * {@code discount.lookup.bloom.rebuild-interval-ms}, sized for the current catalog. Codes
+ * saved during a rebuild go into both filters. Until the first build every lookup goes to the
+ * cache. Redemption counts are flushed without a change event, so a cached discount can show a
+ * count up to one TTL old. Cached discounts are shared and must not be modified.
+ *
+ * <p>A miss is read on the calling thread after its entry is placed, not inside the cache's
+ * compute. A commit invalidates codes while its transaction still holds a connection; if the
+ * invalidation had to wait for a load that is itself waiting for a connection, a full pool
+ * would deadlock until the pool's timeout.
+ */
+@Slf4j
+@Component
+public class DiscountLookupCache {
+
+    static final String CACHE_NAME = "discount.lookups";
+    static final String FILTERED_COUNTER = "discount.lookups.filtered";
+
+    private final DiscountRepository discountRepository;
+    private final AsyncCache<DiscountId, Optional<Discount>> cache; // null when disabled
+    private final Counter filtered;
+    private final long expectedCodes;
+    private final double falsePositiveRate;
+
+    private volatile CodeBloomFilter codes; // null until built, or when disabled
+    private volatile CodeBloomFilter rebuilding; // filter being built, also given every saved code
+
+    // not a monitor: rebuilds query the database and must not pin a virtual thread's carrier
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    public DiscountLookupCache(DiscountRepository discountRepository, MeterRegistry meterRegistry,
+                               @Value("${discount.lookup.enabled:true}") boolean enabled,
+                               @Value("${discount.lookup.max-size:10000}") long maxSize,
+                               @Value("${discount.lookup.ttl-ms:10000}") long ttlMillis,
+                               @Value("${discount.lookup.negative-ttl-ms:5000}") long negativeTtlMillis,
+                               @Value("${discount.lookup.bloom.expected-codes:100000}") long expectedCodes,
+                               @Value("${discount.lookup.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.discountRepository = discountRepository;
+        this.expectedCodes = expectedCodes;
+        this.falsePositiveRate = falsePositiveRate;
+        if (enabled) {
+            long ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+            long negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+            cache = Caffeine.newBuilder()
+                    .maximumSize(maxSize)
+                    .expireAfter(new Expiry<DiscountId, Optional<Discount>>() {
+                        @Override
+                        public long expireAfterCreate(DiscountId id, Optional<Discount> discount, long currentTime) {
+                            return discount.isPresent() ? ttlNanos : negativeTtlNanos;
+                        }
+
+                        @Override
+                        public long expireAfterUpdate(DiscountId id, Optional<Discount> discount, long currentTime,
+                                                      long currentDuration) {
+                            return expireAfterCreate(id, discount, currentTime);
+                        }
+
+                        @Override
+                        public long expireAfterRead(DiscountId id, Optional<Discount> discount, long currentTime,
+                                                    long currentDuration) {
+                            return currentDuration;
+                        }
+                    })
+                    .recordStats()
+                    .buildAsync();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+            filtered = Counter.builder(FILTERED_COUNTER)
+                    .description("Discount lookups answered as not found by the Bloom filter")
+                    .register(meterRegistry);
+        } else {
+            cache = null;
+            filtered = null;
+        }
+    }
+
+    /**
+     * Returns the tenant's discount with this code.
+     */
+    public Optional<Discount> find(String tenantId, String discountCode) {
+        DiscountId discountId = new DiscountId(tenantId, discountCode);
+        if (cache == null) {
+            return discountRepository.findById(discountId);
+        }
+        CodeBloomFilter filter = codes;
+        if (filter != null && !filter.mightContain(filterKey(tenantId, discountCode))) {
+            filtered.increment();
+            return Optional.empty();
+        }
+        CompletableFuture<Optional<Discount>> created = new CompletableFuture<>();
+        CompletableFuture<Optional<Discount>> future = cache.get(discountId, (id, executor) -> created);
+        if (future == created) {
+            try {
+                Optional<Discount> discount = discountRepository.findById(discountId);
+                created.complete(discount);
+                return discount;
+            } catch (RuntimeException | Error e) {
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    public void onSaved(Discount discount) {
+        onChanged(List.of(discount), List.of());
+    }
+
+    public void onDeleted(String tenantId, String discountCode) {
+        onChanged(List.of(), List.of(new DiscountId(tenantId, discountCode)));
+    }
+
+    /**
+     * Drops the changed codes from the cache, adding saved ones to the filter first so they
+     * are not answered as missing. Called once the change is committed.
+     */
+    public void onChanged(Collection<Discount> upserts, Collection<DiscountId> deletes) {
+        if (cache == null) {
+            return;
+        }
+        for (Discount discount : upserts) {
+            String key = filterKey(discount.getTenantId(), discount.getDiscountCode());
+            // read before the current filter: a rebuild not yet started when this runs reads the code from the table
+            CodeBloomFilter next = rebuilding;
+            if (next != null) {
+                next.add(key);
+            }
+            CodeBloomFilter filter = codes;
+            if (filter != null) {
+                filter.add(key);
+            }
+            cache.synchronous().invalidate(new DiscountId(discount.getTenantId(), discount.getDiscountCode()));
+        }
+        cache.synchronous().invalidateAll(deletes);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${discount.lookup.bloom.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${discount.lookup.bloom.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Failed to rebuild the discount code filter", e);
+        }
+    }
+
+    /**
+     * Builds a new filter from every code in the table, sized for twice the current count or
+     * {@code discount.lookup.bloom.expected-codes}, whichever is larger, and swaps it in.
+     */
+    public void rebuild() {
+        if (cache == null) {
+            return;
+        }
+        rebuildLock.lock();
+        try {
+            CodeBloomFilter next = new CodeBloomFilter(Math.max(expectedCodes, 2 * discountRepository.count()), falsePositiveRate);
+            // set before reading, so codes saved after the read starts are not missed
+            rebuilding = next;
+            try {
+                for (DiscountId discountId : discountRepository.findAllDiscountIds()) {
+                    next.add(filterKey(discountId.getTenantId(), discountId.getDiscountCode()));
+                }
+                codes = next;
+            } finally {
+                rebuilding = null;
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private static String filterKey(String tenantId, String discountCode) {
+        return tenantId + "/" + discountCode;
+    }
+}
@@ -0,0 +1,78 @@
+package com.adp.interview.discountapi.service.impl;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+import lombok.Value;
+
+/**
+ * Immutable, read-optimized copy of a {@link Discount} used by the pricing path.
+ * The ordinal records the position of the discount in the catalog and is used to
+ * break ties the same way a sequential scan over the table would.
+ */
+@Value
+public class DiscountRule {
+
+    String discountCode;
+
+    int ordinal;
+
+    DiscountType discountType;
+
+    double discountPercentage;
+
+    ItemType applicableItemType;
+
+    String applicableItemId;
+
+    int itemQuantityThreshold;
+
+    double minimumCost;
+
+    int basisPoints; // discount percentage in basis points
+
+    long minimumCostMinorUnits; // minimum cost in cents
+
+    boolean stackable;
+
+    String exclusiveGroup;
+
+    int priority;
+
+    int maxRedemptions; // 0 if redemptions are not limited
+
+    long redemptionCount; // redemptions in the database when the rule was loaded
+
+    public static DiscountRule of(Discount discount, int ordinal) {
+        return new DiscountRule(
+                discount.getDiscountCode(),
+                ordinal,
+                discount.getDiscountType(),
+                discount.getDiscountPercentage(),
+                discount.getApplicableItemType(),
+                discount.getApplicableItemId(),
+                discount.getItemQuantityThreshold(),
+                discount.getMinimumCost(),
+                Money.toBasisPoints(discount.getDiscountPercentage()),
+                Money.toMinorUnits(discount.getMinimumCost()),
+                discount.isStackable(),
+                discount.getExclusiveGroup(),
+                discount.getPriority(),
+                discount.getMaxRedemptions() != null ? discount.getMaxRedemptions() : 0,
+                discount.getRedemptionCount());
+    }
+
+    /**
+     * Returns true if this rule should win over {@code other} for the same discount amount:
+     * it has a higher priority, or the same priority and comes first in catalog order.
+     */
+    public boolean precedes(DiscountRule other) {
+        if (other == null) {
+            return true;
+        }
+        if (priority != other.priority) {
+            return priority > other.priority;
+        }
+        return ordinal < other.ordinal;
+    }
+}
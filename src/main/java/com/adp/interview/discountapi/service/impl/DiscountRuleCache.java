@@ -0,0 +1,433 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountId;
+import com.adp.interview.discountapi.repository.DiscountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds a {@link DiscountRuleIndex} per tenant. A tenant's index is loaded from the database
+ * the first time it is used and then kept up to date from the service's add and delete
+ * operations and from changes made on other nodes (see {@link DiscountChangeLogTailer}), so
+ * the calculate path never has to query the discount table. Tenants not used for
+ * {@code discount.tenant.idle-timeout-ms} are dropped, as are the least used ones beyond
+ * {@code discount.tenant.max-loaded}, and loaded again when next used. Each tenant is priced
+ * against its own rules only, so a large catalog does not slow down the others. The rule count
+ * of each loaded tenant is published as the {@value #RULES_GAUGE} gauge.
+ *
+ * <p>An index holds only the discounts that apply now: those inside their validity window and
+ * with redemptions left. Discounts with a window starting or ending in the future are kept in a
+ * schedule ordered by the next start or end time, and every {@code discount.validity.check-interval-ms}
+ * the due entries are added to or removed from the index, so the calculate path never compares
+ * times. A discount can therefore apply for up to one interval after it ends.
+ *
+ * <p>The repository is injected lazily, so creating this cache, and seeding it from a
+ * {@link DiscountRuleSnapshot}, does not wait for JPA to start.
+ *
+ * <p>Index versions are unique across tenants. Writers are serialised per tenant with a
+ * {@link ReentrantLock} rather than {@code synchronized}, since a load queries the database and
+ * a virtual thread blocked inside a monitor pins its carrier.
+ */
+@Component
+public class DiscountRuleCache {
+
+    static final String RULES_GAUGE = "discount.rules";
+
+    private final DiscountRepository discountRepository;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, TenantRules> tenants;
+    private final AtomicLong versions = new AtomicLong();
+    // limit each discount ran out at on this node
+    private final Map<DiscountId, Integer> exhausted = new ConcurrentHashMap<>();
+    private final List<Consumer<DiscountId>> deletionListeners = new CopyOnWriteArrayList<>();
+
+    private Clock clock = Clock.systemUTC();
+
+    public DiscountRuleCache(@Lazy DiscountRepository discountRepository, MeterRegistry meterRegistry,
+                             @Value("${discount.tenant.max-loaded:1000}") long maxLoadedTenants,
+                             @Value("${discount.tenant.idle-timeout-ms:1800000}") long idleTimeoutMillis) {
+        this.discountRepository = discountRepository;
+        this.meterRegistry = meterRegistry;
+        tenants = Caffeine.newBuilder()
+                .maximumSize(maxLoadedTenants)
+                .expireAfterAccess(Duration.ofMillis(idleTimeoutMillis))
+                // evict on the calling thread, so a tenant over the limit is gone before the next one is used
+                .executor(Runnable::run)
+                .removalListener((String tenantId, TenantRules rules, RemovalCause cause) -> {
+                    // unless the tenant was loaded again in the meantime
+                    if (rules != null && rules.gauge != null && tenants().policy().getIfPresentQuietly(tenantId) == null) {
+                        meterRegistry.remove(rules.gauge);
+                    }
+                })
+                .build();
+    }
+
+    private Cache<String, TenantRules> tenants() {
+        return tenants;
+    }
+
+    public DiscountRuleIndex current(String tenantId) {
+        return tenants.get(tenantId, TenantRules::new).current();
+    }
+
+    public boolean isLoaded(String tenantId) {
+        TenantRules rules = tenants.getIfPresent(tenantId);
+        return rules != null && rules.index != null;
+    }
+
+    /**
+     * Loads the tenant's rules from the database, replacing any already loaded.
+     */
+    public DiscountRuleIndex reload(String tenantId) {
+        return tenants.get(tenantId, TenantRules::new).load();
+    }
+
+    public boolean seed(String tenantId, DiscountRuleIndex index) {
+        return seed(tenantId, index, List.of());
+    }
+
+    /**
+     * Installs rules read from a {@link DiscountRuleSnapshot} for a tenant not loaded yet, so it
+     * can be priced before its rules are read from the database. The index keeps its snapshot
+     * version and later versions are numbered after it. {@code scheduled} are the discounts that
+     * had a validity window still to open or close when the snapshot was written. They are added
+     * to or removed from the index at those times, and at the next check for times that passed
+     * while the node was down. Returns false, changing nothing, if the tenant is already loaded.
+     */
+    public boolean seed(String tenantId, DiscountRuleIndex index, Collection<Discount> scheduled) {
+        return tenants.get(tenantId, TenantRules::new).seed(index, scheduled);
+    }
+
+    /**
+     * The current index of each loaded tenant.
+     */
+    public Map<String, DiscountRuleIndex> getLoadedIndexes() {
+        Map<String, DiscountRuleIndex> loaded = new HashMap<>();
+        tenants.asMap().forEach((tenantId, rules) -> {
+            DiscountRuleIndex index = rules.index;
+            if (index != null) {
+                loaded.put(tenantId, index);
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * The discounts of each loaded tenant with a validity window still to open or close.
+     */
+    public Map<String, List<Discount>> getScheduledDiscounts() {
+        Map<String, List<Discount>> scheduled = new HashMap<>();
+        tenants.asMap().forEach((tenantId, rules) -> {
+            rules.lock.lock();
+            try {
+                if (rules.index != null) {
+                    scheduled.put(tenantId, List.copyOf(rules.scheduled.values()));
+                }
+            } finally {
+                rules.lock.unlock();
+            }
+        });
+        return scheduled;
+    }
+
+    /**
+     * Returns the rule of a discount if its tenant is loaded and the discount applies, or null.
+     */
+    public DiscountRule getLoadedRule(DiscountId discountId) {
+        TenantRules rules = tenants.policy().getIfPresentQuietly(discountId.getTenantId());
+        DiscountRuleIndex index = rules != null ? rules.index : null;
+        return index != null ? index.getRule(discountId.getDiscountCode()) : null;
+    }
+
+    /**
+     * Registers a listener called with each deleted discount, whether deleted on this node or
+     * another.
+     */
+    public void addDeletionListener(Consumer<DiscountId> listener) {
+        deletionListeners.add(listener);
+    }
+
+    public void onSaved(Discount discount) {
+        onChanged(List.of(discount), List.of());
+    }
+
+    public void onDeleted(String tenantId, String discountCode) {
+        onChanged(List.of(), List.of(new DiscountId(tenantId, discountCode)));
+    }
+
+    /**
+     * Applies saved and deleted discounts to the loaded tenants they belong to. Tenants not
+     * loaded will see the changes when they are.
+     */
+    public void onChanged(Collection<Discount> upserts, Collection<DiscountId> deletes) {
+        Map<String, List<String>> deletesByTenant = new HashMap<>();
+        for (DiscountId discountId : deletes) {
+            exhausted.remove(discountId);
+            deletionListeners.forEach(listener -> listener.accept(discountId));
+            deletesByTenant.computeIfAbsent(discountId.getTenantId(), t -> new ArrayList<>()).add(discountId.getDiscountCode());
+        }
+        Map<String, List<Discount>> upsertsByTenant = new HashMap<>();
+        for (Discount discount : upserts) {
+            upsertsByTenant.computeIfAbsent(discount.getTenantId(), t -> new ArrayList<>()).add(discount);
+        }
+        for (TenantRules rules : tenants.asMap().values()) {
+            rules.apply(upsertsByTenant.getOrDefault(rules.tenantId, List.of()),
+                    deletesByTenant.getOrDefault(rules.tenantId, List.of()));
+        }
+    }
+
+    /**
+     * Removes a discount whose redemption limit has been reached on this node. It stays out of
+     * the rules until it is saved with a different limit.
+     */
+    public void onExhausted(DiscountId discountId, int maxRedemptions) {
+        exhausted.put(discountId, maxRedemptions);
+        TenantRules rules = tenants.policy().getIfPresentQuietly(discountId.getTenantId());
+        if (rules != null) {
+            rules.apply(List.of(), List.of(discountId.getDiscountCode()));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${discount.validity.check-interval-ms:1000}")
+    public void scheduledTransitions() {
+        applyDueTransitions();
+    }
+
+    /**
+     * Adds discounts whose validity window has started to the loaded rules and removes those
+     * whose window has ended. Returns the number of discounts added or removed.
+     */
+    public int applyDueTransitions() {
+        int changed = 0;
+        for (TenantRules rules : tenants.asMap().values()) {
+            changed += rules.applyDueTransitions();
+        }
+        return changed;
+    }
+
+    private boolean isActive(Discount discount, Instant now) {
+        return (discount.getValidFrom() == null || !discount.getValidFrom().isAfter(now))
+                && (discount.getValidUntil() == null || discount.getValidUntil().isAfter(now))
+                && (discount.getMaxRedemptions() == null || discount.getRedemptionCount() < discount.getMaxRedemptions())
+                && !exhausted.containsKey(new DiscountId(discount.getTenantId(), discount.getDiscountCode()));
+    }
+
+    private static boolean hasFutureTransition(Discount discount, Instant now) {
+        return discount.getValidFrom() != null && discount.getValidFrom().isAfter(now)
+                || discount.getValidUntil() != null && discount.getValidUntil().isAfter(now);
+    }
+
+    /**
+     * One tenant's index and validity schedule.
+     */
+    private final class TenantRules {
+
+        final String tenantId;
+        final ReentrantLock lock = new ReentrantLock();
+        volatile DiscountRuleIndex index;
+        volatile Gauge gauge;
+
+        // guarded by lock
+        final Map<String, Discount> scheduled = new HashMap<>(); // discounts with a future start or end
+        final TreeMap<Instant, Set<String>> transitions = new TreeMap<>(); // codes by start or end time
+
+        TenantRules(String tenantId) {
+            this.tenantId = tenantId;
+        }
+
+        DiscountRuleIndex current() {
+            DiscountRuleIndex current = index;
+            if (current == null) {
+                lock.lock();
+                try {
+                    current = index;
+                    if (current == null) {
+                        current = load();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return current;
+        }
+
+        DiscountRuleIndex load() {
+            lock.lock();
+            try {
+                Instant now = clock.instant();
+                scheduled.clear();
+                transitions.clear();
+                List<Discount> active = new ArrayList<>();
+                for (Discount discount : discountRepository.findByTenantId(tenantId)) {
+                    schedule(discount, now);
+                    if (isActive(discount, now)) {
+                        active.add(discount);
+                    }
+                }
+                DiscountRuleIndex loaded = DiscountRuleIndex.build(active, versions.incrementAndGet());
+                index = loaded;
+                registerGauge();
+                return loaded;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean seed(DiscountRuleIndex seeded, Collection<Discount> pending) {
+            lock.lock();
+            try {
+                if (index != null) {
+                    return false;
+                }
+                versions.accumulateAndGet(seeded.getVersion(), Math::max);
+                for (Discount discount : pending) {
+                    // times already passed are due at the next check, which brings the index up to date
+                    scheduled.put(discount.getDiscountCode(), discount);
+                    for (Instant time : new Instant[] {discount.getValidFrom(), discount.getValidUntil()}) {
+                        if (time != null) {
+                            transitions.computeIfAbsent(time, t -> new HashSet<>()).add(discount.getDiscountCode());
+                        }
+                    }
+                }
+                index = seeded;
+                registerGauge();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void registerGauge() {
+            if (gauge == null) {
+                gauge = Gauge.builder(RULES_GAUGE, tenants, loadedTenants -> ruleCount(loadedTenants, tenantId))
+                        .description("Discount rules currently applying, per loaded tenant")
+                        .tag("tenant", tenantId)
+                        .register(meterRegistry);
+            }
+        }
+
+        void apply(Collection<Discount> upserts, Collection<String> deletes) {
+            lock.lock();
+            try {
+                // nothing to update until the index is first loaded; that load will see the change
+                if (index == null) {
+                    return;
+                }
+                Instant now = clock.instant();
+                List<Discount> active = new ArrayList<>();
+                List<String> inactive = new ArrayList<>();
+                for (String discountCode : deletes) {
+                    // both, so a code that is indexed and scheduled leaves no schedule entry behind
+                    boolean indexed = index.getRule(discountCode) != null;
+                    boolean wasScheduled = scheduled.remove(discountCode) != null;
+                    if (indexed || wasScheduled) {
+                        inactive.add(discountCode);
+                    }
+                }
+                for (Discount discount : upserts) {
+                    // a new limit may leave redemptions again; the counter re-checks on the next redemption
+                    DiscountId discountId = new DiscountId(tenantId, discount.getDiscountCode());
+                    Integer limit = exhausted.get(discountId);
+                    if (limit != null && !limit.equals(discount.getMaxRedemptions())) {
+                        exhausted.remove(discountId);
+                    }
+                    schedule(discount, now);
+                    if (isActive(discount, now)) {
+                        active.add(discount);
+                    } else {
+                        inactive.add(discount.getDiscountCode());
+                    }
+                }
+                if (!active.isEmpty() || !inactive.isEmpty()) {
+                    index = index.apply(active, inactive, versions.incrementAndGet());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int applyDueTransitions() {
+            lock.lock();
+            try {
+                if (index == null) {
+                    return 0;
+                }
+                Instant now = clock.instant();
+                List<Discount> started = new ArrayList<>();
+                Set<String> ended = new HashSet<>();
+                while (!transitions.isEmpty() && !transitions.firstKey().isAfter(now)) {
+                    for (String discountCode : transitions.pollFirstEntry().getValue()) {
+                        // entries left behind by an edit or delete find the current discount, or none
+                        Discount discount = scheduled.get(discountCode);
+                        if (discount == null) {
+                            continue;
+                        }
+                        boolean inIndex = index.getRule(discountCode) != null;
+                        if (isActive(discount, now)) {
+                            if (!inIndex) {
+                                started.add(discount);
+                            }
+                        } else if (inIndex) {
+                            ended.add(discountCode);
+                        }
+                        if (!hasFutureTransition(discount, now)) {
+                            scheduled.remove(discountCode);
+                        }
+                    }
+                }
+                if (!started.isEmpty() || !ended.isEmpty()) {
+                    index = index.apply(started, ended, versions.incrementAndGet());
+                }
+                return started.size() + ended.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void schedule(Discount discount, Instant now) {
+            String discountCode = discount.getDiscountCode();
+            scheduled.remove(discountCode);
+            if (!hasFutureTransition(discount, now)) {
+                return;
+            }
+            scheduled.put(discountCode, discount);
+            for (Instant time : new Instant[] {discount.getValidFrom(), discount.getValidUntil()}) {
+                if (time != null && time.isAfter(now)) {
+                    transitions.computeIfAbsent(time, t -> new HashSet<>()).add(discountCode);
+                }
+            }
+        }
+    }
+
+    private static double ruleCount(Cache<String, TenantRules> tenants, String tenantId) {
+        // read without counting as a use, so scraping metrics does not keep idle tenants loaded
+        TenantRules rules = tenants.policy().getIfPresentQuietly(tenantId);
+        DiscountRuleIndex index = rules != null ? rules.index : null;
+        return index != null ? index.size() : 0;
+    }
+}
@@ -0,0 +1,222 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+
+/**
+ * Immutable snapshot of the discount catalog, grouped for the calculate path:
+ * ITEM_TYPE rules keyed by {@link ItemType}, ITEM_COUNT rules keyed by applicable item id
+ * and ITEM_COST rules sorted by minimum cost. Changes produce a new index (copy-on-write),
+ * so readers never need to lock.
+ */
+public final class DiscountRuleIndex {
+
+    private static final DiscountRule[] NO_RULES = new DiscountRule[0];
+
+    private static final Comparator<DiscountRule> BY_MINIMUM_COST =
+            Comparator.comparingLong(DiscountRule::getMinimumCostMinorUnits).thenComparingInt(DiscountRule::getOrdinal);
+
+    public static final DiscountRuleIndex EMPTY = new DiscountRuleIndex(new LinkedHashMap<>(), 0, 0L);
+
+    private final Map<String, DiscountRule> rulesByCode;
+    private final int nextOrdinal;
+    private final long version;
+
+    private final DiscountRule[][] itemTypeRules = new DiscountRule[ItemType.values().length][];
+    private final Map<String, DiscountRule[]> itemCountRules = new HashMap<>();
+    private final DiscountRule[] itemCostRules;
+    private final long[] itemCostThresholds;
+
+    private DiscountRuleIndex(LinkedHashMap<String, DiscountRule> rulesByCode, int nextOrdinal, long version) {
+        this.rulesByCode = Collections.unmodifiableMap(rulesByCode);
+        this.nextOrdinal = nextOrdinal;
+        this.version = version;
+
+        List<List<DiscountRule>> typeRules = new ArrayList<>();
+        for (int i = 0; i < itemTypeRules.length; i++) {
+            typeRules.add(new ArrayList<>());
+        }
+        Map<String, List<DiscountRule>> countRules = new HashMap<>();
+        List<DiscountRule> costRules = new ArrayList<>();
+        for (DiscountRule rule : rulesByCode.values()) {
+            if (rule.getDiscountType() == DiscountType.ITEM_TYPE) {
+                // rules without an item type can never match an item
+                if (rule.getApplicableItemType() != null) {
+                    typeRules.get(rule.getApplicableItemType().ordinal()).add(rule);
+                }
+            } else if (rule.getDiscountType() == DiscountType.ITEM_COUNT) {
+                if (rule.getApplicableItemId() != null) {
+                    countRules.computeIfAbsent(rule.getApplicableItemId(), k -> new ArrayList<>()).add(rule);
+                }
+            } else if (rule.getDiscountType() == DiscountType.ITEM_COST) {
+                costRules.add(rule);
+            }
+        }
+        for (int i = 0; i < itemTypeRules.length; i++) {
+            itemTypeRules[i] = typeRules.get(i).toArray(NO_RULES);
+        }
+        countRules.forEach((itemId, rules) -> itemCountRules.put(itemId, rules.toArray(NO_RULES)));
+        itemCostRules = costRules.toArray(NO_RULES);
+        Arrays.sort(itemCostRules, BY_MINIMUM_COST);
+        itemCostThresholds = new long[itemCostRules.length];
+        for (int i = 0; i < itemCostRules.length; i++) {
+            itemCostThresholds[i] = itemCostRules[i].getMinimumCostMinorUnits();
+        }
+    }
+
+    public static DiscountRuleIndex build(List<Discount> discounts) {
+        return build(discounts, 1L);
+    }
+
+    public static DiscountRuleIndex build(List<Discount> discounts, long version) {
+        LinkedHashMap<String, DiscountRule> rules = new LinkedHashMap<>();
+        int ordinal = 0;
+        for (Discount discount : discounts) {
+            rules.put(discount.getDiscountCode(), DiscountRule.of(discount, ordinal++));
+        }
+        return new DiscountRuleIndex(rules, ordinal, version);
+    }
+
+    /**
+     * Builds an index from rules that already carry their catalog ordinals, such as rules read
+     * back from a {@link DiscountRuleSnapshot}. Codes added later are appended after the
+     * highest ordinal.
+     */
+    public static DiscountRuleIndex of(List<DiscountRule> rules, long version) {
+        LinkedHashMap<String, DiscountRule> rulesByCode = new LinkedHashMap<>();
+        int nextOrdinal = 0;
+        for (DiscountRule rule : rules) {
+            rulesByCode.put(rule.getDiscountCode(), rule);
+            nextOrdinal = Math.max(nextOrdinal, rule.getOrdinal() + 1);
+        }
+        return new DiscountRuleIndex(rulesByCode, nextOrdinal, version);
+    }
+
+    /**
+     * Returns a new index containing the given discount. An existing code keeps its
+     * position in catalog order; a new code is appended.
+     */
+    public DiscountRuleIndex with(Discount discount) {
+        return apply(List.of(discount), List.of());
+    }
+
+    /**
+     * Returns a new index without the given discount code.
+     */
+    public DiscountRuleIndex without(String discountCode) {
+        if (!rulesByCode.containsKey(discountCode)) {
+            return this;
+        }
+        return apply(List.of(), List.of(discountCode));
+    }
+
+    /**
+     * Returns a new index with all of the given discounts saved and codes removed, copying
+     * the catalog once. Saved codes keep their position in catalog order; new codes are
+     * appended in the order given.
+     */
+    public DiscountRuleIndex apply(Collection<Discount> upserts, Collection<String> deletes) {
+        return apply(upserts, deletes, version + 1);
+    }
+
+    /**
+     * As {@link #apply(Collection, Collection)}, giving the new index {@code version}, which
+     * must be greater than this index's.
+     */
+    public DiscountRuleIndex apply(Collection<Discount> upserts, Collection<String> deletes, long version) {
+        LinkedHashMap<String, DiscountRule> rules = new LinkedHashMap<>(rulesByCode);
+        int ordinal = nextOrdinal;
+        for (String discountCode : deletes) {
+            rules.remove(discountCode);
+        }
+        for (Discount discount : upserts) {
+            DiscountRule existing = rules.get(discount.getDiscountCode());
+            rules.put(discount.getDiscountCode(), DiscountRule.of(discount, existing != null ? existing.getOrdinal() : ordinal++));
+        }
+        return new DiscountRuleIndex(rules, ordinal, version);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return rulesByCode.size();
+    }
+
+    public DiscountRule getRule(String discountCode) {
+        return rulesByCode.get(discountCode);
+    }
+
+    /**
+     * All rules, in catalog order.
+     */
+    public Collection<DiscountRule> getRules() {
+        return rulesByCode.values();
+    }
+
+    /**
+     * ITEM_TYPE rules for the item type with this ordinal, in catalog order. Callers must not
+     * modify the array.
+     */
+    public DiscountRule[] getItemTypeRules(int typeOrdinal) {
+        return itemTypeRules[typeOrdinal];
+    }
+
+    public DiscountRule[] getItemTypeRules(ItemType itemType) {
+        return itemTypeRules[itemType.ordinal()];
+    }
+
+    /**
+     * ITEM_COUNT rules for this item id, in catalog order. Callers must not modify the array.
+     */
+    public DiscountRule[] getItemCountRules(String itemId) {
+        DiscountRule[] rules = itemCountRules.get(itemId);
+        return rules != null ? rules : NO_RULES;
+    }
+
+    /**
+     * Item ids that have ITEM_COUNT rules.
+     */
+    public Set<String> getItemCountItemIds() {
+        return Collections.unmodifiableSet(itemCountRules.keySet());
+    }
+
+    /**
+     * ITEM_COST rules sorted by ascending minimum cost. Callers must not modify the array.
+     */
+    public DiscountRule[] getItemCostRules() {
+        return itemCostRules;
+    }
+
+    /**
+     * Number of ITEM_COST rules whose minimum cost is strictly below {@code cost} (in cents),
+     * i.e. the length of the prefix of {@link #getItemCostRules()} that an item of this cost
+     * can satisfy.
+     */
+    public int countItemCostRulesBelow(long cost) {
+        int low = 0;
+        int high = itemCostThresholds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (itemCostThresholds[mid] < cost) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,412 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the loaded tenants' rule indexes to {@code discount.snapshot.path} every
+ * {@code discount.snapshot.interval-ms}, when they have changed, and at shutdown. On startup the
+ * file is memory-mapped and its rules seed the {@link DiscountRuleCache} before the web server
+ * starts, so the first carts are priced without waiting for the discount table to be read.
+ * Neither this bean nor the rule cache needs JPA to be up: the cache reaches the discount table
+ * through a lazy proxy, and repositories bootstrap in deferred mode. Discounts whose validity
+ * window opens or closes later are stored with the window and scheduled again on seeding.
+ * {@link DiscountChangeLogTailer#warmUp()} then reloads each seeded tenant from the database.
+ * A missing, unreadable or older-format file is ignored and the node starts cold.
+ *
+ * <p>The file holds a header (magic, format version), a table of the distinct strings used by
+ * the rules (codes, item ids, exclusive groups, tenant ids), then for each tenant its index
+ * version and one array per rule field. After those come the same arrays for the scheduled
+ * discounts, then their {@code validFrom} and {@code validUntil} in epoch milliseconds. Strings
+ * are stored once and referred to by position, and enums by ordinal, with -1 for null. A new
+ * file is written next to the old one and moved over it, so readers never see a partly written
+ * snapshot.
+ */
+@Slf4j
+@Component
+public class DiscountRuleSnapshot {
+
+    static final int MAGIC = 0x44525331; // "DRS1"
+    static final int FORMAT_VERSION = 2;
+
+    private static final long NO_TIME = Long.MIN_VALUE; // a validity bound that is not set
+
+    private static final DiscountType[] DISCOUNT_TYPES = DiscountType.values();
+    private static final ItemType[] ITEM_TYPES = ItemType.values();
+
+    private final DiscountRuleCache discountRuleCache;
+    private final boolean enabled;
+    private final Path path;
+
+    // not a monitor: writes do file I/O and must not pin a virtual thread's carrier
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private Map<String, Long> writtenVersions = Map.of(); // guarded by writeLock
+
+    public DiscountRuleSnapshot(DiscountRuleCache discountRuleCache,
+                                @Value("${discount.snapshot.enabled:false}") boolean enabled,
+                                @Value("${discount.snapshot.path:discount-rules.snapshot}") String path) {
+        this.discountRuleCache = discountRuleCache;
+        this.enabled = enabled;
+        this.path = Path.of(path);
+    }
+
+    @PostConstruct
+    public void seedOnStartup() {
+        load();
+    }
+
+    /**
+     * Seeds the rule cache from the snapshot file. Returns the number of tenants seeded.
+     */
+    public int load() {
+        if (!enabled || !Files.isRegularFile(path)) {
+            return 0;
+        }
+        Map<String, TenantSnapshot> tenants;
+        try {
+            tenants = read(path);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable discount rule snapshot {}", path, e);
+            return 0;
+        }
+        int seeded = 0;
+        for (Map.Entry<String, TenantSnapshot> entry : tenants.entrySet()) {
+            if (discountRuleCache.seed(entry.getKey(), entry.getValue().index(), entry.getValue().scheduled())) {
+                seeded++;
+            }
+        }
+        log.info("Seeded rules of {} tenants from discount rule snapshot {}", seeded, path);
+        return seeded;
+    }
+
+    @Scheduled(fixedDelayString = "${discount.snapshot.interval-ms:60000}")
+    public void scheduledWrite() {
+        if (enabled) {
+            try {
+                writeIfChanged();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to write discount rule snapshot {}", path, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void writeOnShutdown() {
+        scheduledWrite();
+    }
+
+    /**
+     * Writes the loaded indexes unless they are the versions last written. Returns true if the
+     * file was written.
+     */
+    public boolean writeIfChanged() throws IOException {
+        writeLock.lock();
+        try {
+            return writeIfChangedLocked();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private boolean writeIfChangedLocked() throws IOException {
+        Map<String, DiscountRuleIndex> indexes = discountRuleCache.getLoadedIndexes();
+        Map<String, List<Discount>> scheduled = discountRuleCache.getScheduledDiscounts();
+        Map<String, Long> versions = new HashMap<>();
+        indexes.forEach((tenantId, index) -> versions.put(tenantId, index.getVersion()));
+        if (indexes.isEmpty() || versions.equals(writtenVersions)) {
+            return false;
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+            write(out, indexes, scheduled);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writtenVersions = versions;
+        return true;
+    }
+
+    static void write(OutputStream output, Map<String, DiscountRuleIndex> indexes,
+                      Map<String, List<Discount>> scheduled) throws IOException {
+        DataOutputStream out = new DataOutputStream(output);
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        Map<String, List<DiscountRule>> scheduledRules = new HashMap<>();
+        for (Map.Entry<String, DiscountRuleIndex> entry : indexes.entrySet()) {
+            intern(strings, entry.getKey());
+            List<DiscountRule> pending = new ArrayList<>();
+            for (Discount discount : scheduled.getOrDefault(entry.getKey(), List.of())) {
+                pending.add(DiscountRule.of(discount, 0));
+            }
+            scheduledRules.put(entry.getKey(), pending);
+            for (DiscountRule rule : entry.getValue().getRules()) {
+                intern(strings, rule);
+            }
+            for (DiscountRule rule : pending) {
+                intern(strings, rule);
+            }
+        }
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(strings.size());
+        for (String string : strings.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.writeInt(indexes.size());
+        for (Map.Entry<String, DiscountRuleIndex> entry : indexes.entrySet()) {
+            out.writeInt(strings.get(entry.getKey()));
+            out.writeLong(entry.getValue().getVersion());
+            writeRules(out, strings, new ArrayList<>(entry.getValue().getRules()));
+            List<Discount> pending = scheduled.getOrDefault(entry.getKey(), List.of());
+            writeRules(out, strings, scheduledRules.get(entry.getKey()));
+            for (Discount discount : pending) {
+                out.writeLong(discount.getValidFrom() != null ? discount.getValidFrom().toEpochMilli() : NO_TIME);
+            }
+            for (Discount discount : pending) {
+                out.writeLong(discount.getValidUntil() != null ? discount.getValidUntil().toEpochMilli() : NO_TIME);
+            }
+        }
+        out.flush();
+    }
+
+    private static void writeRules(DataOutputStream out, Map<String, Integer> strings, List<DiscountRule> rules)
+            throws IOException {
+        out.writeInt(rules.size());
+        for (DiscountRule rule : rules) {
+            out.writeInt(strings.get(rule.getDiscountCode()));
+        }
+        for (DiscountRule rule : rules) {
+            out.writeInt(rule.getOrdinal());
+        }
+        for (DiscountRule rule : rules) {
+            out.writeByte(rule.getDiscountType() != null ? rule.getDiscountType().ordinal() : -1);
+        }
+        for (DiscountRule rule : rules) {
+            out.writeDouble(rule.getDiscountPercentage());
+        }
+        for (DiscountRule rule : rules) {
+            out.writeInt(rule.getBasisPoints());
+        }
+        for (DiscountRule rule : rules) {
+            out.writeByte(rule.getApplicableItemType() != null ? rule.getApplicableItemType().ordinal() : -1);
+        }
+        for (DiscountRule rule : rules) {
+            out.writeInt(indexOf(strings, rule.getApplicableItemId()));
+        }
+        for (DiscountRule rule : rules) {
+            out.writeInt(rule.getItemQuantityThreshold());
+        }
+        for (DiscountRule rule : rules) {
+            out.writeDouble(rule.getMinimumCost());
+        }
+        for (DiscountRule rule : rules) {
+            out.writeLong(rule.getMinimumCostMinorUnits());
+        }
+        for (DiscountRule rule : rules) {
+            out.writeBoolean(rule.isStackable());
+        }
+        for (DiscountRule rule : rules) {
+            out.writeInt(indexOf(strings, rule.getExclusiveGroup()));
+        }
+        for (DiscountRule rule : rules) {
+            out.writeInt(rule.getPriority());
+        }
+        for (DiscountRule rule : rules) {
+            out.writeInt(rule.getMaxRedemptions());
+        }
+        for (DiscountRule rule : rules) {
+            out.writeLong(rule.getRedemptionCount());
+        }
+    }
+
+    /**
+     * Reads a snapshot file through a read-only memory mapping. Returns the rules of each tenant
+     * in the file.
+     */
+    static Map<String, TenantSnapshot> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    static Map<String, TenantSnapshot> read(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a discount rule snapshot.");
+        }
+        int formatVersion = buffer.getInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported discount rule snapshot format " + formatVersion + ".");
+        }
+        String[] strings = new String[require(buffer, buffer.getInt(), Integer.BYTES)];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = new String(bytes(buffer, buffer.getInt()), StandardCharsets.UTF_8);
+        }
+        int tenantCount = buffer.getInt();
+        Map<String, TenantSnapshot> tenants = new LinkedHashMap<>();
+        for (int t = 0; t < tenantCount; t++) {
+            String tenantId = strings[buffer.getInt()];
+            long version = buffer.getLong();
+            List<DiscountRule> rules = readRules(buffer, strings);
+            List<DiscountRule> pending = readRules(buffer, strings);
+            long[] validFrom = longs(buffer, pending.size());
+            long[] validUntil = longs(buffer, pending.size());
+            List<Discount> scheduled = new ArrayList<>(pending.size());
+            for (int i = 0; i < pending.size(); i++) {
+                scheduled.add(toDiscount(tenantId, pending.get(i), validFrom[i], validUntil[i]));
+            }
+            tenants.put(tenantId, new TenantSnapshot(DiscountRuleIndex.of(rules, version), scheduled));
+        }
+        return tenants;
+    }
+
+    private static List<DiscountRule> readRules(ByteBuffer buffer, String[] strings) throws IOException {
+        int n = require(buffer, buffer.getInt(), 1);
+        int[] codes = ints(buffer, n);
+        int[] ordinals = ints(buffer, n);
+        byte[] discountTypes = bytes(buffer, n);
+        double[] percentages = doubles(buffer, n);
+        int[] basisPoints = ints(buffer, n);
+        byte[] itemTypes = bytes(buffer, n);
+        int[] itemIds = ints(buffer, n);
+        int[] quantityThresholds = ints(buffer, n);
+        double[] minimumCosts = doubles(buffer, n);
+        long[] minimumCostsMinorUnits = longs(buffer, n);
+        byte[] stackable = bytes(buffer, n);
+        int[] exclusiveGroups = ints(buffer, n);
+        int[] priorities = ints(buffer, n);
+        int[] maxRedemptions = ints(buffer, n);
+        long[] redemptionCounts = longs(buffer, n);
+        List<DiscountRule> rules = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            rules.add(new DiscountRule(
+                    strings[codes[i]],
+                    ordinals[i],
+                    discountTypes[i] >= 0 ? DISCOUNT_TYPES[discountTypes[i]] : null,
+                    percentages[i],
+                    itemTypes[i] >= 0 ? ITEM_TYPES[itemTypes[i]] : null,
+                    itemIds[i] >= 0 ? strings[itemIds[i]] : null,
+                    quantityThresholds[i],
+                    minimumCosts[i],
+                    basisPoints[i],
+                    minimumCostsMinorUnits[i],
+                    stackable[i] != 0,
+                    exclusiveGroups[i] >= 0 ? strings[exclusiveGroups[i]] : null,
+                    priorities[i],
+                    maxRedemptions[i],
+                    redemptionCounts[i]));
+        }
+        return rules;
+    }
+
+    /**
+     * Rebuilds a scheduled discount from its rule and validity window, with every field the rule
+     * cache reads. The description is not kept.
+     */
+    private static Discount toDiscount(String tenantId, DiscountRule rule, long validFrom, long validUntil) {
+        Discount discount = new Discount();
+        discount.setTenantId(tenantId);
+        discount.setDiscountCode(rule.getDiscountCode());
+        discount.setDiscountType(rule.getDiscountType());
+        discount.setDiscountPercentage(rule.getDiscountPercentage());
+        discount.setApplicableItemType(rule.getApplicableItemType());
+        discount.setApplicableItemId(rule.getApplicableItemId());
+        discount.setItemQuantityThreshold(rule.getItemQuantityThreshold());
+        discount.setMinimumCost(rule.getMinimumCost());
+        discount.setStackable(rule.isStackable());
+        discount.setExclusiveGroup(rule.getExclusiveGroup());
+        discount.setPriority(rule.getPriority());
+        discount.setMaxRedemptions(rule.getMaxRedemptions() > 0 ? rule.getMaxRedemptions() : null);
+        discount.setRedemptionCount(rule.getRedemptionCount());
+        discount.setValidFrom(validFrom != NO_TIME ? Instant.ofEpochMilli(validFrom) : null);
+        discount.setValidUntil(validUntil != NO_TIME ? Instant.ofEpochMilli(validUntil) : null);
+        return discount;
+    }
+
+    private static void intern(Map<String, Integer> strings, DiscountRule rule) {
+        intern(strings, rule.getDiscountCode());
+        intern(strings, rule.getApplicableItemId());
+        intern(strings, rule.getExclusiveGroup());
+    }
+
+    private static void intern(Map<String, Integer> strings, String string) {
+        if (string != null) {
+            strings.putIfAbsent(string, strings.size());
+        }
+    }
+
+    private static int indexOf(Map<String, Integer> strings, String string) {
+        return string != null ? strings.get(string) : -1;
+    }
+
+    /**
+     * Checks that {@code n} values of at least {@code size} bytes each can remain in the buffer,
+     * so a corrupt count fails before anything is allocated for it.
+     */
+    private static int require(ByteBuffer buffer, int n, int size) throws IOException {
+        if (n < 0 || (long) n * size > buffer.remaining()) {
+            throw new IOException("Truncated discount rule snapshot.");
+        }
+        return n;
+    }
+
+    private static int[] ints(ByteBuffer buffer, int n) throws IOException {
+        int[] values = new int[require(buffer, n, Integer.BYTES)];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + n * Integer.BYTES);
+        return values;
+    }
+
+    private static long[] longs(ByteBuffer buffer, int n) throws IOException {
+        long[] values = new long[require(buffer, n, Long.BYTES)];
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + n * Long.BYTES);
+        return values;
+    }
+
+    private static double[] doubles(ByteBuffer buffer, int n) throws IOException {
+        double[] values = new double[require(buffer, n, Double.BYTES)];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + n * Double.BYTES);
+        return values;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer, int n) throws IOException {
+        byte[] values = new byte[require(buffer, n, 1)];
+        buffer.get(values);
+        return values;
+    }
+
+    /**
+     * One tenant's rules as read from a snapshot: its index, and the discounts whose validity
+     * window was still to open or close when the snapshot was written.
+     */
+    record TenantSnapshot(DiscountRuleIndex index, List<Discount> scheduled) {
+    }
+}
@@ -1,39 +1,201 @@
 package com.adp.interview.discountapi.service.impl;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import com.adp.interview.discountapi.entity.*;
+import com.adp.interview.discountapi.repository.DiscountChangeEventRepository;
+import com.adp.interview.discountapi.repository.DiscountJdbcRepository;
 import com.adp.interview.discountapi.repository.DiscountRepository;
 import com.adp.interview.discountapi.service.DiscountService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
 public class DiscountServiceImpl implements DiscountService {
 
+    private static final int MAX_REPORTED_ERRORS = 100;
+
     private final DiscountRepository discountRepository;
+    private final DiscountJdbcRepository discountJdbcRepository;
+    private final DiscountChangeEventRepository changeEventRepository;
+    private final DiscountRuleCache discountRuleCache;
+    private final DiscountEvaluator discountEvaluator;
+    private final PricingResultCache pricingResultCache;
+    private final StackedDiscountOptimizer stackedDiscountOptimizer;
+    private final RedemptionCounter redemptionCounter;
+    private final PricingMetrics pricingMetrics;
+    private final DiscountChangeLogTailer changeLogTailer;
+    private final DiscountLookupCache discountLookupCache;
+    private final Validator validator;
+
+    @Value("${discount.bulk.export-page-size:1000}")
+    private int exportPageSize = 1000;
 
-    public DiscountServiceImpl(DiscountRepository discountRepository) {
+    @Value("${discount.calculate.explain.max-candidates:1000}")
+    private int explainMaxCandidates = 1000;
+
+    public DiscountServiceImpl(DiscountRepository discountRepository, DiscountJdbcRepository discountJdbcRepository,
+                               DiscountChangeEventRepository changeEventRepository,
+                               DiscountRuleCache discountRuleCache, DiscountEvaluator discountEvaluator,
+                               PricingResultCache pricingResultCache, StackedDiscountOptimizer stackedDiscountOptimizer,
+                               RedemptionCounter redemptionCounter, PricingMetrics pricingMetrics, DiscountChangeLogTailer changeLogTailer,
+                               DiscountLookupCache discountLookupCache, Validator validator) {
         this.discountRepository = discountRepository;
+        this.discountJdbcRepository = discountJdbcRepository;
+        this.changeEventRepository = changeEventRepository;
+        this.discountRuleCache = discountRuleCache;
+        this.discountEvaluator = discountEvaluator;
+        this.pricingResultCache = pricingResultCache;
+        this.stackedDiscountOptimizer = stackedDiscountOptimizer;
+        this.redemptionCounter = redemptionCounter;
+        this.pricingMetrics = pricingMetrics;
+        this.changeLogTailer = changeLogTailer;
+        this.discountLookupCache = discountLookupCache;
+        this.validator = validator;
     }
 
-    public List<Discount> getAllDiscounts() {
-        return discountRepository.findAll();
+    /**
+     * Returns up to {@code limit} of the tenant's discounts with codes after {@code after} in code order,
+     * optionally filtered by discount type and applicable item type. {@code type} is
+     * {@link Discount} or a projection such as {@link DiscountSummary}.
+     */
+    public <T> List<T> getDiscounts(String tenantId, String after, int limit, DiscountType discountType, ItemType applicableItemType,
+                                    Class<T> type) {
+        // codes are never blank, so the empty string sorts before every code
+        String from = after != null ? after : "";
+        Pageable pageable = PageRequest.of(0, limit);
+        if (discountType != null && applicableItemType != null) {
+            return discountRepository.findByTenantIdAndDiscountTypeAndApplicableItemTypeAndDiscountCodeGreaterThanOrderByDiscountCodeAsc(
+                    tenantId, discountType, applicableItemType, from, pageable, type);
+        } else if (discountType != null) {
+            return discountRepository.findByTenantIdAndDiscountTypeAndDiscountCodeGreaterThanOrderByDiscountCodeAsc(
+                    tenantId, discountType, from, pageable, type);
+        } else if (applicableItemType != null) {
+            return discountRepository.findByTenantIdAndApplicableItemTypeAndDiscountCodeGreaterThanOrderByDiscountCodeAsc(
+                    tenantId, applicableItemType, from, pageable, type);
+        }
+        return discountRepository.findByTenantIdAndDiscountCodeGreaterThanOrderByDiscountCodeAsc(tenantId, from, pageable, type);
     }
 
-    public Optional<Discount> getDiscountByCode(String discountCode) {
-        return discountRepository.findById(discountCode);
+    /**
+     * Looks the tenant's code up through {@link DiscountLookupCache}.
+     */
+    public Optional<Discount> getDiscountByCode(String tenantId, String discountCode) {
+        return discountLookupCache.find(tenantId, discountCode);
     }
 
+    /**
+     * Adds or replaces a discount in its tenant's catalog. Codes are unique per tenant, so the
+     * same code in another tenant's catalog is a different discount and is left alone.
+     */
+    @Transactional
     public Discount addDiscount(Discount discount) {
         validateDiscount(discount);
-        return discountRepository.save(discount);
+        Discount saved = discountRepository.save(discount);
+        changeEventRepository.save(new DiscountChangeEvent(saved.getTenantId(), saved.getDiscountCode(), DiscountChangeType.UPSERT));
+        afterCommit(() -> {
+            discountRuleCache.onSaved(saved);
+            discountLookupCache.onSaved(saved);
+        });
+        return saved;
+    }
+
+    /**
+     * Deletes a discount from the tenant's catalog. Codes of other tenants are left alone.
+     */
+    @Transactional
+    public void deleteDiscount(String tenantId, String discountCode) {
+        if (discountRepository.findByTenantIdAndDiscountCode(tenantId, discountCode).isEmpty()) {
+            return;
+        }
+        discountRepository.deleteById(new DiscountId(tenantId, discountCode));
+        changeEventRepository.save(new DiscountChangeEvent(tenantId, discountCode, DiscountChangeType.DELETE));
+        afterCommit(() -> {
+            discountRuleCache.onDeleted(tenantId, discountCode);
+            discountLookupCache.onDeleted(tenantId, discountCode);
+        });
+    }
+
+    /**
+     * Validates every discount and, only if all of them are valid, inserts or replaces them in
+     * JDBC batches together with their change events, in one transaction. Rows the caller could
+     * not parse are passed as null with their message in {@code rowErrors}, keyed by row index.
+     * A rejected import writes nothing and reports every rejected row (up to a limit). The
+     * discounts are added to {@code tenantId}'s catalog, whatever codes other tenants use.
+     */
+    @Transactional
+    public DiscountImportResponse importDiscounts(String tenantId, List<Discount> discounts, Map<Integer, String> rowErrors) {
+        DiscountImportResponse importResponse = new DiscountImportResponse();
+        Set<String> discountCodes = new LinkedHashSet<>(discounts.size() * 2);
+        for (int i = 0; i < discounts.size(); i++) {
+            String error = rowErrors.get(i);
+            if (error == null) {
+                error = validateRow(discounts.get(i), discountCodes);
+                if (error != null) {
+                    error = "Row " + (i + 1) + ": " + error;
+                }
+            }
+            if (error != null) {
+                reject(importResponse, error);
+            }
+        }
+        if (importResponse.getRejected() > 0 || discounts.isEmpty()) {
+            return importResponse;
+        }
+        for (Discount discount : discounts) {
+            discount.setTenantId(tenantId);
+        }
+        discountJdbcRepository.upsertAll(discounts);
+        discountJdbcRepository.insertChangeEvents(tenantId, discountCodes, DiscountChangeType.UPSERT);
+        List<Discount> imported = List.copyOf(discounts);
+        afterCommit(() -> {
+            discountRuleCache.onChanged(imported, List.of());
+            discountLookupCache.onChanged(imported, List.of());
+        });
+        importResponse.setImported(discounts.size());
+        return importResponse;
     }
 
-    public void deleteDiscount(String discountCode) {
-        discountRepository.deleteById(discountCode);
+    /**
+     * Streams every discount of the tenant ordered by code, reading one page at a time so the
+     * catalog is never held in memory. Pages are separate reads, so a discount changed during
+     * the export may appear in its old or new form.
+     */
+    public Stream<Discount> exportDiscounts(String tenantId) {
+        return Stream.iterate(discountJdbcRepository.findPageAfter(tenantId, null, exportPageSize),
+                        page -> !page.isEmpty(),
+                        page -> page.size() < exportPageSize ? List.of()
+                                : discountJdbcRepository.findPageAfter(tenantId, page.get(page.size() - 1).getDiscountCode(), exportPageSize))
+                .flatMap(List::stream);
+    }
+
+    /**
+     * Reports how far this node has applied the discount change log, so nodes can be checked
+     * for convergence, with the number of rules that apply to the tenant.
+     */
+    public DiscountVersionResponse getVersion(String tenantId) {
+        DiscountVersionResponse versionResponse = new DiscountVersionResponse();
+        versionResponse.setAppliedVersion(changeLogTailer.getAppliedVersion());
+        versionResponse.setLatestVersion(changeLogTailer.getLatestVersion());
+        versionResponse.setSkippedVersions(changeLogTailer.getSkippedVersionCount());
+        versionResponse.setRuleCount(discountRuleCache.current(tenantId).size());
+        return versionResponse;
     }
 
     public void validateDiscount(Discount discount) {
@@ -69,54 +231,178 @@ public class DiscountServiceImpl implements DiscountService {
             default:
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid discount type: " + discount.getDiscountType());
         }
+        if (discount.getExclusiveGroup() != null && !discount.isStackable()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Exclusive group should only be supplied with a stackable discount.");
+        }
+        if (discount.getValidFrom() != null && discount.getValidUntil() != null
+                && !discount.getValidUntil().isAfter(discount.getValidFrom())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Valid until must be after valid from.");
+        }
+    }
+
+    private static void reject(DiscountImportResponse importResponse, String error) {
+        importResponse.setRejected(importResponse.getRejected() + 1);
+        if (importResponse.getErrors().size() < MAX_REPORTED_ERRORS) {
+            importResponse.getErrors().add(error);
+        }
+    }
+
+    private String validateRow(Discount discount, Set<String> discountCodes) {
+        if (discount == null) {
+            return "Discount is required.";
+        }
+        Set<ConstraintViolation<Discount>> violations = validator.validate(discount);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ", "", "."));
+        }
+        try {
+            validateDiscount(discount);
+        } catch (ResponseStatusException e) {
+            return e.getReason();
+        }
+        if (!discountCodes.add(discount.getDiscountCode())) {
+            return "Duplicate discount code " + discount.getDiscountCode() + ".";
+        }
+        return null;
     }
 
     @Override
-    public DiscountResponse calculateBestDiscount(DiscountRequest request) {
-        List<Item> items = request.getItems();
-        List<Discount> discounts = discountRepository.findAll();
-        double totalDiscount = 0.0;
-        Discount bestDiscount = null;
-        for (Discount discount : discounts) {
-            double discountAmount = 0.0;
-            if (discount.getDiscountType() == DiscountType.ITEM_TYPE) {
-                for (Item item : items) {
-                    if (item.getType().equals(discount.getApplicableItemType())) {
-                        discountAmount += (item.getCost() * item.getQuantity() * discount.getDiscountPercentage()/100);
-                    }
-                }
-            } else if (discount.getDiscountType() == DiscountType.ITEM_COUNT) {
-                for (Item item : items) {
-                    if (item.getId().equals(discount.getApplicableItemId())) {
-                        if (item.getQuantity() >= discount.getItemQuantityThreshold()) {
-                            discountAmount += (item.getQuantity() * item.getCost() * discount.getDiscountPercentage()/100);
-                        }
-                        break;
-                    }
-                }
-            } else if (discount.getDiscountType() == DiscountType.ITEM_COST) {
-                for (Item item : items) {
-                    if (item.getCost() > discount.getMinimumCost()) {
-                        discountAmount += (item.getCost() * item.getQuantity() * discount.getDiscountPercentage()/100);
-                    }
-                }
-            }
+    public DiscountResponse calculateBestDiscount(String tenantId, DiscountRequest request) {
+        return price(tenantId, PricingCart.of(request.getItems()), discountRuleCache.current(tenantId)).toResponse();
+    }
+
+    /**
+     * Prices a cart as {@link #calculateBestDiscount(String, DiscountRequest)} does and adds an
+     * explanation of how every discount fared, see {@link DiscountExplainer}. The explanation scores
+     * the cart again, outside the result cache, and lists at most
+     * {@code discount.calculate.explain.max-candidates} discounts. The request is timed on its own
+     * and left out of the calculate timer and winner counters.
+     */
+    @Override
+    public DiscountResponse explainBestDiscount(String tenantId, DiscountRequest request) {
+        long start = System.nanoTime();
+        DiscountRuleIndex index = discountRuleCache.current(tenantId);
+        PricingCart cart = PricingCart.of(request.getItems());
+        boolean cached = pricingResultCache.contains(tenantId, cart, index);
+        DiscountResponse discountResponse = lookUp(tenantId, cart, index).toResponse();
+        DiscountExplanation explanation = DiscountExplainer.explain(CartAggregate.of(cart), index, explainMaxCandidates);
+        explanation.setCachedResult(cached);
+        discountResponse.setExplanation(explanation);
+        pricingMetrics.recordExplanation(start);
+        return discountResponse;
+    }
+
+    /**
+     * Prices many carts against one snapshot of the tenant's discount rules. Carts are evaluated in
+     * parallel and a cart that cannot be priced gets a response with an error message instead
+     * of failing the whole batch. Responses are returned in request order.
+     */
+    @Override
+    public List<DiscountResponse> calculateBestDiscounts(String tenantId, List<DiscountRequest> requests) {
+        DiscountRuleIndex index = discountRuleCache.current(tenantId);
+        return IntStream.range(0, requests.size())
+                .parallel()
+                .mapToObj(i -> calculateBestDiscount(tenantId, requests.get(i), index))
+                .toList();
+    }
+
+    private DiscountResponse calculateBestDiscount(String tenantId, DiscountRequest request, DiscountRuleIndex index) {
+        DiscountResponse discountResponse;
+        if (request == null || request.getItems() == null) {
+            discountResponse = new DiscountResponse();
+            discountResponse.setError("Items are required.");
+            return discountResponse;
+        }
+        try {
+            return price(tenantId, PricingCart.of(request.getItems()), index).toResponse();
+        } catch (RuntimeException e) {
+            discountResponse = new DiscountResponse();
+            discountResponse.setError("Cart could not be priced: " + e.getMessage());
+            return discountResponse;
+        }
+    }
 
-            if (discountAmount > totalDiscount) {
-                totalDiscount = discountAmount;
-                bestDiscount = discount;
+    /**
+     * Ranks the {@code limit} discounts that save the most on a cart, each applied on its own, in
+     * one pass over the tenant's rules, see {@link DiscountEvaluator#evaluateTop}. The first is the
+     * discount {@link #calculateBestDiscount(String, DiscountRequest)} applies. Rankings are not cached,
+     * and are timed on their own rather than counted as calculations.
+     */
+    @Override
+    public RankedDiscountResponse calculateTopDiscounts(String tenantId, DiscountRequest request, int limit) {
+        long start = System.nanoTime();
+        PricingCart cart = PricingCart.of(request.getItems());
+        RankedPricingResult result = discountEvaluator.evaluateTop(CartAggregate.of(cart), discountRuleCache.current(tenantId), limit);
+        pricingMetrics.recordTopCalculation(start);
+        return result.toResponse();
+    }
+
+    /**
+     * Prices a cart with one discount per line, combining stackable discounts across lines,
+     * see {@link StackedDiscountOptimizer}.
+     */
+    @Override
+    public StackedDiscountResponse calculateStackedDiscount(String tenantId, DiscountRequest request) {
+        long start = System.nanoTime();
+        StackedPricingResult result = stackedDiscountOptimizer.optimize(PricingCart.of(request.getItems()),
+                discountRuleCache.current(tenantId));
+        pricingMetrics.recordStackedCalculation(result, start);
+        return result.toResponse();
+    }
+
+    /**
+     * Records one use of a discount at checkout. Only discounts that currently apply can be
+     * redeemed, and not beyond their redemption limit, see {@link RedemptionCounter}.
+     */
+    @Override
+    public void redeemDiscount(String tenantId, String discountCode) {
+        DiscountRule rule = discountRuleCache.current(tenantId).getRule(discountCode);
+        if (rule == null) {
+            Discount discount = discountRepository.findByTenantIdAndDiscountCode(tenantId, discountCode).orElseThrow(() ->
+                    new ResponseStatusException(HttpStatus.NOT_FOUND, "Discount " + discountCode + " not found."));
+            long redemptions = Math.max(discount.getRedemptionCount(), redemptionCounter.getRedemptions(tenantId, discountCode));
+            if (discount.getMaxRedemptions() == null || redemptions < discount.getMaxRedemptions()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Discount " + discountCode + " does not apply at this time.");
             }
         }
-        System.out.println("Best discount: " + bestDiscount);
-        double totalCost = items.stream().mapToDouble(item -> item.getCost() * item.getQuantity()).sum();
-        DiscountResponse discountResponse = new DiscountResponse();
-        if (bestDiscount != null) {
-            discountResponse.setDiscountCode(bestDiscount.getDiscountCode());
+        if (rule == null || !redemptionCounter.redeem(tenantId, rule)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Discount " + discountCode + " has no redemptions left.");
         }
-        discountResponse.setTotalCost(totalCost);
-        discountResponse.setTotalDiscount(totalDiscount);
-        discountResponse.setTotalCostAfterDiscount(totalCost - totalDiscount);
+    }
 
-        return discountResponse;
+    /**
+     * Prices a cart through the result cache. Every calculation is recorded, cached or not, so
+     * the pricing meters count requests rather than cache misses.
+     */
+    private PricingResult price(String tenantId, PricingCart pricingCart, DiscountRuleIndex index) {
+        long start = System.nanoTime();
+        PricingResult result = lookUp(tenantId, pricingCart, index);
+        pricingMetrics.recordCalculation(tenantId, result, pricingCart.size(), start);
+        return result;
+    }
+
+    private PricingResult lookUp(String tenantId, PricingCart pricingCart, DiscountRuleIndex index) {
+        return pricingResultCache.get(tenantId, pricingCart, index,
+                cart -> discountEvaluator.evaluate(CartAggregate.of(cart), index));
+    }
+
+    /**
+     * Runs the action once the current transaction commits, or straight away outside a transaction,
+     * so the in-memory rules never reflect a change that was rolled back.
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
-}
\ No newline at end of file
+}
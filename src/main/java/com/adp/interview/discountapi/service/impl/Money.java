@@ -0,0 +1,85 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money arithmetic for the pricing path. Amounts are held as {@code long} minor
+ * units (cents) and percentages as {@code int} basis points (1/100 of a percent).
+ *
+ * <p>Rounding is defined as follows: decimal amounts are rounded to the nearest cent and
+ * percentages to the nearest basis point, both {@link RoundingMode#HALF_UP}; a percentage of
+ * an amount is computed exactly and rounded to the nearest cent, {@link RoundingMode#HALF_UP}.
+ */
+public final class Money {
+
+    public static final int MINOR_UNITS = 100;
+
+    public static final int BASIS_POINTS = 10000;
+
+    private static final double FAST_PATH_EPSILON = 1e-6;
+
+    private static final double FAST_PATH_LIMIT = 1e13;
+
+    private Money() {
+    }
+
+    /**
+     * Converts a decimal amount to minor units. Values that already have at most two decimals,
+     * which is nearly all of them, are converted without allocating; anything else goes through
+     * {@link BigDecimal} so that e.g. 1.005 rounds up to 101 cents as written.
+     */
+    public static long toMinorUnits(double amount) {
+        return scale(amount, MINOR_UNITS, 2);
+    }
+
+    /**
+     * Converts a percentage (0 to 100) to basis points.
+     */
+    public static int toBasisPoints(double percentage) {
+        return Math.toIntExact(scale(percentage, 100, 2));
+    }
+
+    public static double toDecimal(long minorUnits) {
+        return (double) minorUnits / MINOR_UNITS;
+    }
+
+    /**
+     * Returns {@code basisPoints} of {@code minorUnits}, rounded half up to the nearest minor unit.
+     */
+    public static long percentOf(long minorUnits, int basisPoints) {
+        return roundScaled(scaledPercentOf(minorUnits, basisPoints));
+    }
+
+    /**
+     * Returns {@code basisPoints} of {@code minorUnits} exactly, in units of 1/{@value #BASIS_POINTS}
+     * of a minor unit. This is a single multiplication, so the pricing path compares candidate
+     * discounts in this form and only rounds the winner with {@link #roundScaled(long)}.
+     */
+    public static long scaledPercentOf(long minorUnits, int basisPoints) {
+        return Math.multiplyExact(minorUnits, basisPoints);
+    }
+
+    /**
+     * Rounds an amount from {@link #scaledPercentOf(long, int)} half up to the nearest minor unit.
+     */
+    public static long roundScaled(long scaled) {
+        return scaled >= 0
+                ? (scaled + BASIS_POINTS / 2) / BASIS_POINTS
+                : -((-scaled + BASIS_POINTS / 2) / BASIS_POINTS);
+    }
+
+    private static long scale(double value, int factor, int decimals) {
+        double scaled = value * factor;
+        if (Math.abs(scaled) < FAST_PATH_LIMIT) {
+            double nearest = Math.rint(scaled);
+            if (Math.abs(scaled - nearest) < FAST_PATH_EPSILON) {
+                return (long) nearest;
+            }
+        }
+        if (!Double.isFinite(value)) {
+            throw new ArithmeticException("Amount must be a finite number: " + value);
+        }
+        return BigDecimal.valueOf(value).setScale(decimals, RoundingMode.HALF_UP).movePointRight(decimals).longValueExact();
+    }
+}
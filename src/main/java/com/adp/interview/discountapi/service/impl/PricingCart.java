@@ -0,0 +1,76 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.util.List;
+
+import com.adp.interview.discountapi.entity.Item;
+import com.adp.interview.discountapi.entity.ItemType;
+
+/**
+ * Compact, primitive form of a cart: one slot per line in parallel arrays of item ids, unit
+ * costs in cents, quantities and {@link ItemType} ordinals. Built once per request so that the pricing
+ * kernel works on primitives and never touches the boxed fields of {@link Item}.
+ */
+public final class PricingCart {
+
+    private static final ItemType[] ITEM_TYPES = ItemType.values();
+
+    private final String[] itemIds;
+    private final long[] costs;
+    private final int[] quantities;
+    private final int[] typeOrdinals;
+    private int size;
+
+    public PricingCart(int capacity) {
+        itemIds = new String[capacity];
+        costs = new long[capacity];
+        quantities = new int[capacity];
+        typeOrdinals = new int[capacity];
+    }
+
+    public static PricingCart of(List<Item> items) {
+        PricingCart cart = new PricingCart(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            cart.add(item.getId(), Money.toMinorUnits(item.getCost()), item.getType(), item.getQuantity());
+        }
+        return cart;
+    }
+
+    /**
+     * Adds a line; {@code cost} is the unit cost in cents.
+     */
+    public void add(String itemId, long cost, ItemType type, int quantity) {
+        itemIds[size] = itemId;
+        costs[size] = cost;
+        quantities[size] = quantity;
+        typeOrdinals[size] = type.ordinal();
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getItemId(int line) {
+        return itemIds[line];
+    }
+
+    /**
+     * Unit cost of the line in cents.
+     */
+    public long getCost(int line) {
+        return costs[line];
+    }
+
+    public int getQuantity(int line) {
+        return quantities[line];
+    }
+
+    public int getTypeOrdinal(int line) {
+        return typeOrdinals[line];
+    }
+
+    public ItemType getType(int line) {
+        return ITEM_TYPES[typeOrdinals[line]];
+    }
+}
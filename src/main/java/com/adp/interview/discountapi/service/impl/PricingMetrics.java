@@ -0,0 +1,207 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics for the calculate path: a timer per pricing call tagged by tenant, counters per winning discount
+ * type and code, and distributions of cart size and rules evaluated. Meters are created
+ * up front or cached, so recording a calculation does not allocate; when disabled, nothing
+ * is recorded at all.
+ *
+ * <p>The winning discount can also be logged at debug level for one in every
+ * {@code discount.metrics.debug-sample-rate} calculations.
+ */
+@Slf4j
+@Component
+public class PricingMetrics {
+
+    static final String NO_DISCOUNT = "NONE";
+
+    static final String OTHER_CODES = "OTHER";
+
+    static final String OTHER_TENANTS = "OTHER";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int maxCodeTags;
+    private final int maxTenantTags;
+    private final int debugSampleRate;
+
+    private final Map<String, Timer> calculateTimers = new ConcurrentHashMap<>();
+    private final Timer stackedOptimalTimer;
+    private final Timer stackedBudgetTimer;
+    private final Timer topTimer;
+    private final Timer explainTimer;
+    private final DistributionSummary stackedNodes;
+    private final DistributionSummary cartLines;
+    private final DistributionSummary rulesEvaluated;
+    private final Counter noDiscountCounter;
+    private final Map<DiscountType, Counter> typeCounters = new EnumMap<>(DiscountType.class);
+    private final Map<String, Counter> codeCounters = new ConcurrentHashMap<>();
+    private final AtomicLong calculations = new AtomicLong();
+
+    public PricingMetrics(MeterRegistry meterRegistry,
+                          @Value("${discount.metrics.enabled:true}") boolean enabled,
+                          @Value("${discount.metrics.max-code-tags:1000}") int maxCodeTags,
+                          @Value("${discount.metrics.max-tenant-tags:100}") int maxTenantTags,
+                          @Value("${discount.metrics.debug-sample-rate:100}") int debugSampleRate) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxCodeTags = maxCodeTags;
+        this.maxTenantTags = maxTenantTags;
+        this.debugSampleRate = Math.max(1, debugSampleRate);
+
+        calculateTimers.put(Discount.DEFAULT_TENANT, calculateTimer(Discount.DEFAULT_TENANT));
+        stackedOptimalTimer = stackedTimer(true);
+        stackedBudgetTimer = stackedTimer(false);
+        topTimer = Timer.builder("discount.calculate.top")
+                .description("Time to rank the best discounts for a cart")
+                .register(meterRegistry);
+        explainTimer = Timer.builder("discount.calculate.explain")
+                .description("Time to price and explain a cart")
+                .register(meterRegistry);
+        stackedNodes = DistributionSummary.builder("discount.calculate.stacked.nodes")
+                .description("Branch and bound nodes explored for a stacked cart")
+                .register(meterRegistry);
+        cartLines = DistributionSummary.builder("discount.calculate.cart.lines")
+                .description("Number of lines in a priced cart")
+                .register(meterRegistry);
+        rulesEvaluated = DistributionSummary.builder("discount.calculate.rules.evaluated")
+                .description("Number of discount rules scored for a cart")
+                .register(meterRegistry);
+        for (DiscountType discountType : DiscountType.values()) {
+            typeCounters.put(discountType, winnerTypeCounter(discountType.name()));
+        }
+        noDiscountCounter = winnerTypeCounter(NO_DISCOUNT);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records one cart priced for a tenant. {@code startNanos} is the {@link System#nanoTime()} taken before
+     * pricing started.
+     */
+    public void recordCalculation(String tenantId, PricingResult result, int lines, long startNanos) {
+        if (!enabled) {
+            return;
+        }
+        tenantTimer(tenantId).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        cartLines.record(lines);
+        rulesEvaluated.record(result.getRulesEvaluated());
+        DiscountRule best = result.getBestDiscount();
+        if (best == null) {
+            noDiscountCounter.increment();
+        } else {
+            typeCounters.get(best.getDiscountType()).increment();
+            codeCounter(best.getDiscountCode()).increment();
+        }
+        if (log.isDebugEnabled() && calculations.incrementAndGet() % debugSampleRate == 0) {
+            log.debug("Best discount: {} saving {} of {} cents over {} lines",
+                    best != null ? best.getDiscountCode() : NO_DISCOUNT,
+                    result.getTotalDiscount(), result.getTotalCost(), lines);
+        }
+    }
+
+    /**
+     * Records one cart priced with stacked discounts, tagged by whether the result was proven
+     * optimal within the time budget.
+     */
+    public void recordStackedCalculation(StackedPricingResult result, long startNanos) {
+        if (!enabled) {
+            return;
+        }
+        (result.isOptimal() ? stackedOptimalTimer : stackedBudgetTimer)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        stackedNodes.record(result.getNodesExplored());
+    }
+
+    /**
+     * Records one cart ranked by {@code /calculate/top}. Rankings have their own timer and do not
+     * count towards the winners, which only count carts actually priced.
+     */
+    public void recordTopCalculation(long startNanos) {
+        if (enabled) {
+            topTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Records one cart priced with an explanation. Like rankings, these have their own timer
+     * and do not count towards the winners.
+     */
+    public void recordExplanation(long startNanos) {
+        if (enabled) {
+            explainTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer stackedTimer(boolean optimal) {
+        return Timer.builder("discount.calculate.stacked")
+                .description("Time to price a cart with stacked discounts")
+                .tag("optimal", Boolean.toString(optimal))
+                .register(meterRegistry);
+    }
+
+    private Timer tenantTimer(String tenantId) {
+        Timer timer = calculateTimers.get(tenantId);
+        if (timer == null) {
+            // bound tag cardinality: tenants beyond the limit share one timer
+            String tag = calculateTimers.size() < maxTenantTags ? tenantId : OTHER_TENANTS;
+            timer = calculateTimers.get(tag);
+            if (timer == null) {
+                timer = calculateTimers.computeIfAbsent(tag, this::calculateTimer);
+            }
+        }
+        return timer;
+    }
+
+    private Timer calculateTimer(String tenantId) {
+        return Timer.builder("discount.calculate")
+                .description("Time to price a cart")
+                .tag("tenant", tenantId)
+                .register(meterRegistry);
+    }
+
+    private Counter codeCounter(String discountCode) {
+        Counter counter = codeCounters.get(discountCode);
+        if (counter == null) {
+            // bound tag cardinality: codes beyond the limit share one counter
+            String tag = codeCounters.size() < maxCodeTags ? discountCode : OTHER_CODES;
+            counter = codeCounters.get(tag);
+            if (counter == null) {
+                counter = codeCounters.computeIfAbsent(tag, this::winnerCodeCounter);
+            }
+        }
+        return counter;
+    }
+
+    private Counter winnerCodeCounter(String code) {
+        return Counter.builder("discount.calculate.winner.code")
+                .description("Carts won by a discount code")
+                .tag("code", code)
+                .register(meterRegistry);
+    }
+
+    private Counter winnerTypeCounter(String type) {
+        return Counter.builder("discount.calculate.winner.type")
+                .description("Carts won by a discount type")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,30 @@
+package com.adp.interview.discountapi.service.impl;
+
+import com.adp.interview.discountapi.entity.DiscountResponse;
+import lombok.Value;
+
+/**
+ * Outcome of evaluating a cart against a {@link DiscountRuleIndex}. Amounts are in cents.
+ */
+@Value
+public class PricingResult {
+
+    DiscountRule bestDiscount; // null if no discount applies
+
+    long totalCost;
+
+    long totalDiscount;
+
+    int rulesEvaluated; // number of rules scored for the cart
+
+    public DiscountResponse toResponse() {
+        DiscountResponse discountResponse = new DiscountResponse();
+        if (bestDiscount != null) {
+            discountResponse.setDiscountCode(bestDiscount.getDiscountCode());
+        }
+        discountResponse.setTotalCost(Money.toDecimal(totalCost));
+        discountResponse.setTotalDiscount(Money.toDecimal(totalDiscount));
+        discountResponse.setTotalCostAfterDiscount(Money.toDecimal(totalCost - totalDiscount));
+        return discountResponse;
+    }
+}
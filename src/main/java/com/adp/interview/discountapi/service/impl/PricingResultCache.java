@@ -0,0 +1,203 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches pricing results for carts that are priced again unchanged, such as page refreshes
+ * and retries. Entries are keyed by tenant, the rule index version and a canonical form of the
+ * cart, so a result is never served for rules other than the ones it was computed from. Entries
+ * for older rule versions can no longer be hit and are left to eviction. Eviction is Caffeine's
+ * W-TinyLFU, bounded by weight: each entry weighs its number of cart lines plus one, and the
+ * cache holds at most {@code discount.result-cache.max-lines}, since a key holds every line of
+ * its cart. Entries expire {@code discount.result-cache.ttl-ms} after writing. Hits, misses and
+ * evictions are published as the {@code cache.*} meters of the {@value #CACHE_NAME} cache.
+ */
+@Component
+public class PricingResultCache {
+
+    static final String CACHE_NAME = "discount.calculate.results";
+
+    private final AsyncCache<CartKey, PricingResult> cache; // null when disabled
+
+    public PricingResultCache(MeterRegistry meterRegistry,
+                              @Value("${discount.result-cache.enabled:true}") boolean enabled,
+                              @Value("${discount.result-cache.max-lines:100000}") long maxLines,
+                              @Value("${discount.result-cache.ttl-ms:60000}") long ttlMillis) {
+        if (enabled) {
+            cache = Caffeine.newBuilder()
+                    .maximumWeight(maxLines)
+                    .weigher((CartKey key, PricingResult result) -> key.itemIds.length + 1)
+                    .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                    .recordStats()
+                    .buildAsync();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        } else {
+            cache = null;
+        }
+    }
+
+    /**
+     * Returns the cached result for this tenant's cart and index, or prices it with {@code pricing} and
+     * caches the result. Concurrent requests for the same cart wait for one calculation. The
+     * calculation runs on the calling thread after the entry is placed, so it holds no lock in
+     * the cache while it runs.
+     */
+    public PricingResult get(String tenantId, PricingCart cart, DiscountRuleIndex index,
+                             Function<PricingCart, PricingResult> pricing) {
+        if (cache == null) {
+            return pricing.apply(cart);
+        }
+        CompletableFuture<PricingResult> created = new CompletableFuture<>();
+        CompletableFuture<PricingResult> future = cache.get(CartKey.of(tenantId, cart, index.getVersion()), (key, executor) -> created);
+        if (future == created) {
+            try {
+                PricingResult result = pricing.apply(cart);
+                created.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                // a failed future is dropped from the cache, so the next request prices again
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Returns true if a result for this tenant's cart and index is cached, without counting a
+     * hit or a miss.
+     */
+    public boolean contains(String tenantId, PricingCart cart, DiscountRuleIndex index) {
+        if (cache == null) {
+            return false;
+        }
+        CompletableFuture<PricingResult> future = cache.asMap().get(CartKey.of(tenantId, cart, index.getVersion()));
+        return future != null && future.isDone() && !future.isCompletedExceptionally();
+    }
+
+    long size() {
+        if (cache == null) {
+            return 0L;
+        }
+        cache.synchronous().cleanUp();
+        return cache.synchronous().estimatedSize();
+    }
+
+    /**
+     * Canonical form of a cart. Lines are sorted by item id, since the result does not depend on
+     * their order, except that ITEM_COUNT discounts look at the first line of an item, so lines
+     * with the same id keep their relative order.
+     */
+    static final class CartKey {
+
+        private final String tenantId;
+        private final long version;
+        private final String[] itemIds;
+        private final long[] costs;
+        private final int[] quantities;
+        private final int[] typeOrdinals;
+        private final int hash;
+
+        private CartKey(String tenantId, long version, String[] itemIds, long[] costs, int[] quantities, int[] typeOrdinals) {
+            this.tenantId = tenantId;
+            this.version = version;
+            this.itemIds = itemIds;
+            this.costs = costs;
+            this.quantities = quantities;
+            this.typeOrdinals = typeOrdinals;
+            int h = tenantId.hashCode();
+            h = 31 * h + Long.hashCode(version);
+            h = 31 * h + Arrays.hashCode(itemIds);
+            h = 31 * h + Arrays.hashCode(costs);
+            h = 31 * h + Arrays.hashCode(quantities);
+            h = 31 * h + Arrays.hashCode(typeOrdinals);
+            hash = h;
+        }
+
+        static CartKey of(String tenantId, PricingCart cart, long version) {
+            int size = cart.size();
+            int[] order = new int[size];
+            boolean sorted = true;
+            for (int line = 0; line < size; line++) {
+                order[line] = line;
+                sorted &= line == 0 || cart.getItemId(line - 1).compareTo(cart.getItemId(line)) <= 0;
+            }
+            if (!sorted) {
+                sortByItemId(cart, order, new int[size], 0, size);
+            }
+            String[] itemIds = new String[size];
+            long[] costs = new long[size];
+            int[] quantities = new int[size];
+            int[] typeOrdinals = new int[size];
+            for (int i = 0; i < size; i++) {
+                int line = order[i];
+                itemIds[i] = cart.getItemId(line);
+                costs[i] = cart.getCost(line);
+                quantities[i] = cart.getQuantity(line);
+                typeOrdinals[i] = cart.getTypeOrdinal(line);
+            }
+            return new CartKey(tenantId, version, itemIds, costs, quantities, typeOrdinals);
+        }
+
+        /**
+         * Merge sorts lines {@code [from, to)} of {@code order} by item id. Merge sort is stable, so
+         * lines with the same id stay in cart order, and works on the primitive array directly.
+         */
+        private static void sortByItemId(PricingCart cart, int[] order, int[] buffer, int from, int to) {
+            if (to - from < 2) {
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            sortByItemId(cart, order, buffer, from, mid);
+            sortByItemId(cart, order, buffer, mid, to);
+            if (cart.getItemId(order[mid - 1]).compareTo(cart.getItemId(order[mid])) <= 0) {
+                return; // already in order
+            }
+            System.arraycopy(order, from, buffer, from, to - from);
+            int left = from;
+            int right = mid;
+            for (int i = from; i < to; i++) {
+                if (right >= to || left < mid && cart.getItemId(buffer[left]).compareTo(cart.getItemId(buffer[right])) <= 0) {
+                    order[i] = buffer[left++];
+                } else {
+                    order[i] = buffer[right++];
+                }
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CartKey other)) {
+                return false;
+            }
+            return version == other.version && hash == other.hash && tenantId.equals(other.tenantId)
+                    && Arrays.equals(itemIds, other.itemIds)
+                    && Arrays.equals(costs, other.costs)
+                    && Arrays.equals(quantities, other.quantities)
+                    && Arrays.equals(typeOrdinals, other.typeOrdinals);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.adp.interview.discountapi.service.impl;
+
+import com.adp.interview.discountapi.entity.RankedDiscount;
+import com.adp.interview.discountapi.entity.RankedDiscountResponse;
+import lombok.Value;
+
+/**
+ * Outcome of {@link DiscountEvaluator#evaluateTop}: the discounts that save the most on a cart,
+ * each applied on its own. Amounts are in cents.
+ */
+@Value
+public class RankedPricingResult {
+
+    DiscountRule[] discounts; // largest saving first, ties by priority and then catalog order
+
+    long[] totalDiscounts; // saving of each discount, rounded to cents
+
+    long totalCost;
+
+    int rulesEvaluated;
+
+    /**
+     * The first ranked discount as a single-discount result, as {@link DiscountEvaluator#evaluate} would return it.
+     */
+    public PricingResult getBest() {
+        return discounts.length > 0
+                ? new PricingResult(discounts[0], totalCost, totalDiscounts[0], rulesEvaluated)
+                : new PricingResult(null, totalCost, 0L, rulesEvaluated);
+    }
+
+    public RankedDiscountResponse toResponse() {
+        RankedDiscountResponse response = new RankedDiscountResponse();
+        response.setTotalCost(Money.toDecimal(totalCost));
+        for (int i = 0; i < discounts.length; i++) {
+            RankedDiscount rankedDiscount = new RankedDiscount();
+            rankedDiscount.setDiscountCode(discounts[i].getDiscountCode());
+            rankedDiscount.setTotalDiscount(Money.toDecimal(totalDiscounts[i]));
+            rankedDiscount.setTotalCostAfterDiscount(Money.toDecimal(totalCost - totalDiscounts[i]));
+            response.getDiscounts().add(rankedDiscount);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,117 @@
+package com.adp.interview.discountapi.service.impl;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountChangeType;
+import com.adp.interview.discountapi.entity.DiscountRequest;
+import com.adp.interview.discountapi.entity.DiscountResponse;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+import com.adp.interview.discountapi.repository.ReactiveDiscountRepository;
+import com.adp.interview.discountapi.service.ReactiveDiscountService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive counterpart of {@link DiscountServiceImpl}. Reads and writes go through R2DBC, and
+ * writes append to the discount change log in the same transaction, as the blocking service
+ * does. Pricing reuses {@link DiscountServiceImpl}, which only reads the in-memory rules. A single
+ * cart is priced on the calling thread unless that could wait on another thread, and chunks of
+ * streamed carts, which are priced in parallel, always run on the bounded elastic scheduler, so
+ * an event-loop thread never waits for pricing.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDiscountServiceImpl implements ReactiveDiscountService {
+
+    private final ReactiveDiscountRepository discountRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final DiscountRuleCache discountRuleCache;
+    private final DiscountServiceImpl discountService;
+    private final DiscountEvaluator discountEvaluator;
+
+    @Value("${discount.stream.chunk-size:256}")
+    private int streamChunkSize = 256;
+
+    public ReactiveDiscountServiceImpl(ReactiveDiscountRepository discountRepository,
+                                       TransactionalOperator transactionalOperator,
+                                       DiscountRuleCache discountRuleCache, DiscountServiceImpl discountService,
+                                       DiscountEvaluator discountEvaluator) {
+        this.discountRepository = discountRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.discountRuleCache = discountRuleCache;
+        this.discountService = discountService;
+        this.discountEvaluator = discountEvaluator;
+    }
+
+    @Override
+    public Flux<Discount> getDiscounts(String tenantId, String after, Integer limit, DiscountType discountType,
+                                       ItemType applicableItemType) {
+        return discountRepository.findAll(tenantId, after, limit, discountType, applicableItemType);
+    }
+
+    @Override
+    public Mono<Discount> getDiscountByCode(String tenantId, String discountCode) {
+        return discountRepository.findById(tenantId, discountCode);
+    }
+
+    @Override
+    public Mono<Discount> addDiscount(Discount discount) {
+        return Mono.fromRunnable(() -> discountService.validateDiscount(discount))
+                .then(discountRepository.upsert(discount)
+                        .then(discountRepository.insertChangeEvent(discount.getTenantId(), discount.getDiscountCode(),
+                                DiscountChangeType.UPSERT))
+                        .as(transactionalOperator::transactional))
+                // after commit, so the rules never reflect a change that was rolled back
+                .then(Mono.fromRunnable(() -> discountRuleCache.onSaved(discount)))
+                .thenReturn(discount);
+    }
+
+    @Override
+    public Mono<Void> deleteDiscount(String tenantId, String discountCode) {
+        // codes of other tenants are left alone
+        return discountRepository.deleteById(tenantId, discountCode)
+                .filter(deleted -> deleted > 0)
+                .flatMap(deleted -> discountRepository.insertChangeEvent(tenantId, discountCode, DiscountChangeType.DELETE)
+                        .thenReturn(deleted))
+                .as(transactionalOperator::transactional)
+                .flatMap(deleted -> Mono.<Void>fromRunnable(() -> discountRuleCache.onDeleted(tenantId, discountCode)));
+    }
+
+    @Override
+    public Mono<DiscountResponse> calculateBestDiscount(String tenantId, DiscountRequest request) {
+        return onRules(tenantId, Mono.fromSupplier(() -> discountService.calculateBestDiscount(tenantId, request)));
+    }
+
+    @Override
+    public Mono<DiscountResponse> explainBestDiscount(String tenantId, DiscountRequest request) {
+        return onRules(tenantId, Mono.fromSupplier(() -> discountService.explainBestDiscount(tenantId, request)));
+    }
+
+    /**
+     * Prices carts in chunks as they arrive, keeping request order. Demand from the response
+     * controls how fast requests are read. A chunk is priced in parallel and waits for the
+     * common pool, so it runs on the bounded elastic scheduler rather than the event loop.
+     */
+    @Override
+    public Flux<DiscountResponse> calculateBestDiscounts(String tenantId, Flux<DiscountRequest> requests) {
+        return requests.buffer(streamChunkSize)
+                .concatMap(chunk -> Mono.fromSupplier(() -> discountService.calculateBestDiscounts(tenantId, chunk))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .flatMapIterable(responses -> responses);
+    }
+
+    /**
+     * Runs pricing in place once the tenant's rules are in memory and too few for the evaluator
+     * to fork onto its pool. Otherwise pricing would wait, for the first call's load from the
+     * database or for the pool, so it is moved off the event loop.
+     */
+    private <T> Mono<T> onRules(String tenantId, Mono<T> pricing) {
+        return discountRuleCache.isLoaded(tenantId) && !discountEvaluator.mayFork(discountRuleCache.current(tenantId))
+                ? pricing : pricing.subscribeOn(Schedulers.boundedElastic());
+    }
+}
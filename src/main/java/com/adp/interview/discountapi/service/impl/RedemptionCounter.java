@@ -0,0 +1,149 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.adp.interview.discountapi.entity.DiscountId;
+import com.adp.interview.discountapi.repository.DiscountJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Counts discount redemptions in memory and adds them to the discount table every
+ * {@code discount.redemption.flush-interval-ms}, so checkouts redeeming the same code do not
+ * queue on its row lock. Each tenant's code is counted with a {@link LongAdder}, which spreads
+ * concurrent increments over several cells instead of contending on one.
+ *
+ * <p>A redemption is taken by incrementing first and then checking the total against the
+ * limit, giving the increment back if it went over; since every thread sees its own
+ * increment, concurrent redemptions can be refused near the limit but never exceed it on one
+ * node. Redemptions on other nodes are seen after each flush, when the stored counts are read
+ * back, so across nodes a limit can be exceeded by what they redeem within one interval.
+ * A code's count is dropped when the code is deleted.
+ */
+@Slf4j
+@Component
+public class RedemptionCounter {
+
+    private final DiscountRuleCache discountRuleCache;
+    private final DiscountJdbcRepository discountJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<DiscountId, Counter> counters = new ConcurrentHashMap<>();
+
+    // not a monitor: flushes write to the database and must not pin a virtual thread's carrier
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public RedemptionCounter(DiscountRuleCache discountRuleCache, DiscountJdbcRepository discountJdbcRepository,
+                             TransactionTemplate transactionTemplate) {
+        this.discountRuleCache = discountRuleCache;
+        this.discountJdbcRepository = discountJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        // the row is gone, so redemptions not yet flushed have nothing left to add to
+        discountRuleCache.addDeletionListener(counters::remove);
+    }
+
+    /**
+     * Records one redemption of the tenant's rule. Returns false, recording nothing, if the rule
+     * has no redemptions left.
+     */
+    public boolean redeem(String tenantId, DiscountRule rule) {
+        DiscountId discountId = new DiscountId(tenantId, rule.getDiscountCode());
+        Counter counter = counters.computeIfAbsent(discountId, id -> new Counter(rule.getRedemptionCount()));
+        counter.local.increment();
+        if (rule.getMaxRedemptions() > 0) {
+            long total = counter.stored + counter.local.sum();
+            if (total > rule.getMaxRedemptions()) {
+                counter.local.decrement();
+                return false;
+            }
+            if (total == rule.getMaxRedemptions()) {
+                discountRuleCache.onExhausted(discountId, rule.getMaxRedemptions());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the redemptions of a tenant's code known to this node: those stored at the last
+     * flush, including other nodes', plus those made here since.
+     */
+    public long getRedemptions(String tenantId, String discountCode) {
+        Counter counter = counters.get(new DiscountId(tenantId, discountCode));
+        return counter != null ? counter.stored + counter.local.sum() : 0L;
+    }
+
+    @Scheduled(fixedDelayString = "${discount.redemption.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to write discount redemptions", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (counters.values().stream().anyMatch(counter -> counter.local.sum() != counter.flushed)) {
+            flush();
+        }
+    }
+
+    /**
+     * Adds the redemptions made since the last flush to the stored counts, then reads back the
+     * stored counts of limited discounts and removes any that ran out from the rules.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<DiscountId, Long> pending = new HashMap<>();
+            Map<Counter, Long> totals = new HashMap<>(); // by counter, which a delete may drop meanwhile
+            counters.forEach((discountId, counter) -> {
+                long total = counter.local.sum();
+                if (total != counter.flushed) {
+                    pending.put(discountId, total - counter.flushed);
+                    totals.put(counter, total);
+                }
+            });
+            Map<DiscountId, Long> storedCounts = transactionTemplate.execute(status -> {
+                if (!pending.isEmpty()) {
+                    discountJdbcRepository.addRedemptions(pending);
+                }
+                return discountJdbcRepository.findCappedRedemptionCounts();
+            });
+            // only once the transaction has committed, so a failed flush is retried in full
+            totals.forEach((counter, total) -> counter.flushed = total);
+            storedCounts.forEach((discountId, stored) -> {
+                Counter counter = counters.get(discountId);
+                long redemptions = stored;
+                if (counter != null) {
+                    counter.stored = stored - counter.flushed;
+                    redemptions = counter.stored + counter.local.sum();
+                }
+                DiscountRule rule = discountRuleCache.getLoadedRule(discountId);
+                if (rule != null && rule.getMaxRedemptions() > 0 && redemptions >= rule.getMaxRedemptions()) {
+                    discountRuleCache.onExhausted(discountId, rule.getMaxRedemptions());
+                }
+            });
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private static final class Counter {
+
+        final LongAdder local = new LongAdder(); // redemptions made on this node
+        volatile long stored; // stored count not made by this node, as of the last flush
+        long flushed; // part of local already written, guarded by flushLock
+
+        Counter(long stored) {
+            this.stored = stored;
+        }
+    }
+}
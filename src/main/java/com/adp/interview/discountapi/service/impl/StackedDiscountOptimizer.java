@@ -0,0 +1,434 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Finds the best assignment of discounts to cart lines when discounts can be stacked. Each line
+ * gets at most one discount, stackable discounts can be combined across lines, at most one code
+ * from each exclusive group is used per cart, and a discount that is not stackable is only ever
+ * applied on its own. A discount applies to a line on the same terms as in
+ * {@link DiscountEvaluator}: ITEM_TYPE to lines of its type, ITEM_COUNT to the first line of its
+ * item when that line meets the threshold, and ITEM_COST to lines costing more than its minimum.
+ *
+ * <p>Lines do not interact except through exclusive groups, so giving every line its best
+ * stackable discount is optimal whenever that uses at most one code per group, and that is
+ * tried first. Otherwise a depth-first branch and bound fixes one code at a time for a
+ * conflicting group. The per-line best with the remaining groups unrestricted is an upper bound
+ * for a node, and a node whose per-line best has no conflict is solved. Children are visited in
+ * order of their bound, so the first solution found is usually the best or close to it. The
+ * search stops after {@code discount.stacking.time-budget-ms} or
+ * {@code discount.stacking.max-nodes} nodes and returns the best assignment found so far,
+ * marked as not proven optimal. A dive in progress when the budget runs out is finished along
+ * its best children, which takes at most one step per exclusive group, so there is always one.
+ */
+@Component
+public class StackedDiscountOptimizer {
+
+    private static final int ITEM_TYPE_COUNT = ItemType.values().length;
+
+    private static final Comparator<Candidate> BEST_FIRST = Comparator
+            .comparingLong((Candidate candidate) -> candidate.amount).reversed()
+            .thenComparing(candidate -> candidate.rule, StackedDiscountOptimizer::compareRules);
+
+    @Value("${discount.stacking.time-budget-ms:50}")
+    private long timeBudgetMillis = 50;
+
+    @Value("${discount.stacking.max-nodes:100000}")
+    private int maxNodes = 100000;
+
+    public StackedPricingResult optimize(PricingCart cart, DiscountRuleIndex index) {
+        long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+        // a discount that does not stack is used alone and wins ties, as on the single-discount path
+        CartAggregate aggregate = CartAggregate.of(cart);
+        DiscountRule bestSingle = null;
+        long bestSingleAmount = 0L;
+        for (DiscountRule rule : singleCandidates(aggregate, index)) {
+            long amount = Money.scaledPercentOf(singleSpend(aggregate, rule), rule.getBasisPoints());
+            if (DiscountEvaluator.isBetter(amount, rule, bestSingleAmount, bestSingle)) {
+                bestSingle = rule;
+                bestSingleAmount = amount;
+            }
+        }
+
+        Search search = new Search(cart, index, deadline);
+        search.run(deadline, maxNodes);
+        boolean optimal = !search.truncated;
+        if (bestSingle != null && bestSingleAmount >= search.bestAmount) {
+            DiscountRule[] assignment = new DiscountRule[cart.size()];
+            long[] amounts = singleLineAmounts(cart, bestSingle);
+            for (int line = 0; line < cart.size(); line++) {
+                assignment[line] = amounts[line] > 0 ? bestSingle : null;
+            }
+            return StackedPricingResult.of(cart, assignment, amounts, optimal, search.nodes);
+        }
+        return StackedPricingResult.of(cart, search.bestAssignment, search.bestAmounts, optimal, search.nodes);
+    }
+
+    /**
+     * Orders rules that save the same amount, see {@link DiscountRule#precedes}.
+     */
+    static int compareRules(DiscountRule rule, DiscountRule other) {
+        if (rule == other) {
+            return 0;
+        }
+        return rule.precedes(other) ? -1 : 1;
+    }
+
+    /**
+     * Non-stackable rules the index offers for the cart, the ones {@link DiscountEvaluator} would
+     * score, with ITEM_COUNT rules below their threshold left out.
+     */
+    private static List<DiscountRule> singleCandidates(CartAggregate cart, DiscountRuleIndex index) {
+        List<DiscountRule> singles = new ArrayList<>();
+        for (int type = 0; type < ITEM_TYPE_COUNT; type++) {
+            if (cart.containsType(type)) {
+                addSingles(singles, index.getItemTypeRules(type), index.getItemTypeRules(type).length, -1);
+            }
+        }
+        for (int item = 0; item < cart.getDistinctItemCount(); item++) {
+            DiscountRule[] rules = index.getItemCountRules(cart.getDistinctItemId(item));
+            addSingles(singles, rules, rules.length, cart.getDistinctItemQuantity(item));
+        }
+        addSingles(singles, index.getItemCostRules(), index.countItemCostRulesBelow(cart.getMaxItemCost()), -1);
+        return singles;
+    }
+
+    private static void addSingles(List<DiscountRule> singles, DiscountRule[] rules, int length, int quantity) {
+        for (int r = 0; r < length; r++) {
+            if (!rules[r].isStackable() && meetsThreshold(rules[r], quantity)) {
+                singles.add(rules[r]);
+            }
+        }
+    }
+
+    private static long singleSpend(CartAggregate cart, DiscountRule rule) {
+        switch (rule.getDiscountType()) {
+            case ITEM_TYPE:
+                return cart.getSpend(rule.getApplicableItemType());
+            case ITEM_COUNT:
+                return cart.getSpend(rule.getApplicableItemId());
+            default:
+                return cart.getSpendAbove(rule.getMinimumCostMinorUnits());
+        }
+    }
+
+    /**
+     * Amount of a non-stackable rule on each line it applies to. They add up to the amount
+     * scored on the whole cart, since each is a single multiplication.
+     */
+    private static long[] singleLineAmounts(PricingCart cart, DiscountRule rule) {
+        long[] amounts = new long[cart.size()];
+        for (int line = 0; line < cart.size(); line++) {
+            boolean applies;
+            switch (rule.getDiscountType()) {
+                case ITEM_TYPE:
+                    applies = cart.getTypeOrdinal(line) == rule.getApplicableItemType().ordinal();
+                    break;
+                case ITEM_COUNT:
+                    applies = cart.getItemId(line).equals(rule.getApplicableItemId());
+                    break;
+                default:
+                    applies = cart.getCost(line) > rule.getMinimumCostMinorUnits();
+                    break;
+            }
+            if (applies) {
+                amounts[line] = Money.scaledPercentOf(cart.getCost(line) * cart.getQuantity(line), rule.getBasisPoints());
+                if (rule.getDiscountType() == DiscountType.ITEM_COUNT) {
+                    break; // only the first line with the item
+                }
+            }
+        }
+        return amounts;
+    }
+
+    /**
+     * Returns true if {@code quantity} is -1, for rules without a threshold, or meets the rule's threshold.
+     */
+    private static boolean meetsThreshold(DiscountRule rule, int quantity) {
+        return quantity < 0 || quantity >= rule.getItemQuantityThreshold();
+    }
+
+    /**
+     * Returns true if {@code rule} saves more than {@code other} on any line both apply to, or
+     * the same and precedes it. All candidates for a line are a percentage of the same spend,
+     * so this does not depend on the line.
+     */
+    private static boolean ranksAbove(DiscountRule rule, DiscountRule other) {
+        return rule.getBasisPoints() > other.getBasisPoints()
+                || rule.getBasisPoints() == other.getBasisPoints() && rule.precedes(other);
+    }
+
+    private static final class Candidate {
+        final DiscountRule rule;
+        final long amount; // exact amount, see Money#scaledPercentOf
+        final int group; // exclusive group number, or -1
+
+        Candidate(DiscountRule rule, long amount, int group) {
+            this.rule = rule;
+            this.amount = amount;
+            this.group = group;
+        }
+    }
+
+    /**
+     * State of one optimisation. Amounts are exact, in the units of {@link Money#scaledPercentOf}.
+     */
+    private static final class Search {
+
+        private final int lines;
+        private final Candidate[][] candidates; // stackable candidates per line, best first
+        private final Map<String, Integer> groupNumbers = new HashMap<>();
+
+        private final DiscountRule[] fixed; // code chosen for each group, null while undecided
+        private final DiscountRule[] chosen;
+        private final int[] chosenGroups;
+        private final long[] chosenAmounts;
+
+        private DiscountRule[] bestAssignment;
+        private long[] bestAmounts;
+        private long bestAmount;
+        private int nodes;
+        private long deadline;
+        private int maxNodes;
+        private boolean truncated;
+
+        /**
+         * Collects the candidates of each line. A line always takes its best candidate the group
+         * decisions allow, and one outside any group is always allowed, so only the best
+         * ungrouped candidate and the grouped ones ranked above it are kept. Lines left when the
+         * deadline passes get no candidates, and the result is marked as not proven optimal.
+         */
+        Search(PricingCart cart, DiscountRuleIndex index, long deadline) {
+            lines = cart.size();
+            candidates = new Candidate[lines][];
+            DiscountRule[][] typeLeaders = new DiscountRule[ITEM_TYPE_COUNT][];
+            Set<String> seenItems = new HashSet<>();
+
+            // ITEM_COST rules sorted by minimum, so those a line can use are a prefix: keep the
+            // best ungrouped rule of every prefix and the grouped rules in order
+            long maxCost = Long.MIN_VALUE;
+            for (int line = 0; line < lines; line++) {
+                maxCost = Math.max(maxCost, cart.getCost(line));
+            }
+            DiscountRule[] costRules = index.getItemCostRules();
+            int costRuleCount = index.countItemCostRulesBelow(maxCost);
+            DiscountRule[] bestUngroupedCost = new DiscountRule[costRuleCount + 1];
+            List<DiscountRule> groupedCost = new ArrayList<>();
+            for (int r = 0; r < costRuleCount; r++) {
+                DiscountRule rule = costRules[r];
+                bestUngroupedCost[r + 1] = bestUngroupedCost[r];
+                if (!rule.isStackable()) {
+                    continue;
+                }
+                if (rule.getExclusiveGroup() != null) {
+                    groupedCost.add(rule);
+                } else if (bestUngroupedCost[r] == null || ranksAbove(rule, bestUngroupedCost[r])) {
+                    bestUngroupedCost[r + 1] = rule;
+                }
+            }
+
+            List<DiscountRule> lineRules = new ArrayList<>();
+            List<Candidate> lineCandidates = new ArrayList<>();
+            for (int line = 0; line < lines; line++) {
+                if (truncated) {
+                    candidates[line] = new Candidate[0];
+                    continue;
+                }
+                lineRules.clear();
+                int type = cart.getTypeOrdinal(line);
+                if (typeLeaders[type] == null) {
+                    DiscountRule[] typeRules = index.getItemTypeRules(type);
+                    typeLeaders[type] = leaders(typeRules, typeRules.length, -1).toArray(new DiscountRule[0]);
+                }
+                lineRules.addAll(Arrays.asList(typeLeaders[type]));
+                if (seenItems.add(cart.getItemId(line))) {
+                    DiscountRule[] countRules = index.getItemCountRules(cart.getItemId(line));
+                    lineRules.addAll(leaders(countRules, countRules.length, cart.getQuantity(line)));
+                }
+                int applicable = index.countItemCostRulesBelow(cart.getCost(line));
+                DiscountRule bestCost = bestUngroupedCost[applicable];
+                if (bestCost != null) {
+                    lineRules.add(bestCost);
+                }
+                for (DiscountRule rule : groupedCost) {
+                    if (rule.getMinimumCostMinorUnits() >= cart.getCost(line)) {
+                        break;
+                    }
+                    if (bestCost == null || ranksAbove(rule, bestCost)) {
+                        lineRules.add(rule);
+                    }
+                }
+
+                long spend = Math.multiplyExact(cart.getCost(line), cart.getQuantity(line));
+                lineCandidates.clear();
+                for (DiscountRule rule : lineRules) {
+                    long amount = Money.scaledPercentOf(spend, rule.getBasisPoints());
+                    if (amount > 0) {
+                        int group = rule.getExclusiveGroup() == null ? -1
+                                : groupNumbers.computeIfAbsent(rule.getExclusiveGroup(), name -> groupNumbers.size());
+                        lineCandidates.add(new Candidate(rule, amount, group));
+                    }
+                }
+                lineCandidates.sort(BEST_FIRST);
+                int keep = 0;
+                while (keep < lineCandidates.size()) {
+                    if (lineCandidates.get(keep++).group < 0) {
+                        break; // the best ungrouped candidate, always allowed, so none after it is ever chosen
+                    }
+                }
+                candidates[line] = lineCandidates.subList(0, keep).toArray(new Candidate[0]);
+                if (System.nanoTime() - deadline > 0) {
+                    truncated = true;
+                }
+            }
+            fixed = new DiscountRule[groupNumbers.size()];
+            chosen = new DiscountRule[lines];
+            chosenGroups = new int[lines];
+            chosenAmounts = new long[lines];
+            bestAssignment = new DiscountRule[lines];
+            bestAmounts = new long[lines];
+        }
+
+        /**
+         * The stackable rules among {@code rules[0, length)} a line could take: the best one outside
+         * any exclusive group and the grouped ones ranked above it. With {@code quantity} of at
+         * least zero, rules whose threshold it does not meet are left out.
+         */
+        private static List<DiscountRule> leaders(DiscountRule[] rules, int length, int quantity) {
+            DiscountRule best = null;
+            for (int r = 0; r < length; r++) {
+                DiscountRule rule = rules[r];
+                if (rule.isStackable() && rule.getExclusiveGroup() == null && meetsThreshold(rule, quantity)
+                        && (best == null || ranksAbove(rule, best))) {
+                    best = rule;
+                }
+            }
+            List<DiscountRule> leaders = new ArrayList<>();
+            for (int r = 0; r < length; r++) {
+                DiscountRule rule = rules[r];
+                if (rule.isStackable() && rule.getExclusiveGroup() != null && meetsThreshold(rule, quantity)
+                        && (best == null || ranksAbove(rule, best))) {
+                    leaders.add(rule);
+                }
+            }
+            if (best != null) {
+                leaders.add(best);
+            }
+            return leaders;
+        }
+
+        void run(long deadline, int maxNodes) {
+            this.deadline = deadline;
+            this.maxNodes = maxNodes;
+            search(assign());
+        }
+
+        /**
+         * Explores the subtree under the current group decisions, whose per-line best is
+         * currently in {@code chosen} and totals {@code bound}.
+         */
+        private void search(long bound) {
+            nodes++;
+            int conflict = firstConflict();
+            if (conflict < 0) {
+                if (bound > bestAmount) {
+                    bestAmount = bound;
+                    bestAssignment = chosen.clone();
+                    bestAmounts = chosenAmounts.clone();
+                }
+                return;
+            }
+            if (!truncated && (nodes >= maxNodes || System.nanoTime() - deadline > 0)) {
+                truncated = true;
+            }
+            // using no code of the group is never better than using any of them, so it is not a branch
+            DiscountRule[] codes = codesOf(conflict);
+            long[] bounds = new long[codes.length];
+            Integer[] order = new Integer[codes.length];
+            for (int i = 0; i < codes.length; i++) {
+                fixed[conflict] = codes[i];
+                bounds[i] = assign();
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(bounds[b], bounds[a]));
+            for (int i : order) {
+                if (bounds[i] <= bestAmount) {
+                    break;
+                }
+                fixed[conflict] = codes[i];
+                search(assign());
+                if (truncated) {
+                    // out of budget: only the current dive is finished, so there is always a solution
+                    break;
+                }
+            }
+            fixed[conflict] = null;
+        }
+
+        /**
+         * Gives every line its best candidate allowed by the group decisions and returns the total.
+         */
+        private long assign() {
+            long total = 0L;
+            for (int line = 0; line < lines; line++) {
+                chosen[line] = null;
+                chosenGroups[line] = -1;
+                chosenAmounts[line] = 0L;
+                for (Candidate candidate : candidates[line]) {
+                    if (candidate.group < 0 || fixed[candidate.group] == null || fixed[candidate.group] == candidate.rule) {
+                        chosen[line] = candidate.rule;
+                        chosenGroups[line] = candidate.group;
+                        chosenAmounts[line] = candidate.amount;
+                        total += candidate.amount;
+                        break;
+                    }
+                }
+            }
+            return total;
+        }
+
+        /**
+         * Returns a group that more than one code is chosen from, or -1 if there is none.
+         */
+        private int firstConflict() {
+            DiscountRule[] used = new DiscountRule[fixed.length];
+            for (int line = 0; line < lines; line++) {
+                int group = chosenGroups[line];
+                if (group < 0) {
+                    continue;
+                }
+                if (used[group] == null) {
+                    used[group] = chosen[line];
+                } else if (used[group] != chosen[line]) {
+                    return group;
+                }
+            }
+            return -1;
+        }
+
+        private DiscountRule[] codesOf(int group) {
+            Set<DiscountRule> codes = new LinkedHashSet<>();
+            for (Candidate[] lineCandidates : candidates) {
+                for (Candidate candidate : lineCandidates) {
+                    if (candidate.group == group) {
+                        codes.add(candidate.rule);
+                    }
+                }
+            }
+            return codes.toArray(new DiscountRule[0]);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.adp.interview.discountapi.service.impl;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.adp.interview.discountapi.entity.LineDiscount;
+import com.adp.interview.discountapi.entity.StackedDiscountResponse;
+import lombok.Value;
+
+/**
+ * Outcome of {@link StackedDiscountOptimizer}: the discount applied to each cart line, if any.
+ * The total discount is the exact sum of the line amounts rounded once, as for a single discount.
+ */
+@Value
+public class StackedPricingResult {
+
+    String[] itemIds;
+
+    DiscountRule[] lineDiscounts; // null entries for lines without a discount
+
+    long[] lineAmounts; // exact amounts, see Money#scaledPercentOf
+
+    long totalCost;
+
+    long totalDiscount;
+
+    boolean optimal;
+
+    int nodesExplored; // branch and bound nodes, 1 when the per-line best had no conflict
+
+    static StackedPricingResult of(PricingCart cart, DiscountRule[] lineDiscounts, long[] lineAmounts,
+                                   boolean optimal, int nodesExplored) {
+        String[] itemIds = new String[cart.size()];
+        long totalCost = 0L;
+        long totalDiscount = 0L;
+        for (int line = 0; line < cart.size(); line++) {
+            itemIds[line] = cart.getItemId(line);
+            totalCost = Math.addExact(totalCost, Math.multiplyExact(cart.getCost(line), cart.getQuantity(line)));
+            totalDiscount = Math.addExact(totalDiscount, lineAmounts[line]);
+        }
+        return new StackedPricingResult(itemIds, lineDiscounts, lineAmounts, totalCost,
+                Money.roundScaled(totalDiscount), optimal, nodesExplored);
+    }
+
+    public StackedDiscountResponse toResponse() {
+        StackedDiscountResponse response = new StackedDiscountResponse();
+        Set<String> codes = new LinkedHashSet<>();
+        for (int line = 0; line < itemIds.length; line++) {
+            LineDiscount lineDiscount = new LineDiscount();
+            lineDiscount.setItemId(itemIds[line]);
+            if (lineDiscounts[line] != null) {
+                lineDiscount.setDiscountCode(lineDiscounts[line].getDiscountCode());
+                lineDiscount.setDiscount(Money.toDecimal(Money.roundScaled(lineAmounts[line])));
+                codes.add(lineDiscounts[line].getDiscountCode());
+            }
+            response.getLines().add(lineDiscount);
+        }
+        response.getDiscountCodes().addAll(codes);
+        response.setTotalCost(Money.toDecimal(totalCost));
+        response.setTotalDiscount(Money.toDecimal(totalDiscount));
+        response.setTotalCostAfterDiscount(Money.toDecimal(totalCost - totalDiscount));
+        response.setOptimal(optimal);
+        return response;
+    }
+}
@@ -0,0 +1,110 @@
+package com.adp.interview.discountapi;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.service.impl.DiscountRuleCache;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Runs bulk import and export against the real database, covering the batched SQL and the
+ * content negotiation between JSON and CSV.
+ */
+@SpringBootTest(properties = "discount.bulk.export-page-size=2")
+@AutoConfigureMockMvc
+@DirtiesContext
+public class DiscountBulkImportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DiscountRuleCache discountRuleCache;
+
+    @Test
+    public void testImportAndExport() throws Exception {
+        String csv = "discountCode,description,discountPercentage,discountType,applicableItemType,applicableItemId,itemQuantityThreshold,minimumCost\n"
+                + "BULK1,Books,10,ITEM_TYPE,BOOK,,,\n"
+                + "BULK2,Item 7,20,ITEM_COUNT,,7,3,\n"
+                + "BULK3,\"Over 100, all\",5,ITEM_COST,,,,100\n";
+        mockMvc.perform(post("/discounts/bulk").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(3));
+        assertNotNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("BULK3"));
+
+        // re-importing replaces existing rows
+        String json = "[{\"discountCode\":\"BULK1\",\"description\":\"Books\",\"discountPercentage\":15,\"discountType\":\"ITEM_TYPE\",\"applicableItemType\":\"BOOK\"}]";
+        mockMvc.perform(post("/discounts/bulk").contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1));
+
+        mockMvc.perform(get("/discounts/export").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].discountPercentage").value(15.0))
+                .andExpect(jsonPath("$[2].description").value("Over 100, all"));
+        mockMvc.perform(get("/discounts/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/discounts/export").accept("text/csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        "discountCode,description,discountPercentage,discountType,applicableItemType,applicableItemId,"
+                        + "itemQuantityThreshold,minimumCost,stackable,exclusiveGroup,priority,validFrom,validUntil,maxRedemptions\n"
+                        + "BULK1,Books,15.0,ITEM_TYPE,BOOK,,0,0.0,false,,0,,,\n"
+                        + "BULK2,Item 7,20.0,ITEM_COUNT,,7,3,0.0,false,,0,,,\n"
+                        + "BULK3,\"Over 100, all\",5.0,ITEM_COST,,,0,100.0,false,,0,,,\n"));
+    }
+
+    @Test
+    public void testImportIsAllOrNothing() throws Exception {
+        String csv = "discountCode,description,discountType,applicableItemType\n"
+                + "BULK4,Books,ITEM_TYPE,BOOK\n"
+                + "BULK5,Missing type,ITEM_TYPE,\n";
+        mockMvc.perform(post("/discounts/bulk").contentType("text/csv").content(csv))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.imported").value(0))
+                .andExpect(jsonPath("$.errors[0]").value("Row 2: Applicable item type must be supplied with ITEM_TYPE discount."));
+        assertNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("BULK4"));
+        mockMvc.perform(get("/discounts/BULK4")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testTenantsHaveSeparateCatalogs() throws Exception {
+        String csv = "discountCode,description,discountType,applicableItemType\n"
+                + "ACME1,Books,ITEM_TYPE,BOOK\n";
+        mockMvc.perform(post("/discounts/bulk").header("X-Tenant-Id", "acme").contentType("text/csv").content(csv))
+                .andExpect(status().isOk());
+        assertNotNull(discountRuleCache.current("acme").getRule("ACME1"));
+
+        mockMvc.perform(get("/discounts/ACME1")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/discounts/ACME1").header("X-Tenant-Id", "acme"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tenantId").value("acme"));
+        mockMvc.perform(get("/discounts/export").header("X-Tenant-Id", "acme").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(1));
+        // another tenant can import the same code without learning that acme uses it
+        mockMvc.perform(post("/discounts/bulk").header("X-Tenant-Id", "globex").contentType("text/csv").content(csv))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/discounts/ACME1").header("X-Tenant-Id", "globex"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tenantId").value("globex"));
+        assertNotNull(discountRuleCache.current("acme").getRule("ACME1"));
+        mockMvc.perform(get("/discounts/ACME1").header("X-Tenant-Id", "not a tenant"))
+                .andExpect(status().isBadRequest());
+    }
+}
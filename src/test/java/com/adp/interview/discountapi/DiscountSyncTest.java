@@ -0,0 +1,87 @@
+package com.adp.interview.discountapi;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Path;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.DiscountVersionResponse;
+import com.adp.interview.discountapi.entity.ItemType;
+import com.adp.interview.discountapi.service.impl.DiscountChangeLogTailer;
+import com.adp.interview.discountapi.service.impl.DiscountRuleCache;
+import com.adp.interview.discountapi.service.impl.DiscountServiceImpl;
+
+/**
+ * Runs two application contexts against one file-based H2 database and checks that changes
+ * made on one node reach the other through the discount change log.
+ */
+public class DiscountSyncTest {
+
+    private static final Path DATABASE_DIR = Path.of("target", "discount-sync-test");
+
+    private ConfigurableApplicationContext node1;
+
+    private ConfigurableApplicationContext node2;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        FileSystemUtils.deleteRecursively(DATABASE_DIR);
+        node1 = startNode();
+        node2 = startNode();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        node1.close();
+        node2.close();
+    }
+
+    @Test
+    public void testChangesPropagateBetweenNodes() {
+        Discount discount = new Discount();
+        discount.setDiscountCode("SYNC1");
+        discount.setDescription("synced discount");
+        discount.setDiscountPercentage(10);
+        discount.setDiscountType(DiscountType.ITEM_TYPE);
+        discount.setApplicableItemType(ItemType.BOOK);
+
+        node1.getBean(DiscountServiceImpl.class).addDiscount(discount);
+
+        assertNotNull(node1.getBean(DiscountRuleCache.class).current(Discount.DEFAULT_TENANT).getRule("SYNC1"));
+        assertNull(node2.getBean(DiscountRuleCache.class).current(Discount.DEFAULT_TENANT).getRule("SYNC1"));
+
+        assertEquals(1, node2.getBean(DiscountChangeLogTailer.class).poll());
+        assertNotNull(node2.getBean(DiscountRuleCache.class).current(Discount.DEFAULT_TENANT).getRule("SYNC1"));
+
+        node2.getBean(DiscountServiceImpl.class).deleteDiscount(Discount.DEFAULT_TENANT, "SYNC1");
+        node1.getBean(DiscountChangeLogTailer.class).poll();
+        node2.getBean(DiscountChangeLogTailer.class).poll();
+
+        assertNull(node1.getBean(DiscountRuleCache.class).current(Discount.DEFAULT_TENANT).getRule("SYNC1"));
+        DiscountVersionResponse version1 = node1.getBean(DiscountServiceImpl.class).getVersion(Discount.DEFAULT_TENANT);
+        DiscountVersionResponse version2 = node2.getBean(DiscountServiceImpl.class).getVersion(Discount.DEFAULT_TENANT);
+        assertEquals(2, version1.getLatestVersion());
+        assertEquals(version1.getLatestVersion(), version1.getAppliedVersion());
+        assertEquals(version1, version2);
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(DiscountServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:file:./" + DATABASE_DIR.resolve("db").toString().replace('\\', '/'),
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        // polled by hand to keep the test deterministic
+                        "discount.sync.poll-interval-ms=3600000")
+                .run();
+    }
+}
@@ -0,0 +1,118 @@
+package com.adp.interview.discountapi;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import com.adp.interview.discountapi.controller.DiscountController;
+import com.adp.interview.discountapi.controller.ReactiveDiscountController;
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountResponse;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+import com.adp.interview.discountapi.service.impl.DiscountRuleCache;
+
+/**
+ * Runs the reactive variant of the API on Netty with R2DBC.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+@DirtiesContext
+public class ReactiveDiscountApiTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DiscountRuleCache discountRuleCache;
+
+    @Autowired
+    private ReactiveDiscountController discountController;
+
+    @Test
+    public void testCrudAndCalculate() {
+        assertNotNull(discountController);
+        webTestClient.post().uri("/discounts").bodyValue(discount("RX1", 10, ItemType.CLOTHING))
+                .exchange()
+                .expectStatus().isCreated();
+        webTestClient.post().uri("/discounts").bodyValue(discount("RX2", 20, ItemType.CLOTHING))
+                .exchange()
+                .expectStatus().isCreated();
+        assertNotNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("RX2"));
+
+        webTestClient.get().uri("/discounts/RX1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Discount.class).isEqualTo(discount("RX1", 10, ItemType.CLOTHING));
+        webTestClient.post().uri("/discounts").header(DiscountController.TENANT_HEADER, "acme")
+                .bodyValue(discount("RX1", 50, ItemType.BOOK))
+                .exchange()
+                .expectStatus().isCreated();
+        webTestClient.get().uri("/discounts/RX1").header(DiscountController.TENANT_HEADER, "acme")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.tenantId").isEqualTo("acme")
+                .jsonPath("$.discountPercentage").isEqualTo(50.0);
+        webTestClient.get().uri("/discounts/RX1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Discount.class).isEqualTo(discount("RX1", 10, ItemType.CLOTHING));
+        List<Discount> discounts = webTestClient.get().uri("/discounts?after=RX1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Discount.class).getResponseBody().collectList().block();
+        assertEquals(List.of(discount("RX2", 20, ItemType.CLOTHING)), discounts);
+
+        String cart = "{\"items\":[{\"id\":\"1\",\"cost\":50.0,\"type\":\"CLOTHING\",\"quantity\":2}]}";
+        webTestClient.post().uri("/discounts/calculate").contentType(MediaType.APPLICATION_JSON).bodyValue(cart)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.discountCode").isEqualTo("RX2")
+                .jsonPath("$.totalDiscount").isEqualTo(20.0);
+        List<DiscountResponse> responses = webTestClient.post().uri("/discounts/calculate/stream")
+                .contentType(MediaType.APPLICATION_NDJSON).bodyValue(cart + "\n" + cart + "\n")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(DiscountResponse.class).getResponseBody().collectList().block();
+        assertEquals(2, responses.size());
+        assertEquals("RX2", responses.get(1).getDiscountCode());
+
+        webTestClient.delete().uri("/discounts/RX2").exchange().expectStatus().isNoContent();
+        webTestClient.get().uri("/discounts/RX2").exchange().expectStatus().isNotFound();
+        assertNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("RX2"));
+        webTestClient.get().uri("/discounts/sync/version")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.latestVersion").isEqualTo(4);
+    }
+
+    @Test
+    public void testInvalidDiscountIsRejected() {
+        Discount discount = discount("RX3", 10, null);
+        webTestClient.post().uri("/discounts").bodyValue(discount)
+                .exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.get().uri("/discounts/RX3").exchange().expectStatus().isNotFound();
+    }
+
+    private static Discount discount(String discountCode, double discountPercentage, ItemType applicableItemType) {
+        Discount discount = new Discount();
+        discount.setDiscountCode(discountCode);
+        discount.setDescription("reactive " + discountCode);
+        discount.setDiscountPercentage(discountPercentage);
+        discount.setDiscountType(DiscountType.ITEM_TYPE);
+        discount.setApplicableItemType(applicableItemType);
+        return discount;
+    }
+}
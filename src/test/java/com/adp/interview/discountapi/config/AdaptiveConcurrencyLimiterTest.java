@@ -0,0 +1,72 @@
+package com.adp.interview.discountapi.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long TARGET = 100;
+
+    private final AtomicLong time = new AtomicLong();
+
+    @Test
+    public void testRefusesOverLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, TARGET, 0.5, time::get);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.release(limiter.now());
+        assertEquals(1, limiter.getInFlight());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testBacksOffOncePerSlowBurst() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 10, TARGET, 0.5, time::get);
+        long start = limiter.now();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+
+        time.addAndGet(TARGET + 1);
+        for (int i = 0; i < 4; i++) {
+            limiter.release(start);
+        }
+        assertEquals(4, limiter.getLimit());
+
+        // a request started after the decrease can decrease the limit again
+        time.incrementAndGet();
+        long later = limiter.now();
+        assertTrue(limiter.tryAcquire());
+        time.addAndGet(TARGET + 1);
+        limiter.release(later);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void testGrowsWhileBusyAndFast() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 5, TARGET, 0.5, time::get);
+
+        for (int i = 0; i < 100; i++) {
+            while (limiter.getInFlight() < limiter.getLimit()) {
+                assertTrue(limiter.tryAcquire());
+            }
+            limiter.release(limiter.now());
+        }
+        assertEquals(5, limiter.getLimit());
+
+        // an idle limiter does not grow
+        AdaptiveConcurrencyLimiter idle = new AdaptiveConcurrencyLimiter(4, 1, 5, TARGET, 0.5, time::get);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(idle.tryAcquire());
+            idle.release(idle.now());
+        }
+        assertEquals(4, idle.getLimit());
+    }
+}
@@ -0,0 +1,131 @@
+package com.adp.interview.discountapi.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AdmissionControlFilterTest {
+
+    private final AtomicLong time = new AtomicLong();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void testRefusesClientOverRate() throws Exception {
+        AdmissionControlFilter filter = filter(new TokenBucketLimiter(0.5, 1, 100, time::get), 10);
+
+        assertEquals(200, call(filter, "/discounts/calculate", "shop-1").getStatus());
+        MockHttpServletResponse refused = call(filter, "/discounts/calculate/stacked", "shop-1");
+        assertEquals(200, call(filter, "/discounts/calculate", "shop-2").getStatus());
+
+        assertEquals(429, refused.getStatus());
+        assertEquals("2", refused.getHeader("Retry-After"));
+        assertEquals(1.0, meterRegistry.get(AdmissionControlFilter.REJECTED_COUNTER).tag("reason", "rate").counter().count());
+    }
+
+    @Test
+    public void testShedsOverConcurrencyLimit() throws Exception {
+        AdmissionControlFilter filter = filter(new TokenBucketLimiter(1000, 1000, 100, time::get), 1);
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[1];
+
+        MockHttpServletResponse outer = new MockHttpServletResponse();
+        filter.doFilter(request("/discounts/calculate", "shop-1"), outer,
+                new MockFilterChain(new HttpServlet() {
+                    @Override
+                    protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                        try {
+                            nested[0] = call(filter, "/discounts/calculate", "shop-2");
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }));
+
+        assertEquals(200, outer.getStatus());
+        assertEquals(503, nested[0].getStatus());
+        assertEquals("1", nested[0].getHeader("Retry-After"));
+        assertEquals(200, call(filter, "/discounts/calculate", "shop-2").getStatus());
+    }
+
+    @Test
+    public void testSlowCalculationsHaveTheirOwnLimit() throws Exception {
+        AdmissionControlFilter filter = filter(new TokenBucketLimiter(1000, 1000, 100, time::get), 1);
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[3];
+
+        filter.doFilter(request("/discounts/calculate/stacked", "shop-1"), new MockHttpServletResponse(),
+                new MockFilterChain(new HttpServlet() {
+                    @Override
+                    protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                        try {
+                            nested[0] = call(filter, "/discounts/calculate", "shop-2");
+                            nested[1] = call(filter, "/discounts/calculate/top", "shop-2");
+                            MockHttpServletRequest explain = request("/discounts/calculate", "shop-2");
+                            explain.setParameter("explain", "true");
+                            nested[2] = new MockHttpServletResponse();
+                            filter.doFilter(explain, nested[2], new MockFilterChain());
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }));
+
+        assertEquals(200, nested[0].getStatus());
+        assertEquals(503, nested[1].getStatus());
+        assertEquals(503, nested[2].getStatus());
+    }
+
+    @Test
+    public void testOnlyCalculatePathsAreLimited() throws Exception {
+        AdmissionControlFilter filter = filter(new TokenBucketLimiter(0.5, 1, 100, time::get), 10);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, call(filter, "/discounts", "shop-1").getStatus());
+            assertEquals(200, call(filter, "/discounts/calculated", "shop-1").getStatus());
+            assertEquals(200, call(filter, "/discounts/calculate/batch", "shop-1").getStatus());
+            assertEquals(200, call(filter, "/discounts/calculate/stream", "shop-1").getStatus());
+        }
+    }
+
+    @Test
+    public void testNamesClientsByAddressUnlessHeaderIsTrusted() throws Exception {
+        AdmissionControlFilter untrusted = new AdmissionControlFilter(meterRegistry, true, null,
+                new TokenBucketLimiter(0.5, 1, 100, time::get), limiter(10), limiter(10));
+
+        assertEquals(200, call(untrusted, "/discounts/calculate", "shop-1").getStatus());
+        assertEquals(429, call(untrusted, "/discounts/calculate", "shop-2").getStatus());
+
+        AdmissionControlFilter trusted = filter(new TokenBucketLimiter(0.5, 1, 100, time::get), 10);
+
+        assertEquals(200, call(trusted, "/discounts/calculate", "shop-1").getStatus());
+        assertEquals(200, call(trusted, "/discounts/calculate", "shop-2").getStatus());
+    }
+
+    private AdmissionControlFilter filter(TokenBucketLimiter rateLimiter, int limit) {
+        return new AdmissionControlFilter(meterRegistry, true, "X-Client-Id", rateLimiter, limiter(limit), limiter(limit));
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int limit) {
+        return new AdaptiveConcurrencyLimiter(limit, limit, limit, 1_000_000L, 0.9, time::get);
+    }
+
+    private static MockHttpServletResponse call(AdmissionControlFilter filter, String path, String client) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(path, client), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.addHeader("X-Client-Id", client);
+        return request;
+    }
+}
@@ -0,0 +1,65 @@
+package com.adp.interview.discountapi.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+@ExtendWith(MockitoExtension.class)
+public class ConnectionLimitingDataSourceTest {
+
+    @Mock
+    private DataSource targetDataSource;
+
+    @Test
+    public void testLimitsConcurrentConnections() throws Exception {
+        Connection target = mock(Connection.class);
+        when(targetDataSource.getConnection()).thenReturn(target);
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(targetDataSource, 2, 10);
+
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        first.close();
+        first.close();
+        assertEquals(1, dataSource.getAvailablePermits());
+        dataSource.getConnection().close();
+        second.close();
+        assertEquals(2, dataSource.getAvailablePermits());
+        verify(target, times(4)).close();
+    }
+
+    @Test
+    public void testDelegatesAndReleasesOnFailure() throws Exception {
+        Connection target = mock(Connection.class);
+        when(target.getAutoCommit()).thenReturn(true);
+        when(targetDataSource.getConnection()).thenThrow(new SQLException("down")).thenReturn(target);
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(targetDataSource, 1, 10);
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.getAvailablePermits());
+
+        Connection connection = dataSource.getConnection();
+        assertTrue(connection.getAutoCommit());
+        assertEquals(0, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    public void testClosingClosesThePool() throws Exception {
+        HikariDataSource pool = mock(HikariDataSource.class);
+        new ConnectionLimitingDataSource(pool, 1, 10).close();
+        verify(pool).close();
+
+        new ConnectionLimitingDataSource(targetDataSource, 1, 10).close();
+    }
+}
@@ -0,0 +1,81 @@
+package com.adp.interview.discountapi.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import com.adp.interview.discountapi.entity.DiscountRequest;
+import com.adp.interview.discountapi.entity.Item;
+import com.adp.interview.discountapi.entity.ItemType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+public class DiscountRequestDeserializerTest {
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void setup() {
+        objectMapper = new ObjectMapper().registerModule(new SimpleModule()
+                .addDeserializer(DiscountRequest.class, new DiscountRequestDeserializer(2, 100, 1000, 5000)));
+    }
+
+    @Test
+    public void testReadsItems() throws Exception {
+        DiscountRequest request = read("{\"items\":[{\"id\":\"1\",\"cost\":10.5,\"type\":\"BOOK\",\"quantity\":2},"
+                + "{\"quantity\":0,\"type\":\"FOOD\",\"cost\":3,\"id\":\"2\",\"note\":{\"gift\":[true]}}],\"channel\":\"web\"}");
+
+        assertEquals(List.of(new Item("1", 10.5, ItemType.BOOK, 2), new Item("2", 3.0, ItemType.FOOD, 0)),
+                request.getItems());
+    }
+
+    @Test
+    public void testLeavesMissingItemsNull() throws Exception {
+        assertNull(read("{}").getItems());
+        assertNull(read("{\"items\":null}").getItems());
+        assertEquals(List.of(), read("{\"items\":[]}").getItems());
+    }
+
+    @Test
+    public void testRejectsInvalidItems() {
+        assertRejected("{\"items\":[{\"cost\":1,\"type\":\"BOOK\",\"quantity\":1}]}", "Item 0 needs an id.");
+        assertRejected("{\"items\":[{\"id\":\"1\",\"type\":\"BOOK\",\"quantity\":1}]}", "Item 1 needs a cost between 0 and 1000.0.");
+        assertRejected("{\"items\":[{\"id\":\"1\",\"cost\":-1,\"type\":\"BOOK\",\"quantity\":1}]}", "Item 1 needs a cost between 0 and 1000.0.");
+        assertRejected("{\"items\":[{\"id\":\"1\",\"cost\":1e999,\"type\":\"BOOK\",\"quantity\":1}]}", "Item 1 needs a cost between 0 and 1000.0.");
+        assertRejected("{\"items\":[{\"id\":\"1\",\"cost\":1,\"type\":null,\"quantity\":1}]}", "Item 1 needs a type");
+        assertRejected("{\"items\":[{\"id\":\"1\",\"cost\":1,\"type\":\"book\",\"quantity\":1}]}", "Item 1 needs a type");
+        assertRejected("{\"items\":[{\"id\":\"1\",\"cost\":1,\"type\":\"BOOK\",\"quantity\":101}]}", "Item 1 needs a quantity between 0 and 100.");
+        assertRejected("{\"items\":[{\"id\":\"1\",\"cost\":1,\"type\":\"BOOK\",\"quantity\":1.5}]}", "Item 1 needs a quantity between 0 and 100.");
+        assertRejected("{\"items\":[{\"id\":\"1\",\"cost\":1000.01,\"type\":\"BOOK\",\"quantity\":1}]}", "Item 1 needs a cost between 0 and 1000.0.");
+        assertRejected("{\"items\":[{\"id\":\"1\",\"cost\":1000,\"type\":\"BOOK\",\"quantity\":6}]}", "Item 1 must not cost more than 5000.0 in total.");
+        assertRejected("{\"items\":[\"1\"]}", "Item 0 must be an object.");
+        assertRejected("{\"items\":{}}", "Items must be an array.");
+    }
+
+    @Test
+    public void testRejectsTooManyLines() {
+        String item = "{\"id\":\"1\",\"cost\":1,\"type\":\"BOOK\",\"quantity\":1}";
+
+        assertRejected("{\"items\":[" + item + "," + item + "," + item + "]}", "A cart must not have more than 2 items.");
+    }
+
+    @Test
+    public void testRejectsMalformedJson() {
+        assertThrows(JsonProcessingException.class, () -> read("{\"items\":[{\"id\":\"1\",}]}"));
+        assertThrows(MismatchedInputException.class, () -> read("[]"));
+    }
+
+    private DiscountRequest read(String json) throws JsonProcessingException {
+        return objectMapper.readValue(json, DiscountRequest.class);
+    }
+
+    private void assertRejected(String json, String message) {
+        MismatchedInputException e = assertThrows(MismatchedInputException.class, () -> read(json));
+        assertTrue(e.getOriginalMessage().startsWith(message), e.getOriginalMessage());
+    }
+}
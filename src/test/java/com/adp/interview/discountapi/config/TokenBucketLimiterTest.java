@@ -0,0 +1,41 @@
+package com.adp.interview.discountapi.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TokenBucketLimiterTest {
+
+    private final AtomicLong time = new AtomicLong(-5_000_000_000L); // nanoTime may be negative
+
+    @Test
+    public void testAllowsBurstThenRefillsAtRate() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 3, 100, time::get);
+
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(100_000_000L, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("b"));
+
+        time.addAndGet(40_000_000L);
+        assertEquals(60_000_000L, limiter.tryAcquire("a"));
+        time.addAndGet(60_000_000L);
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("a") > 0);
+    }
+
+    @Test
+    public void testIdleBucketDoesNotExceedBurst() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 2, 100, time::get);
+        assertEquals(0, limiter.tryAcquire("a"));
+
+        time.addAndGet(10_000_000_000L);
+
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("a") > 0);
+    }
+}
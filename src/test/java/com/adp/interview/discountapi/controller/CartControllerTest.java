@@ -0,0 +1,64 @@
+package com.adp.interview.discountapi.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import com.adp.interview.discountapi.entity.CartDelta;
+import com.adp.interview.discountapi.entity.CartResponse;
+import com.adp.interview.discountapi.service.CartService;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+@ExtendWith(MockitoExtension.class)
+class CartControllerTest {
+
+    private static final String TENANT = "acme";
+
+    @Mock
+    private CartService cartService;
+
+    @InjectMocks
+    private CartController cartController;
+
+    @Test
+    void testCreateCart() {
+        CartResponse expectedResponse = new CartResponse();
+        expectedResponse.setCartId("cart1");
+        when(cartService.createCart(TENANT, List.of())).thenReturn(expectedResponse);
+
+        ResponseEntity<CartResponse> result = cartController.createCart(TENANT, null);
+
+        assertEquals(HttpStatus.CREATED, result.getStatusCode());
+        assertEquals(expectedResponse, result.getBody());
+    }
+
+    @Test
+    void testApplyDeltas() {
+        List<CartDelta> deltas = List.of(new CartDelta());
+        CartResponse expectedResponse = new CartResponse();
+        expectedResponse.setCartId("cart1");
+        expectedResponse.setLines(1);
+        when(cartService.applyDeltas(TENANT, "cart1", deltas)).thenReturn(expectedResponse);
+
+        ResponseEntity<CartResponse> result = cartController.applyDeltas(TENANT, "cart1", deltas);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(expectedResponse, result.getBody());
+    }
+
+    @Test
+    void testDeleteCart() {
+        ResponseEntity<Void> result = cartController.deleteCart(TENANT, "cart1");
+
+        assertEquals(HttpStatus.NO_CONTENT, result.getStatusCode());
+        verify(cartService, times(1)).deleteCart(TENANT, "cart1");
+    }
+}
@@ -1,13 +1,19 @@
 package com.adp.interview.discountapi.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import com.adp.interview.discountapi.entity.*;
 import com.adp.interview.discountapi.service.impl.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,14 +21,20 @@ import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.web.server.ResponseStatusException;
 
 @ExtendWith(MockitoExtension.class)
 public class DiscountControllerTest {
 
+    private static final String TENANT = "acme";
+
     @Mock
     private DiscountServiceImpl discountService;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @InjectMocks
     private DiscountController discountController;
 
@@ -53,44 +65,68 @@ public class DiscountControllerTest {
     }
 
     @Test
-    void testGetAllDiscounts() {
+    void testGetDiscounts() {
         // set up mock objects
-        when(discountService.getAllDiscounts()).thenReturn(discounts);
+        when(discountService.getDiscounts(TENANT, null, 3, null, null, Discount.class)).thenReturn(discounts);
 
         // invoke the method to be tested
-        List<Discount> result = discountController.getAllDiscounts();
+        ResponseEntity<List<?>> result = discountController.getDiscounts(TENANT, null, 3, null, null, "full");
 
         // check the results
-        assertEquals(discounts, result);
-        verify(discountService, times(1)).getAllDiscounts();
+        assertEquals(discounts, result.getBody());
+        assertEquals("DISCOUNT3", result.getHeaders().getFirst("X-Next-Cursor"));
+        verify(discountService, times(1)).getDiscounts(TENANT, null, 3, null, null, Discount.class);
+    }
+
+    @Test
+    void testGetDiscounts_LastPage() {
+        List<DiscountSummary> summaries = List.of(mock(DiscountSummary.class));
+        when(discountService.getDiscounts(TENANT, "DISCOUNT3", 100, DiscountType.ITEM_TYPE, ItemType.BOOK, DiscountSummary.class))
+                .thenReturn(summaries);
+
+        ResponseEntity<List<?>> result = discountController.getDiscounts(TENANT, "DISCOUNT3", null, DiscountType.ITEM_TYPE, ItemType.BOOK, "summary");
+
+        assertEquals(summaries, result.getBody());
+        assertFalse(result.getHeaders().containsKey("X-Next-Cursor"));
+    }
+
+    @Test
+    void testGetDiscounts_InvalidArguments() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> discountController.getDiscounts(TENANT, null, 1001, null, null, "full"));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        exception = assertThrows(ResponseStatusException.class,
+                () -> discountController.getDiscounts(TENANT, null, 10, null, null, "compact"));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(discountService);
     }
 
     @Test
     void testGetDiscountByCode() {
         // create test data
         // set up mock objects
-        when(discountService.getDiscountByCode("DISCOUNT1")).thenReturn(Optional.of(discounts.get(0)));
+        when(discountService.getDiscountByCode(TENANT, "DISCOUNT1")).thenReturn(Optional.of(discounts.get(0)));
 
         // invoke the method to be tested
-        ResponseEntity<Discount> result = discountController.getDiscountByCode("DISCOUNT1");
+        ResponseEntity<Discount> result = discountController.getDiscountByCode(TENANT, "DISCOUNT1");
 
         // check the results
         assertEquals(HttpStatus.OK, result.getStatusCode());
         assertEquals(discounts.get(0), result.getBody());
-        verify(discountService, times(1)).getDiscountByCode("DISCOUNT1");
+        verify(discountService, times(1)).getDiscountByCode(TENANT, "DISCOUNT1");
     }
 
     @Test
     void testGetDiscountByCode_NotFound() {
         // set up mock objects
-        when(discountService.getDiscountByCode("code1")).thenReturn(Optional.empty());
+        when(discountService.getDiscountByCode(TENANT, "code1")).thenReturn(Optional.empty());
 
         // invoke the method to be tested
-        ResponseEntity<Discount> result = discountController.getDiscountByCode("code1");
+        ResponseEntity<Discount> result = discountController.getDiscountByCode(TENANT, "code1");
 
         // check the results
         assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
-        verify(discountService, times(1)).getDiscountByCode("code1");
+        verify(discountService, times(1)).getDiscountByCode(TENANT, "code1");
     }
 
     @Test
@@ -107,11 +143,12 @@ public class DiscountControllerTest {
         when(discountService.addDiscount(discount4)).thenReturn(discount4);
 
         // invoke the method to be tested
-        ResponseEntity<Discount> result = discountController.addDiscount(discount4);
+        ResponseEntity<Discount> result = discountController.addDiscount(TENANT, discount4);
 
         // check the results
         assertEquals(HttpStatus.CREATED, result.getStatusCode());
         assertEquals(discount4, result.getBody());
+        assertEquals(TENANT, discount4.getTenantId());
         verify(discountService, times(1)).addDiscount(discount4);
     }
 
@@ -129,7 +166,7 @@ public class DiscountControllerTest {
         when(discountService.addDiscount(discount4)).thenThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad Request"));
 
         // invoke the method to be tested
-        assertThrows(ResponseStatusException.class, () -> discountController.addDiscount(discount4));
+        assertThrows(ResponseStatusException.class, () -> discountController.addDiscount(TENANT, discount4));
 
         // check the results
         verify(discountService, times(1)).addDiscount(discount4);
@@ -138,11 +175,11 @@ public class DiscountControllerTest {
     @Test
     void testDeleteDiscount() {
         // invoke the method to be tested
-        ResponseEntity<Void> result = discountController.deleteDiscount("code1");
+        ResponseEntity<Void> result = discountController.deleteDiscount(TENANT, "code1");
 
         // check the results
         assertEquals(HttpStatus.NO_CONTENT, result.getStatusCode());
-        verify(discountService, times(1)).deleteDiscount("code1");
+        verify(discountService, times(1)).deleteDiscount(TENANT, "code1");
     }
 
     @Test
@@ -164,15 +201,69 @@ public class DiscountControllerTest {
         expectedResponse.setTotalCostAfterDiscount(34);
 
         // set up mock objects
-        when(discountService.calculateBestDiscount(request)).thenReturn(expectedResponse);
+        when(discountService.calculateBestDiscount(TENANT, request)).thenReturn(expectedResponse);
 
         // invoke the method to be tested
-        ResponseEntity<DiscountResponse> result = discountController.calculateBestDiscount(request);
+        ResponseEntity<DiscountResponse> result = discountController.calculateBestDiscount(TENANT, false, request);
 
         // check the results
         assertEquals(HttpStatus.OK, result.getStatusCode());
         assertEquals(expectedResponse, result.getBody());
-        verify(discountService, times(1)).calculateBestDiscount(request);
+        verify(discountService, times(1)).calculateBestDiscount(TENANT, request);
+    }
+
+    @Test
+    void testCalculateBestDiscount_Explain() {
+        DiscountRequest request = new DiscountRequest();
+        request.setItems(List.of(new Item("1", 100.0, ItemType.BOOK, 1)));
+        DiscountResponse expectedResponse = new DiscountResponse();
+        expectedResponse.setExplanation(new DiscountExplanation());
+        when(discountService.explainBestDiscount(TENANT, request)).thenReturn(expectedResponse);
+
+        ResponseEntity<DiscountResponse> result = discountController.calculateBestDiscount(TENANT, true, request);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(expectedResponse, result.getBody());
+        verify(discountService, never()).calculateBestDiscount(any(), any());
+    }
+
+    @Test
+    void testCalculateTopDiscounts() {
+        DiscountRequest request = new DiscountRequest();
+        request.setItems(List.of(new Item("1", 100.0, ItemType.BOOK, 1)));
+        RankedDiscountResponse expectedResponse = new RankedDiscountResponse();
+        expectedResponse.setTotalCost(100.0);
+        when(discountService.calculateTopDiscounts(TENANT, request, 5)).thenReturn(expectedResponse);
+
+        ResponseEntity<RankedDiscountResponse> result = discountController.calculateTopDiscounts(TENANT, 5, request);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(expectedResponse, result.getBody());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> discountController.calculateTopDiscounts(TENANT, 21, request));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        exception = assertThrows(ResponseStatusException.class,
+                () -> discountController.calculateTopDiscounts(TENANT, 0, request));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    void testCalculateStackedDiscount() {
+        DiscountRequest request = new DiscountRequest();
+        request.setItems(List.of(new Item("1", 100.0, ItemType.BOOK, 1)));
+        StackedDiscountResponse expectedResponse = new StackedDiscountResponse();
+        expectedResponse.setDiscountCodes(List.of("ABC"));
+        expectedResponse.setTotalCost(100.0);
+        expectedResponse.setTotalDiscount(10.0);
+        expectedResponse.setTotalCostAfterDiscount(90.0);
+        expectedResponse.setOptimal(true);
+        when(discountService.calculateStackedDiscount(TENANT, request)).thenReturn(expectedResponse);
+
+        ResponseEntity<StackedDiscountResponse> result = discountController.calculateStackedDiscount(TENANT, request);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(expectedResponse, result.getBody());
     }
 
     @Test
@@ -189,15 +280,15 @@ public class DiscountControllerTest {
         expectedResponse.setTotalCostAfterDiscount(34);
 
         // set up mock objects
-        when(discountService.calculateBestDiscount(request)).thenReturn(expectedResponse);
+        when(discountService.calculateBestDiscount(TENANT, request)).thenReturn(expectedResponse);
 
         // invoke the method to be tested
-        ResponseEntity<DiscountResponse> result = discountController.calculateBestDiscount(request);
+        ResponseEntity<DiscountResponse> result = discountController.calculateBestDiscount(TENANT, false, request);
 
         // check the results
         assertEquals(HttpStatus.OK, result.getStatusCode());
         assertEquals(expectedResponse, result.getBody());
-        verify(discountService, times(1)).calculateBestDiscount(request);
+        verify(discountService, times(1)).calculateBestDiscount(TENANT, request);
     }
 
     @Test
@@ -220,14 +311,86 @@ public class DiscountControllerTest {
         expectedResponse.setTotalCostAfterDiscount(34);
 
         // set up mock objects
-        when(discountService.calculateBestDiscount(request)).thenReturn(expectedResponse);
+        when(discountService.calculateBestDiscount(TENANT, request)).thenReturn(expectedResponse);
 
         // invoke the method to be tested
-        ResponseEntity<DiscountResponse> result = discountController.calculateBestDiscount(request);
+        ResponseEntity<DiscountResponse> result = discountController.calculateBestDiscount(TENANT, false, request);
 
         // check the results
         assertEquals(HttpStatus.OK, result.getStatusCode());
         assertEquals(expectedResponse, result.getBody());
-        verify(discountService, times(1)).calculateBestDiscount(request);
+        verify(discountService, times(1)).calculateBestDiscount(TENANT, request);
+    }
+
+    @Test
+    void testCalculateBestDiscounts() {
+        // create test data
+        List<JsonNode> carts = List.of(
+                objectMapper.createObjectNode().set("items", objectMapper.valueToTree(List.of(new Item("1", 100.0, ItemType.CLOTHING, 2)))),
+                objectMapper.createObjectNode().put("items", "not a list"),
+                objectMapper.createObjectNode());
+
+        DiscountResponse response1 = new DiscountResponse();
+        response1.setDiscountCode("DISCOUNT1");
+        response1.setTotalCost(200.0);
+        response1.setTotalDiscount(20.0);
+        response1.setTotalCostAfterDiscount(180.0);
+        DiscountResponse response3 = new DiscountResponse();
+        response3.setError("Items are required.");
+
+        // set up mock objects
+        when(discountService.calculateBestDiscounts(eq(TENANT), anyList())).thenReturn(List.of(response1, response3));
+
+        // invoke the method to be tested
+        ResponseEntity<List<DiscountResponse>> result = discountController.calculateBestDiscounts(TENANT, carts);
+
+        // check the results
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(3, result.getBody().size());
+        assertEquals(response1, result.getBody().get(0));
+        assertTrue(result.getBody().get(1).getError().startsWith("Invalid cart 1"));
+        assertEquals(response3, result.getBody().get(2));
+        verify(discountService, times(1)).calculateBestDiscounts(eq(TENANT), argThat(requests -> requests.size() == 2
+                && requests.get(0).getItems().equals(List.of(new Item("1", 100.0, ItemType.CLOTHING, 2)))
+                && requests.get(1).getItems() == null));
+    }
+
+    @Test
+    void testCalculateBestDiscounts_TooLarge() {
+        List<JsonNode> carts = Collections.nCopies(10001, objectMapper.createObjectNode());
+
+        assertThrows(ResponseStatusException.class, () -> discountController.calculateBestDiscounts(TENANT, carts));
+        verify(discountService, never()).calculateBestDiscounts(any(), any());
+    }
+
+    @Test
+    void testCalculateBestDiscountStream() throws Exception {
+        // create test data
+        String body = "{\"items\":[{\"id\":\"1\",\"cost\":100.0,\"type\":\"CLOTHING\",\"quantity\":2}]}\n"
+                + "\n"
+                + "{not json\n"
+                + "{\"items\":[]}";
+        DiscountResponse response1 = new DiscountResponse();
+        response1.setDiscountCode("DISCOUNT1");
+        response1.setTotalCost(200.0);
+        response1.setTotalDiscount(20.0);
+        response1.setTotalCostAfterDiscount(180.0);
+        DiscountResponse response2 = new DiscountResponse();
+
+        // set up mock objects
+        when(discountService.calculateBestDiscounts(eq(TENANT), anyList())).thenReturn(List.of(response1, response2));
+        MockHttpServletResponse httpResponse = new MockHttpServletResponse();
+
+        // invoke the method to be tested
+        discountController.calculateBestDiscountStream(TENANT,
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), httpResponse);
+
+        // check the results
+        String[] lines = httpResponse.getContentAsString().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(response1, objectMapper.readValue(lines[0], DiscountResponse.class));
+        assertTrue(objectMapper.readValue(lines[1], DiscountResponse.class).getError().startsWith("Invalid JSON on line 3"));
+        assertEquals(response2, objectMapper.readValue(lines[2], DiscountResponse.class));
+        verify(discountService, times(1)).calculateBestDiscounts(eq(TENANT), anyList());
     }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.adp.interview.discountapi.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountChangeEvent;
+import com.adp.interview.discountapi.entity.DiscountChangeType;
+import com.adp.interview.discountapi.entity.DiscountSyncNode;
+
+@DataJpaTest
+public class DiscountChangeEventRepositoryTest {
+
+    @Autowired
+    private DiscountChangeEventRepository changeEventRepository;
+
+    @Autowired
+    private DiscountSyncNodeRepository syncNodeRepository;
+
+    @Test
+    public void testDeletesOnlyOldAppliedVersions() {
+        Instant now = Instant.now();
+        long first = save("OLD1", now.minus(Duration.ofHours(1)));
+        long second = save("OLD2", now.minus(Duration.ofHours(1)));
+        long recent = save("NEW", now);
+
+        assertEquals(1, changeEventRepository.deleteAppliedBefore(first, now.minus(Duration.ofMinutes(10))));
+        assertEquals(List.of(second, recent), versions());
+
+        // the recent row is applied everywhere but still within the late-commit window
+        assertEquals(1, changeEventRepository.deleteAppliedBefore(recent, now.minus(Duration.ofMinutes(10))));
+        assertEquals(List.of(recent), versions());
+    }
+
+    private List<Long> versions() {
+        return changeEventRepository.findByVersionGreaterThanOrderByVersionAsc(0, PageRequest.of(0, 10))
+                .stream().map(DiscountChangeEvent::getVersion).toList();
+    }
+
+    @Test
+    public void testLowestVersionOfNodesStillReporting() {
+        Instant now = Instant.now();
+        assertTrue(syncNodeRepository.findLowestAppliedVersion().isEmpty());
+        syncNodeRepository.save(new DiscountSyncNode("stopped", 5, now.minus(Duration.ofHours(1))));
+        syncNodeRepository.save(new DiscountSyncNode("running-1", 20, now));
+        syncNodeRepository.save(new DiscountSyncNode("running-2", 12, now));
+        assertEquals(5L, syncNodeRepository.findLowestAppliedVersion().orElseThrow());
+
+        assertEquals(1, syncNodeRepository.deleteReportedBefore(now.minus(Duration.ofMinutes(5))));
+        assertEquals(12L, syncNodeRepository.findLowestAppliedVersion().orElseThrow());
+    }
+
+    private long save(String discountCode, Instant createdAt) {
+        DiscountChangeEvent event = new DiscountChangeEvent(Discount.DEFAULT_TENANT, discountCode, DiscountChangeType.UPSERT);
+        event.setCreatedAt(createdAt);
+        return changeEventRepository.save(event).getVersion();
+    }
+}
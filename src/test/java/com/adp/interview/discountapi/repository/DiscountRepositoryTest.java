@@ -0,0 +1,111 @@
+package com.adp.interview.discountapi.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountId;
+import com.adp.interview.discountapi.entity.DiscountSummary;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+
+@DataJpaTest
+public class DiscountRepositoryTest {
+
+    @Autowired
+    private DiscountRepository discountRepository;
+
+    @BeforeEach
+    public void setup() {
+        for (int i = 1; i <= 5; i++) {
+            Discount discount = new Discount();
+            discount.setDiscountCode("DISCOUNT" + i);
+            discount.setDescription("discount " + i);
+            discount.setDiscountPercentage(i * 5);
+            if (i % 2 == 1) {
+                discount.setDiscountType(DiscountType.ITEM_TYPE);
+                discount.setApplicableItemType(i == 5 ? ItemType.BOOK : ItemType.CLOTHING);
+            } else {
+                discount.setDiscountType(DiscountType.ITEM_COST);
+                discount.setMinimumCost(i * 10);
+            }
+            discountRepository.save(discount);
+        }
+        Discount other = new Discount();
+        other.setDiscountCode("DISCOUNT0");
+        other.setTenantId("acme");
+        other.setDescription("other tenant");
+        other.setDiscountPercentage(5);
+        other.setDiscountType(DiscountType.ITEM_TYPE);
+        other.setApplicableItemType(ItemType.CLOTHING);
+        discountRepository.save(other);
+    }
+
+    @Test
+    public void testKeysetPages() {
+        List<Discount> page1 = discountRepository.findByTenantIdAndDiscountCodeGreaterThanOrderByDiscountCodeAsc(
+                Discount.DEFAULT_TENANT, "", PageRequest.of(0, 2), Discount.class);
+        List<Discount> page2 = discountRepository.findByTenantIdAndDiscountCodeGreaterThanOrderByDiscountCodeAsc(
+                Discount.DEFAULT_TENANT, page1.get(1).getDiscountCode(), PageRequest.of(0, 2), Discount.class);
+
+        assertEquals(List.of("DISCOUNT1", "DISCOUNT2"), page1.stream().map(Discount::getDiscountCode).toList());
+        assertEquals(List.of("DISCOUNT3", "DISCOUNT4"), page2.stream().map(Discount::getDiscountCode).toList());
+    }
+
+    @Test
+    public void testFilteredSummaries() {
+        List<DiscountSummary> summaries = discountRepository.findByTenantIdAndDiscountTypeAndDiscountCodeGreaterThanOrderByDiscountCodeAsc(
+                Discount.DEFAULT_TENANT, DiscountType.ITEM_TYPE, "DISCOUNT1", PageRequest.of(0, 10), DiscountSummary.class);
+
+        assertEquals(List.of("DISCOUNT3", "DISCOUNT5"), summaries.stream().map(DiscountSummary::getDiscountCode).toList());
+        assertEquals("discount 3", summaries.get(0).getDescription());
+        assertEquals(15.0, summaries.get(0).getDiscountPercentage());
+        assertEquals(DiscountType.ITEM_TYPE, summaries.get(0).getDiscountType());
+
+        List<DiscountSummary> books = discountRepository
+                .findByTenantIdAndDiscountTypeAndApplicableItemTypeAndDiscountCodeGreaterThanOrderByDiscountCodeAsc(
+                        Discount.DEFAULT_TENANT, DiscountType.ITEM_TYPE, ItemType.BOOK, "", PageRequest.of(0, 10), DiscountSummary.class);
+        assertEquals(List.of("DISCOUNT5"), books.stream().map(DiscountSummary::getDiscountCode).toList());
+
+        List<Discount> clothing = discountRepository.findByTenantIdAndApplicableItemTypeAndDiscountCodeGreaterThanOrderByDiscountCodeAsc(
+                Discount.DEFAULT_TENANT, ItemType.CLOTHING, "", PageRequest.of(0, 10), Discount.class);
+        assertEquals(List.of("DISCOUNT1", "DISCOUNT3"), clothing.stream().map(Discount::getDiscountCode).toList());
+    }
+
+    @Test
+    public void testTenantsArePartitioned() {
+        assertEquals(5, discountRepository.findByTenantId(Discount.DEFAULT_TENANT).size());
+        assertEquals(List.of("DISCOUNT0"), discountRepository.findByTenantId("acme").stream()
+                .map(Discount::getDiscountCode).toList());
+        assertTrue(discountRepository.findByTenantIdAndDiscountCode("acme", "DISCOUNT1").isEmpty());
+        assertTrue(discountRepository.findByTenantIdAndDiscountCode("acme", "DISCOUNT0").isPresent());
+    }
+
+    @Test
+    public void testTenantsCanUseTheSameCode() {
+        Discount acme = new Discount();
+        acme.setDiscountCode("DISCOUNT1");
+        acme.setTenantId("acme");
+        acme.setDescription("acme discount");
+        acme.setDiscountPercentage(50);
+        acme.setDiscountType(DiscountType.ITEM_TYPE);
+        acme.setApplicableItemType(ItemType.BOOK);
+        discountRepository.save(acme);
+
+        assertEquals(50, discountRepository.findById(new DiscountId("acme", "DISCOUNT1")).orElseThrow()
+                .getDiscountPercentage());
+        assertEquals(5, discountRepository.findById(new DiscountId(Discount.DEFAULT_TENANT, "DISCOUNT1")).orElseThrow()
+                .getDiscountPercentage());
+        assertEquals(7, discountRepository.findAllDiscountIds().size());
+
+        discountRepository.deleteById(new DiscountId("acme", "DISCOUNT1"));
+        assertTrue(discountRepository.findById(new DiscountId(Discount.DEFAULT_TENANT, "DISCOUNT1")).isPresent());
+    }
+}
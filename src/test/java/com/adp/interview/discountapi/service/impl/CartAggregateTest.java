@@ -0,0 +1,90 @@
+package com.adp.interview.discountapi.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.Item;
+import com.adp.interview.discountapi.entity.ItemType;
+
+public class CartAggregateTest {
+
+    @Test
+    public void testAggregates() {
+        List<Item> items = new ArrayList<>();
+        items.add(new Item("a", 30.0, ItemType.BOOK, 2));
+        items.add(new Item("b", 10.0, ItemType.FOOD, 1));
+        items.add(new Item("a", 50.0, ItemType.BOOK, 4));
+        items.add(new Item("c", 20.0, ItemType.BOOK, 1));
+
+        CartAggregate cart = CartAggregate.of(items);
+
+        assertEquals(29000, cart.getTotalCost());
+        assertEquals(5000, cart.getMaxItemCost());
+        assertTrue(cart.containsType(ItemType.BOOK));
+        assertFalse(cart.containsType(ItemType.CLOTHING));
+        assertEquals(28000, cart.getSpend(ItemType.BOOK));
+        assertEquals(3, cart.getDistinctItemCount());
+        assertEquals("a", cart.getDistinctItemId(0));
+        assertEquals(2, cart.getQuantity("a"));
+        assertEquals(6000, cart.getSpend("a"));
+        assertEquals(0, cart.getQuantity("missing"));
+        assertEquals(29000, cart.getSpendAbove(500));
+        assertEquals(28000, cart.getSpendAbove(1000));
+        assertEquals(20000, cart.getSpendAbove(3000));
+        assertEquals(0, cart.getSpendAbove(5000));
+    }
+
+    @Test
+    public void testSpendAboveOnLargeCart() {
+        Random random = new Random(7);
+        List<Item> items = DiscountEvaluatorTest.randomItems(random, 500);
+
+        CartAggregate cart = CartAggregate.of(items);
+
+        for (int i = 0; i < 100; i++) {
+            long minimumCost = random.nextInt(50000);
+            long expected = items.stream().filter(item -> Money.toMinorUnits(item.getCost()) > minimumCost)
+                    .mapToLong(item -> Money.toMinorUnits(item.getCost()) * item.getQuantity()).sum();
+            assertEquals(expected, cart.getSpendAbove(minimumCost));
+        }
+    }
+
+    @Test
+    public void testEvaluationDoesNotAllocatePerDiscount() {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeAllocationMeasurable(threadBean);
+        Random random = new Random(11);
+        CartAggregate cart = CartAggregate.of(DiscountEvaluatorTest.randomItems(random, 50));
+        List<Discount> discounts = DiscountEvaluatorTest.randomDiscounts(random, 20000);
+        DiscountRuleIndex index = DiscountRuleIndex.build(discounts);
+        DiscountEvaluator discountEvaluator = new DiscountEvaluator();
+
+        // warm up so the measurement reflects compiled code
+        for (int i = 0; i < 2000; i++) {
+            discountEvaluator.evaluate(cart, index);
+        }
+        int iterations = 1000;
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            discountEvaluator.evaluate(cart, index);
+        }
+        long allocatedPerCall = (threadBean.getThreadAllocatedBytes(threadId) - before) / iterations;
+
+        // only the PricingResult is allocated, independent of the 20k rules scored
+        assertTrue(allocatedPerCall <= 64, "allocated " + allocatedPerCall + " bytes per evaluation");
+    }
+
+    private static void assumeAllocationMeasurable(com.sun.management.ThreadMXBean threadBean) {
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported()
+                && threadBean.isThreadAllocatedMemoryEnabled());
+    }
+}
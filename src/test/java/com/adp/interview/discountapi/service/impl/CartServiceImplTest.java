@@ -0,0 +1,150 @@
+package com.adp.interview.discountapi.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.List;
+
+import com.adp.interview.discountapi.entity.CartDelta;
+import com.adp.interview.discountapi.entity.CartResponse;
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+import com.adp.interview.discountapi.repository.DiscountRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class CartServiceImplTest {
+
+    private static final String TENANT = Discount.DEFAULT_TENANT;
+
+    @Mock
+    private DiscountRepository discountRepository;
+
+    private DiscountRuleCache discountRuleCache;
+
+    private CartServiceImpl cartService;
+
+    @BeforeEach
+    public void setup() {
+        Discount discount = new Discount();
+        discount.setDiscountCode("BOOKS3");
+        discount.setDiscountPercentage(10);
+        discount.setDiscountType(DiscountType.ITEM_COUNT);
+        discount.setApplicableItemId("book");
+        discount.setItemQuantityThreshold(3);
+        when(discountRepository.findByTenantId(TENANT)).thenReturn(List.of(discount));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        discountRuleCache = new DiscountRuleCache(discountRepository, meterRegistry, 100, 60000);
+        cartService = new CartServiceImpl(discountRuleCache, new PricingMetrics(meterRegistry, true, 1000, 100, 100),
+                meterRegistry, 1000, 60000, 2, 1000000, 100000000);
+    }
+
+    @Test
+    public void testRepricesAsItemsChange() {
+        CartResponse created = cartService.createCart(TENANT, List.of(delta("book", 20.0, ItemType.BOOK, 2)));
+        assertNull(created.getDiscount().getDiscountCode());
+        assertEquals(40.0, created.getDiscount().getTotalCost());
+
+        CartResponse updated = cartService.applyDeltas(TENANT, created.getCartId(), List.of(delta("book", null, null, 1)));
+        assertEquals("BOOKS3", updated.getDiscount().getDiscountCode());
+        assertEquals(6.0, updated.getDiscount().getTotalDiscount());
+        assertEquals(54.0, updated.getDiscount().getTotalCostAfterDiscount());
+
+        CartResponse removed = cartService.applyDeltas(TENANT, created.getCartId(), List.of(delta("book", null, null, -3)));
+        assertEquals(0, removed.getLines());
+        assertEquals(0.0, removed.getDiscount().getTotalCost());
+        assertEquals(removed, cartService.getCart(TENANT, created.getCartId()));
+    }
+
+    @Test
+    public void testRepricesWhenRulesChange() {
+        CartResponse created = cartService.createCart(TENANT, List.of(delta("book", 20.0, ItemType.BOOK, 3)));
+        assertEquals("BOOKS3", created.getDiscount().getDiscountCode());
+
+        discountRuleCache.onDeleted(TENANT, "BOOKS3");
+
+        assertNull(cartService.getCart(TENANT, created.getCartId()).getDiscount().getDiscountCode());
+    }
+
+    @Test
+    public void testRejectsInvalidDeltasWithoutChangingCart() {
+        String cartId = cartService.createCart(TENANT, List.of(delta("book", 20.0, ItemType.BOOK, 2))).getCartId();
+
+        assertBadRequest(() -> cartService.applyDeltas(TENANT, cartId,
+                List.of(delta("book", null, null, 1), delta("pen", null, null, 1))));
+        assertBadRequest(() -> cartService.applyDeltas(TENANT, cartId, List.of(delta("book", null, null, -3))));
+        assertBadRequest(() -> cartService.applyDeltas(TENANT, cartId,
+                List.of(delta("pen", 1.0, ItemType.OTHER, 1), delta("cup", 1.0, ItemType.OTHER, 1))));
+
+        assertBadRequest(() -> cartService.applyDeltas(TENANT, cartId, List.of(delta("book", 1e300, null, 0))));
+        assertBadRequest(() -> cartService.applyDeltas(TENANT, cartId, List.of(delta("book", 1000000.0, null, 99))));
+
+        CartResponse cart = cartService.getCart(TENANT, cartId);
+        assertEquals(1, cart.getLines());
+        assertEquals(40.0, cart.getDiscount().getTotalCost());
+    }
+
+    @Test
+    public void testDeletedCartIsNotFound() {
+        String cartId = cartService.createCart(TENANT, List.of()).getCartId();
+
+        cartService.deleteCart(TENANT, cartId);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> cartService.getCart(TENANT, cartId));
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+        assertThrows(ResponseStatusException.class, () -> cartService.deleteCart(TENANT, cartId));
+    }
+
+    @Test
+    public void testCartOfOtherTenantIsNotFound() {
+        String cartId = cartService.createCart(TENANT, List.of(delta("book", 20.0, ItemType.BOOK, 3))).getCartId();
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> cartService.getCart("acme", cartId));
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+        assertThrows(ResponseStatusException.class, () -> cartService.deleteCart("acme", cartId));
+        assertEquals(1, cartService.getCart(TENANT, cartId).getLines());
+    }
+
+    @Test
+    public void testSessionsAreBoundedByWeight() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CartServiceImpl bounded = new CartServiceImpl(discountRuleCache, new PricingMetrics(meterRegistry, true, 1000, 100, 100),
+                meterRegistry, 10, 60000, 5, 1000000, 100000000);
+        List<CartDelta> threeLines = List.of(delta("a", 1.0, ItemType.BOOK, 1), delta("b", 1.0, ItemType.BOOK, 1),
+                delta("c", 1.0, ItemType.BOOK, 1));
+
+        // a cart weighs one plus its lines, and is weighed again as it grows
+        String cartId = bounded.createCart(TENANT, List.of()).getCartId();
+        assertEquals(1, bounded.weightedSize());
+        bounded.applyDeltas(TENANT, cartId, threeLines);
+        assertEquals(4, bounded.weightedSize());
+
+        for (int i = 0; i < 5; i++) {
+            bounded.createCart(TENANT, threeLines);
+            assertTrue(bounded.weightedSize() <= 10);
+        }
+    }
+
+    private static void assertBadRequest(Runnable action) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, action::run);
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    private static CartDelta delta(String id, Double cost, ItemType type, int quantity) {
+        CartDelta delta = new CartDelta();
+        delta.setId(id);
+        delta.setCost(cost);
+        delta.setType(type);
+        delta.setQuantity(quantity);
+        return delta;
+    }
+}
@@ -0,0 +1,115 @@
+package com.adp.interview.discountapi.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.Item;
+import com.adp.interview.discountapi.entity.ItemType;
+
+/**
+ * Differential test of {@link CartSession} against pricing the whole cart with
+ * {@link DiscountEvaluator} after every change.
+ */
+public class CartSessionTest {
+
+    private final DiscountEvaluator discountEvaluator = new DiscountEvaluator();
+
+    @Test
+    public void testMatchesEvaluatorAfterEveryChange() {
+        Random random = new Random(42);
+        ItemType[] itemTypes = ItemType.values();
+        for (int round = 0; round < 50; round++) {
+            List<Discount> discounts = DiscountEvaluatorTest.randomDiscounts(random, 1 + random.nextInt(200));
+            DiscountRuleIndex index = DiscountRuleIndex.build(discounts);
+            CartSession session = new CartSession("cart", Discount.DEFAULT_TENANT);
+            Map<String, Item> items = new LinkedHashMap<>();
+            for (int change = 0; change < 100; change++) {
+                String itemId = "item" + random.nextInt(40);
+                int quantity = random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(6);
+                long cost = random.nextInt(50000);
+                ItemType type = itemTypes[random.nextInt(itemTypes.length)];
+                session.setLine(itemId, cost, type, quantity, index);
+                if (quantity == 0) {
+                    items.remove(itemId);
+                } else {
+                    items.put(itemId, new Item(itemId, Money.toDecimal(cost), type, quantity));
+                }
+                if (random.nextInt(20) == 0) {
+                    // the rules change under the session, which catches up on the next access
+                    index = index.without(discounts.get(random.nextInt(discounts.size())).getDiscountCode())
+                            .with(DiscountEvaluatorTest.randomDiscounts(random, 1).get(0));
+                }
+
+                PricingResult expected = discountEvaluator.evaluate(CartAggregate.of(new ArrayList<>(items.values())), index);
+                PricingResult actual = session.price(index);
+
+                assertEquals(expected.getBestDiscount(), actual.getBestDiscount(), "round " + round + " change " + change);
+                assertEquals(expected.getTotalCost(), actual.getTotalCost());
+                assertEquals(expected.getTotalDiscount(), actual.getTotalDiscount());
+                assertEquals(items.size(), session.size());
+            }
+        }
+    }
+
+    @Test
+    public void testRescoresOnlyAffectedRules() {
+        List<Discount> discounts = DiscountEvaluatorTest.randomDiscounts(new Random(7), 1000);
+        DiscountRuleIndex index = DiscountRuleIndex.build(discounts);
+        CartSession session = new CartSession("cart", Discount.DEFAULT_TENANT);
+        session.setLine("item1", 100, ItemType.BOOK, 1, index);
+        session.price(index);
+
+        // a one-cent line only counts for ITEM_COST rules with a minimum of zero
+        session.setLine("unknown", 1, ItemType.BOOK, 1, index);
+        PricingResult result = session.price(index);
+
+        assertEquals(index.countItemCostRulesBelow(1), result.getRulesEvaluated());
+    }
+
+    @Test
+    public void testRuleChangeRescoresOnlyChangedRules() {
+        List<Discount> discounts = DiscountEvaluatorTest.randomDiscounts(new Random(11), 1000);
+        DiscountRuleIndex index = DiscountRuleIndex.build(discounts);
+        CartSession session = new CartSession("cart", Discount.DEFAULT_TENANT);
+        for (int i = 0; i < 100; i++) {
+            session.setLine("item" + i, 100 + i, ItemType.BOOK, 1, index);
+        }
+        session.price(index);
+
+        PricingResult result = session.price(index.with(countDiscount("ELSEWHERE", "not-in-cart", 0)));
+
+        assertEquals(0, result.getRulesEvaluated());
+    }
+
+    @Test
+    public void testPriorityBreaksTiesBetweenItems() {
+        Discount first = countDiscount("FIRST", "item1", 0);
+        Discount preferred = countDiscount("PREFERRED", "item2", 1);
+        DiscountRuleIndex index = DiscountRuleIndex.build(List.of(first, preferred));
+        CartSession session = new CartSession("cart", Discount.DEFAULT_TENANT);
+        session.setLine("item1", 1000, ItemType.BOOK, 1, index);
+        session.setLine("item2", 1000, ItemType.BOOK, 1, index);
+
+        assertEquals("PREFERRED", session.price(index).getBestDiscount().getDiscountCode());
+    }
+
+    private static Discount countDiscount(String code, String itemId, int priority) {
+        Discount discount = new Discount();
+        discount.setDiscountCode(code);
+        discount.setDiscountPercentage(10);
+        discount.setDiscountType(DiscountType.ITEM_COUNT);
+        discount.setApplicableItemId(itemId);
+        discount.setItemQuantityThreshold(1);
+        discount.setPriority(priority);
+        return discount;
+    }
+}
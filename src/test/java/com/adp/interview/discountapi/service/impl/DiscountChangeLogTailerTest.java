@@ -0,0 +1,193 @@
+package com.adp.interview.discountapi.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountChangeEvent;
+import com.adp.interview.discountapi.entity.DiscountChangeType;
+import com.adp.interview.discountapi.entity.DiscountId;
+import com.adp.interview.discountapi.entity.DiscountSyncNode;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+import com.adp.interview.discountapi.repository.DiscountChangeEventRepository;
+import com.adp.interview.discountapi.repository.DiscountRepository;
+import com.adp.interview.discountapi.repository.DiscountSyncNodeRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class DiscountChangeLogTailerTest {
+
+    @Mock
+    private DiscountChangeEventRepository changeEventRepository;
+
+    @Mock
+    private DiscountSyncNodeRepository syncNodeRepository;
+
+    @Mock
+    private DiscountRepository discountRepository;
+
+    private DiscountRuleCache discountRuleCache;
+
+    private DiscountChangeLogTailer changeLogTailer;
+
+    private List<Discount> discounts;
+
+    @BeforeEach
+    public void setup() {
+        discounts = new ArrayList<>();
+        discounts.add(discount("DISCOUNT1"));
+        discounts.add(discount("DISCOUNT2"));
+        discountRuleCache = new DiscountRuleCache(discountRepository, new SimpleMeterRegistry(), 100, 60000);
+        changeLogTailer = new DiscountChangeLogTailer(changeEventRepository, syncNodeRepository, discountRepository, discountRuleCache,
+                new DiscountLookupCache(discountRepository, new SimpleMeterRegistry(), true, 100, 60000, 60000, 100, 0.01));
+        when(discountRepository.findByTenantId(Discount.DEFAULT_TENANT)).thenReturn(discounts);
+        when(changeEventRepository.findLatestVersion()).thenReturn(0L);
+        changeLogTailer.warmUp();
+    }
+
+    @Test
+    public void testPollAppliesUpsertsAndDeletes() {
+        Discount added = discount("DISCOUNT3");
+        when(changeEventRepository.findByVersionGreaterThanOrderByVersionAsc(eq(0L), any()))
+                .thenReturn(List.of(event(1, "DISCOUNT3", DiscountChangeType.UPSERT), event(2, "DISCOUNT1", DiscountChangeType.DELETE)));
+        when(discountRepository.findAllById(any())).thenReturn(List.of(added));
+
+        assertEquals(2, changeLogTailer.poll());
+
+        verify(discountRepository).findAllById(Set.of(new DiscountId(Discount.DEFAULT_TENANT, "DISCOUNT3"),
+                new DiscountId(Discount.DEFAULT_TENANT, "DISCOUNT1")));
+        assertNotNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("DISCOUNT3"));
+        assertNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("DISCOUNT1"));
+        assertEquals(2, changeLogTailer.getAppliedVersion());
+    }
+
+    @Test
+    public void testPollWaitsForGapThenSkipsIt() {
+        when(changeEventRepository.findByVersionGreaterThanOrderByVersionAsc(anyLong(), any()))
+                .thenReturn(List.of(event(1, "DISCOUNT1", DiscountChangeType.DELETE), event(3, "DISCOUNT2", DiscountChangeType.DELETE)));
+        when(discountRepository.findAllById(any())).thenReturn(List.of());
+
+        assertEquals(1, changeLogTailer.poll());
+        assertEquals(1, changeLogTailer.getAppliedVersion());
+        assertNotNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("DISCOUNT2"));
+
+        // version 2 never commits
+        when(changeEventRepository.findByVersionGreaterThanOrderByVersionAsc(eq(1L), any()))
+                .thenReturn(List.of(event(3, "DISCOUNT2", DiscountChangeType.DELETE)));
+        assertEquals(0, changeLogTailer.poll());
+        ReflectionTestUtils.setField(changeLogTailer, "gapTimeoutMillis", 0L);
+        assertEquals(1, changeLogTailer.poll());
+        assertEquals(3, changeLogTailer.getAppliedVersion());
+        assertNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("DISCOUNT2"));
+    }
+
+    @Test
+    public void testSkippedVersionIsAppliedWhenItCommitsLate() {
+        ReflectionTestUtils.setField(changeLogTailer, "gapTimeoutMillis", 0L);
+        when(changeEventRepository.findByVersionGreaterThanOrderByVersionAsc(eq(0L), any()))
+                .thenReturn(List.of(event(2, "DISCOUNT2", DiscountChangeType.DELETE)));
+        when(discountRepository.findAllById(any())).thenReturn(List.of());
+
+        assertEquals(1, changeLogTailer.poll());
+        assertEquals(2, changeLogTailer.getAppliedVersion());
+        assertEquals(1, changeLogTailer.getSkippedVersionCount());
+        assertNotNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("DISCOUNT1"));
+
+        // version 1 commits after the gap timeout
+        when(changeEventRepository.findByVersionInOrderByVersionAsc(List.of(1L)))
+                .thenReturn(List.of(event(1, "DISCOUNT1", DiscountChangeType.DELETE)));
+        assertEquals(1, changeLogTailer.poll());
+        assertNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("DISCOUNT1"));
+        assertEquals(0, changeLogTailer.getSkippedVersionCount());
+        assertEquals(0, changeLogTailer.poll());
+    }
+
+    @Test
+    public void testStopsWatchingSkippedVersionsAfterWindow() {
+        ReflectionTestUtils.setField(changeLogTailer, "gapTimeoutMillis", 0L);
+        ReflectionTestUtils.setField(changeLogTailer, "lateCommitWindowMillis", 0L);
+        when(changeEventRepository.findByVersionGreaterThanOrderByVersionAsc(eq(0L), any()))
+                .thenReturn(List.of(event(3, "DISCOUNT2", DiscountChangeType.DELETE)));
+        when(discountRepository.findAllById(any())).thenReturn(List.of());
+
+        changeLogTailer.poll();
+        assertEquals(2, changeLogTailer.getSkippedVersionCount());
+        changeLogTailer.poll();
+        assertEquals(0, changeLogTailer.getSkippedVersionCount());
+    }
+
+    @Test
+    public void testLateCommitsAreLookedUpOneBatchPerPoll() {
+        ReflectionTestUtils.setField(changeLogTailer, "gapTimeoutMillis", 0L);
+        ReflectionTestUtils.setField(changeLogTailer, "batchSize", 2);
+        when(changeEventRepository.findByVersionGreaterThanOrderByVersionAsc(eq(0L), any()))
+                .thenReturn(List.of(event(5, "DISCOUNT2", DiscountChangeType.DELETE)));
+        when(discountRepository.findAllById(any())).thenReturn(List.of());
+
+        changeLogTailer.poll();
+        assertEquals(4, changeLogTailer.getSkippedVersionCount());
+        changeLogTailer.poll();
+        changeLogTailer.poll();
+        changeLogTailer.poll();
+
+        verify(changeEventRepository, times(2)).findByVersionInOrderByVersionAsc(List.of(1L, 2L));
+        verify(changeEventRepository, times(1)).findByVersionInOrderByVersionAsc(List.of(3L, 4L));
+    }
+
+    @Test
+    public void testPurgeKeepsVersionsStillWatched() {
+        ReflectionTestUtils.setField(changeLogTailer, "gapTimeoutMillis", 0L);
+        when(changeEventRepository.findByVersionGreaterThanOrderByVersionAsc(eq(0L), any()))
+                .thenReturn(List.of(event(1, "DISCOUNT1", DiscountChangeType.DELETE), event(3, "DISCOUNT2", DiscountChangeType.DELETE)));
+        when(discountRepository.findAllById(any())).thenReturn(List.of());
+        changeLogTailer.poll();
+        assertEquals(3, changeLogTailer.getAppliedVersion());
+        assertEquals(1, changeLogTailer.getAppliedThroughVersion());
+
+        when(syncNodeRepository.findLowestAppliedVersion()).thenReturn(Optional.of(1L));
+        when(changeEventRepository.deleteAppliedBefore(eq(1L), any())).thenReturn(1);
+        assertEquals(1, changeLogTailer.purge());
+        verify(syncNodeRepository).save(argThat((DiscountSyncNode node) -> node.getAppliedVersion() == 1L));
+        verify(syncNodeRepository).deleteReportedBefore(any());
+
+        // version 2 commits late
+        when(changeEventRepository.findByVersionInOrderByVersionAsc(List.of(2L)))
+                .thenReturn(List.of(event(2, "DISCOUNT2", DiscountChangeType.DELETE)));
+        changeLogTailer.poll();
+        assertEquals(3, changeLogTailer.getAppliedThroughVersion());
+    }
+
+    private static DiscountChangeEvent event(long version, String discountCode, DiscountChangeType changeType) {
+        DiscountChangeEvent event = new DiscountChangeEvent(Discount.DEFAULT_TENANT, discountCode, changeType);
+        event.setVersion(version);
+        return event;
+    }
+
+    private static Discount discount(String discountCode) {
+        Discount discount = new Discount();
+        discount.setDiscountCode(discountCode);
+        discount.setDiscountPercentage(10);
+        discount.setDiscountType(DiscountType.ITEM_TYPE);
+        discount.setApplicableItemType(ItemType.BOOK);
+        return discount;
+    }
+}
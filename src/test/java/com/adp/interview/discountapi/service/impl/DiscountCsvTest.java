@@ -0,0 +1,83 @@
+package com.adp.interview.discountapi.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+
+public class DiscountCsvTest {
+
+    @Test
+    public void testRead() throws Exception {
+        String csv = "discountCode,discountType,description,applicableItemType,minimumCost\r\n"
+                + "D1,item_type,\"Books, \"\"new\"\" ones\",BOOK,\n"
+                + "\n"
+                + "D2,ITEM_COST,\"two\nlines\",,25.5\n"
+                + "D3,BOGUS,three,,\n"
+                + "D4,ITEM_COST,four\n";
+        List<Discount> discounts = new ArrayList<>();
+        Map<Integer, String> rowErrors = new HashMap<>();
+
+        assertTrue(DiscountCsv.read(new StringReader(csv), 10, discounts, rowErrors));
+
+        assertEquals(4, discounts.size());
+        assertEquals("D1", discounts.get(0).getDiscountCode());
+        assertEquals(DiscountType.ITEM_TYPE, discounts.get(0).getDiscountType());
+        assertEquals("Books, \"new\" ones", discounts.get(0).getDescription());
+        assertEquals(ItemType.BOOK, discounts.get(0).getApplicableItemType());
+        assertEquals("two\nlines", discounts.get(1).getDescription());
+        assertEquals(25.5, discounts.get(1).getMinimumCost());
+        assertNull(discounts.get(1).getApplicableItemType());
+        assertNull(discounts.get(2));
+        assertNull(discounts.get(3));
+        assertEquals(Map.of(2, "Row 3: invalid discountType 'BOGUS'", 3, "Row 4: expected 5 fields but found 3"), rowErrors);
+    }
+
+    @Test
+    public void testReadStopsAtMaxRows() throws Exception {
+        List<Discount> discounts = new ArrayList<>();
+        String csv = "discountCode,discountType\nD1,ITEM_TYPE\nD2,ITEM_TYPE\n";
+
+        assertFalse(DiscountCsv.read(new StringReader(csv), 1, discounts, new HashMap<>()));
+        assertEquals(1, discounts.size());
+    }
+
+    @Test
+    public void testReadRejectsUnknownColumn() {
+        assertThrows(IllegalArgumentException.class, () -> DiscountCsv.read(new StringReader("discountCode,discountType,colour\n"),
+                10, new ArrayList<>(), new HashMap<>()));
+    }
+
+    @Test
+    public void testWriteReadsBack() throws Exception {
+        Discount discount = new Discount();
+        discount.setDiscountCode("D1");
+        discount.setDescription("Ten, \"percent\"");
+        discount.setDiscountPercentage(10);
+        discount.setDiscountType(DiscountType.ITEM_COUNT);
+        discount.setApplicableItemId("123");
+        discount.setItemQuantityThreshold(3);
+        discount.setValidFrom(Instant.parse("2026-11-01T00:00:00Z"));
+        discount.setValidUntil(Instant.parse("2026-12-01T00:00:00Z"));
+        discount.setMaxRedemptions(500);
+        StringWriter writer = new StringWriter();
+        DiscountCsv.writeHeader(writer);
+        DiscountCsv.write(writer, discount);
+
+        List<Discount> discounts = new ArrayList<>();
+        DiscountCsv.read(new StringReader(writer.toString()), 10, discounts, new HashMap<>());
+
+        assertEquals(List.of(discount), discounts);
+    }
+}
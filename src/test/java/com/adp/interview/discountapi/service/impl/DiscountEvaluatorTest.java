@@ -0,0 +1,292 @@
+package com.adp.interview.discountapi.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountResponse;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.Item;
+import com.adp.interview.discountapi.entity.ItemType;
+
+/**
+ * Differential test of {@link DiscountEvaluator} against the original discounts x items scan.
+ * The original works in doubles, so amounts are compared to the nearest cent.
+ */
+public class DiscountEvaluatorTest {
+
+    private static final double TOLERANCE = 0.01;
+
+    private final DiscountEvaluator discountEvaluator = new DiscountEvaluator();
+
+    @Test
+    public void testMatchesSequentialScanOnRandomCatalogs() {
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            List<Discount> discounts = randomDiscounts(random, 1 + random.nextInt(200));
+            List<Item> items = randomItems(random, random.nextInt(30));
+            DiscountRuleIndex index = DiscountRuleIndex.build(discounts);
+
+            DiscountResponse expected = referenceBestDiscount(items, discounts);
+            DiscountResponse actual = discountEvaluator.evaluate(CartAggregate.of(items), index).toResponse();
+
+            assertEquals(expected.getTotalCost(), actual.getTotalCost(), TOLERANCE);
+            assertEquals(expected.getTotalDiscount(), actual.getTotalDiscount(), TOLERANCE);
+            assertEquals(expected.getTotalCostAfterDiscount(), actual.getTotalCostAfterDiscount(), TOLERANCE);
+            if (expected.getDiscountCode() == null || actual.getDiscountCode() == null) {
+                assertEquals(expected.getDiscountCode(), actual.getDiscountCode());
+            } else if (!expected.getDiscountCode().equals(actual.getDiscountCode())) {
+                // the double scan drifts in the last bits, so only accept a different winner on a tie
+                double expectedWinner = referenceAmount(items, find(discounts, expected.getDiscountCode()));
+                double actualWinner = referenceAmount(items, find(discounts, actual.getDiscountCode()));
+                assertEquals(expectedWinner, actualWinner, TOLERANCE, "round " + round);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        // a threshold of one and small chunks split even small carts across several tasks
+        DiscountEvaluator parallelEvaluator = new DiscountEvaluator(1, 4, 7);
+        try {
+            Random random = new Random(7);
+            for (int round = 0; round < 300; round++) {
+                List<Discount> discounts = randomDiscounts(random, 1 + random.nextInt(300));
+                // whole percentages make equal amounts, and so ties, common
+                discounts.forEach(discount -> discount.setDiscountPercentage(Math.rint(discount.getDiscountPercentage() / 10)));
+                CartAggregate cart = CartAggregate.of(randomItems(random, random.nextInt(30)));
+                DiscountRuleIndex index = DiscountRuleIndex.build(discounts);
+
+                PricingResult expected = discountEvaluator.evaluateSequential(cart, index);
+                PricingResult actual = parallelEvaluator.evaluate(cart, index);
+
+                assertEquals(expected, actual, "round " + round);
+            }
+        } finally {
+            parallelEvaluator.shutdown();
+        }
+    }
+
+    @Test
+    public void testMayForkOnlyForLargeCatalogs() {
+        DiscountEvaluator parallelEvaluator = new DiscountEvaluator(50, 2, 16);
+        try {
+            assertFalse(parallelEvaluator.mayFork(DiscountRuleIndex.build(randomDiscounts(new Random(1), 49))));
+            assertTrue(parallelEvaluator.mayFork(DiscountRuleIndex.build(randomDiscounts(new Random(1), 50))));
+            assertFalse(discountEvaluator.mayFork(DiscountRuleIndex.build(randomDiscounts(new Random(1), 50))));
+        } finally {
+            parallelEvaluator.shutdown();
+        }
+    }
+
+    @Test
+    public void testTieGoesToFirstDiscountInCatalog() {
+        List<Item> items = List.of(new Item("1", 100.0, ItemType.BOOK, 1));
+        Discount first = new Discount();
+        first.setDiscountCode("COST");
+        first.setDiscountPercentage(10);
+        first.setDiscountType(DiscountType.ITEM_COST);
+        first.setMinimumCost(50.0);
+        Discount second = new Discount();
+        second.setDiscountCode("TYPE");
+        second.setDiscountPercentage(10);
+        second.setDiscountType(DiscountType.ITEM_TYPE);
+        second.setApplicableItemType(ItemType.BOOK);
+
+        PricingResult result = discountEvaluator.evaluate(CartAggregate.of(items),
+                DiscountRuleIndex.build(List.of(first, second)));
+
+        assertEquals("COST", result.getBestDiscount().getDiscountCode());
+    }
+
+    @Test
+    public void testPriorityBreaksTiesBeforeCatalogOrder() {
+        List<Item> items = List.of(new Item("1", 100.0, ItemType.BOOK, 1));
+        Discount first = new Discount();
+        first.setDiscountCode("FIRST");
+        first.setDiscountPercentage(10);
+        first.setDiscountType(DiscountType.ITEM_TYPE);
+        first.setApplicableItemType(ItemType.BOOK);
+        Discount preferred = new Discount();
+        preferred.setDiscountCode("PREFERRED");
+        preferred.setDiscountPercentage(10);
+        preferred.setDiscountType(DiscountType.ITEM_COST);
+        preferred.setMinimumCost(50.0);
+        preferred.setPriority(1);
+
+        PricingResult result = discountEvaluator.evaluate(CartAggregate.of(items),
+                DiscountRuleIndex.build(List.of(first, preferred)));
+
+        assertEquals("PREFERRED", result.getBestDiscount().getDiscountCode());
+    }
+
+    @Test
+    public void testItemCountUsesFirstLineWithItemId() {
+        List<Item> items = List.of(
+                new Item("1", 10.0, ItemType.BOOK, 1),
+                new Item("1", 10.0, ItemType.BOOK, 5));
+        Discount discount = new Discount();
+        discount.setDiscountCode("COUNT");
+        discount.setDiscountPercentage(50);
+        discount.setDiscountType(DiscountType.ITEM_COUNT);
+        discount.setApplicableItemId("1");
+        discount.setItemQuantityThreshold(2);
+
+        PricingResult result = discountEvaluator.evaluate(CartAggregate.of(items),
+                DiscountRuleIndex.build(List.of(discount)));
+
+        assertNull(result.getBestDiscount());
+        assertEquals(0, result.getTotalDiscount());
+        assertEquals(6000, result.getTotalCost());
+    }
+
+    @Test
+    public void testAmountsAreExact() {
+        List<Item> items = List.of(
+                new Item("1", 0.1, ItemType.FOOD, 3),
+                new Item("2", 0.7, ItemType.FOOD, 1));
+        Discount discount = new Discount();
+        discount.setDiscountCode("FOOD");
+        discount.setDiscountPercentage(15);
+        discount.setDiscountType(DiscountType.ITEM_TYPE);
+        discount.setApplicableItemType(ItemType.FOOD);
+
+        DiscountResponse response = discountEvaluator.evaluate(CartAggregate.of(items),
+                DiscountRuleIndex.build(List.of(discount))).toResponse();
+
+        // 1.00 * 15% = 0.15 exactly, where doubles give 0.15000000000000002
+        assertEquals(1.0, response.getTotalCost());
+        assertEquals(0.15, response.getTotalDiscount());
+        assertEquals(0.85, response.getTotalCostAfterDiscount());
+    }
+
+    @Test
+    public void testTopMatchesRepeatedBest() {
+        Random random = new Random(3);
+        for (int round = 0; round < 200; round++) {
+            List<Discount> discounts = randomDiscounts(random, 1 + random.nextInt(100));
+            // whole percentages make equal amounts, and so ties, common
+            discounts.forEach(discount -> discount.setDiscountPercentage(Math.rint(discount.getDiscountPercentage() / 10)));
+            CartAggregate cart = CartAggregate.of(randomItems(random, random.nextInt(30)));
+            DiscountRuleIndex index = DiscountRuleIndex.build(discounts);
+            int limit = 1 + random.nextInt(8);
+
+            RankedPricingResult top = discountEvaluator.evaluateTop(cart, index, limit);
+
+            assertEquals(discountEvaluator.evaluateSequential(cart, index), top.getBest(), "round " + round);
+            // the k-th best is the best once the k - 1 before it are taken out of the catalog
+            DiscountRuleIndex remaining = index;
+            List<String> expected = new ArrayList<>();
+            for (int k = 0; k < limit; k++) {
+                PricingResult best = discountEvaluator.evaluateSequential(cart, remaining);
+                if (best.getBestDiscount() == null) {
+                    break;
+                }
+                expected.add(best.getBestDiscount().getDiscountCode() + "=" + best.getTotalDiscount());
+                remaining = remaining.without(best.getBestDiscount().getDiscountCode());
+            }
+            List<String> actual = new ArrayList<>();
+            for (int k = 0; k < top.getDiscounts().length; k++) {
+                actual.add(top.getDiscounts()[k].getDiscountCode() + "=" + top.getTotalDiscounts()[k]);
+            }
+            assertEquals(expected, actual, "round " + round);
+        }
+    }
+
+    /**
+     * The original implementation of DiscountServiceImpl.calculateBestDiscount.
+     */
+    static DiscountResponse referenceBestDiscount(List<Item> items, List<Discount> discounts) {
+        double totalDiscount = 0.0;
+        Discount bestDiscount = null;
+        for (Discount discount : discounts) {
+            double discountAmount = referenceAmount(items, discount);
+            if (discountAmount > totalDiscount) {
+                totalDiscount = discountAmount;
+                bestDiscount = discount;
+            }
+        }
+        double totalCost = items.stream().mapToDouble(item -> item.getCost() * item.getQuantity()).sum();
+        DiscountResponse discountResponse = new DiscountResponse();
+        if (bestDiscount != null) {
+            discountResponse.setDiscountCode(bestDiscount.getDiscountCode());
+        }
+        discountResponse.setTotalCost(totalCost);
+        discountResponse.setTotalDiscount(totalDiscount);
+        discountResponse.setTotalCostAfterDiscount(totalCost - totalDiscount);
+        return discountResponse;
+    }
+
+    static double referenceAmount(List<Item> items, Discount discount) {
+        double discountAmount = 0.0;
+        if (discount.getDiscountType() == DiscountType.ITEM_TYPE) {
+            for (Item item : items) {
+                if (item.getType().equals(discount.getApplicableItemType())) {
+                    discountAmount += (item.getCost() * item.getQuantity() * discount.getDiscountPercentage()/100);
+                }
+            }
+        } else if (discount.getDiscountType() == DiscountType.ITEM_COUNT) {
+            for (Item item : items) {
+                if (item.getId().equals(discount.getApplicableItemId())) {
+                    if (item.getQuantity() >= discount.getItemQuantityThreshold()) {
+                        discountAmount += (item.getQuantity() * item.getCost() * discount.getDiscountPercentage()/100);
+                    }
+                    break;
+                }
+            }
+        } else if (discount.getDiscountType() == DiscountType.ITEM_COST) {
+            for (Item item : items) {
+                if (item.getCost() > discount.getMinimumCost()) {
+                    discountAmount += (item.getCost() * item.getQuantity() * discount.getDiscountPercentage()/100);
+                }
+            }
+        }
+        return discountAmount;
+    }
+
+    static List<Discount> randomDiscounts(Random random, int count) {
+        ItemType[] itemTypes = ItemType.values();
+        List<Discount> discounts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Discount discount = new Discount();
+            discount.setDiscountCode("CODE" + i);
+            discount.setDiscountPercentage(random.nextInt(10001) / 100.0);
+            switch (random.nextInt(3)) {
+                case 0:
+                    discount.setDiscountType(DiscountType.ITEM_TYPE);
+                    discount.setApplicableItemType(itemTypes[random.nextInt(itemTypes.length)]);
+                    break;
+                case 1:
+                    discount.setDiscountType(DiscountType.ITEM_COUNT);
+                    discount.setApplicableItemId("item" + random.nextInt(40));
+                    discount.setItemQuantityThreshold(1 + random.nextInt(5));
+                    break;
+                default:
+                    discount.setDiscountType(DiscountType.ITEM_COST);
+                    discount.setMinimumCost(random.nextInt(50000) / 100.0);
+                    break;
+            }
+            discounts.add(discount);
+        }
+        return discounts;
+    }
+
+    static List<Item> randomItems(Random random, int count) {
+        ItemType[] itemTypes = ItemType.values();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(new Item("item" + random.nextInt(40), random.nextInt(50000) / 100.0,
+                    itemTypes[random.nextInt(itemTypes.length)], 1 + random.nextInt(6)));
+        }
+        return items;
+    }
+
+    private static Discount find(List<Discount> discounts, String discountCode) {
+        return discounts.stream().filter(d -> d.getDiscountCode().equals(discountCode)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,123 @@
+package com.adp.interview.discountapi.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.adp.interview.discountapi.entity.CandidateDiscount;
+import com.adp.interview.discountapi.entity.CandidateOutcome;
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountExplanation;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.Item;
+import com.adp.interview.discountapi.entity.ItemType;
+
+public class DiscountExplainerTest {
+
+    private final DiscountEvaluator discountEvaluator = new DiscountEvaluator();
+
+    @Test
+    public void testAppliesTheDiscountTheEvaluatorPicks() {
+        Random random = new Random(11);
+        for (int round = 0; round < 300; round++) {
+            List<Discount> discounts = DiscountEvaluatorTest.randomDiscounts(random, 1 + random.nextInt(200));
+            // whole percentages make ties common
+            discounts.forEach(discount -> discount.setDiscountPercentage(Math.rint(discount.getDiscountPercentage() / 10)));
+            CartAggregate cart = CartAggregate.of(DiscountEvaluatorTest.randomItems(random, random.nextInt(30)));
+            DiscountRuleIndex index = DiscountRuleIndex.build(discounts);
+
+            PricingResult result = discountEvaluator.evaluateSequential(cart, index);
+            DiscountExplanation explanation = DiscountExplainer.explain(cart, index, 1000);
+
+            assertEquals(discounts.size(), explanation.getCandidates().size());
+            assertEquals(result.getRulesEvaluated(), explanation.getRulesEvaluated(), "round " + round);
+            assertEquals(discounts.size() - result.getRulesEvaluated(), explanation.getRulesSkippedByIndex());
+            List<CandidateDiscount> applied = explanation.getCandidates().stream()
+                    .filter(candidate -> candidate.getOutcome() == CandidateOutcome.APPLIED)
+                    .toList();
+            if (result.getBestDiscount() == null) {
+                assertTrue(applied.isEmpty(), "round " + round);
+            } else {
+                assertEquals(1, applied.size());
+                assertEquals(result.getBestDiscount().getDiscountCode(), applied.get(0).getDiscountCode(), "round " + round);
+                assertEquals(Money.toDecimal(result.getTotalDiscount()), applied.get(0).getAmount());
+            }
+        }
+    }
+
+    @Test
+    public void testExplainsEveryOutcome() {
+        List<Item> items = List.of(
+                new Item("tv", 100.0, ItemType.ELECTRONICS, 2),
+                new Item("radio", 50.0, ItemType.ELECTRONICS, 1),
+                new Item("shirt", 20.0, ItemType.CLOTHING, 2));
+        List<Discount> discounts = List.of(
+                discount("BOOKS", DiscountType.ITEM_TYPE, 50, d -> d.setApplicableItemType(ItemType.BOOK)),
+                discount("LAMP3", DiscountType.ITEM_COUNT, 50, d -> { d.setApplicableItemId("lamp"); d.setItemQuantityThreshold(1); }),
+                discount("OVER500", DiscountType.ITEM_COST, 50, d -> d.setMinimumCost(500.0)),
+                discount("TV3", DiscountType.ITEM_COUNT, 50, d -> { d.setApplicableItemId("tv"); d.setItemQuantityThreshold(3); }),
+                discount("FREE", DiscountType.ITEM_TYPE, 0, d -> d.setApplicableItemType(ItemType.CLOTHING)),
+                discount("TECH20", DiscountType.ITEM_TYPE, 20, d -> d.setApplicableItemType(ItemType.ELECTRONICS)),
+                discount("OVER60", DiscountType.ITEM_COST, 10, d -> d.setMinimumCost(60.0)),
+                discount("TV25", DiscountType.ITEM_COUNT, 25, d -> { d.setApplicableItemId("tv"); d.setItemQuantityThreshold(2); }));
+
+        DiscountExplanation explanation = DiscountExplainer.explain(CartAggregate.of(items), DiscountRuleIndex.build(discounts, 7L), 1000);
+
+        assertEquals(7L, explanation.getRuleVersion());
+        assertEquals(8, explanation.getRulesInCatalog());
+        assertEquals(5, explanation.getRulesEvaluated());
+        assertEquals(3, explanation.getRulesSkippedByIndex());
+        assertFalse(explanation.isTruncated());
+        Map<String, CandidateDiscount> candidates = explanation.getCandidates().stream()
+                .collect(Collectors.toMap(CandidateDiscount::getDiscountCode, Function.identity()));
+        assertEquals(CandidateOutcome.ITEM_TYPE_NOT_IN_CART, candidates.get("BOOKS").getOutcome());
+        assertEquals(CandidateOutcome.ITEM_NOT_IN_CART, candidates.get("LAMP3").getOutcome());
+        assertEquals(CandidateOutcome.NO_ITEM_ABOVE_MINIMUM_COST, candidates.get("OVER500").getOutcome());
+        assertTrue(candidates.get("OVER500").getMatchedItemIds().isEmpty());
+        assertEquals(CandidateOutcome.BELOW_QUANTITY_THRESHOLD, candidates.get("TV3").getOutcome());
+        assertEquals(List.of("tv"), candidates.get("TV3").getMatchedItemIds());
+        assertEquals(CandidateOutcome.NO_SAVING, candidates.get("FREE").getOutcome());
+        assertEquals(List.of("shirt"), candidates.get("FREE").getMatchedItemIds());
+        assertEquals(CandidateOutcome.APPLIED, candidates.get("TECH20").getOutcome());
+        assertEquals(50.0, candidates.get("TECH20").getAmount());
+        assertEquals(List.of("tv", "radio"), candidates.get("TECH20").getMatchedItemIds());
+        assertEquals(CandidateOutcome.LOWER_AMOUNT, candidates.get("OVER60").getOutcome());
+        assertEquals(20.0, candidates.get("OVER60").getAmount());
+        assertEquals(List.of("tv"), candidates.get("OVER60").getMatchedItemIds());
+        assertEquals(CandidateOutcome.SAME_AMOUNT_LOST_TIE, candidates.get("TV25").getOutcome());
+        assertEquals(50.0, candidates.get("TV25").getAmount());
+    }
+
+    @Test
+    public void testTruncatedListKeepsAppliedDiscount() {
+        List<Item> items = List.of(new Item("1", 100.0, ItemType.BOOK, 1));
+        List<Discount> discounts = List.of(
+                discount("A", DiscountType.ITEM_TYPE, 5, d -> d.setApplicableItemType(ItemType.BOOK)),
+                discount("B", DiscountType.ITEM_TYPE, 10, d -> d.setApplicableItemType(ItemType.BOOK)),
+                discount("C", DiscountType.ITEM_TYPE, 15, d -> d.setApplicableItemType(ItemType.BOOK)));
+
+        DiscountExplanation explanation = DiscountExplainer.explain(CartAggregate.of(items), DiscountRuleIndex.build(discounts), 1);
+
+        assertTrue(explanation.isTruncated());
+        assertEquals(3, explanation.getRulesEvaluated());
+        assertEquals(List.of("A", "C"), explanation.getCandidates().stream().map(CandidateDiscount::getDiscountCode).toList());
+        assertEquals(CandidateOutcome.APPLIED, explanation.getCandidates().get(1).getOutcome());
+    }
+
+    private static Discount discount(String discountCode, DiscountType discountType, double percentage,
+                                     Consumer<Discount> applicability) {
+        Discount discount = new Discount();
+        discount.setDiscountCode(discountCode);
+        discount.setDiscountType(discountType);
+        discount.setDiscountPercentage(percentage);
+        applicability.accept(discount);
+        return discount;
+    }
+}
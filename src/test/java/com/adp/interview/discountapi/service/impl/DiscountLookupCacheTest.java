@@ -0,0 +1,157 @@
+package com.adp.interview.discountapi.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.List;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountId;
+import com.adp.interview.discountapi.repository.DiscountRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class DiscountLookupCacheTest {
+
+    @Mock
+    private DiscountRepository discountRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DiscountLookupCache lookupCache;
+
+    private static final DiscountId SUMMER10 = new DiscountId(Discount.DEFAULT_TENANT, "SUMMER10");
+    private static final DiscountId SUMMER01 = new DiscountId(Discount.DEFAULT_TENANT, "SUMMER01");
+
+    private Discount discount;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        lookupCache = new DiscountLookupCache(discountRepository, meterRegistry, true, 100, 60000, 60000, 100, 0.01);
+        discount = new Discount();
+        discount.setTenantId(Discount.DEFAULT_TENANT);
+        discount.setDiscountCode("SUMMER10");
+    }
+
+    @Test
+    public void testCachesFoundAndMissingCodes() {
+        when(discountRepository.findById(SUMMER10)).thenReturn(Optional.of(discount));
+        when(discountRepository.findById(SUMMER01)).thenReturn(Optional.empty());
+
+        assertSame(discount, lookupCache.find(Discount.DEFAULT_TENANT, "SUMMER10").get());
+        assertSame(discount, lookupCache.find(Discount.DEFAULT_TENANT, "SUMMER10").get());
+        assertTrue(lookupCache.find(Discount.DEFAULT_TENANT, "SUMMER01").isEmpty());
+        assertTrue(lookupCache.find(Discount.DEFAULT_TENANT, "SUMMER01").isEmpty());
+
+        verify(discountRepository, times(1)).findById(SUMMER10);
+        verify(discountRepository, times(1)).findById(SUMMER01);
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", DiscountLookupCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    public void testFilterAnswersUnknownCodes() {
+        when(discountRepository.count()).thenReturn(1L);
+        when(discountRepository.findAllDiscountIds()).thenReturn(List.of(SUMMER10));
+        when(discountRepository.findById(SUMMER10)).thenReturn(Optional.of(discount));
+        lookupCache.rebuild();
+
+        assertTrue(lookupCache.find(Discount.DEFAULT_TENANT, "SUMMER10").isPresent());
+        int filtered = 0;
+        for (int i = 0; i < 100; i++) {
+            if (lookupCache.find(Discount.DEFAULT_TENANT, "TYPO" + i).isEmpty()) {
+                filtered++;
+            }
+        }
+
+        assertEquals(filtered, (int) meterRegistry.get(DiscountLookupCache.FILTERED_COUNTER).counter().count());
+        assertTrue(filtered >= 95, "filtered " + filtered);
+    }
+
+    @Test
+    public void testCodesOfOtherTenantsAreNotFound() {
+        when(discountRepository.count()).thenReturn(1L);
+        when(discountRepository.findAllDiscountIds()).thenReturn(List.of(SUMMER10));
+        when(discountRepository.findById(SUMMER10)).thenReturn(Optional.of(discount));
+        lookupCache.rebuild();
+
+        assertTrue(lookupCache.find(Discount.DEFAULT_TENANT, "SUMMER10").isPresent());
+        int missing = 0;
+        for (int i = 0; i < 100; i++) {
+            if (lookupCache.find("tenant" + i, "SUMMER10").isEmpty()) {
+                missing++;
+            }
+        }
+
+        assertEquals(100, missing);
+        verify(discountRepository, times(1)).findById(SUMMER10);
+    }
+
+    @Test
+    public void testSavedCodeReplacesMissingEntry() {
+        when(discountRepository.count()).thenReturn(0L);
+        when(discountRepository.findAllDiscountIds()).thenReturn(List.of());
+        lookupCache.rebuild();
+        assertTrue(lookupCache.find(Discount.DEFAULT_TENANT, "SUMMER10").isEmpty());
+        verify(discountRepository, never()).findById(SUMMER10);
+
+        lookupCache.onSaved(discount);
+        when(discountRepository.findById(SUMMER10)).thenReturn(Optional.of(discount));
+        assertSame(discount, lookupCache.find(Discount.DEFAULT_TENANT, "SUMMER10").get());
+
+        lookupCache.onDeleted(Discount.DEFAULT_TENANT, "SUMMER10");
+        when(discountRepository.findById(SUMMER10)).thenReturn(Optional.empty());
+        assertTrue(lookupCache.find(Discount.DEFAULT_TENANT, "SUMMER10").isEmpty());
+        verify(discountRepository, times(2)).findById(SUMMER10);
+    }
+
+    @Test
+    public void testInvalidationDoesNotWaitForALoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(discountRepository.findById(SUMMER10)).then(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.empty();
+        }).thenReturn(Optional.of(discount));
+        CompletableFuture<Optional<Discount>> stale =
+                CompletableFuture.supplyAsync(() -> lookupCache.find(Discount.DEFAULT_TENANT, "SUMMER10"));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> lookupCache.onSaved(discount));
+        release.countDown();
+
+        assertTrue(stale.get(5, TimeUnit.SECONDS).isEmpty());
+        assertSame(discount, lookupCache.find(Discount.DEFAULT_TENANT, "SUMMER10").get());
+    }
+
+    @Test
+    public void testDisabled() {
+        SimpleMeterRegistry disabledRegistry = new SimpleMeterRegistry();
+        DiscountLookupCache disabled = new DiscountLookupCache(discountRepository, disabledRegistry, false, 100, 60000, 60000, 100, 0.01);
+        when(discountRepository.findById(SUMMER10)).thenReturn(Optional.of(discount));
+
+        disabled.rebuild();
+        disabled.find(Discount.DEFAULT_TENANT, "SUMMER10");
+        disabled.find(Discount.DEFAULT_TENANT, "SUMMER10");
+
+        verify(discountRepository, times(2)).findById(SUMMER10);
+        verify(discountRepository, never()).findAllDiscountIds();
+        assertTrue(disabledRegistry.getMeters().isEmpty());
+    }
+}
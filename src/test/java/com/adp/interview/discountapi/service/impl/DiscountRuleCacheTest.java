@@ -0,0 +1,213 @@
+package com.adp.interview.discountapi.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountId;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+import com.adp.interview.discountapi.repository.DiscountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+
+@ExtendWith(MockitoExtension.class)
+public class DiscountRuleCacheTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-17T12:00:00Z");
+
+    @Mock
+    private DiscountRepository discountRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DiscountRuleCache discountRuleCache;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        discountRuleCache = new DiscountRuleCache(discountRepository, meterRegistry, 100, 60000);
+        setTime(NOW);
+    }
+
+    @Test
+    public void testLoadsOnlyDiscountsThatApplyNow() {
+        Discount current = discount("CURRENT", NOW.minusSeconds(60), NOW.plusSeconds(60));
+        Discount upcoming = discount("UPCOMING", NOW.plusSeconds(60), null);
+        Discount expired = discount("EXPIRED", null, NOW);
+        Discount usedUp = discount("USED_UP", null, null);
+        usedUp.setMaxRedemptions(5);
+        usedUp.setRedemptionCount(5);
+        when(discountRepository.findByTenantId(Discount.DEFAULT_TENANT)).thenReturn(List.of(current, upcoming, expired, usedUp));
+
+        DiscountRuleIndex index = discountRuleCache.reload(Discount.DEFAULT_TENANT);
+
+        assertEquals(1, index.size());
+        assertNotNull(index.getRule("CURRENT"));
+    }
+
+    @Test
+    public void testAppliesStartsAndEndsWhenDue() {
+        Discount spring = discount("SPRING", NOW.plusSeconds(60), NOW.plusSeconds(120));
+        when(discountRepository.findByTenantId(Discount.DEFAULT_TENANT)).thenReturn(List.of(spring));
+        discountRuleCache.reload(Discount.DEFAULT_TENANT);
+
+        assertEquals(0, discountRuleCache.applyDueTransitions());
+        setTime(NOW.plusSeconds(60));
+        assertEquals(1, discountRuleCache.applyDueTransitions());
+        assertNotNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("SPRING"));
+        setTime(NOW.plusSeconds(150));
+        assertEquals(1, discountRuleCache.applyDueTransitions());
+        assertNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("SPRING"));
+        setTime(NOW.plusSeconds(300));
+        assertEquals(0, discountRuleCache.applyDueTransitions());
+    }
+
+    @Test
+    public void testSavedWindowReplacesScheduledOne() {
+        when(discountRepository.findByTenantId(Discount.DEFAULT_TENANT)).thenReturn(List.of(discount("SALE", NOW.plusSeconds(60), null)));
+        discountRuleCache.reload(Discount.DEFAULT_TENANT);
+
+        discountRuleCache.onSaved(discount("SALE", NOW.plusSeconds(600), null));
+        setTime(NOW.plusSeconds(60));
+        discountRuleCache.applyDueTransitions();
+        assertNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("SALE"));
+
+        discountRuleCache.onDeleted(Discount.DEFAULT_TENANT, "SALE");
+        setTime(NOW.plusSeconds(600));
+        assertEquals(0, discountRuleCache.applyDueTransitions());
+        assertNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("SALE"));
+    }
+
+    @Test
+    public void testDeleteDropsScheduleOfIndexedDiscount() {
+        when(discountRepository.findByTenantId(Discount.DEFAULT_TENANT)).thenReturn(List.of(discount("ENDING", null, NOW.plusSeconds(60))));
+        discountRuleCache.reload(Discount.DEFAULT_TENANT);
+        assertEquals(1, scheduled(Discount.DEFAULT_TENANT).size());
+
+        discountRuleCache.onDeleted(Discount.DEFAULT_TENANT, "ENDING");
+
+        assertNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("ENDING"));
+        assertTrue(scheduled(Discount.DEFAULT_TENANT).isEmpty());
+    }
+
+    @Test
+    public void testExhaustedUntilSavedWithNewLimit() {
+        Discount limited = discount("LIMITED", null, null);
+        limited.setMaxRedemptions(10);
+        when(discountRepository.findByTenantId(Discount.DEFAULT_TENANT)).thenReturn(List.of(limited));
+        discountRuleCache.reload(Discount.DEFAULT_TENANT);
+
+        discountRuleCache.onExhausted(new DiscountId(Discount.DEFAULT_TENANT, "LIMITED"), 10);
+        assertNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("LIMITED"));
+        discountRuleCache.onSaved(limited);
+        assertNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("LIMITED"));
+
+        Discount raised = discount("LIMITED", null, null);
+        raised.setMaxRedemptions(20);
+        discountRuleCache.onSaved(raised);
+        assertEquals(20, discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("LIMITED").getMaxRedemptions());
+    }
+
+    @Test
+    public void testLoadsEachTenantOnFirstUse() {
+        Discount acme = discount("ACME", null, null);
+        acme.setTenantId("acme");
+        when(discountRepository.findByTenantId(Discount.DEFAULT_TENANT)).thenReturn(List.of(discount("HOUSE", null, null)));
+        when(discountRepository.findByTenantId("acme")).thenReturn(List.of(acme));
+
+        assertNotNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("HOUSE"));
+        assertFalse(discountRuleCache.isLoaded("acme"));
+        assertNull(discountRuleCache.current("acme").getRule("HOUSE"));
+        assertTrue(discountRuleCache.isLoaded("acme"));
+
+        Discount added = discount("ACME2", null, null);
+        added.setTenantId("acme");
+        long defaultVersion = discountRuleCache.current(Discount.DEFAULT_TENANT).getVersion();
+        discountRuleCache.onSaved(added);
+
+        assertEquals(2, discountRuleCache.current("acme").size());
+        assertEquals(defaultVersion, discountRuleCache.current(Discount.DEFAULT_TENANT).getVersion());
+        assertEquals(2, meterRegistry.get("discount.rules").tag("tenant", "acme").gauge().value());
+        assertEquals(1, meterRegistry.get("discount.rules").tag("tenant", Discount.DEFAULT_TENANT).gauge().value());
+
+        discountRuleCache.onDeleted("acme", "ACME");
+        assertEquals(1, discountRuleCache.current("acme").size());
+        assertNotNull(discountRuleCache.getLoadedRule(new DiscountId("acme", "ACME2")));
+    }
+
+    @Test
+    public void testTenantsKeepTheirOwnDiscountsWithTheSameCode() {
+        Discount house = discount("SALE", null, null);
+        house.setMaxRedemptions(10);
+        Discount acme = discount("SALE", null, null);
+        acme.setTenantId("acme");
+        acme.setMaxRedemptions(10);
+        when(discountRepository.findByTenantId(Discount.DEFAULT_TENANT)).thenReturn(List.of(house));
+        when(discountRepository.findByTenantId("acme")).thenReturn(List.of(acme));
+        discountRuleCache.reload(Discount.DEFAULT_TENANT);
+        discountRuleCache.reload("acme");
+
+        discountRuleCache.onExhausted(new DiscountId("acme", "SALE"), 10);
+        assertNull(discountRuleCache.current("acme").getRule("SALE"));
+        assertNotNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("SALE"));
+
+        discountRuleCache.onSaved(acme);
+        discountRuleCache.onDeleted(Discount.DEFAULT_TENANT, "SALE");
+        assertNull(discountRuleCache.getLoadedRule(new DiscountId(Discount.DEFAULT_TENANT, "SALE")));
+        assertNull(discountRuleCache.getLoadedRule(new DiscountId("acme", "SALE")));
+        acme.setMaxRedemptions(20);
+        discountRuleCache.onSaved(acme);
+        assertNotNull(discountRuleCache.getLoadedRule(new DiscountId("acme", "SALE")));
+    }
+
+    @Test
+    public void testEvictsLeastUsedTenants() {
+        discountRuleCache = new DiscountRuleCache(discountRepository, meterRegistry, 1, 60000);
+        when(discountRepository.findByTenantId(Discount.DEFAULT_TENANT)).thenReturn(List.of(discount("HOUSE", null, null)));
+        when(discountRepository.findByTenantId("acme")).thenReturn(List.of());
+
+        long version = discountRuleCache.current(Discount.DEFAULT_TENANT).getVersion();
+        discountRuleCache.current("acme");
+
+        assertFalse(discountRuleCache.isLoaded(Discount.DEFAULT_TENANT));
+        assertNull(meterRegistry.find("discount.rules").tag("tenant", Discount.DEFAULT_TENANT).gauge());
+        assertTrue(discountRuleCache.current(Discount.DEFAULT_TENANT).getVersion() > version);
+        verify(discountRepository, times(2)).findByTenantId(Discount.DEFAULT_TENANT);
+    }
+
+    private void setTime(Instant now) {
+        ReflectionTestUtils.setField(discountRuleCache, "clock", Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private static Discount discount(String code, Instant validFrom, Instant validUntil) {
+        Discount discount = new Discount();
+        discount.setDiscountCode(code);
+        discount.setDiscountPercentage(10);
+        discount.setDiscountType(DiscountType.ITEM_TYPE);
+        discount.setApplicableItemType(ItemType.BOOK);
+        discount.setValidFrom(validFrom);
+        discount.setValidUntil(validUntil);
+        return discount;
+    }
+
+    private Map<?, ?> scheduled(String tenantId) {
+        Cache<?, ?> tenants = (Cache<?, ?>) ReflectionTestUtils.getField(discountRuleCache, "tenants");
+        return (Map<?, ?>) ReflectionTestUtils.getField(tenants.asMap().get(tenantId), "scheduled");
+    }
+}
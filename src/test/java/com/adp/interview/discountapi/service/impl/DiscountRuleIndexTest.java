@@ -0,0 +1,118 @@
+package com.adp.interview.discountapi.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+
+public class DiscountRuleIndexTest {
+
+    private List<Discount> discounts;
+
+    @BeforeEach
+    public void setup() {
+        discounts = new ArrayList<>();
+        discounts.add(itemType("TYPE1", ItemType.CLOTHING, 10));
+        discounts.add(itemCount("COUNT1", "123", 5, 20));
+        discounts.add(itemCost("COST1", 100.0, 15));
+        discounts.add(itemCost("COST2", 50.0, 5));
+        discounts.add(itemType("TYPE2", ItemType.CLOTHING, 30));
+    }
+
+    @Test
+    public void testBuildGroupsRulesByType() {
+        DiscountRuleIndex index = DiscountRuleIndex.build(discounts);
+
+        assertEquals(5, index.size());
+        assertEquals(List.of("TYPE1", "TYPE2"), codes(index.getItemTypeRules(ItemType.CLOTHING)));
+        assertTrue(index.getItemTypeRules(ItemType.BOOK).length == 0);
+        assertEquals(List.of("COUNT1"), codes(index.getItemCountRules("123")));
+        assertTrue(index.getItemCountRules("456").length == 0);
+        assertEquals(List.of("COST2", "COST1"), codes(index.getItemCostRules()));
+    }
+
+    @Test
+    public void testCountItemCostRulesBelow() {
+        DiscountRuleIndex index = DiscountRuleIndex.build(discounts);
+
+        assertEquals(0, index.countItemCostRulesBelow(5000));
+        assertEquals(1, index.countItemCostRulesBelow(5001));
+        assertEquals(1, index.countItemCostRulesBelow(10000));
+        assertEquals(2, index.countItemCostRulesBelow(15000));
+    }
+
+    @Test
+    public void testWithKeepsOrdinalOfExistingCode() {
+        DiscountRuleIndex index = DiscountRuleIndex.build(discounts);
+        int ordinal = index.getRule("COUNT1").getOrdinal();
+
+        DiscountRuleIndex updated = index.with(itemCount("COUNT1", "456", 2, 50));
+
+        assertEquals(ordinal, updated.getRule("COUNT1").getOrdinal());
+        assertTrue(updated.getItemCountRules("123").length == 0);
+        assertEquals(List.of("COUNT1"), codes(updated.getItemCountRules("456")));
+        assertEquals(index.getVersion() + 1, updated.getVersion());
+        // the original snapshot is untouched
+        assertEquals(List.of("COUNT1"), codes(index.getItemCountRules("123")));
+    }
+
+    @Test
+    public void testWithAppendsNewCode() {
+        DiscountRuleIndex index = DiscountRuleIndex.build(discounts).with(itemType("TYPE3", ItemType.CLOTHING, 5));
+
+        assertEquals(6, index.size());
+        assertTrue(index.getRule("TYPE3").getOrdinal() > index.getRule("TYPE2").getOrdinal());
+        assertEquals(List.of("TYPE1", "TYPE2", "TYPE3"), codes(index.getItemTypeRules(ItemType.CLOTHING)));
+    }
+
+    @Test
+    public void testWithout() {
+        DiscountRuleIndex index = DiscountRuleIndex.build(discounts);
+
+        DiscountRuleIndex updated = index.without("COST1");
+
+        assertNull(updated.getRule("COST1"));
+        assertEquals(List.of("COST2"), codes(updated.getItemCostRules()));
+        assertSame(updated, updated.without("UNKNOWN"));
+    }
+
+    private static List<String> codes(DiscountRule[] rules) {
+        return Arrays.stream(rules).map(DiscountRule::getDiscountCode).toList();
+    }
+
+    private static Discount itemType(String code, ItemType itemType, double percentage) {
+        Discount discount = new Discount();
+        discount.setDiscountCode(code);
+        discount.setDiscountPercentage(percentage);
+        discount.setDiscountType(DiscountType.ITEM_TYPE);
+        discount.setApplicableItemType(itemType);
+        return discount;
+    }
+
+    private static Discount itemCount(String code, String itemId, int threshold, double percentage) {
+        Discount discount = new Discount();
+        discount.setDiscountCode(code);
+        discount.setDiscountPercentage(percentage);
+        discount.setDiscountType(DiscountType.ITEM_COUNT);
+        discount.setApplicableItemId(itemId);
+        discount.setItemQuantityThreshold(threshold);
+        return discount;
+    }
+
+    private static Discount itemCost(String code, double minimumCost, double percentage) {
+        Discount discount = new Discount();
+        discount.setDiscountCode(code);
+        discount.setDiscountPercentage(percentage);
+        discount.setDiscountType(DiscountType.ITEM_COST);
+        discount.setMinimumCost(minimumCost);
+        return discount;
+    }
+}
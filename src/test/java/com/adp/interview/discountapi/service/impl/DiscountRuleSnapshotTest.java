@@ -0,0 +1,152 @@
+package com.adp.interview.discountapi.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.Item;
+import com.adp.interview.discountapi.entity.ItemType;
+import com.adp.interview.discountapi.repository.DiscountRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class DiscountRuleSnapshotTest {
+
+    @TempDir
+    private Path directory;
+
+    @Mock
+    private DiscountRepository discountRepository;
+
+    private List<Discount> discounts;
+
+    @BeforeEach
+    public void setup() {
+        discounts = new ArrayList<>();
+        discounts.add(discount("BOOKS", DiscountType.ITEM_TYPE, 10.5));
+        discounts.get(0).setApplicableItemType(ItemType.BOOK);
+        discounts.get(0).setStackable(true);
+        discounts.get(0).setExclusiveGroup("seasonal");
+        discounts.add(discount("BULK", DiscountType.ITEM_COUNT, 20));
+        discounts.get(1).setApplicableItemId("42");
+        discounts.get(1).setItemQuantityThreshold(3);
+        discounts.get(1).setMaxRedemptions(100);
+        discounts.get(1).setRedemptionCount(7);
+        discounts.add(discount("BIG_SPEND", DiscountType.ITEM_COST, 5));
+        discounts.get(2).setMinimumCost(99.99);
+        discounts.get(2).setPriority(2);
+    }
+
+    @Test
+    public void testSeedsTenantsFromWrittenSnapshot() throws Exception {
+        Path path = directory.resolve("rules.snapshot");
+        DiscountRuleCache source = cache();
+        when(discountRepository.findByTenantId(Discount.DEFAULT_TENANT)).thenReturn(discounts);
+        when(discountRepository.findByTenantId("acme")).thenReturn(List.of(discounts.get(2)));
+        source.reload(Discount.DEFAULT_TENANT);
+        source.reload("acme");
+        // moves BULK after BIG_SPEND in catalog order, leaving a gap in the ordinals
+        source.onDeleted(Discount.DEFAULT_TENANT, "BULK");
+        source.onSaved(discounts.get(1));
+        assertFalse(source.seed("acme", DiscountRuleIndex.EMPTY));
+        DiscountRuleSnapshot writer = new DiscountRuleSnapshot(source, true, path.toString());
+
+        assertTrue(writer.writeIfChanged());
+        assertFalse(writer.writeIfChanged());
+
+        DiscountRuleCache target = cache();
+        assertEquals(2, new DiscountRuleSnapshot(target, true, path.toString()).load());
+        Map<String, DiscountRuleIndex> expected = source.getLoadedIndexes();
+        Map<String, DiscountRuleIndex> seeded = target.getLoadedIndexes();
+        assertEquals(expected.keySet(), seeded.keySet());
+        for (String tenantId : expected.keySet()) {
+            assertEquals(List.copyOf(expected.get(tenantId).getRules()), List.copyOf(seeded.get(tenantId).getRules()));
+            assertEquals(expected.get(tenantId).getVersion(), seeded.get(tenantId).getVersion());
+        }
+        List<Item> cart = List.of(new Item("42", 120.0, ItemType.BOOK, 3));
+        assertEquals(price(source.current(Discount.DEFAULT_TENANT), cart), price(target.current(Discount.DEFAULT_TENANT), cart));
+        // changes after seeding are numbered after the snapshot's versions
+        target.onSaved(discounts.get(0));
+        assertTrue(target.current(Discount.DEFAULT_TENANT).getVersion() > source.current("acme").getVersion());
+    }
+
+    @Test
+    public void testSeededTenantKeepsItsValiditySchedule() throws Exception {
+        Path path = directory.resolve("rules.snapshot");
+        Instant now = Instant.now();
+        Discount later = discounts.get(0);
+        later.setValidFrom(now.plus(Duration.ofHours(1)));
+        Discount ending = discounts.get(2);
+        ending.setValidUntil(now.plus(Duration.ofHours(1)));
+        DiscountRuleCache source = cache();
+        when(discountRepository.findByTenantId(Discount.DEFAULT_TENANT)).thenReturn(discounts);
+        source.reload(Discount.DEFAULT_TENANT);
+        assertTrue(new DiscountRuleSnapshot(source, true, path.toString()).writeIfChanged());
+
+        DiscountRuleCache target = cache();
+        assertEquals(1, new DiscountRuleSnapshot(target, true, path.toString()).load());
+        assertNull(target.current(Discount.DEFAULT_TENANT).getRule("BOOKS"));
+        assertNotNull(target.current(Discount.DEFAULT_TENANT).getRule("BIG_SPEND"));
+
+        ReflectionTestUtils.setField(target, "clock", Clock.fixed(now.plus(Duration.ofHours(2)), ZoneOffset.UTC));
+        assertEquals(2, target.applyDueTransitions());
+        DiscountRule started = target.current(Discount.DEFAULT_TENANT).getRule("BOOKS");
+        assertNotNull(started);
+        assertEquals("seasonal", started.getExclusiveGroup());
+        assertEquals(1050, started.getBasisPoints());
+        assertNull(target.current(Discount.DEFAULT_TENANT).getRule("BIG_SPEND"));
+        assertTrue(target.getScheduledDiscounts().get(Discount.DEFAULT_TENANT).isEmpty());
+        // seeding and the transitions never read the table
+        verify(discountRepository, times(1)).findByTenantId(Discount.DEFAULT_TENANT);
+    }
+
+    @Test
+    public void testIgnoresUnreadableSnapshot() throws Exception {
+        Path path = directory.resolve("rules.snapshot");
+        Files.write(path, new byte[] {0x44, 0x52, 0x53, 0x31, 0, 0, 0, 1, 0x7f, 0, 0, 0});
+        DiscountRuleCache target = cache();
+
+        assertEquals(0, new DiscountRuleSnapshot(target, true, path.toString()).load());
+        assertEquals(0, new DiscountRuleSnapshot(target, true, directory.resolve("missing").toString()).load());
+        assertTrue(target.getLoadedIndexes().isEmpty());
+        verifyNoInteractions(discountRepository);
+    }
+
+    private DiscountRuleCache cache() {
+        return new DiscountRuleCache(discountRepository, new SimpleMeterRegistry(), 100, 60000);
+    }
+
+    private static long price(DiscountRuleIndex index, List<Item> items) {
+        return new DiscountEvaluator().evaluate(CartAggregate.of(PricingCart.of(items)), index).getTotalDiscount();
+    }
+
+    private static Discount discount(String code, DiscountType type, double percentage) {
+        Discount discount = new Discount();
+        discount.setDiscountCode(code);
+        discount.setDiscountType(type);
+        discount.setDiscountPercentage(percentage);
+        return discount;
+    }
+}
@@ -1,42 +1,86 @@
 package com.adp.interview.discountapi.service.impl;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.web.server.ResponseStatusException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import com.adp.interview.discountapi.entity.CandidateDiscount;
+import com.adp.interview.discountapi.entity.CandidateOutcome;
 import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountChangeType;
+import com.adp.interview.discountapi.entity.DiscountExplanation;
+import com.adp.interview.discountapi.entity.DiscountId;
+import com.adp.interview.discountapi.entity.DiscountImportResponse;
 import com.adp.interview.discountapi.entity.DiscountRequest;
 import com.adp.interview.discountapi.entity.DiscountResponse;
 import com.adp.interview.discountapi.entity.DiscountType;
 import com.adp.interview.discountapi.entity.Item;
 import com.adp.interview.discountapi.entity.ItemType;
+import com.adp.interview.discountapi.entity.RankedDiscount;
+import com.adp.interview.discountapi.entity.RankedDiscountResponse;
+import com.adp.interview.discountapi.entity.StackedDiscountResponse;
+import com.adp.interview.discountapi.repository.DiscountChangeEventRepository;
+import com.adp.interview.discountapi.repository.DiscountJdbcRepository;
 import com.adp.interview.discountapi.repository.DiscountRepository;
 
 
 @ExtendWith(MockitoExtension.class)
 public class DiscountServiceImplTest {
 
+    private static final String TENANT = Discount.DEFAULT_TENANT;
+
     @Mock
     private DiscountRepository discountRepository;
 
-    @InjectMocks
+    @Mock
+    private DiscountJdbcRepository discountJdbcRepository;
+
+    @Mock
+    private DiscountChangeEventRepository changeEventRepository;
+
+    @Mock
+    private DiscountChangeLogTailer changeLogTailer;
+
     private DiscountServiceImpl discountServiceImpl;
 
+    private SimpleMeterRegistry pricingRegistry;
+
     private List<Discount> discounts;
 
     @BeforeEach
     public void setup() {
+        pricingRegistry = new SimpleMeterRegistry();
+        DiscountRuleCache discountRuleCache = new DiscountRuleCache(discountRepository, new SimpleMeterRegistry(), 100, 60000);
+        discountServiceImpl = new DiscountServiceImpl(discountRepository, discountJdbcRepository, changeEventRepository,
+                discountRuleCache, new DiscountEvaluator(),
+                new PricingResultCache(new SimpleMeterRegistry(), true, 1000, 60000), new StackedDiscountOptimizer(),
+                new RedemptionCounter(discountRuleCache, discountJdbcRepository, null),
+                new PricingMetrics(pricingRegistry, true, 1000, 100, 100), changeLogTailer,
+                new DiscountLookupCache(discountRepository, new SimpleMeterRegistry(), true, 1000, 60000, 60000, 1000, 0.01),
+                Validation.buildDefaultValidatorFactory().getValidator());
         discounts = new ArrayList<>();
         Discount discount1 = new Discount();
         discount1.setDiscountCode("DISCOUNT1");
@@ -60,18 +104,26 @@ public class DiscountServiceImplTest {
     }
 
     @Test
-    public void testGetAllDiscounts() {
-        when(discountRepository.findAll()).thenReturn(discounts);
-        List<Discount> actualDiscounts = discountServiceImpl.getAllDiscounts();
-        assertEquals(discounts, actualDiscounts);
+    public void testGetDiscounts() {
+        when(discountRepository.findByTenantIdAndDiscountCodeGreaterThanOrderByDiscountCodeAsc(TENANT, "", PageRequest.of(0, 10), Discount.class))
+                .thenReturn(discounts);
+        assertEquals(discounts, discountServiceImpl.getDiscounts(TENANT, null, 10, null, null, Discount.class));
+
+        when(discountRepository.findByTenantIdAndDiscountTypeAndApplicableItemTypeAndDiscountCodeGreaterThanOrderByDiscountCodeAsc(
+                TENANT, DiscountType.ITEM_TYPE, ItemType.CLOTHING, "DISCOUNT0", PageRequest.of(0, 10), Discount.class))
+                .thenReturn(discounts.subList(0, 1));
+        assertEquals(discounts.subList(0, 1),
+                discountServiceImpl.getDiscounts(TENANT, "DISCOUNT0", 10, DiscountType.ITEM_TYPE, ItemType.CLOTHING, Discount.class));
     }
 
     @Test
     public void testGetDiscountByCode() {
         Discount expectedDiscount = discounts.get(0);
-        when(discountRepository.findById(expectedDiscount.getDiscountCode())).thenReturn(Optional.of(expectedDiscount));
-        Optional<Discount> actualDiscountOptional = discountServiceImpl.getDiscountByCode(expectedDiscount.getDiscountCode());
+        when(discountRepository.findById(new DiscountId(TENANT, "DISCOUNT1"))).thenReturn(Optional.of(expectedDiscount));
+        when(discountRepository.findById(new DiscountId("acme", "DISCOUNT1"))).thenReturn(Optional.empty());
+        Optional<Discount> actualDiscountOptional = discountServiceImpl.getDiscountByCode(TENANT, expectedDiscount.getDiscountCode());
         assertEquals(expectedDiscount, actualDiscountOptional.get());
+        assertTrue(discountServiceImpl.getDiscountByCode("acme", expectedDiscount.getDiscountCode()).isEmpty());
     }
 
     @Test
@@ -84,12 +136,96 @@ public class DiscountServiceImplTest {
         when(discountRepository.save(expectedDiscount)).thenReturn(expectedDiscount);
         Discount actualDiscount = discountServiceImpl.addDiscount(expectedDiscount);
         assertEquals(expectedDiscount, actualDiscount);
+        verify(changeEventRepository).save(argThat(event -> event.getDiscountCode().equals("DISCOUNT4")
+                && event.getChangeType() == DiscountChangeType.UPSERT));
+    }
+
+    @Test
+    public void testAddDiscountWithEmptyValidityWindow() {
+        Discount discount = discounts.get(0);
+        discount.setValidFrom(Instant.parse("2026-12-01T00:00:00Z"));
+        discount.setValidUntil(Instant.parse("2026-11-01T00:00:00Z"));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> discountServiceImpl.addDiscount(discount));
+        assertEquals("Valid until must be after valid from.", e.getReason());
+    }
+
+    @Test
+    public void testRedeemDiscount() {
+        Discount limited = discounts.get(0);
+        limited.setMaxRedemptions(2);
+        limited.setRedemptionCount(1);
+        Discount expired = discounts.get(1);
+        expired.setValidUntil(Instant.parse("2020-01-01T00:00:00Z"));
+        when(discountRepository.findByTenantId(TENANT)).thenReturn(discounts);
+        when(discountRepository.findByTenantIdAndDiscountCode(TENANT, "DISCOUNT1")).thenReturn(Optional.of(limited));
+        when(discountRepository.findByTenantIdAndDiscountCode(TENANT, "DISCOUNT2")).thenReturn(Optional.of(expired));
+        when(discountRepository.findByTenantIdAndDiscountCode(TENANT, "MISSING")).thenReturn(Optional.empty());
+
+        discountServiceImpl.redeemDiscount(TENANT, "DISCOUNT1");
+
+        assertEquals("Discount DISCOUNT1 has no redemptions left.", assertThrows(ResponseStatusException.class,
+                () -> discountServiceImpl.redeemDiscount(TENANT, "DISCOUNT1")).getReason());
+        assertEquals("Discount DISCOUNT2 does not apply at this time.", assertThrows(ResponseStatusException.class,
+                () -> discountServiceImpl.redeemDiscount(TENANT, "DISCOUNT2")).getReason());
+        assertEquals(404, assertThrows(ResponseStatusException.class,
+                () -> discountServiceImpl.redeemDiscount(TENANT, "MISSING")).getStatusCode().value());
+        discountServiceImpl.redeemDiscount(TENANT, "DISCOUNT3");
+    }
+
+    @Test
+    public void testAddDiscountWithCodeOfOtherTenant() {
+        Discount discount = new Discount();
+        discount.setTenantId("acme");
+        discount.setDiscountCode("DISCOUNT1");
+        discount.setDiscountPercentage(10);
+        discount.setDiscountType(DiscountType.ITEM_TYPE);
+        discount.setApplicableItemType(ItemType.BOOK);
+        when(discountRepository.save(discount)).thenReturn(discount);
+
+        assertSame(discount, discountServiceImpl.addDiscount(discount));
+        verify(discountRepository, never()).findById(any());
+        verify(changeEventRepository).save(argThat(event -> event.getTenantId().equals("acme")
+                && event.getDiscountCode().equals("DISCOUNT1") && event.getChangeType() == DiscountChangeType.UPSERT));
+    }
+
+    @Test
+    public void testTenantsArePricedAgainstTheirOwnRules() {
+        Discount acme = new Discount();
+        acme.setDiscountCode("ACME50");
+        acme.setTenantId("acme");
+        acme.setDiscountPercentage(50);
+        acme.setDiscountType(DiscountType.ITEM_TYPE);
+        acme.setApplicableItemType(ItemType.CLOTHING);
+        when(discountRepository.findByTenantId(TENANT)).thenReturn(discounts);
+        when(discountRepository.findByTenantId("acme")).thenReturn(List.of(acme));
+        DiscountRequest request = new DiscountRequest();
+        request.setItems(List.of(new Item("1", 100.0, ItemType.CLOTHING, 1)));
+
+        assertEquals("DISCOUNT3", discountServiceImpl.calculateBestDiscount(TENANT, request).getDiscountCode());
+        assertEquals("ACME50", discountServiceImpl.calculateBestDiscount("acme", request).getDiscountCode());
+        assertEquals(404, assertThrows(ResponseStatusException.class,
+                () -> discountServiceImpl.redeemDiscount("acme", "DISCOUNT1")).getStatusCode().value());
+    }
+
+    @Test
+    public void testDeleteDiscountOfOtherTenant() {
+        when(discountRepository.findByTenantIdAndDiscountCode("acme", "DISCOUNT1")).thenReturn(Optional.empty());
+
+        discountServiceImpl.deleteDiscount("acme", "DISCOUNT1");
+
+        verify(discountRepository, never()).deleteById(any());
+        verifyNoInteractions(changeEventRepository);
     }
 
     @Test
     public void testDeleteDiscount() {
         Discount expectedDiscount = discounts.get(0);
-        discountServiceImpl.deleteDiscount(expectedDiscount.getDiscountCode());
+        when(discountRepository.findByTenantIdAndDiscountCode(TENANT, "DISCOUNT1")).thenReturn(Optional.of(expectedDiscount));
+        discountServiceImpl.deleteDiscount(TENANT, expectedDiscount.getDiscountCode());
+        verify(discountRepository).deleteById(new DiscountId(TENANT, "DISCOUNT1"));
+        verify(changeEventRepository).save(argThat(event -> event.getTenantId().equals(TENANT)
+                && event.getDiscountCode().equals("DISCOUNT1") && event.getChangeType() == DiscountChangeType.DELETE));
     }
 
     @Test
@@ -151,6 +287,54 @@ public class DiscountServiceImplTest {
         assertThrows(ResponseStatusException.class, () -> discountServiceImpl.validateDiscount(discount));
     }
 
+    @Test
+    public void testValidateDiscountExclusiveGroup_failure() {
+        Discount discount = new Discount();
+        discount.setDiscountCode("DISCOUNT5");
+        discount.setDiscountPercentage(10);
+        discount.setDiscountType(DiscountType.ITEM_TYPE);
+        discount.setApplicableItemType(ItemType.BOOK);
+        discount.setExclusiveGroup("GROUP1");
+        assertThrows(ResponseStatusException.class, () -> discountServiceImpl.validateDiscount(discount));
+        discount.setStackable(true);
+        discountServiceImpl.validateDiscount(discount);
+    }
+
+    @Test
+    public void testCalculateStackedDiscount() {
+        List<Item> items = new ArrayList<>();
+        items.add(new Item("id1", 100.0, ItemType.ELECTRONICS, 2));
+        items.add(new Item("id2", 50.0, ItemType.CLOTHING, 1));
+
+        Discount discount1 = new Discount();
+        discount1.setDiscountCode("DISCOUNT1");
+        discount1.setDiscountPercentage(20);
+        discount1.setDiscountType(DiscountType.ITEM_TYPE);
+        discount1.setApplicableItemType(ItemType.ELECTRONICS);
+        discount1.setStackable(true);
+
+        Discount discount2 = new Discount();
+        discount2.setDiscountCode("DISCOUNT2");
+        discount2.setDiscountPercentage(10);
+        discount2.setDiscountType(DiscountType.ITEM_TYPE);
+        discount2.setApplicableItemType(ItemType.CLOTHING);
+        discount2.setStackable(true);
+
+        DiscountRequest request = new DiscountRequest();
+        request.setItems(items);
+        when(discountRepository.findByTenantId(TENANT)).thenReturn(List.of(discount1, discount2));
+
+        StackedDiscountResponse response = discountServiceImpl.calculateStackedDiscount(TENANT, request);
+
+        assertEquals(List.of("DISCOUNT1", "DISCOUNT2"), response.getDiscountCodes());
+        assertEquals(250.0, response.getTotalCost());
+        assertEquals(45.0, response.getTotalDiscount());
+        assertEquals(205.0, response.getTotalCostAfterDiscount());
+        assertEquals(40.0, response.getLines().get(0).getDiscount());
+        assertEquals("DISCOUNT2", response.getLines().get(1).getDiscountCode());
+        assertTrue(response.isOptimal());
+    }
+
     @Test
     public void testCalculateBestDiscountForItemType() {
         // create test data
@@ -178,10 +362,10 @@ public class DiscountServiceImplTest {
         request.setItems(items);
 
         // set up mock objects
-        when(discountRepository.findAll()).thenReturn(discounts);
+        when(discountRepository.findByTenantId(TENANT)).thenReturn(discounts);
 
         // invoke the method to be tested
-        DiscountResponse response = discountServiceImpl.calculateBestDiscount(request);
+        DiscountResponse response = discountServiceImpl.calculateBestDiscount(TENANT, request);
 
         // check the results
         assertNotNull(response);
@@ -191,6 +375,64 @@ public class DiscountServiceImplTest {
         assertEquals(discount1.getDiscountCode(), response.getDiscountCode());
     }
 
+    @Test
+    public void testCachedResultsAreRecorded() {
+        DiscountRequest request = new DiscountRequest();
+        request.setItems(List.of(new Item("123", 100.0, ItemType.CLOTHING, 5)));
+        when(discountRepository.findByTenantId(TENANT)).thenReturn(discounts);
+
+        discountServiceImpl.calculateBestDiscount(TENANT, request);
+        discountServiceImpl.calculateBestDiscount(TENANT, request);
+
+        assertEquals(2, pricingRegistry.get("discount.calculate").timer().count());
+    }
+
+    @Test
+    public void testExplainBestDiscount() {
+        List<Item> items = List.of(new Item("123", 100.0, ItemType.CLOTHING, 5));
+        DiscountRequest request = new DiscountRequest();
+        request.setItems(items);
+        when(discountRepository.findByTenantId(TENANT)).thenReturn(discounts);
+
+        DiscountResponse plain = discountServiceImpl.calculateBestDiscount(TENANT, request);
+        DiscountResponse explained = discountServiceImpl.explainBestDiscount(TENANT, request);
+
+        assertNull(plain.getExplanation());
+        assertEquals(plain.getDiscountCode(), explained.getDiscountCode());
+        assertEquals(plain.getTotalDiscount(), explained.getTotalDiscount());
+        DiscountExplanation explanation = explained.getExplanation();
+        assertTrue(explanation.isCachedResult());
+        assertEquals(3, explanation.getRulesEvaluated());
+        assertEquals(List.of(CandidateOutcome.LOWER_AMOUNT, CandidateOutcome.APPLIED, CandidateOutcome.LOWER_AMOUNT),
+                explanation.getCandidates().stream().map(CandidateDiscount::getOutcome).toList());
+
+        request.setItems(List.of(new Item("123", 100.0, ItemType.CLOTHING, 4)));
+        assertFalse(discountServiceImpl.explainBestDiscount(TENANT, request).getExplanation().isCachedResult());
+        assertEquals(1, pricingRegistry.get("discount.calculate").timer().count());
+        assertEquals(2, pricingRegistry.get("discount.calculate.explain").timer().count());
+    }
+
+    @Test
+    public void testCalculateTopDiscounts() {
+        DiscountRequest request = new DiscountRequest();
+        request.setItems(List.of(new Item("123", 100.0, ItemType.CLOTHING, 5)));
+        when(discountRepository.findByTenantId(TENANT)).thenReturn(discounts);
+
+        RankedDiscountResponse response = discountServiceImpl.calculateTopDiscounts(TENANT, request, 2);
+
+        assertEquals(500.0, response.getTotalCost());
+        assertEquals(List.of("DISCOUNT2", "DISCOUNT3"),
+                response.getDiscounts().stream().map(RankedDiscount::getDiscountCode).toList());
+        assertEquals(100.0, response.getDiscounts().get(0).getTotalDiscount());
+        assertEquals(425.0, response.getDiscounts().get(1).getTotalCostAfterDiscount());
+        assertEquals(1, pricingRegistry.get("discount.calculate.top").timer().count());
+        assertEquals(0L, pricingRegistry.find("discount.calculate").timers().stream().mapToLong(Timer::count).sum());
+        assertEquals(0.0, pricingRegistry.find("discount.calculate.winner.type").counters().stream()
+                .mapToDouble(Counter::count).sum());
+        assertEquals(discountServiceImpl.calculateBestDiscount(TENANT, request).getDiscountCode(),
+                response.getDiscounts().get(0).getDiscountCode());
+    }
+
     @Test
     public void testCalculateBestDiscountForItemCount() {
         // create test data
@@ -221,10 +463,10 @@ public class DiscountServiceImplTest {
         request.setItems(items);
 
         // set up mock objects
-        when(discountRepository.findAll()).thenReturn(discounts);
+        when(discountRepository.findByTenantId(TENANT)).thenReturn(discounts);
 
         // invoke the method to be tested
-        DiscountResponse response = discountServiceImpl.calculateBestDiscount(request);
+        DiscountResponse response = discountServiceImpl.calculateBestDiscount(TENANT, request);
 
         // check the results
         assertNotNull(response);
@@ -262,10 +504,10 @@ public class DiscountServiceImplTest {
         request.setItems(items);
 
         // set up mock objects
-        when(discountRepository.findAll()).thenReturn(discounts);
+        when(discountRepository.findByTenantId(TENANT)).thenReturn(discounts);
 
         // invoke the method to be tested
-        DiscountResponse response = discountServiceImpl.calculateBestDiscount(request);
+        DiscountResponse response = discountServiceImpl.calculateBestDiscount(TENANT, request);
 
         // check the results
         assertNotNull(response);
@@ -302,10 +544,10 @@ public class DiscountServiceImplTest {
         request.setItems(items);
 
         // set up mock objects
-        when(discountRepository.findAll()).thenReturn(discounts);
+        when(discountRepository.findByTenantId(TENANT)).thenReturn(discounts);
 
         // invoke the method to be tested
-        DiscountResponse response = discountServiceImpl.calculateBestDiscount(request);
+        DiscountResponse response = discountServiceImpl.calculateBestDiscount(TENANT, request);
 
         // check the results
         assertNotNull(response);
@@ -350,10 +592,10 @@ public class DiscountServiceImplTest {
         request.setItems(items);
 
         // set up mock objects
-        when(discountRepository.findAll()).thenReturn(discounts);
+        when(discountRepository.findByTenantId(TENANT)).thenReturn(discounts);
 
         // invoke the method to be tested
-        DiscountResponse response = discountServiceImpl.calculateBestDiscount(request);
+        DiscountResponse response = discountServiceImpl.calculateBestDiscount(TENANT, request);
 
         // check the results
         assertNotNull(response);
@@ -390,10 +632,10 @@ public class DiscountServiceImplTest {
         request.setItems(items);
 
         // set up mock objects
-        when(discountRepository.findAll()).thenReturn(discounts);
+        when(discountRepository.findByTenantId(TENANT)).thenReturn(discounts);
 
         // invoke the method to be tested
-        DiscountResponse response = discountServiceImpl.calculateBestDiscount(request);
+        DiscountResponse response = discountServiceImpl.calculateBestDiscount(TENANT, request);
 
         // check the results
         assertNotNull(response);
@@ -402,4 +644,81 @@ public class DiscountServiceImplTest {
         assertEquals(1 * 300.0 + 1* 50.0- 1 * 300.0 * 0.15 , response.getTotalCostAfterDiscount());
         assertEquals(discount2.getDiscountCode(), response.getDiscountCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCalculateBestDiscounts() {
+        // create test data
+        DiscountRequest request1 = new DiscountRequest();
+        request1.setItems(List.of(new Item("123",  50.0,  ItemType.CLOTHING,5)));
+        DiscountRequest request2 = new DiscountRequest();
+        DiscountRequest request3 = new DiscountRequest();
+        request3.setItems(List.of(new Item("456",  300.0,  ItemType.ELECTRONICS,1)));
+
+        List<DiscountRequest> requests = new ArrayList<>();
+        requests.add(request1);
+        requests.add(request2);
+        requests.add(request3);
+
+        // set up mock objects
+        when(discountRepository.findByTenantId(TENANT)).thenReturn(discounts);
+
+        // invoke the method to be tested
+        List<DiscountResponse> responses = discountServiceImpl.calculateBestDiscounts(TENANT, requests);
+
+        // check the results
+        assertEquals(3, responses.size());
+        assertEquals("DISCOUNT2", responses.get(0).getDiscountCode());
+        assertEquals(5 * 50.0 * 0.2, responses.get(0).getTotalDiscount());
+        assertNull(responses.get(0).getError());
+        assertNotNull(responses.get(1).getError());
+        assertEquals("DISCOUNT3", responses.get(2).getDiscountCode());
+        assertEquals(300.0 * 0.15, responses.get(2).getTotalDiscount());
+    }
+
+    @Test
+    public void testImportDiscounts() {
+        discounts.forEach(discount -> discount.setDescription(discount.getDiscountCode()));
+
+        DiscountImportResponse importResponse = discountServiceImpl.importDiscounts(TENANT, discounts, Map.of());
+
+        assertEquals(3, importResponse.getImported());
+        assertEquals(0, importResponse.getRejected());
+        verify(discountJdbcRepository).upsertAll(discounts);
+        verify(discountJdbcRepository).insertChangeEvents(eq(TENANT),
+                argThat(codes -> List.copyOf(codes).equals(List.of("DISCOUNT1", "DISCOUNT2", "DISCOUNT3"))),
+                eq(DiscountChangeType.UPSERT));
+    }
+
+    @Test
+    public void testImportDiscountsRejectsInvalidRows() {
+        discounts.forEach(discount -> discount.setDescription(discount.getDiscountCode()));
+        discounts.get(0).setDescription(null);
+        discounts.get(2).setMinimumCost(0);
+        discounts.add(discounts.get(1));
+        discounts.add(null);
+
+        DiscountImportResponse importResponse = discountServiceImpl.importDiscounts(TENANT, discounts, Map.of(4, "Row 5: invalid discountType 'X'"));
+
+        assertEquals(0, importResponse.getImported());
+        assertEquals(4, importResponse.getRejected());
+        assertEquals(List.of(
+                "Row 1: Description is required.",
+                "Row 3: Minimum cost must be supplied with ITEM_COST discount.",
+                "Row 4: Duplicate discount code DISCOUNT2.",
+                "Row 5: invalid discountType 'X'"), importResponse.getErrors());
+        verifyNoInteractions(discountJdbcRepository);
+    }
+
+    @Test
+    public void testImportDiscountsWithCodesOfOtherTenants() {
+        discounts.forEach(discount -> discount.setDescription(discount.getDiscountCode()));
+
+        DiscountImportResponse importResponse = discountServiceImpl.importDiscounts("acme", discounts, Map.of());
+
+        assertEquals(3, importResponse.getImported());
+        assertTrue(importResponse.getErrors().isEmpty());
+        assertTrue(discounts.stream().allMatch(discount -> discount.getTenantId().equals("acme")));
+        verify(discountJdbcRepository).upsertAll(discounts);
+        verify(discountJdbcRepository).insertChangeEvents(eq("acme"), any(), eq(DiscountChangeType.UPSERT));
+    }
+}
@@ -0,0 +1,51 @@
+package com.adp.interview.discountapi.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class MoneyTest {
+
+    @Test
+    public void testToMinorUnits() {
+        assertEquals(12345, Money.toMinorUnits(123.45));
+        assertEquals(10, Money.toMinorUnits(0.1));
+        assertEquals(-250, Money.toMinorUnits(-2.5));
+        // 1.005 is 1.00499999... as a double but is rounded as written
+        assertEquals(101, Money.toMinorUnits(1.005));
+        assertEquals(100, Money.toMinorUnits(1.0049));
+        assertThrows(ArithmeticException.class, () -> Money.toMinorUnits(Double.NaN));
+    }
+
+    @Test
+    public void testToBasisPoints() {
+        assertEquals(1000, Money.toBasisPoints(10));
+        assertEquals(1250, Money.toBasisPoints(12.5));
+        assertEquals(3333, Money.toBasisPoints(33.333));
+        assertEquals(10000, Money.toBasisPoints(100));
+    }
+
+    @Test
+    public void testPercentOfRoundsHalfUp() {
+        assertEquals(1500, Money.percentOf(10000, 1500));
+        assertEquals(8, Money.percentOf(15, 5000));
+        assertEquals(7, Money.percentOf(14, 5000));
+        assertEquals(-8, Money.percentOf(-15, 5000));
+        assertEquals(0, Money.percentOf(12345, 0));
+        assertEquals(12345, Money.percentOf(12345, 10000));
+    }
+
+    @Test
+    public void testScaledPercentOf() {
+        assertEquals(75000, Money.scaledPercentOf(15, 5000));
+        assertEquals(8, Money.roundScaled(75000));
+        assertEquals(7, Money.roundScaled(74999));
+        assertThrows(ArithmeticException.class, () -> Money.scaledPercentOf(Long.MAX_VALUE / 1000, 10000));
+    }
+
+    @Test
+    public void testToDecimal() {
+        assertEquals(123.45, Money.toDecimal(12345));
+        assertEquals(0.15, Money.toDecimal(15));
+    }
+}
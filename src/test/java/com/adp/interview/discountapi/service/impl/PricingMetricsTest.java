@@ -0,0 +1,94 @@
+package com.adp.interview.discountapi.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PricingMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DiscountRule rule;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        Discount discount = new Discount();
+        discount.setDiscountCode("DISCOUNT1");
+        discount.setDiscountPercentage(10);
+        discount.setDiscountType(DiscountType.ITEM_TYPE);
+        discount.setApplicableItemType(ItemType.CLOTHING);
+        rule = DiscountRule.of(discount, 0);
+    }
+
+    @Test
+    public void testRecordCalculation() {
+        PricingMetrics pricingMetrics = new PricingMetrics(meterRegistry, true, 1000, 100, 100);
+
+        pricingMetrics.recordCalculation(Discount.DEFAULT_TENANT, new PricingResult(rule, 10000, 1000, 3), 2, System.nanoTime());
+        pricingMetrics.recordCalculation(Discount.DEFAULT_TENANT, new PricingResult(rule, 10000, 1000, 5), 4, System.nanoTime());
+        pricingMetrics.recordCalculation(Discount.DEFAULT_TENANT, new PricingResult(null, 500, 0, 0), 1, System.nanoTime());
+
+        assertEquals(3, meterRegistry.get("discount.calculate").timer().count());
+        assertEquals(7, meterRegistry.get("discount.calculate.cart.lines").summary().totalAmount());
+        assertEquals(8, meterRegistry.get("discount.calculate.rules.evaluated").summary().totalAmount());
+        assertEquals(2, meterRegistry.get("discount.calculate.winner.type").tag("type", "ITEM_TYPE").counter().count());
+        assertEquals(1, meterRegistry.get("discount.calculate.winner.type").tag("type", "NONE").counter().count());
+        assertEquals(2, meterRegistry.get("discount.calculate.winner.code").tag("code", "DISCOUNT1").counter().count());
+    }
+
+    @Test
+    public void testCodeTagsAreBounded() {
+        PricingMetrics pricingMetrics = new PricingMetrics(meterRegistry, true, 1, 100, 100);
+        Discount other = new Discount();
+        other.setDiscountCode("DISCOUNT2");
+        other.setDiscountType(DiscountType.ITEM_COST);
+
+        pricingMetrics.recordCalculation(Discount.DEFAULT_TENANT, new PricingResult(rule, 10000, 1000, 1), 1, System.nanoTime());
+        pricingMetrics.recordCalculation(Discount.DEFAULT_TENANT, new PricingResult(DiscountRule.of(other, 1), 10000, 1000, 1), 1, System.nanoTime());
+
+        assertEquals(1, meterRegistry.get("discount.calculate.winner.code").tag("code", "DISCOUNT1").counter().count());
+        assertEquals(1, meterRegistry.get("discount.calculate.winner.code").tag("code", "OTHER").counter().count());
+    }
+
+    @Test
+    public void testTenantTagsAreBounded() {
+        PricingMetrics pricingMetrics = new PricingMetrics(meterRegistry, true, 1000, 2, 100);
+        PricingResult result = new PricingResult(rule, 10000, 1000, 1);
+
+        pricingMetrics.recordCalculation("acme", result, 1, System.nanoTime());
+        pricingMetrics.recordCalculation("globex", result, 1, System.nanoTime());
+        pricingMetrics.recordCalculation("acme", result, 1, System.nanoTime());
+
+        assertEquals(2, meterRegistry.get("discount.calculate").tag("tenant", "acme").timer().count());
+        assertEquals(1, meterRegistry.get("discount.calculate").tag("tenant", "OTHER").timer().count());
+        assertEquals(0, meterRegistry.get("discount.calculate").tag("tenant", Discount.DEFAULT_TENANT).timer().count());
+    }
+
+    @Test
+    public void testDisabledRecordsNothingAndDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+        PricingMetrics pricingMetrics = new PricingMetrics(meterRegistry, false, 1000, 100, 1);
+        PricingResult result = new PricingResult(rule, 10000, 1000, 3);
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10000; i++) {
+            pricingMetrics.recordCalculation(Discount.DEFAULT_TENANT, result, 2, System.nanoTime());
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(0, meterRegistry.get("discount.calculate").timer().count());
+        assertTrue(allocated < 1000, "allocated " + allocated + " bytes");
+    }
+}
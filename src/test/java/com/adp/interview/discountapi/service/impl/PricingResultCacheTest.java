@@ -0,0 +1,170 @@
+package com.adp.interview.discountapi.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.Item;
+import com.adp.interview.discountapi.entity.ItemType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PricingResultCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DiscountRuleIndex index;
+
+    private AtomicInteger calculations;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        Discount discount = new Discount();
+        discount.setDiscountCode("COUNT3");
+        discount.setDiscountPercentage(10);
+        discount.setDiscountType(DiscountType.ITEM_COUNT);
+        discount.setApplicableItemId("1");
+        discount.setItemQuantityThreshold(3);
+        index = DiscountRuleIndex.build(List.of(discount));
+        calculations = new AtomicInteger();
+    }
+
+    @Test
+    public void testReordersLinesWithDifferentIds() {
+        PricingResultCache cache = new PricingResultCache(meterRegistry, true, 100, 60000);
+
+        PricingResult first = price(cache, index, new Item("1", 10.0, ItemType.BOOK, 3), new Item("2", 5.0, ItemType.BOOK, 1));
+        PricingResult second = price(cache, index, new Item("2", 5.0, ItemType.BOOK, 1), new Item("1", 10.0, ItemType.BOOK, 3));
+
+        assertSame(first, second);
+        assertEquals(1, calculations.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", PricingResultCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", PricingResultCache.CACHE_NAME)
+                .tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    public void testKeepsOrderOfLinesWithSameId() {
+        PricingResultCache cache = new PricingResultCache(meterRegistry, true, 100, 60000);
+
+        // ITEM_COUNT looks at the first line of an item, so these carts are priced differently
+        PricingResult first = price(cache, index, new Item("1", 10.0, ItemType.BOOK, 3), new Item("1", 10.0, ItemType.BOOK, 1));
+        PricingResult second = price(cache, index, new Item("1", 10.0, ItemType.BOOK, 1), new Item("1", 10.0, ItemType.BOOK, 3));
+
+        assertEquals(300, first.getTotalDiscount());
+        assertEquals(0, second.getTotalDiscount());
+        assertEquals(2, calculations.get());
+    }
+
+    @Test
+    public void testCanonicalFormOfRegroupedCarts() {
+        Random random = new Random(5);
+        for (int round = 0; round < 100; round++) {
+            List<Item> items = new ArrayList<>();
+            int lines = 1 + random.nextInt(40);
+            for (int i = 0; i < lines; i++) {
+                items.add(new Item(Integer.toString(random.nextInt(10)), 1.0 + i, ItemType.BOOK, 1));
+            }
+            // moving whole groups of lines keeps lines with the same id in their relative order
+            Map<String, Integer> groupOrder = new HashMap<>();
+            items.forEach(item -> groupOrder.computeIfAbsent(item.getId(), id -> random.nextInt()));
+            List<Item> regrouped = new ArrayList<>(items);
+            regrouped.sort(Comparator.comparing(item -> groupOrder.get(item.getId())));
+
+            assertEquals(PricingResultCache.CartKey.of("t", PricingCart.of(items), 1L),
+                    PricingResultCache.CartKey.of("t", PricingCart.of(regrouped), 1L), "round " + round);
+        }
+    }
+
+    @Test
+    public void testNewRuleVersionInvalidates() {
+        PricingResultCache cache = new PricingResultCache(meterRegistry, true, 100, 60000);
+        Item item = new Item("1", 10.0, ItemType.BOOK, 3);
+
+        price(cache, index, item);
+        price(cache, index, item);
+        DiscountRuleIndex changed = index.without("COUNT3");
+        PricingResult result = price(cache, changed, item);
+
+        assertEquals(0, result.getTotalDiscount());
+        assertEquals(2, calculations.get());
+    }
+
+    @Test
+    public void testNewRuleVersionKeepsOtherTenants() {
+        PricingResultCache cache = new PricingResultCache(meterRegistry, true, 100, 60000);
+        Item item = new Item("1", 10.0, ItemType.BOOK, 3);
+
+        price(cache, "acme", index, item);
+        price(cache, Discount.DEFAULT_TENANT, index, item);
+        price(cache, "acme", index.without("COUNT3"), item);
+        price(cache, Discount.DEFAULT_TENANT, index, item);
+
+        assertEquals(3, calculations.get());
+    }
+
+    @Test
+    public void testBoundedByCartLines() {
+        PricingResultCache cache = new PricingResultCache(meterRegistry, true, 10, 60000);
+        Item[] large = new Item[6];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = new Item(Integer.toString(i), 10.0, ItemType.BOOK, 1);
+        }
+
+        price(cache, index, large);
+        large[0] = new Item("0", 20.0, ItemType.BOOK, 1);
+        price(cache, index, large);
+
+        // two entries of seven would exceed the ten lines allowed
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testFailedCalculationIsNotCached() {
+        PricingResultCache cache = new PricingResultCache(meterRegistry, true, 100, 60000);
+        PricingCart cart = PricingCart.of(List.of(new Item("1", 10.0, ItemType.BOOK, 3)));
+
+        assertThrows(IllegalStateException.class, () -> cache.get(Discount.DEFAULT_TENANT, cart, index, c -> {
+            throw new IllegalStateException("failed");
+        }));
+        price(cache, index, new Item("1", 10.0, ItemType.BOOK, 3));
+
+        assertEquals(1, calculations.get());
+        assertTrue(cache.contains(Discount.DEFAULT_TENANT, cart, index));
+    }
+
+    @Test
+    public void testDisabled() {
+        PricingResultCache cache = new PricingResultCache(meterRegistry, false, 100, 60000);
+        Item item = new Item("1", 10.0, ItemType.BOOK, 3);
+
+        price(cache, index, item);
+        price(cache, index, item);
+
+        assertEquals(2, calculations.get());
+        assertTrue(meterRegistry.find("cache.gets").meters().isEmpty());
+    }
+
+    private PricingResult price(PricingResultCache cache, DiscountRuleIndex index, Item... items) {
+        return price(cache, Discount.DEFAULT_TENANT, index, items);
+    }
+
+    private PricingResult price(PricingResultCache cache, String tenantId, DiscountRuleIndex index, Item... items) {
+        return cache.get(tenantId, PricingCart.of(List.of(items)), index, cart -> {
+            calculations.incrementAndGet();
+            return new DiscountEvaluator().evaluate(CartAggregate.of(cart), index);
+        });
+    }
+}
@@ -0,0 +1,173 @@
+package com.adp.interview.discountapi.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountId;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.ItemType;
+import com.adp.interview.discountapi.repository.DiscountJdbcRepository;
+import com.adp.interview.discountapi.repository.DiscountRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class RedemptionCounterTest {
+
+    @Mock
+    private DiscountRepository discountRepository;
+
+    @Mock
+    private DiscountJdbcRepository discountJdbcRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private DiscountRuleCache discountRuleCache;
+
+    private RedemptionCounter redemptionCounter;
+
+    @BeforeEach
+    public void setup() {
+        discountRuleCache = new DiscountRuleCache(discountRepository, new SimpleMeterRegistry(), 100, 60000);
+        redemptionCounter = new RedemptionCounter(discountRuleCache, discountJdbcRepository, transactionTemplate);
+    }
+
+    @Test
+    public void testConcurrentRedemptionsStopAtLimit() throws Exception {
+        when(discountRepository.findByTenantId(Discount.DEFAULT_TENANT)).thenReturn(List.of(discount("HOT", 100, 40)));
+        DiscountRule rule = discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("HOT");
+        AtomicInteger redeemed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 50; i++) {
+                        if (redemptionCounter.redeem(Discount.DEFAULT_TENANT, rule)) {
+                            redeemed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(60, redeemed.get());
+        assertEquals(100, redemptionCounter.getRedemptions(Discount.DEFAULT_TENANT, "HOT"));
+        assertNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("HOT"));
+    }
+
+    @Test
+    public void testFlushAddsOnlyNewRedemptions() {
+        when(discountRepository.findByTenantId(Discount.DEFAULT_TENANT)).thenReturn(List.of(discount("CODE", 0, 0)));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(discountJdbcRepository.findCappedRedemptionCounts()).thenReturn(Map.of());
+        DiscountRule rule = discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("CODE");
+
+        redemptionCounter.redeem(Discount.DEFAULT_TENANT, rule);
+        redemptionCounter.redeem(Discount.DEFAULT_TENANT, rule);
+        redemptionCounter.flush();
+        redemptionCounter.redeem(Discount.DEFAULT_TENANT, rule);
+        redemptionCounter.flush();
+
+        verify(discountJdbcRepository).addRedemptions(Map.of(new DiscountId(Discount.DEFAULT_TENANT, "CODE"), 2L));
+        verify(discountJdbcRepository).addRedemptions(Map.of(new DiscountId(Discount.DEFAULT_TENANT, "CODE"), 1L));
+    }
+
+    @Test
+    public void testFlushSeesOtherNodesRedemptions() {
+        when(discountRepository.findByTenantId(Discount.DEFAULT_TENANT)).thenReturn(List.of(discount("SHARED", 10, 2)));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        DiscountRule rule = discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("SHARED");
+        redemptionCounter.redeem(Discount.DEFAULT_TENANT, rule);
+        // this node's redemption plus seven from other nodes
+        when(discountJdbcRepository.findCappedRedemptionCounts()).thenReturn(Map.of(new DiscountId(Discount.DEFAULT_TENANT, "SHARED"), 10L));
+
+        redemptionCounter.flush();
+
+        assertEquals(10, redemptionCounter.getRedemptions(Discount.DEFAULT_TENANT, "SHARED"));
+        assertNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("SHARED"));
+    }
+
+    @Test
+    public void testTenantsCountTheirOwnRedemptions() {
+        Discount acme = discount("SALE", 1, 0);
+        acme.setTenantId("acme");
+        when(discountRepository.findByTenantId(Discount.DEFAULT_TENANT)).thenReturn(List.of(discount("SALE", 1, 0)));
+        when(discountRepository.findByTenantId("acme")).thenReturn(List.of(acme));
+        DiscountRule houseRule = discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("SALE");
+        DiscountRule acmeRule = discountRuleCache.current("acme").getRule("SALE");
+
+        assertTrue(redemptionCounter.redeem("acme", acmeRule));
+        assertFalse(redemptionCounter.redeem("acme", acmeRule));
+
+        assertEquals(1, redemptionCounter.getRedemptions("acme", "SALE"));
+        assertEquals(0, redemptionCounter.getRedemptions(Discount.DEFAULT_TENANT, "SALE"));
+        assertNull(discountRuleCache.current("acme").getRule("SALE"));
+        assertNotNull(discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("SALE"));
+        assertTrue(redemptionCounter.redeem(Discount.DEFAULT_TENANT, houseRule));
+    }
+
+    @Test
+    public void testDeletedCodeIsForgotten() {
+        when(discountRepository.findByTenantId(Discount.DEFAULT_TENANT)).thenReturn(List.of(discount("GONE", 0, 0)));
+        DiscountRule rule = discountRuleCache.current(Discount.DEFAULT_TENANT).getRule("GONE");
+        redemptionCounter.redeem(Discount.DEFAULT_TENANT, rule);
+
+        discountRuleCache.onDeleted(Discount.DEFAULT_TENANT, "GONE");
+        redemptionCounter.close();
+
+        assertEquals(0, redemptionCounter.getRedemptions(Discount.DEFAULT_TENANT, "GONE"));
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    @Test
+    public void testNothingToWriteOnClose() {
+        redemptionCounter.close();
+
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    private static Discount discount(String code, int maxRedemptions, long redemptionCount) {
+        Discount discount = new Discount();
+        discount.setDiscountCode(code);
+        discount.setDiscountPercentage(10);
+        discount.setDiscountType(DiscountType.ITEM_TYPE);
+        discount.setApplicableItemType(ItemType.BOOK);
+        discount.setMaxRedemptions(maxRedemptions > 0 ? maxRedemptions : null);
+        discount.setRedemptionCount(redemptionCount);
+        return discount;
+    }
+}
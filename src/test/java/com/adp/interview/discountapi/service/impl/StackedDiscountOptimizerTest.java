@@ -0,0 +1,282 @@
+package com.adp.interview.discountapi.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.adp.interview.discountapi.entity.Discount;
+import com.adp.interview.discountapi.entity.DiscountType;
+import com.adp.interview.discountapi.entity.Item;
+import com.adp.interview.discountapi.entity.ItemType;
+import com.adp.interview.discountapi.entity.LineDiscount;
+import com.adp.interview.discountapi.entity.StackedDiscountResponse;
+
+/**
+ * Tests {@link StackedDiscountOptimizer}, including a differential test against trying every
+ * assignment of discounts to lines.
+ */
+public class StackedDiscountOptimizerTest {
+
+    private final StackedDiscountOptimizer optimizer = new StackedDiscountOptimizer();
+
+    @Test
+    public void testStacksBestDiscountPerLine() {
+        List<Item> items = List.of(new Item("1", 100.0, ItemType.BOOK, 1),
+                new Item("2", 200.0, ItemType.ELECTRONICS, 1));
+        List<Discount> discounts = List.of(
+                itemType("BOOK10", 10, ItemType.BOOK, true, null),
+                itemType("TECH5", 5, ItemType.ELECTRONICS, true, null),
+                itemCost("COST8", 8, 150.0, true, null));
+
+        StackedDiscountResponse response = optimize(items, discounts);
+
+        assertEquals(List.of("BOOK10", "COST8"), response.getDiscountCodes());
+        assertEquals(26.0, response.getTotalDiscount());
+        assertEquals(274.0, response.getTotalCostAfterDiscount());
+        assertTrue(response.isOptimal());
+    }
+
+    @Test
+    public void testExclusiveGroupUsesOneCode() {
+        // per line, A wins line 1 and B wins lines 2 and 3, but only one of them may be used
+        List<Item> items = List.of(new Item("1", 100.0, ItemType.BOOK, 1),
+                new Item("2", 100.0, ItemType.CLOTHING, 1),
+                new Item("3", 100.0, ItemType.CLOTHING, 1));
+        List<Discount> discounts = List.of(
+                itemType("A", 30, ItemType.BOOK, true, "SEASONAL"),
+                itemType("B", 20, ItemType.CLOTHING, true, "SEASONAL"),
+                itemType("C", 15, ItemType.CLOTHING, true, null),
+                itemType("D", 5, ItemType.BOOK, true, null));
+
+        StackedDiscountResponse response = optimize(items, discounts);
+
+        // A + C + C = 60 beats D + B + B = 45
+        assertEquals(List.of("A", "C"), response.getDiscountCodes());
+        assertEquals(60.0, response.getTotalDiscount());
+        assertTrue(response.isOptimal());
+    }
+
+    @Test
+    public void testNonStackableDiscountAppliesAlone() {
+        List<Item> items = List.of(new Item("1", 100.0, ItemType.BOOK, 1),
+                new Item("2", 100.0, ItemType.BOOK, 1));
+        List<Discount> discounts = List.of(
+                itemType("ALONE", 25, ItemType.BOOK, false, null),
+                itemCost("STACK", 20, 50.0, true, null));
+
+        StackedDiscountResponse response = optimize(items, discounts);
+
+        assertEquals(List.of("ALONE"), response.getDiscountCodes());
+        assertEquals(50.0, response.getTotalDiscount());
+        assertEquals(2, response.getLines().size());
+    }
+
+    @Test
+    public void testPriorityBreaksTies() {
+        List<Item> items = List.of(new Item("1", 100.0, ItemType.BOOK, 1));
+        Discount low = itemType("LOW", 10, ItemType.BOOK, true, null);
+        Discount high = itemCost("HIGH", 10, 50.0, true, null);
+        high.setPriority(1);
+
+        assertEquals(List.of("HIGH"), optimize(items, List.of(low, high)).getDiscountCodes());
+    }
+
+    @Test
+    public void testReturnsFeasibleResultWhenBudgetRunsOut() {
+        List<Item> items = new ArrayList<>();
+        List<Discount> discounts = new ArrayList<>();
+        ItemType[] types = ItemType.values();
+        for (int i = 0; i < types.length; i++) {
+            items.add(new Item(Integer.toString(i), 100.0, types[i], 1));
+            discounts.add(itemType("G" + i, 10 + i, types[i], true, "GROUP"));
+            discounts.add(itemType("H" + i, 20 - i, types[i], true, "OTHER"));
+        }
+        ReflectionTestUtils.setField(optimizer, "maxNodes", 1);
+
+        StackedDiscountResponse response = optimize(items, discounts);
+
+        assertFalse(response.isOptimal());
+        assertTrue(response.getTotalDiscount() > 0);
+        assertFeasible(response, discounts);
+    }
+
+    @Test
+    public void testBudgetCoversCollectingCandidates() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            items.add(new Item(Integer.toString(i), 100.0, ItemType.BOOK, 1));
+        }
+        List<Discount> discounts = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            discounts.add(itemCost("C" + i, 1 + i % 30, i % 90, true, i % 2 == 0 ? null : "G" + i % 5));
+        }
+        ReflectionTestUtils.setField(optimizer, "timeBudgetMillis", 0L);
+
+        StackedDiscountResponse response = optimize(items, discounts);
+
+        assertFalse(response.isOptimal());
+        assertFeasible(response, discounts);
+    }
+
+    @Test
+    public void testMatchesExhaustiveSearchOnRandomCarts() {
+        Random random = new Random(42);
+        for (int round = 0; round < 300; round++) {
+            List<Discount> discounts = randomDiscounts(random, 1 + random.nextInt(8));
+            List<Item> items = randomItems(random, random.nextInt(5));
+
+            StackedDiscountResponse response = optimize(items, discounts);
+
+            assertEquals(Money.toDecimal(Money.roundScaled(referenceAmount(items, discounts))),
+                    response.getTotalDiscount(), "round " + round);
+            assertTrue(response.isOptimal());
+            assertFeasible(response, discounts);
+        }
+    }
+
+    private StackedDiscountResponse optimize(List<Item> items, List<Discount> discounts) {
+        return optimizer.optimize(PricingCart.of(items), DiscountRuleIndex.build(discounts)).toResponse();
+    }
+
+    private static void assertFeasible(StackedDiscountResponse response, List<Discount> discounts) {
+        Map<String, String> groupCodes = new HashMap<>();
+        for (String code : response.getDiscountCodes()) {
+            Discount discount = discounts.stream().filter(d -> d.getDiscountCode().equals(code)).findFirst().orElseThrow();
+            if (!discount.isStackable()) {
+                assertEquals(1, response.getDiscountCodes().size());
+            }
+            if (discount.getExclusiveGroup() != null) {
+                assertNull(groupCodes.put(discount.getExclusiveGroup(), code));
+            }
+        }
+        for (LineDiscount line : response.getLines()) {
+            assertTrue(line.getDiscountCode() == null || response.getDiscountCodes().contains(line.getDiscountCode()));
+        }
+    }
+
+    /**
+     * Best exact total over every non-stackable discount on its own and every assignment of
+     * stackable discounts to lines that uses at most one code per exclusive group.
+     */
+    private static long referenceAmount(List<Item> items, List<Discount> discounts) {
+        long best = 0L;
+        for (Discount discount : discounts) {
+            if (!discount.isStackable()) {
+                long amount = 0L;
+                for (int line = 0; line < items.size(); line++) {
+                    amount += amount(items, line, discount);
+                }
+                best = Math.max(best, amount);
+            }
+        }
+        return Math.max(best, assign(items, discounts, 0, new HashMap<>()));
+    }
+
+    private static long assign(List<Item> items, List<Discount> discounts, int line, Map<String, String> groups) {
+        if (line == items.size()) {
+            return 0L;
+        }
+        long best = assign(items, discounts, line + 1, groups);
+        for (Discount discount : discounts) {
+            long amount = amount(items, line, discount);
+            if (!discount.isStackable() || amount == 0) {
+                continue;
+            }
+            String group = discount.getExclusiveGroup();
+            String used = group != null ? groups.get(group) : null;
+            if (used != null && !used.equals(discount.getDiscountCode())) {
+                continue;
+            }
+            if (group != null) {
+                groups.put(group, discount.getDiscountCode());
+            }
+            best = Math.max(best, amount + assign(items, discounts, line + 1, groups));
+            if (group != null && used == null) {
+                groups.remove(group);
+            }
+        }
+        return best;
+    }
+
+    private static long amount(List<Item> items, int line, Discount discount) {
+        Item item = items.get(line);
+        boolean applies = switch (discount.getDiscountType()) {
+            case ITEM_TYPE -> item.getType() == discount.getApplicableItemType();
+            case ITEM_COUNT -> item.getId().equals(discount.getApplicableItemId())
+                    && item.getQuantity() >= discount.getItemQuantityThreshold()
+                    && items.subList(0, line).stream().noneMatch(other -> other.getId().equals(item.getId()));
+            case ITEM_COST -> item.getCost() > discount.getMinimumCost();
+        };
+        if (!applies) {
+            return 0L;
+        }
+        return Money.scaledPercentOf(Money.toMinorUnits(item.getCost()) * item.getQuantity(),
+                Money.toBasisPoints(discount.getDiscountPercentage()));
+    }
+
+    private static List<Discount> randomDiscounts(Random random, int count) {
+        List<Discount> discounts = new ArrayList<>();
+        Set<String> codes = new HashSet<>();
+        String[] groups = {null, "G1", "G2"};
+        while (discounts.size() < count) {
+            String code = "D" + random.nextInt(1000);
+            if (!codes.add(code)) {
+                continue;
+            }
+            boolean stackable = random.nextInt(4) > 0;
+            String group = stackable ? groups[random.nextInt(groups.length)] : null;
+            int percentage = 1 + random.nextInt(50);
+            Discount discount = switch (random.nextInt(3)) {
+                case 0 -> itemType(code, percentage, ItemType.values()[random.nextInt(ItemType.values().length)],
+                        stackable, group);
+                case 1 -> itemCost(code, percentage, 10.0 * random.nextInt(10), stackable, group);
+                default -> {
+                    Discount itemCount = itemType(code, percentage, null, stackable, group);
+                    itemCount.setDiscountType(DiscountType.ITEM_COUNT);
+                    itemCount.setApplicableItemId(Integer.toString(random.nextInt(4)));
+                    itemCount.setItemQuantityThreshold(1 + random.nextInt(3));
+                    yield itemCount;
+                }
+            };
+            discount.setPriority(random.nextInt(2));
+            discounts.add(discount);
+        }
+        return discounts;
+    }
+
+    private static List<Item> randomItems(Random random, int count) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(new Item(Integer.toString(random.nextInt(4)), 1.0 + random.nextInt(100),
+                    ItemType.values()[random.nextInt(ItemType.values().length)], 1 + random.nextInt(4)));
+        }
+        return items;
+    }
+
+    private static Discount itemType(String code, double percentage, ItemType itemType, boolean stackable, String group) {
+        Discount discount = new Discount();
+        discount.setDiscountCode(code);
+        discount.setDiscountPercentage(percentage);
+        discount.setDiscountType(DiscountType.ITEM_TYPE);
+        discount.setApplicableItemType(itemType);
+        discount.setStackable(stackable);
+        discount.setExclusiveGroup(group);
+        return discount;
+    }
+
+    private static Discount itemCost(String code, double percentage, double minimumCost, boolean stackable, String group) {
+        Discount discount = itemType(code, percentage, null, stackable, group);
+        discount.setDiscountType(DiscountType.ITEM_COST);
+        discount.setMinimumCost(minimumCost);
+        return discount;
+    }
+}